@@ -0,0 +1,33 @@
+package com.urbancollection.ecommerce.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * BenchmarkRunner
+ *
+ * Punto de entrada del benchmarks.jar.
+ * Es lo mismo que org.openjdk.jmh.Main, pero por defecto deja los resultados
+ * en JSON (target/jmh-result.json) para poder comparar entre releases.
+ *
+ * Acepta los mismos argumentos de JMH, por ejemplo:
+ *   java -jar benchmarks.jar MapperBenchmark -f 1 -rff otro.json
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cli = new CommandLineOptions(args);
+
+        Options opts = new OptionsBuilder()
+                .parent(cli)
+                // Si no me pasan -rf / -rff, uso JSON en target/
+                .resultFormat(cli.getResultFormat().orElse(ResultFormatType.JSON))
+                .result(cli.getResult().orElse("target/jmh-result.json"))
+                .build();
+
+        new Runner(opts).run();
+    }
+}
@@ -0,0 +1,55 @@
+package com.urbancollection.ecommerce.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.urbancollection.ecommerce.infrastructure.search.BuscadorDeProductos;
+
+/**
+ * BusquedaBenchmark
+ *
+ * Latencia de /api/productos/search sin HTTP: BuscadorDeProductos.buscar sobre un
+ * catálogo sintético. Se mide en SampleTime para ver los percentiles (p99).
+ *
+ * Las consultas cubren los cuatro caminos: término exacto poco común, dos términos
+ * (intersección), prefijo y typo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BusquedaBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int productos;
+
+    @Param({"m1234", "sudadera lana", "bermu", "chaqeuta"})
+    public String consulta;
+
+    private BuscadorDeProductos buscador;
+
+    @Setup
+    public void setUp() {
+        buscador = new BuscadorDeProductos(Fixtures.repositorioDeProductos(Fixtures.catalogo(productos)));
+        buscador.recargar();
+    }
+
+    @Benchmark
+    public List<BuscadorDeProductos.Resultado> buscar() {
+        return buscador.buscar(consulta, 20);
+    }
+}
@@ -0,0 +1,196 @@
+package com.urbancollection.ecommerce.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.urbancollection.ecommerce.application.service.CuponService;
+import com.urbancollection.ecommerce.application.service.ProductoService;
+import com.urbancollection.ecommerce.application.service.UsuarioService;
+import com.urbancollection.ecommerce.domain.entity.catalogo.Cupon;
+import com.urbancollection.ecommerce.domain.entity.catalogo.Producto;
+import com.urbancollection.ecommerce.domain.entity.logistica.Direccion;
+import com.urbancollection.ecommerce.domain.entity.usuarios.Usuario;
+import com.urbancollection.ecommerce.domain.entity.ventas.ItemPedido;
+import com.urbancollection.ecommerce.domain.entity.ventas.Pedido;
+import com.urbancollection.ecommerce.domain.enums.TipoDescuento;
+import com.urbancollection.ecommerce.domain.repository.CuponRepository;
+import com.urbancollection.ecommerce.domain.repository.DireccionRepository;
+import com.urbancollection.ecommerce.domain.repository.PedidoRepository;
+import com.urbancollection.ecommerce.domain.repository.ProductoRepository;
+import com.urbancollection.ecommerce.domain.repository.UsuarioRepository;
+import com.urbancollection.ecommerce.infrastructure.client.ICuponApiClient;
+import com.urbancollection.ecommerce.infrastructure.client.IPedidoApiClient;
+import com.urbancollection.ecommerce.infrastructure.client.IProductoApiClient;
+import com.urbancollection.ecommerce.infrastructure.client.IUsuarioApiClient;
+import com.urbancollection.ecommerce.infrastructure.client.Impl.CuponApiClient;
+import com.urbancollection.ecommerce.infrastructure.client.Impl.PedidoApiClient;
+import com.urbancollection.ecommerce.infrastructure.client.Impl.ProductoApiClient;
+import com.urbancollection.ecommerce.infrastructure.client.Impl.UsuarioApiClient;
+import com.urbancollection.ecommerce.infrastructure.client.local.CuponLocalClient;
+import com.urbancollection.ecommerce.infrastructure.client.local.PedidoLocalClient;
+import com.urbancollection.ecommerce.infrastructure.client.local.ProductoLocalClient;
+import com.urbancollection.ecommerce.infrastructure.client.local.UsuarioLocalClient;
+
+/**
+ * CheckoutClientesBenchmark
+ *
+ * Lo que paga un checkout en llamadas a los ApiClients: el usuario, cada
+ * producto, el cupón y guardar el pedido (lo mismo que pide PedidoService).
+ *
+ * - local: los *LocalClient contra repositorios en memoria (api.client.modo=local).
+ * - http: los *ApiClient con RestTemplate contra un servidor HTTP en loopback
+ *   que contesta JSON desde esos mismos repositorios. Es el piso de lo que
+ *   cuesta llamarse a sí mismo por HTTP: Tomcat y los filtros de Spring suman más.
+ *
+ * Los repositorios son en memoria para medir solo el camino de los clientes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CheckoutClientesBenchmark {
+
+    @Param({"local", "http"})
+    public String modo;
+
+    @Param({"3", "10"})
+    public int items;
+
+    private IUsuarioApiClient usuarios;
+    private IProductoApiClient productos;
+    private ICuponApiClient cupones;
+    private IPedidoApiClient pedidos;
+
+    private HttpServer servidor;
+    private ExecutorService hilos;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Map<Long, Object> usuariosEnBd = new ConcurrentHashMap<>();
+        Map<Long, Object> productosEnBd = new ConcurrentHashMap<>();
+        Map<Long, Object> cuponesEnBd = new ConcurrentHashMap<>();
+        Map<Long, Object> pedidosEnBd = new ConcurrentHashMap<>();
+        Usuario usuario = Fixtures.usuarios(1).get(0);
+        usuariosEnBd.put(usuario.getId(), usuario);
+        for (long id = 1; id <= 10; id++) productosEnBd.put(id, Fixtures.producto(id));
+        cuponesEnBd.put(1L, Fixtures.cupon(TipoDescuento.PORCENTAJE));
+
+        UsuarioRepository usuarioRepository = Fixtures.repositorio(UsuarioRepository.class, usuariosEnBd);
+        ProductoRepository productoRepository = Fixtures.repositorio(ProductoRepository.class, productosEnBd);
+        CuponRepository cuponRepository = Fixtures.repositorio(CuponRepository.class, cuponesEnBd);
+        PedidoRepository pedidoRepository = Fixtures.repositorio(PedidoRepository.class, pedidosEnBd);
+
+        if (modo.equals("local")) {
+            DireccionRepository direccionRepository = Fixtures.repositorio(DireccionRepository.class, new ConcurrentHashMap<>());
+            usuarios = new UsuarioLocalClient(usuarioRepository, new UsuarioService(usuarioRepository, direccionRepository));
+            productos = new ProductoLocalClient(productoRepository, new ProductoService(productoRepository));
+            cupones = new CuponLocalClient(cuponRepository, new CuponService(cuponRepository));
+            pedidos = new PedidoLocalClient(pedidoRepository);
+            return;
+        }
+
+        ObjectMapper json = Jackson2ObjectMapperBuilder.json().build();
+        // TCP_NODELAY como Tomcat; sin esto Nagle suma ~40 ms por llamada
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        // un pool de hilos como el de Tomcat
+        hilos = Executors.newFixedThreadPool(8);
+        servidor.setExecutor(hilos);
+        servidor.createContext("/api/usuarios/", ex -> responder(ex, json, usuarioRepository.findById(id(ex))));
+        servidor.createContext("/api/productos/", ex -> responder(ex, json, productoRepository.findById(id(ex))));
+        servidor.createContext("/api/cupones/", ex -> responder(ex, json, cuponRepository.findById(id(ex))));
+        servidor.createContext("/api/pedidos", ex -> {
+            Pedido pedido = json.readValue(ex.getRequestBody().readAllBytes(), Pedido.class);
+            responder(ex, json, pedidoRepository.save(pedido));
+        });
+        servidor.start();
+
+        RestTemplate restTemplate = new RestTemplate();
+        String baseUrl = "http://127.0.0.1:" + servidor.getAddress().getPort();
+        usuarios = new UsuarioApiClient(restTemplate, baseUrl);
+        productos = new ProductoApiClient(restTemplate, baseUrl);
+        cupones = new CuponApiClient(restTemplate, baseUrl);
+        pedidos = new PedidoApiClient(restTemplate, baseUrl);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (servidor != null) {
+            servidor.stop(0);
+            hilos.shutdownNow();
+        }
+    }
+
+    private static Long id(HttpExchange ex) {
+        String ruta = ex.getRequestURI().getPath();
+        return Long.valueOf(ruta.substring(ruta.lastIndexOf('/') + 1));
+    }
+
+    private static void responder(HttpExchange ex, ObjectMapper json, Object cuerpo) throws IOException {
+        if (cuerpo == null) {
+            ex.sendResponseHeaders(404, -1);
+            ex.close();
+            return;
+        }
+        byte[] bytes = json.writeValueAsBytes(cuerpo);
+        ex.getResponseHeaders().set("Content-Type", "application/json");
+        ex.sendResponseHeaders(200, bytes.length);
+        try (OutputStream salida = ex.getResponseBody()) {
+            salida.write(bytes);
+        }
+    }
+
+    @Benchmark
+    public Pedido checkout() {
+        Usuario usuario = usuarios.buscarPorId(1L).orElseThrow();
+        Pedido pedido = new Pedido();
+        pedido.setUsuario(usuario);
+        Direccion direccion = new Direccion();
+        direccion.setId(1L);
+        pedido.setDireccionEntrega(direccion);
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (long id = 1; id <= items; id++) {
+            Producto producto = productos.buscarPorId(id).orElseThrow();
+            ItemPedido item = new ItemPedido();
+            // sin item.setPedido(pedido): las entidades no tienen anotaciones de Jackson y el ciclo no se serializa
+            item.setProducto(producto);
+            item.setCantidad(1);
+            item.setPrecioUnitario(producto.getPrecio());
+            pedido.agregarItem(item);
+            subtotal = subtotal.add(producto.getPrecio());
+        }
+        Cupon cupon = cupones.buscarPorId(1L).orElseThrow();
+        pedido.setCupon(cupon);
+        pedido.setSubtotal(subtotal);
+        pedido.setTotal(subtotal);
+        return pedidos.crear(pedido);
+    }
+}
@@ -0,0 +1,163 @@
+package com.urbancollection.ecommerce.benchmarks;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.urbancollection.ecommerce.domain.entity.ventas.Pedido;
+import com.urbancollection.ecommerce.domain.entity.ventas.TransaccionPago;
+import com.urbancollection.ecommerce.domain.enums.EstadoDePedido;
+import com.urbancollection.ecommerce.domain.enums.MetodoDePago;
+import com.urbancollection.ecommerce.infrastructure.estados.ColumnaDeEstado;
+import com.urbancollection.ecommerce.infrastructure.estados.EstadosDePedido;
+import com.urbancollection.ecommerce.infrastructure.pagos.ConfirmacionDePagos;
+import com.urbancollection.ecommerce.persistence.jpa.spring.PedidoJpaRepository;
+import com.urbancollection.ecommerce.persistence.jpa.spring.PedidoParaPago;
+import com.urbancollection.ecommerce.persistence.jpa.spring.TransaccionPagoJpaRepository;
+
+/**
+ * ConfirmacionDePagosBenchmark
+ *
+ * Confirmaciones de pago por segundo con tráfico lleno de reintentos, como el
+ * de una pasarela: cada pedido llega "repetidos" veces seguidas con la misma clave.
+ *
+ * La BD es falsa: cada llamada a un repositorio o al cambio de estado espera
+ * "latenciaBdMicros" (lo que tardaría un round trip). Así se ve cuánto trabajo
+ * le llega a la BD:
+ * - conClave: los repetidos se responden desde memoria; solo el primero de cada
+ *   pedido paga las idas a la BD.
+ * - sinClave: sin clave de idempotencia cada repetido lee el pedido de la BD
+ *   (y recibe YA_PAGADO), que es lo que pasaba antes.
+ *
+ * Con repetidos = 1 (sin reintentos) las dos deberían dar parecido.
+ *
+ * Al final de cada iteración se imprimen las llamadas a la BD por confirmación,
+ * que es lo que importa en una ráfaga: sinClave puede dar más ops/ms cuando los
+ * repetidos llegan todos juntos (cada hilo va a la BD en paralelo en vez de
+ * esperar al primero), pero a costa de multiplicar la carga sobre la misma fila.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class ConfirmacionDePagosBenchmark {
+
+    private static final BigDecimal TOTAL = new BigDecimal("107.98");
+
+    @Param({"1", "10", "100"})
+    public int repetidos;
+
+    @Param({"200"})
+    public long latenciaBdMicros;
+
+    private ConfirmacionDePagos confirmacion;
+    private final AtomicLong secuencia = new AtomicLong();
+    private final AtomicLong llamadasBd = new AtomicLong();
+    private long secuenciaAlEmpezar;
+    private final Set<Long> pagados = ConcurrentHashMap.newKeySet();
+
+    @Setup
+    public void setUp() {
+        PedidoJpaRepository pedidos = (PedidoJpaRepository) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[] {PedidoJpaRepository.class}, (proxy, metodo, args) -> {
+                    switch (metodo.getName()) {
+                        case "findParaPago": {
+                            bd();
+                            long id = (Long) args[0];
+                            return Optional.of(new PedidoParaPago(id, TOTAL,
+                                    pagados.contains(id) ? EstadoDePedido.PAGADO : EstadoDePedido.PENDIENTE_PAGO));
+                        }
+                        case "getReferenceById":
+                            return new Pedido();
+                        default:
+                            throw new UnsupportedOperationException(metodo.getName());
+                    }
+                });
+        TransaccionPagoJpaRepository pagos = (TransaccionPagoJpaRepository) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[] {TransaccionPagoJpaRepository.class}, (proxy, metodo, args) -> {
+                    switch (metodo.getName()) {
+                        case "save":
+                            bd();
+                            return args[0];
+                        case "findFirstByPedido_IdAndReferencia":
+                            bd();
+                            return Optional.<TransaccionPago>empty();
+                        default:
+                            throw new UnsupportedOperationException(metodo.getName());
+                    }
+                });
+        // UPDATE condicional: solo el primero pasa el pedido a PAGADO
+        EstadosDePedido estados = new EstadosDePedido(null, "pedido", "id",
+                new ColumnaDeEstado<>("estado", EstadoDePedido.class, Enum::name), 3) {
+            @Override
+            public Cambio cambiar(long pedidoId, EstadoDePedido nuevo) {
+                bd();
+                return pagados.add(pedidoId)
+                        ? new Cambio(Resultado.CAMBIADO, EstadoDePedido.PENDIENTE_PAGO, nuevo)
+                        : new Cambio(Resultado.SIN_CAMBIOS, nuevo, nuevo);
+            }
+        };
+        TransactionTemplate escritura = new TransactionTemplate() {
+            @Override
+            public <T> T execute(TransactionCallback<T> action) throws TransactionException {
+                return action.doInTransaction(null);
+            }
+        };
+        confirmacion = new ConfirmacionDePagos(pedidos, pagos, estados, escritura, 600, 10_000);
+    }
+
+    @Setup(Level.Iteration)
+    public void empezarIteracion() {
+        llamadasBd.set(0);
+        secuenciaAlEmpezar = secuencia.get();
+    }
+
+    @TearDown(Level.Iteration)
+    public void terminarIteracion() {
+        long confirmaciones = Math.max(1, secuencia.get() - secuenciaAlEmpezar);
+        System.out.printf("%n  llamadas a la BD por confirmación: %.3f%n", (double) llamadasBd.get() / confirmaciones);
+    }
+
+    private void bd() {
+        llamadasBd.incrementAndGet();
+        LockSupport.parkNanos(latenciaBdMicros * 1000);
+    }
+
+    @Benchmark
+    public ConfirmacionDePagos.Respuesta conClave() {
+        long pedido = secuencia.getAndIncrement() / repetidos;
+        return confirmacion.confirmar(pedido, MetodoDePago.TARJETA, TOTAL, "pago-" + pedido);
+    }
+
+    @Benchmark
+    public ConfirmacionDePagos.Respuesta sinClave() {
+        long pedido = secuencia.getAndIncrement() / repetidos;
+        return confirmacion.confirmar(pedido, MetodoDePago.TARJETA, TOTAL, null);
+    }
+}
@@ -0,0 +1,55 @@
+package com.urbancollection.ecommerce.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.urbancollection.ecommerce.infrastructure.stock.ContadorCaliente;
+
+/**
+ * ContadorCalienteBenchmark
+ *
+ * Descuentos por segundo sobre un mismo producto "caliente" con 8 hilos a la vez,
+ * variando la cantidad de celdas. Con 1 celda todos los hilos pelean por el mismo
+ * CAS; con más celdas cada hilo trabaja en la suya y el total debería crecer
+ * con las celdas hasta llegar a la cantidad de núcleos.
+ *
+ * Para ver la curva hay que correrlo en una máquina con al menos 8 núcleos,
+ * por ejemplo: java -jar target/benchmarks.jar ContadorCaliente -t 8
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class ContadorCalienteBenchmark {
+
+    @Param({"1", "2", "4", "8", "16"})
+    public int franjas;
+
+    private ContadorCaliente contador;
+
+    @Setup
+    public void setUp() {
+        // Stock de sobra para que nunca se agote durante la medición.
+        contador = new ContadorCaliente(franjas, Long.MAX_VALUE / 2);
+    }
+
+    @Benchmark
+    public boolean tomarUno() {
+        return contador.tomar(1);
+    }
+}
@@ -0,0 +1,102 @@
+package com.urbancollection.ecommerce.benchmarks;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.urbancollection.ecommerce.domain.entity.catalogo.Cupon;
+import com.urbancollection.ecommerce.domain.entity.ventas.ItemPedido;
+import com.urbancollection.ecommerce.domain.enums.TipoDescuento;
+import com.urbancollection.ecommerce.infrastructure.pricing.MotorDePrecios;
+
+/**
+ * DescuentoBenchmark
+ *
+ * Mide el cálculo de subtotal + descuento tal como se hace hoy dentro de
+ * PedidoWebController.crear (suma de líneas con BigDecimal y el switch
+ * PORCENTAJE / MONTO_FIJO con tope y límite al subtotal).
+ *
+ * Como esa lógica estaba metida dentro del controlador, aquí va copiada tal cual
+ * para poder medirla sin base de datos, y se compara contra MotorDePrecios
+ * (centavos en long, regla del cupón ya compilada).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DescuentoBenchmark {
+
+    @Param({"1", "10", "50"})
+    public int items;
+
+    @Param({"PORCENTAJE", "MONTO_FIJO"})
+    public TipoDescuento tipo;
+
+    private List<ItemPedido> lineas;
+    private Cupon cupon;
+    private MotorDePrecios motor;
+    private MotorDePrecios.Regla regla;
+
+    @Setup
+    public void setUp() {
+        lineas = Fixtures.pedido(items).getItems();
+        cupon = Fixtures.cupon(tipo);
+        motor = new MotorDePrecios();
+        regla = MotorDePrecios.compilar(cupon);
+    }
+
+    @Benchmark
+    public BigDecimal controladorActual() {
+        // Subtotal = suma de precio * cantidad por línea
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (ItemPedido item : lineas) {
+            subtotal = subtotal.add(item.getProducto().getPrecio().multiply(new BigDecimal(item.getCantidad())));
+        }
+
+        BigDecimal descuento = BigDecimal.ZERO;
+        if (cupon.isActivo()) {
+            switch (cupon.getTipo()) {
+                case PORCENTAJE:
+                    descuento = subtotal.multiply(cupon.getValorDescuento())
+                            .divide(new BigDecimal("100"), 2, RoundingMode.HALF_UP);
+                    if (cupon.getTopeDescuento() != null && descuento.compareTo(cupon.getTopeDescuento()) > 0) {
+                        descuento = cupon.getTopeDescuento();
+                    }
+                    break;
+                case MONTO_FIJO:
+                    descuento = cupon.getValorDescuento();
+                    if (descuento.compareTo(subtotal) > 0) {
+                        descuento = subtotal;
+                    }
+                    break;
+            }
+        }
+
+        // Total = subtotal - descuento
+        return subtotal.subtract(descuento);
+    }
+
+    @Benchmark
+    public BigDecimal motorDePrecios() {
+        MotorDePrecios.Calculo calculo = motor.nuevoCalculo();
+        for (ItemPedido item : lineas) {
+            calculo.agregarLinea(item.getProducto().getPrecio(), item.getCantidad());
+        }
+        return motor.cerrar(calculo, regla, BigDecimal.ZERO).getTotal();
+    }
+}
@@ -0,0 +1,184 @@
+package com.urbancollection.ecommerce.benchmarks;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.urbancollection.ecommerce.domain.entity.catalogo.Cupon;
+import com.urbancollection.ecommerce.domain.entity.catalogo.Producto;
+import com.urbancollection.ecommerce.domain.entity.logistica.Envio;
+import com.urbancollection.ecommerce.domain.entity.usuarios.Usuario;
+import com.urbancollection.ecommerce.domain.entity.ventas.ItemPedido;
+import com.urbancollection.ecommerce.domain.entity.ventas.Pedido;
+import com.urbancollection.ecommerce.domain.enums.EstadoDeEnvio;
+import com.urbancollection.ecommerce.domain.enums.EstadoDePedido;
+import com.urbancollection.ecommerce.domain.enums.MetodoDePago;
+import com.urbancollection.ecommerce.domain.enums.TipoDescuento;
+import com.urbancollection.ecommerce.persistence.jpa.spring.ProductoJpaRepository;
+
+/**
+ * Fixtures
+ *
+ * Datos de prueba compartidos por los benchmarks.
+ * Armo los objetos en memoria (sin BD) con valores parecidos a los reales.
+ */
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    // Producto con precio "realista" (dos decimales) que depende del índice.
+    static Producto producto(long id) {
+        Producto p = new Producto();
+        p.setId(id);
+        p.setNombre("Producto " + id);
+        p.setDescripcion("Descripción del producto " + id);
+        p.setPrecio(new BigDecimal(String.format("%d.%02d", 10 + id % 90, id % 100)));
+        p.setStock(1000);
+        p.setSku("SKU-" + id);
+        return p;
+    }
+
+    // Pedido PAGADO con "items" líneas, cada una con cantidad entre 1 y 5.
+    static Pedido pedido(int items) {
+        Usuario usuario = new Usuario();
+        usuario.setId(1L);
+        usuario.setNombre("Cliente Benchmark");
+
+        Pedido pedido = new Pedido();
+        pedido.setId(1L);
+        pedido.setUsuario(usuario);
+        pedido.setEstado(EstadoDePedido.PAGADO);
+        pedido.setMetodoPago(MetodoDePago.TARJETA);
+
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (int i = 0; i < items; i++) {
+            Producto producto = producto(i + 1);
+            ItemPedido item = new ItemPedido();
+            item.setPedido(pedido);
+            item.setProducto(producto);
+            item.setCantidad(1 + i % 5);
+            item.setPrecioUnitario(producto.getPrecio());
+            pedido.agregarItem(item);
+            subtotal = subtotal.add(producto.getPrecio().multiply(BigDecimal.valueOf(item.getCantidad())));
+        }
+
+        pedido.setSubtotal(subtotal);
+        pedido.setDescuento(BigDecimal.ZERO);
+        pedido.setEnvio(BigDecimal.ZERO);
+        pedido.setTotal(subtotal);
+        return pedido;
+    }
+
+    // Envíos con su pedido (sin items) y el usuario del pedido, como los trae JPA.
+    static List<Envio> envios(int cantidad) {
+        EstadoDeEnvio[] estados = EstadoDeEnvio.values();
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 8, 0);
+        List<Envio> envios = new ArrayList<>(cantidad);
+        for (int i = 1; i <= cantidad; i++) {
+            Pedido pedido = pedido(0);
+            pedido.setId((long) i);
+            pedido.getUsuario().setId((long) i);
+            pedido.getUsuario().setCorreo("cliente" + i + "@correo.com");
+
+            Envio envio = new Envio();
+            envio.setId((long) i);
+            envio.setPedido(pedido);
+            envio.setTracking("TRK-" + (100000 + i));
+            envio.setEstado(estados[i % estados.length]);
+            envio.setCreatedAt(base.plusMinutes(i));
+            envio.setUpdatedAt(base.plusMinutes(i + 30));
+            envios.add(envio);
+        }
+        return envios;
+    }
+
+    static List<Usuario> usuarios(int cantidad) {
+        List<Usuario> usuarios = new ArrayList<>(cantidad);
+        for (int i = 1; i <= cantidad; i++) {
+            Usuario u = new Usuario();
+            u.setId((long) i);
+            u.setNombre("Cliente " + i);
+            u.setCorreo("cliente" + i + "@correo.com");
+            u.setTelefono("809-555-" + String.format("%04d", i % 10_000));
+            u.setRol("CLIENTE");
+            u.setContrasena("$2a$10$" + "x".repeat(53));
+            usuarios.add(u);
+        }
+        return usuarios;
+    }
+
+    static Cupon cupon(TipoDescuento tipo) {
+        Cupon cupon = new Cupon();
+        cupon.setId(1L);
+        cupon.setCodigo("BENCH-" + tipo.name());
+        cupon.setActivo(true);
+        cupon.setTipo(tipo);
+        if (tipo == TipoDescuento.PORCENTAJE) {
+            cupon.setValorDescuento(new BigDecimal("15"));
+            cupon.setTopeDescuento(new BigDecimal("500.00"));
+        } else {
+            cupon.setValorDescuento(new BigDecimal("25.00"));
+        }
+        return cupon;
+    }
+
+    private static final String[] PRENDAS = {"Camisa", "Camiseta", "Pantalón", "Jean", "Bermuda", "Vestido",
+            "Falda", "Chaqueta", "Abrigo", "Sudadera", "Gorra", "Zapatos", "Tenis", "Sandalias", "Bufanda", "Cinturón"};
+    private static final String[] ATRIBUTOS = {"algodón", "lino", "cuero", "denim", "seda", "lana", "poliéster",
+            "negro", "blanco", "azul", "rojo", "verde", "beige", "gris", "estampado", "rayas", "clásico", "slim",
+            "oversize", "básico", "deportivo", "formal", "verano", "invierno", "niño", "niña", "hombre", "mujer"};
+
+    // Catálogo con nombres y descripciones armados al azar (semilla fija) para el buscador.
+    static List<Producto> catalogo(int cantidad) {
+        Random random = new Random(42);
+        List<Producto> productos = new ArrayList<>(cantidad);
+        for (int i = 1; i <= cantidad; i++) {
+            Producto p = producto(i);
+            p.setNombre(PRENDAS[random.nextInt(PRENDAS.length)] + " "
+                    + ATRIBUTOS[random.nextInt(ATRIBUTOS.length)] + " " + ATRIBUTOS[random.nextInt(ATRIBUTOS.length)]
+                    + " M" + random.nextInt(5_000));
+            p.setDescripcion(PRENDAS[random.nextInt(PRENDAS.length)] + " de " + ATRIBUTOS[random.nextInt(ATRIBUTOS.length)]
+                    + ", " + ATRIBUTOS[random.nextInt(ATRIBUTOS.length)] + " y " + ATRIBUTOS[random.nextInt(ATRIBUTOS.length)]
+                    + ", colección " + random.nextInt(200));
+            productos.add(p);
+        }
+        return productos;
+    }
+
+    // Cualquier *Repository del dominio en memoria: findById, findAll y save (con id nuevo si no tiene).
+    @SuppressWarnings("unchecked")
+    static <T> T repositorio(Class<T> tipo, Map<Long, Object> datos) {
+        AtomicLong ids = new AtomicLong(1_000_000);
+        return (T) Proxy.newProxyInstance(Fixtures.class.getClassLoader(), new Class<?>[] {tipo},
+                (proxy, metodo, args) -> switch (metodo.getName()) {
+                    case "findById" -> datos.get((Long) args[0]);
+                    case "findAll" -> new ArrayList<>(datos.values());
+                    case "save" -> {
+                        Object entidad = args[0];
+                        Long id = (Long) entidad.getClass().getMethod("getId").invoke(entidad);
+                        if (id == null) {
+                            id = ids.incrementAndGet();
+                            entidad.getClass().getMethod("setId", Long.class).invoke(entidad, id);
+                        }
+                        datos.put(id, entidad);
+                        yield entidad;
+                    }
+                    default -> throw new UnsupportedOperationException(metodo.getName());
+                });
+    }
+
+    // ProductoJpaRepository falso: findAll devuelve la lista; el resto no se usa en los benchmarks.
+    static ProductoJpaRepository repositorioDeProductos(List<Producto> productos) {
+        return (ProductoJpaRepository) Proxy.newProxyInstance(Fixtures.class.getClassLoader(),
+                new Class<?>[] {ProductoJpaRepository.class}, (proxy, metodo, args) -> {
+                    if (metodo.getName().equals("findAll") && (args == null || args.length == 0)) return productos;
+                    throw new UnsupportedOperationException(metodo.getName());
+                });
+    }
+}
@@ -0,0 +1,87 @@
+package com.urbancollection.ecommerce.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.urbancollection.ecommerce.api.web.dto.PedidoMapper;
+import com.urbancollection.ecommerce.api.web.dto.PedidoResponse;
+import com.urbancollection.ecommerce.domain.entity.catalogo.Producto;
+
+/**
+ * FormatosBinariosBenchmark
+ *
+ * Lo que cuesta escribir y leer (los dos lados de un ApiClient) un
+ * List<Producto> de 1000 (GET /api/productos) y un PedidoResponse de 50
+ * items, en JSON, CBOR y Smile. Los ObjectMapper se arman como los de
+ * FormatosBinarios. El tamaño de cada cuerpo se imprime en el setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormatosBinariosBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    public String formato;
+
+    private ObjectMapper objectMapper;
+    private List<Producto> productos;
+    private PedidoResponse pedido;
+    private byte[] productosBytes;
+    private byte[] pedidoBytes;
+
+    @Setup
+    public void setUp() throws IOException {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        if (formato.equals("cbor")) builder.factory(new CBORFactory());
+        if (formato.equals("smile")) builder.factory(new SmileFactory());
+        objectMapper = builder.build();
+
+        productos = Fixtures.catalogo(1000);
+        pedido = PedidoMapper.toResponse(Fixtures.pedido(50));
+        productosBytes = objectMapper.writeValueAsBytes(productos);
+        pedidoBytes = objectMapper.writeValueAsBytes(pedido);
+        System.out.printf("%n[%s] List<Producto>(1000): %d bytes, PedidoResponse(50): %d bytes%n",
+                formato, productosBytes.length, pedidoBytes.length);
+    }
+
+    @Benchmark
+    public byte[] escribirProductos() throws IOException {
+        return objectMapper.writeValueAsBytes(productos);
+    }
+
+    @Benchmark
+    public List<Producto> leerProductos() throws IOException {
+        return objectMapper.readValue(productosBytes, new TypeReference<List<Producto>>() {});
+    }
+
+    @Benchmark
+    public byte[] escribirPedido() throws IOException {
+        return objectMapper.writeValueAsBytes(pedido);
+    }
+
+    @Benchmark
+    public PedidoResponse leerPedido() throws IOException {
+        return objectMapper.readValue(pedidoBytes, PedidoResponse.class);
+    }
+}
@@ -0,0 +1,84 @@
+package com.urbancollection.ecommerce.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.urbancollection.ecommerce.infrastructure.idempotency.InMemoryIdempotencyKeyAdapter;
+import com.urbancollection.ecommerce.infrastructure.idempotency.InMemoryIdempotencyStore;
+
+/**
+ * IdempotencyBenchmark
+ *
+ * Mide los dos stores de idempotencia en memoria:
+ * - InMemoryIdempotencyStore: wasSeen (hit) y remember.
+ * - InMemoryIdempotencyKeyAdapter: tryUse con llaves nuevas y repetidas.
+ *
+ * "precargadas" simula cuántas llaves vivas ya hay en el scope, porque
+ * tryUse recorre el scope completo para limpiar expiradas en cada llamada.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class IdempotencyBenchmark {
+
+    private static final String SCOPE = "confirmarPago";
+
+    @Param({"0", "1000", "10000"})
+    public int precargadas;
+
+    private InMemoryIdempotencyStore store;
+    private InMemoryIdempotencyKeyAdapter keyAdapter;
+
+    // Contador para generar llaves nuevas en cada llamada
+    private final AtomicLong secuencia = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        store = new InMemoryIdempotencyStore();
+        keyAdapter = new InMemoryIdempotencyKeyAdapter();
+
+        for (int i = 0; i < precargadas; i++) {
+            store.remember("pre-" + i, 60_000L);
+            keyAdapter.tryUse(SCOPE, "pre-" + i, 60L);
+        }
+        store.remember("repetida", 60_000L);
+        keyAdapter.tryUse(SCOPE, "repetida", 60L);
+    }
+
+    @Benchmark
+    public boolean storeWasSeenHit() {
+        return store.wasSeen("repetida");
+    }
+
+    @Benchmark
+    public void storeRemember() {
+        store.remember("k-" + secuencia.incrementAndGet(), 60_000L);
+    }
+
+    @Benchmark
+    public boolean keyAdapterTryUseNueva() {
+        return keyAdapter.tryUse(SCOPE, "k-" + secuencia.incrementAndGet(), 60L);
+    }
+
+    @Benchmark
+    public boolean keyAdapterTryUseRepetida() {
+        return keyAdapter.tryUse(SCOPE, "repetida", 60L);
+    }
+}
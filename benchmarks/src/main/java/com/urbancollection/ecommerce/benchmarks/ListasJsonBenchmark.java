@@ -0,0 +1,97 @@
+package com.urbancollection.ecommerce.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.urbancollection.ecommerce.api.web.dto.EnvioMapper;
+import com.urbancollection.ecommerce.api.web.dto.EnvioResponse;
+import com.urbancollection.ecommerce.api.web.dto.UsuarioMapper;
+import com.urbancollection.ecommerce.api.web.dto.UsuarioResponse;
+import com.urbancollection.ecommerce.domain.entity.logistica.Envio;
+import com.urbancollection.ecommerce.domain.entity.usuarios.Usuario;
+
+/**
+ * ListasJsonBenchmark
+ *
+ * Mide las listas de GET /api/envios y GET /api/usuarios: la entidad tal cual
+ * (como antes, el envío con su pedido y el usuario del pedido adentro) contra
+ * los DTO planos, con y sin Blackbird. Los *Gzip suman lo que cuesta comprimir
+ * la respuesta con la compresión de server.compression.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListasJsonBenchmark {
+
+    @Param({"100", "1000"})
+    public int cantidad;
+
+    @Param({"jackson", "blackbird"})
+    public String mapper;
+
+    private ObjectMapper objectMapper;
+    private List<Envio> envios;
+    private List<Usuario> usuarios;
+
+    @Setup
+    public void setUp() {
+        objectMapper = SerializacionBenchmark.objectMapper(mapper);
+        envios = Fixtures.envios(cantidad);
+        usuarios = Fixtures.usuarios(cantidad);
+    }
+
+    @Benchmark
+    public byte[] enviosEntidad() throws IOException {
+        return objectMapper.writeValueAsBytes(envios);
+    }
+
+    @Benchmark
+    public byte[] enviosDto() throws IOException {
+        List<EnvioResponse> dtos = envios.stream().map(EnvioMapper::toResponse).toList();
+        return objectMapper.writeValueAsBytes(dtos);
+    }
+
+    @Benchmark
+    public byte[] enviosDtoGzip() throws IOException {
+        List<EnvioResponse> dtos = envios.stream().map(EnvioMapper::toResponse).toList();
+        return gzip(objectMapper.writeValueAsBytes(dtos));
+    }
+
+    @Benchmark
+    public byte[] usuariosEntidad() throws IOException {
+        return objectMapper.writeValueAsBytes(usuarios);
+    }
+
+    @Benchmark
+    public byte[] usuariosDto() throws IOException {
+        List<UsuarioResponse> dtos = usuarios.stream().map(UsuarioMapper::toResponse).toList();
+        return objectMapper.writeValueAsBytes(dtos);
+    }
+
+    private static byte[] gzip(byte[] json) throws IOException {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(salida)) {
+            gzip.write(json);
+        }
+        return salida.toByteArray();
+    }
+}
@@ -0,0 +1,60 @@
+package com.urbancollection.ecommerce.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.urbancollection.ecommerce.api.web.dto.ItemPedidoMapper;
+import com.urbancollection.ecommerce.api.web.dto.ItemPedidoResponse;
+import com.urbancollection.ecommerce.api.web.dto.PedidoMapper;
+import com.urbancollection.ecommerce.api.web.dto.PedidoResponse;
+import com.urbancollection.ecommerce.domain.entity.ventas.ItemPedido;
+import com.urbancollection.ecommerce.domain.entity.ventas.Pedido;
+
+/**
+ * MapperBenchmark
+ *
+ * Mide PedidoMapper.toResponse (lo que corre en GET /api/pedidos por cada pedido)
+ * e ItemPedidoMapper.toResponse por separado.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    // Cantidad de líneas por pedido
+    @Param({"1", "10", "50"})
+    public int items;
+
+    private Pedido pedido;
+    private ItemPedido item;
+
+    @Setup
+    public void setUp() {
+        pedido = Fixtures.pedido(items);
+        item = pedido.getItems().get(0);
+    }
+
+    @Benchmark
+    public PedidoResponse pedidoToResponse() {
+        return PedidoMapper.toResponse(pedido);
+    }
+
+    @Benchmark
+    public ItemPedidoResponse itemToResponse() {
+        return ItemPedidoMapper.toResponse(item);
+    }
+}
@@ -0,0 +1,66 @@
+package com.urbancollection.ecommerce.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.urbancollection.ecommerce.api.web.dto.PedidoMapper;
+import com.urbancollection.ecommerce.api.web.dto.PedidoResponse;
+
+/**
+ * SerializacionBenchmark
+ *
+ * Mide la serialización a JSON de PedidoResponse con un ObjectMapper
+ * armado igual que el de Spring (Jackson2ObjectMapperBuilder),
+ * que es lo que paga cada GET /api/pedidos. "mapper" compara el de siempre
+ * con el que tiene Blackbird (ver SerializacionConfig).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializacionBenchmark {
+
+    @Param({"1", "10", "50"})
+    public int items;
+
+    @Param({"jackson", "blackbird"})
+    public String mapper;
+
+    private ObjectMapper objectMapper;
+    private PedidoResponse response;
+
+    @Setup
+    public void setUp() {
+        objectMapper = objectMapper(mapper);
+        response = PedidoMapper.toResponse(Fixtures.pedido(items));
+    }
+
+    @Benchmark
+    public byte[] pedidoResponseAJson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    // ObjectMapper como el de Spring, con o sin Blackbird.
+    static ObjectMapper objectMapper(String mapper) {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        if (mapper.equals("blackbird")) builder.modulesToInstall(new BlackbirdModule());
+        return builder.build();
+    }
+}
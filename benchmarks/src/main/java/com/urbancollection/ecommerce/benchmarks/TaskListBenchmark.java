@@ -0,0 +1,47 @@
+package com.urbancollection.ecommerce.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.urbancollection.ecommerce.infrastructure.tasks.InMemoryTaskList;
+
+/**
+ * TaskListBenchmark
+ *
+ * Mide InMemoryTaskList.enqueue con varios hilos encolando a la vez,
+ * que es lo que pasa después de cada checkout.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class TaskListBenchmark {
+
+    private static final String PAYLOAD = "{\"pedidoId\":123,\"usuarioId\":7,\"total\":\"145.00\"}";
+
+    private InMemoryTaskList taskList;
+
+    @Setup
+    public void setUp() {
+        taskList = new InMemoryTaskList();
+    }
+
+    @Benchmark
+    public void enqueue() {
+        taskList.enqueue("PEDIDO_CREADO", PAYLOAD);
+    }
+}
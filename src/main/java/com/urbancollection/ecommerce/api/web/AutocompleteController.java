@@ -0,0 +1,55 @@
+package com.urbancollection.ecommerce.api.web;
+
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.urbancollection.ecommerce.infrastructure.search.Autocompletado;
+
+/**
+ * AutocompleteController
+ *
+ * GET /api/autocomplete?q=cami&tipo=producto&k=10
+ * - tipo: "producto", "cupon" o vacío (los dos).
+ * - Devuelve las k opciones más populares que tienen una palabra que empieza con q.
+ */
+@RestController
+@RequestMapping("/api/autocomplete")
+public class AutocompleteController {
+
+    private final Autocompletado autocompletado;
+
+    public AutocompleteController(Autocompletado autocompletado) {
+        this.autocompletado = autocompletado;
+    }
+
+    // ================== GET /api/autocomplete ==================
+    @GetMapping
+    public ResponseEntity<?> sugerir(@RequestParam(name = "q", required = false) String q,
+                                     @RequestParam(name = "tipo", required = false) String tipo,
+                                     @RequestParam(name = "k", defaultValue = "10") int k) {
+        if (q == null || q.isBlank()) {
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "Debe indicar el texto (q)"));
+        }
+        if (tipo != null && !tipo.isBlank()
+                && !Autocompletado.PRODUCTO.equals(tipo) && !Autocompletado.CUPON.equals(tipo)) {
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "El tipo debe ser 'producto' o 'cupon'"));
+        }
+        if (k < 1 || k > 50) {
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "k debe estar entre 1 y 50"));
+        }
+        String filtro = tipo == null || tipo.isBlank() ? null : tipo;
+        return ResponseEntity.ok(autocompletado.sugerir(q, filtro, k));
+    }
+}
@@ -4,9 +4,14 @@ import com.urbancollection.ecommerce.api.web.dto.CuponRequest;
 import com.urbancollection.ecommerce.application.service.ICuponService;
 import com.urbancollection.ecommerce.domain.base.OperationResult;
 import com.urbancollection.ecommerce.domain.entity.catalogo.Cupon;
+import com.urbancollection.ecommerce.infrastructure.cache.VersionesDeRecursos;
+import com.urbancollection.ecommerce.infrastructure.formatos.FormatosBinarios;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Optional;
@@ -16,16 +21,29 @@ import java.util.Optional;
 public class CuponController {
 
     private final ICuponService cuponService;
+    private final VersionesDeRecursos versiones;
 
-    public CuponController(ICuponService cuponService) {
+    public CuponController(ICuponService cuponService, VersionesDeRecursos versiones) {
         this.cuponService = cuponService;
+        this.versiones = versiones;
     }
 
     // ================== GET /api/cupones ==================
+    // GET condicional: con el ETag (o la fecha) de la versión actual se contesta 304 sin ir a la BD.
+    // El ETag depende del formato pedido (Vary: Accept).
     @GetMapping
-    public ResponseEntity<List<Cupon>> listar() {
+    public ResponseEntity<List<Cupon>> listar(WebRequest request) {
+        VersionesDeRecursos.Version version = versiones.de(VersionesDeRecursos.CUPONES)
+                .en(FormatosBinarios.negociado(request.getHeader(HttpHeaders.ACCEPT)));
+        CacheControl cacheControl = versiones.cacheControl(VersionesDeRecursos.CUPONES);
+        if (request.checkNotModified(version.etag(), version.ultimaModificacion())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(version.etag()).varyBy(HttpHeaders.ACCEPT)
+                    .lastModified(version.ultimaModificacion()).cacheControl(cacheControl).build();
+        }
+
         List<Cupon> cupones = cuponService.listar();
-        return ResponseEntity.ok(cupones);
+        return ResponseEntity.ok().eTag(version.etag()).varyBy(HttpHeaders.ACCEPT)
+                .lastModified(version.ultimaModificacion()).cacheControl(cacheControl).body(cupones);
     }
 
     // ================== GET /api/cupones/{id} ==================
@@ -15,6 +15,8 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import com.urbancollection.ecommerce.domain.entity.catalogo.Cupon;
 import com.urbancollection.ecommerce.domain.enums.TipoDescuento;
+import com.urbancollection.ecommerce.infrastructure.cache.CuponCache;
+import com.urbancollection.ecommerce.infrastructure.search.Autocompletado;
 import com.urbancollection.ecommerce.persistence.jpa.spring.CuponJpaRepository;
 
 // Controlador Spring MVC que maneja las peticiones relacionadas con cupones en la parte web.
@@ -25,10 +27,17 @@ public class CuponWebController {
 
     // Repositorio JPA que me permite acceder a la tabla de cupones en la base de datos.
     private final CuponJpaRepository cuponRepository;
-
-    // Constructor donde Spring inyecta el repositorio de cupones.
-    public CuponWebController(CuponJpaRepository cuponRepository) {
+    // Caché de cupones que usa el checkout; la refresco en cada escritura de aquí.
+    private final CuponCache cuponCache;
+    // Autocompletado de códigos; también se entera de las altas, cambios y bajas.
+    private final Autocompletado autocompletado;
+
+    // Constructor donde Spring inyecta el repositorio de cupones y la caché.
+    public CuponWebController(CuponJpaRepository cuponRepository, CuponCache cuponCache,
+                              Autocompletado autocompletado) {
         this.cuponRepository = cuponRepository;
+        this.cuponCache = cuponCache;
+        this.autocompletado = autocompletado;
     }
 
     // Método GET que lista todos los cupones y los manda a la vista.
@@ -106,8 +115,10 @@ public class CuponWebController {
                 cupon.setFechaFin(LocalDateTime.parse(fechaFin + "T23:59:59"));
             }
 
-            // Finalmente guardo los cambios del cupón en la base de datos.
-            cuponRepository.save(cupon);
+            // Finalmente guardo los cambios del cupón en la base de datos y refresco la caché.
+            Cupon guardado = cuponRepository.save(cupon);
+            cuponCache.actualizar(guardado);
+            autocompletado.cupon(guardado);
 
             redirectAttributes.addFlashAttribute("successMessage", "✓ Cupón creado exitosamente");
             return "redirect:/web/cupones";
@@ -199,8 +210,10 @@ public class CuponWebController {
                 cupon.setFechaFin(null);
             }
 
-            // Finalmente guardo los cambios del cupón en la base de datos.
-            cuponRepository.save(cupon);
+            // Finalmente guardo los cambios del cupón en la base de datos y refresco la caché.
+            Cupon guardado = cuponRepository.save(cupon);
+            cuponCache.actualizar(guardado);
+            autocompletado.cupon(guardado);
 
             redirectAttributes.addFlashAttribute("successMessage", "✓ Cupón actualizado exitosamente");
             return "redirect:/web/cupones";
@@ -223,6 +236,8 @@ public class CuponWebController {
             }
 
             cuponRepository.deleteById(id);
+            cuponCache.eliminar(id);
+            autocompletado.quitarCupon(id);
             redirectAttributes.addFlashAttribute("successMessage", "✓ Cupón eliminado exitosamente");
             return "redirect:/web/cupones";
         } catch (Exception e) {
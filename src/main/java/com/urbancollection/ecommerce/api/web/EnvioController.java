@@ -1,16 +1,33 @@
 package com.urbancollection.ecommerce.api.web;
 
+import com.urbancollection.ecommerce.api.web.dto.EnvioMapper;
 import com.urbancollection.ecommerce.api.web.dto.EnvioRequest;
+import com.urbancollection.ecommerce.api.web.dto.EnvioResponse;
+import com.urbancollection.ecommerce.api.web.dto.EstadoEnvioRequest;
 import com.urbancollection.ecommerce.application.service.IEnvioService;
 import com.urbancollection.ecommerce.application.service.IPedidoService;
 import com.urbancollection.ecommerce.domain.base.OperationResult;
 import com.urbancollection.ecommerce.domain.entity.logistica.Envio;
 import com.urbancollection.ecommerce.domain.entity.ventas.Pedido;
+import com.urbancollection.ecommerce.domain.enums.EstadoDeEnvio;
+import com.urbancollection.ecommerce.domain.enums.EstadoDePedido;
+import com.urbancollection.ecommerce.infrastructure.cache.EnvioCache;
+import com.urbancollection.ecommerce.infrastructure.cache.VersionesDeRecursos;
+import com.urbancollection.ecommerce.infrastructure.estados.EstadosDePedido;
+import com.urbancollection.ecommerce.infrastructure.formatos.FormatosBinarios;
+import com.urbancollection.ecommerce.infrastructure.logistica.EstadosDeEnvioEnLote;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 
@@ -20,34 +37,78 @@ public class EnvioController {
 
     private final IEnvioService envioService; 
     private final IPedidoService pedidoService; 
-
-    public EnvioController(IEnvioService envioService, IPedidoService pedidoService) {
+    private final EnvioCache envioCache;
+    private final EstadosDeEnvioEnLote estadosEnLote;
+    private final VersionesDeRecursos versiones;
+    private final EstadosDePedido estadosDePedido;
+
+    public EnvioController(IEnvioService envioService, IPedidoService pedidoService, EnvioCache envioCache,
+                           EstadosDeEnvioEnLote estadosEnLote, VersionesDeRecursos versiones,
+                           EstadosDePedido estadosDePedido) {
         this.envioService = envioService;
         this.pedidoService = pedidoService;
+        this.envioCache = envioCache;
+        this.estadosEnLote = estadosEnLote;
+        this.versiones = versiones;
+        this.estadosDePedido = estadosDePedido;
     }
 
     // ================== GET /api/envios ==================
+    // Se responde con EnvioResponse (plano, con el id del pedido): serializar la
+    // entidad cargaba el pedido de cada envío.
     @GetMapping
-    public ResponseEntity<List<Envio>> listar() {
-        List<Envio> envios = envioService.listar();
+    public ResponseEntity<List<EnvioResponse>> listar() {
+        List<EnvioResponse> envios = envioService.listar().stream()
+                .map(EnvioMapper::toResponse)
+                .toList();
         return ResponseEntity.ok(envios);
     }
 
     // ================== GET /api/envios/{id} ==================
+    // GET condicional con ETag y Last-Modified. El ETag depende del formato pedido (Vary: Accept).
     @GetMapping("/{id}")
-    public ResponseEntity<Envio> obtenerPorId(@PathVariable Long id) {
+    public ResponseEntity<EnvioResponse> obtenerPorId(@PathVariable Long id, WebRequest request) {
+        VersionesDeRecursos.Version version = versiones.de(VersionesDeRecursos.ENVIOS, id)
+                .en(FormatosBinarios.negociado(request.getHeader(HttpHeaders.ACCEPT)));
+        CacheControl cacheControl = versiones.cacheControl(VersionesDeRecursos.ENVIOS);
+        if (request.checkNotModified(version.etag(), version.ultimaModificacion())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(version.etag()).varyBy(HttpHeaders.ACCEPT)
+                    .lastModified(version.ultimaModificacion()).cacheControl(cacheControl).build();
+        }
+
         Optional<Envio> envio = envioService.buscarPorId(id);
         
         if (envio.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
         
-        return ResponseEntity.ok(envio.get());
+        return ResponseEntity.ok().eTag(version.etag()).varyBy(HttpHeaders.ACCEPT)
+                .lastModified(version.ultimaModificacion()).cacheControl(cacheControl)
+                .body(EnvioMapper.toResponse(envio.get()));
+    }
+
+    // ================== GET /api/envios/tracking/{code} ==================
+    // Seguimiento por código (sin importar mayúsculas). Se responde desde EnvioCache con ETag:
+    // si el cliente manda If-None-Match con el mismo valor se contesta 304 sin cuerpo.
+    @GetMapping("/tracking/{code}")
+    public ResponseEntity<EnvioCache.Foto> obtenerPorTracking(@PathVariable String code, WebRequest request) {
+        Optional<EnvioCache.Foto> foto = envioCache.porTracking(code);
+
+        if (foto.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        String etag = foto.get().etag();
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache()).build();
+        }
+
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(foto.get());
     }
 
     // ================== POST /api/envios ==================
     @PostMapping
-    public ResponseEntity<Envio> crear(@RequestBody EnvioRequest request) {
+    public ResponseEntity<EnvioResponse> crear(@RequestBody EnvioRequest request) {
         // Validar que el pedido existe
         Pedido pedido = pedidoService.obtenerPorId(request.getPedidoId());
         if (pedido == null) {
@@ -65,12 +126,12 @@ public class EnvioController {
             return ResponseEntity.badRequest().build();
         }
 
-        return ResponseEntity.status(HttpStatus.CREATED).body(envio);
+        return ResponseEntity.status(HttpStatus.CREATED).body(EnvioMapper.toResponse(envio));
     }
 
     // ================== PUT /api/envios/{id} ==================
     @PutMapping("/{id}")
-    public ResponseEntity<Envio> actualizar(@PathVariable Long id, @RequestBody EnvioRequest request) {
+    public ResponseEntity<EnvioResponse> actualizar(@PathVariable Long id, @RequestBody EnvioRequest request) {
         Optional<Envio> existente = envioService.buscarPorId(id);
         
         if (existente.isEmpty()) {
@@ -84,9 +145,26 @@ public class EnvioController {
         }
 
         Envio envio = existente.get();
+
+        // Mismas transiciones que POST /api/envios/estados: si no es válida, 409.
+        EstadoDeEnvio anterior = envio.getEstado();
+        EstadoDeEnvio nuevo = request.getEstado();
+        if (nuevo != null && nuevo != anterior && !EstadosDeEnvioEnLote.transicionValida(anterior, nuevo)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+
+        // Al entregarse, el pedido pasa antes a COMPLETADO (ver EstadosDePedido). Si no puede
+        // (por ejemplo está CANCELADO, o lo está cambiando otro), 409 y el envío no se guarda.
+        if (nuevo == EstadoDeEnvio.ENTREGADO && anterior != EstadoDeEnvio.ENTREGADO) {
+            EstadosDePedido.Cambio cambio = estadosDePedido.cambiar(pedido.getId(), EstadoDePedido.COMPLETADO);
+            if (!cambio.cambiado() && cambio.resultado() != EstadosDePedido.Resultado.SIN_CAMBIOS) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).build();
+            }
+        }
+
         envio.setPedido(pedido);
         envio.setTracking(request.getTracking());
-        envio.setEstado(request.getEstado());
+        envio.setEstado(nuevo);
 
         OperationResult result = envioService.actualizar(id, envio);
         
@@ -94,7 +172,39 @@ public class EnvioController {
             return ResponseEntity.badRequest().build();
         }
 
-        return ResponseEntity.ok(envio);
+        return ResponseEntity.ok(EnvioMapper.toResponse(envio));
+    }
+
+    // ================== POST /api/envios/estados ==================
+    // Cambios de estado en lote por tracking (webhooks de transportadoras).
+    // Body: [{"tracking": "...", "estado": "EN_TRANSITO"}, ...]
+    // Responde 200 con un resultado por item (en el mismo orden) y el total por resultado.
+    @PostMapping("/estados")
+    public ResponseEntity<?> actualizarEstados(@RequestBody List<EstadoEnvioRequest> request) {
+        if (request == null || request.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "El lote está vacío"));
+        }
+        if (request.size() > estadosEnLote.getMaximoPorLote()) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(Map.of(
+                    "error", "El lote supera el máximo de " + estadosEnLote.getMaximoPorLote() + " cambios"));
+        }
+
+        List<EstadosDeEnvioEnLote.Cambio> cambios = new ArrayList<>(request.size());
+        for (EstadoEnvioRequest item : request) {
+            cambios.add(item != null ? new EstadosDeEnvioEnLote.Cambio(item.getTracking(), item.getEstado()) : null);
+        }
+
+        List<EstadosDeEnvioEnLote.Item> resultados = estadosEnLote.aplicar(cambios);
+
+        Map<EstadosDeEnvioEnLote.Resultado, Integer> totales = new EnumMap<>(EstadosDeEnvioEnLote.Resultado.class);
+        for (EstadosDeEnvioEnLote.Item item : resultados) {
+            totales.merge(item.resultado(), 1, Integer::sum);
+        }
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("totales", totales);
+        body.put("resultados", resultados);
+        return ResponseEntity.ok(body);
     }
 
     // ================== DELETE /api/envios/{id} ==================
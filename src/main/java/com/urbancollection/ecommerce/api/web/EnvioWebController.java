@@ -2,8 +2,9 @@ package com.urbancollection.ecommerce.api.web;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
@@ -13,23 +14,37 @@ import com.urbancollection.ecommerce.domain.entity.logistica.Envio;
 import com.urbancollection.ecommerce.domain.entity.ventas.Pedido;
 import com.urbancollection.ecommerce.domain.enums.EstadoDeEnvio;
 import com.urbancollection.ecommerce.domain.enums.EstadoDePedido;
+import com.urbancollection.ecommerce.infrastructure.cache.EnvioCache;
+import com.urbancollection.ecommerce.infrastructure.estados.EstadosDePedido;
+import com.urbancollection.ecommerce.infrastructure.logistica.EstadosDeEnvioEnLote;
 import com.urbancollection.ecommerce.persistence.jpa.spring.EnvioJpaRepository;
 import com.urbancollection.ecommerce.persistence.jpa.spring.PedidoJpaRepository;
+import com.urbancollection.ecommerce.persistence.jpa.spring.PedidoSinEnvio;
 
 // Controlador web para manejar todo lo relacionado con los envíos en la parte de vistas 
 @Controller
 @RequestMapping("/web/envios")
 public class EnvioWebController {
 
+    // Cuántos pedidos sin envío se listan como máximo en el formulario (los más viejos primero).
+    static final int MAXIMO_PEDIDOS_EN_FORMULARIO = 200;
+
     // Repositorio para acceder a la tabla de envíos en la base de datos.
     private final EnvioJpaRepository envioRepository;
     // Repositorio para acceder a los pedidos, ya que un envío siempre está asociado a un pedido.
     private final PedidoJpaRepository pedidoRepository;
+    // Caché de envíos por tracking y por pedido (hay que invalidarla en cada escritura).
+    private final EnvioCache envioCache;
+    // Cambios de estado de pedidos (al entregar un envío el pedido pasa a COMPLETADO).
+    private final EstadosDePedido estadosDePedido;
 
-    // Constructor donde Spring inyecta los dos repositorios que vamos a usar.
-    public EnvioWebController(EnvioJpaRepository envioRepository, PedidoJpaRepository pedidoRepository) {
+    // Constructor donde Spring inyecta los repositorios y la caché que vamos a usar.
+    public EnvioWebController(EnvioJpaRepository envioRepository, PedidoJpaRepository pedidoRepository,
+                              EnvioCache envioCache, EstadosDePedido estadosDePedido) {
         this.envioRepository = envioRepository;
         this.pedidoRepository = pedidoRepository;
+        this.envioCache = envioCache;
+        this.estadosDePedido = estadosDePedido;
     }
 
     // Método GET para mostrar el listado de todos los envíos.
@@ -50,24 +65,19 @@ public class EnvioWebController {
     @GetMapping("/create")
     public String mostrarFormularioCrear(Model model) {
         try {
-            // Traigo todos los pedidos de la base de datos.
-            List<Pedido> todosPedidos = pedidoRepository.findAll();
-            // Traigo todos los envíos de la base de datos.
-            List<Envio> todosEnvios = envioRepository.findAll();
-            
-            // De la lista de envíos, saco los ids de los pedidos que ya tienen envío.
-            List<Long> pedidosConEnvio = todosEnvios.stream()
-                    .map(e -> e.getPedido().getId())
-                    .collect(Collectors.toList());
-            
-            // Filtro los pedidos que están PAGADOS y además todavía no tienen envío.
-            List<Pedido> pedidosDisponibles = todosPedidos.stream()
-                    .filter(p -> p.getEstado() == EstadoDePedido.PAGADO)
-                    .filter(p -> !pedidosConEnvio.contains(p.getId()))
-                    .collect(Collectors.toList());
-            
+            // Pedidos PAGADOS que todavía no tienen envío: lo resuelve la BD con un NOT EXISTS
+            // (antes se traían todos los pedidos y todos los envíos y se filtraba en memoria).
+            // Pido uno de más para saber si quedaron pedidos afuera de la lista.
+            List<PedidoSinEnvio> pedidosDisponibles = pedidoRepository.findSinEnvio(
+                    EstadoDePedido.PAGADO, 0L, PageRequest.of(0, MAXIMO_PEDIDOS_EN_FORMULARIO + 1));
+            boolean hayMasPedidos = pedidosDisponibles.size() > MAXIMO_PEDIDOS_EN_FORMULARIO;
+            if (hayMasPedidos) {
+                pedidosDisponibles = pedidosDisponibles.subList(0, MAXIMO_PEDIDOS_EN_FORMULARIO);
+            }
+
             // Mando la lista de pedidos disponibles al modelo para que el usuario los seleccione.
             model.addAttribute("pedidos", pedidosDisponibles);
+            model.addAttribute("hayMasPedidos", hayMasPedidos);
             // Valores por defecto para el formulario.
             model.addAttribute("pedidoId", "");
             model.addAttribute("tracking", "");
@@ -110,15 +120,13 @@ public class EnvioWebController {
             }
 
             // Verifico si ya existe un envío para ese pedido (no debería haber dos envíos para el mismo pedido).
-            Optional<Envio> envioExistente = envioRepository.findByPedidoId(pedidoId);
-            if (envioExistente.isPresent()) {
+            if (envioCache.porPedido(pedidoId).isPresent()) {
                 model.addAttribute("errorMessage", "Ya existe un envío para este pedido");
                 return "envio/create";
             }
 
             // Verifico si ya existe un envío con el mismo tracking (tracking debe ser único).
-            Optional<Envio> trackingExistente = envioRepository.findByTracking(tracking.trim().toUpperCase());
-            if (trackingExistente.isPresent()) {
+            if (envioCache.porTracking(tracking).isPresent()) {
                 model.addAttribute("errorMessage", "Ya existe un envío con ese tracking");
                 return "envio/create";
             }
@@ -134,10 +142,16 @@ public class EnvioWebController {
 
             // Guardo el envío en la base de datos.
             envioRepository.save(envio);
+            envioCache.invalidar(envio);
 
             // Mensaje de éxito para mostrar en la vista luego del redirect.
             redirectAttributes.addFlashAttribute("successMessage", "✓ Envío creado exitosamente");
             return "redirect:/web/envios";
+        } catch (DataIntegrityViolationException e) {
+            // Otro envío con el mismo pedido o tracking se guardó después de la verificación
+            // (por ejemplo desde otra instancia): lo frenan los índices únicos.
+            model.addAttribute("errorMessage", "Ya existe un envío para este pedido o con ese tracking");
+            return "envio/create";
         } catch (Exception e) {
             // Si algo falla en el proceso, muestro el mensaje de error y vuelvo al formulario.
             model.addAttribute("errorMessage", "Error: " + e.getMessage());
@@ -190,31 +204,54 @@ public class EnvioWebController {
             Envio envio = envioOpt.get();
 
             // Verifico que no exista otro envío con el mismo tracking (distinto id).
-            Optional<Envio> trackingExistente = envioRepository.findByTracking(tracking.trim().toUpperCase());
-            if (trackingExistente.isPresent() && !trackingExistente.get().getId().equals(id)) {
+            Optional<EnvioCache.Foto> trackingExistente = envioCache.porTracking(tracking);
+            if (trackingExistente.isPresent() && !trackingExistente.get().id().equals(id)) {
                 model.addAttribute("errorMessage", "Ya existe otro envío con ese tracking");
                 // Vuelvo a mandar el envío actual al modelo para que el formulario se mantenga.
                 model.addAttribute("envio", envio);
                 return "envio/edit";
             }
 
-            // Actualizo el tracking del envío actual.
-            envio.setTracking(tracking.trim().toUpperCase());
-            
-            // Convierto el estado que viene como String al enum y lo asigno.
+            // Convierto el estado que viene como String al enum.
             EstadoDeEnvio nuevoEstado = EstadoDeEnvio.valueOf(estado);
-            envio.setEstado(nuevoEstado);
-            
-            // Si el nuevo estado es ENTREGADO, actualizo también el estado del pedido a COMPLETADO.
-            if (nuevoEstado == EstadoDeEnvio.ENTREGADO) {
-                Pedido pedido = envio.getPedido();
-                pedido.setEstado(EstadoDePedido.COMPLETADO);
-                // Guardo primero el pedido con el nuevo estado.
-                pedidoRepository.save(pedido);
+
+            // El cambio de estado sigue la misma tabla de transiciones que los cambios en lote
+            // (por ejemplo, un envío ENTREGADO no puede volver a EN_TRANSITO).
+            if (nuevoEstado != envio.getEstado()
+                    && !EstadosDeEnvioEnLote.transicionValida(envio.getEstado(), nuevoEstado)) {
+                model.addAttribute("errorMessage",
+                        "Un envío " + envio.getEstado() + " no puede pasar a " + nuevoEstado);
+                model.addAttribute("envio", envio);
+                return "envio/edit";
             }
 
-            // Guardo los cambios del envío.
+            // Si el envío pasa a ENTREGADO, el pedido pasa a COMPLETADO (solo la columna de estado,
+            // ver EstadosDePedido). Si el pedido no puede (por ejemplo, está CANCELADO) o lo está
+            // cambiando otro, no guardo el envío como entregado.
+            if (nuevoEstado == EstadoDeEnvio.ENTREGADO && envio.getEstado() != EstadoDeEnvio.ENTREGADO
+                    && envio.getPedido() != null) {
+                EstadosDePedido.Cambio cambio =
+                        estadosDePedido.cambiar(envio.getPedido().getId(), EstadoDePedido.COMPLETADO);
+                String error = switch (cambio.resultado()) {
+                    case CAMBIADO, SIN_CAMBIOS -> null;
+                    case TRANSICION_INVALIDA -> "Un pedido " + cambio.anterior() + " no puede pasar a COMPLETADO";
+                    case NO_EXISTE -> "El pedido del envío ya no existe";
+                    case CONFLICTO -> "El pedido se está modificando en este momento, intente de nuevo";
+                };
+                if (error != null) {
+                    model.addAttribute("errorMessage", error);
+                    model.addAttribute("envio", envio);
+                    return "envio/edit";
+                }
+            }
+
+            // Actualizo el tracking y el estado del envío actual.
+            envio.setTracking(tracking.trim().toUpperCase());
+            envio.setEstado(nuevoEstado);
+
+            // Guardo los cambios del envío (la caché se invalida por id, así suelta también el tracking viejo).
             envioRepository.save(envio);
+            envioCache.invalidar(envio);
 
             // Mensaje de éxito al actualizar.
             redirectAttributes.addFlashAttribute("successMessage", "✓ Envío actualizado exitosamente");
@@ -238,6 +275,7 @@ public class EnvioWebController {
 
             // Si existe, lo elimino de la base de datos.
             envioRepository.deleteById(id);
+            envioCache.invalidarPorId(id);
             // Mensaje de éxito después de eliminar.
             redirectAttributes.addFlashAttribute("successMessage", "✓ Envío eliminado exitosamente");
             return "redirect:/web/envios";
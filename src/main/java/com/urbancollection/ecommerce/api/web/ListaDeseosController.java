@@ -0,0 +1,88 @@
+package com.urbancollection.ecommerce.api.web;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.urbancollection.ecommerce.infrastructure.deseos.ListasDeDeseos;
+
+/**
+ * ListaDeseosController
+ *
+ * Endpoints de la lista de deseos de un usuario (se responden desde memoria):
+ * - GET    /api/usuarios/{usuarioId}/lista-deseos                         -> ids de producto guardados
+ * - POST   /api/usuarios/{usuarioId}/lista-deseos/{productoId}            -> agrega el producto
+ * - DELETE /api/usuarios/{usuarioId}/lista-deseos/{productoId}            -> lo quita
+ * - GET    /api/usuarios/{usuarioId}/lista-deseos/contiene?productoIds=1,2 -> cuáles están (para listados)
+ */
+@RestController
+@RequestMapping("/api/usuarios/{usuarioId}/lista-deseos")
+public class ListaDeseosController {
+
+    // Tope de ids por consulta de "contiene" (una página de productos entra de sobra).
+    static final int MAXIMO_CONTIENE = 500;
+
+    private final ListasDeDeseos listasDeDeseos;
+
+    public ListaDeseosController(ListasDeDeseos listasDeDeseos) {
+        this.listasDeDeseos = listasDeDeseos;
+    }
+
+    // ================== GET /api/usuarios/{usuarioId}/lista-deseos ==================
+    @GetMapping
+    public ResponseEntity<?> listar(@PathVariable Long usuarioId) {
+        long[] productoIds = listasDeDeseos.listar(usuarioId);
+        return ResponseEntity.ok(Map.of(
+                "usuarioId", usuarioId,
+                "productoIds", productoIds,
+                "total", productoIds.length));
+    }
+
+    // ================== GET /api/usuarios/{usuarioId}/lista-deseos/contiene ==================
+    @GetMapping("/contiene")
+    public ResponseEntity<?> contiene(@PathVariable Long usuarioId,
+                                      @RequestParam List<Long> productoIds) {
+        if (productoIds.size() > MAXIMO_CONTIENE) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Se pueden consultar hasta " + MAXIMO_CONTIENE + " productos por vez"));
+        }
+        return ResponseEntity.ok(Map.of(
+                "usuarioId", usuarioId,
+                "contiene", listasDeDeseos.contiene(usuarioId, productoIds)));
+    }
+
+    // ================== POST /api/usuarios/{usuarioId}/lista-deseos/{productoId} ==================
+    @PostMapping("/{productoId}")
+    public ResponseEntity<?> agregar(@PathVariable Long usuarioId, @PathVariable Long productoId) {
+        switch (listasDeDeseos.agregar(usuarioId, productoId)) {
+            case USUARIO_NO_EXISTE:
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Usuario no encontrado"));
+            case PRODUCTO_NO_EXISTE:
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Producto no encontrado"));
+            case YA_ESTABA:
+                return ResponseEntity.ok(Map.of("usuarioId", usuarioId, "productoId", productoId, "agregado", false));
+            default:
+                return ResponseEntity.status(HttpStatus.CREATED)
+                        .body(Map.of("usuarioId", usuarioId, "productoId", productoId, "agregado", true));
+        }
+    }
+
+    // ================== DELETE /api/usuarios/{usuarioId}/lista-deseos/{productoId} ==================
+    @DeleteMapping("/{productoId}")
+    public ResponseEntity<?> quitar(@PathVariable Long usuarioId, @PathVariable Long productoId) {
+        if (!listasDeDeseos.quitar(usuarioId, productoId)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "El producto no está en la lista de deseos"));
+        }
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,159 @@
+package com.urbancollection.ecommerce.api.web;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.urbancollection.ecommerce.infrastructure.pagos.ConciliacionDePagos;
+import com.urbancollection.ecommerce.persistence.jpa.spring.MovimientoDePago;
+import com.urbancollection.ecommerce.persistence.jpa.spring.TransaccionPagoJpaRepository;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * PagoController
+ *
+ * Libro de pagos para finanzas: consultas por pedido, por estado y por rango
+ * de fechas (paginadas por cursor) y el reporte de conciliación en CSV.
+ */
+@RestController
+@RequestMapping("/api/pagos")
+public class PagoController {
+
+    // Tope de filas por página.
+    private static final int MAXIMO_LIMITE = 500;
+
+    private final TransaccionPagoJpaRepository pagoRepository;
+    private final ConciliacionDePagos conciliacion;
+
+    public PagoController(TransaccionPagoJpaRepository pagoRepository, ConciliacionDePagos conciliacion) {
+        this.pagoRepository = pagoRepository;
+        this.conciliacion = conciliacion;
+    }
+
+    // ================== GET /api/pagos/pedido/{pedidoId} ==================
+
+    @GetMapping("/pedido/{pedidoId}")
+    @Transactional(readOnly = true)
+    public ResponseEntity<List<MovimientoDePago>> porPedido(@PathVariable Long pedidoId) {
+        return ResponseEntity.ok(pagoRepository.findMovimientosPorPedido(pedidoId));
+    }
+
+    // ================== GET /api/pagos?estado=APROBADO&despuesDe=0&limite=50 ==================
+    // siguiente es el id desde el que pedir la próxima página (null si no hay más).
+
+    @GetMapping
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> porEstado(@RequestParam String estado,
+                                       @RequestParam(defaultValue = "0") long despuesDe,
+                                       @RequestParam(defaultValue = "50") int limite) {
+        if (limite < 1 || limite > MAXIMO_LIMITE) return limiteInvalido();
+
+        List<MovimientoDePago> filas = pagoRepository.findMovimientosPorEstado(
+                estado, despuesDe, PageRequest.of(0, limite + 1));
+        boolean hayMas = filas.size() > limite;
+        if (hayMas) filas = filas.subList(0, limite);
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("pagos", filas);
+        body.put("siguiente", hayMas ? filas.get(filas.size() - 1).id() : null);
+        return ResponseEntity.ok(body);
+    }
+
+    // ================== GET /api/pagos/rango?desde=...&hasta=... ==================
+    // Pagos con fecha en [desde, hasta) ordenados por fecha e id. Para la página
+    // siguiente se mandan despuesDeFecha y despuesDeId con lo que vino en "siguiente".
+
+    @GetMapping("/rango")
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> porRango(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime despuesDeFecha,
+            @RequestParam(defaultValue = "0") long despuesDeId,
+            @RequestParam(defaultValue = "50") int limite) {
+        if (limite < 1 || limite > MAXIMO_LIMITE) return limiteInvalido();
+        if (!desde.isBefore(hasta)) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "Parámetro inválido",
+                    "details", List.of("desde tiene que ser anterior a hasta")
+            ));
+        }
+
+        List<MovimientoDePago> filas = pagoRepository.findMovimientosEntre(desde, hasta,
+                despuesDeFecha != null ? despuesDeFecha : desde, despuesDeId, PageRequest.of(0, limite + 1));
+        boolean hayMas = filas.size() > limite;
+        if (hayMas) filas = filas.subList(0, limite);
+
+        Map<String, Object> siguiente = null;
+        if (hayMas) {
+            MovimientoDePago ultimo = filas.get(filas.size() - 1);
+            siguiente = new LinkedHashMap<>();
+            siguiente.put("despuesDeFecha", ultimo.fecha());
+            siguiente.put("despuesDeId", ultimo.id());
+        }
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("pagos", filas);
+        body.put("siguiente", siguiente);
+        return ResponseEntity.ok(body);
+    }
+
+    // ================== GET /api/pagos/conciliacion?desde=2026-10-01&hasta=2026-10-31 ==================
+    // CSV con cantidad y total por día, método y estado (los dos días incluidos).
+    // Se escribe a medida que la BD devuelve cada día.
+
+    @GetMapping("/conciliacion")
+    public void conciliacion(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+                             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+                             HttpServletResponse response) throws IOException {
+        response.setContentType("text/csv;charset=UTF-8");
+        response.setHeader("Content-Disposition",
+                "attachment; filename=\"conciliacion-" + desde + "-" + hasta + ".csv\"");
+        PrintWriter out = response.getWriter();
+        out.println("dia,metodo,estado,cantidad,total");
+        try {
+            conciliacion.recorrer(desde, hasta, f -> out.println(f.dia() + ","
+                    + (f.metodo() != null ? f.metodo() : "") + ","
+                    + (f.estado() != null ? f.estado() : "") + ","
+                    + f.cantidad() + "," + f.total().toPlainString()));
+        } catch (IllegalArgumentException ex) {
+            error(response, HttpStatus.BAD_REQUEST, ex.getMessage());
+            return;
+        } catch (ConciliacionDePagos.ConciliacionEnCurso ex) {
+            error(response, HttpStatus.TOO_MANY_REQUESTS, ex.getMessage());
+            return;
+        }
+        out.flush();
+    }
+
+    // Los errores saltan antes de la primera fila: solo está el encabezado en el buffer y se descarta.
+    private static void error(HttpServletResponse response, HttpStatus status, String mensaje) throws IOException {
+        response.reset();
+        response.setStatus(status.value());
+        response.setContentType("text/plain;charset=UTF-8");
+        response.getWriter().print(mensaje);
+    }
+
+    private static ResponseEntity<?> limiteInvalido() {
+        return ResponseEntity.badRequest().body(Map.of(
+                "error", "Parámetro inválido",
+                "details", List.of("limite debe estar entre 1 y " + MAXIMO_LIMITE)
+        ));
+    }
+}
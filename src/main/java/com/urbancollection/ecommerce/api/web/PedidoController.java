@@ -1,9 +1,11 @@
 package com.urbancollection.ecommerce.api.web;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
@@ -11,9 +13,12 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.urbancollection.ecommerce.api.web.dto.ConfirmarPagoRequest;
 import com.urbancollection.ecommerce.api.web.dto.PedidoCreateRequest;
 import com.urbancollection.ecommerce.api.web.dto.PedidoMapper;
 import com.urbancollection.ecommerce.api.web.dto.PedidoResponse;
@@ -22,7 +27,11 @@ import com.urbancollection.ecommerce.domain.base.OperationResult;
 import com.urbancollection.ecommerce.domain.entity.catalogo.Producto;
 import com.urbancollection.ecommerce.domain.entity.ventas.ItemPedido;
 import com.urbancollection.ecommerce.domain.entity.ventas.Pedido;
+import com.urbancollection.ecommerce.domain.enums.EstadoDePedido;
+import com.urbancollection.ecommerce.infrastructure.pagos.ConfirmacionDePagos;
+import com.urbancollection.ecommerce.infrastructure.pagos.ConfirmacionDePagos.Confirmacion;
 import com.urbancollection.ecommerce.persistence.jpa.spring.PedidoJpaRepository;
+import com.urbancollection.ecommerce.persistence.jpa.spring.PedidoSinEnvio;
 
 import jakarta.validation.Valid;
 
@@ -30,12 +39,21 @@ import jakarta.validation.Valid;
 @RequestMapping("/api/pedidos")
 public class PedidoController {
 
+    // Tope de filas por página de /sin-envio.
+    private static final int MAXIMO_SIN_ENVIO = 500;
+
+    // Largo máximo de la clave de idempotencia (se guarda como referencia del pago).
+    static final int MAXIMO_CLAVE = 100;
+
     private final IPedidoService pedidoService;
     private final PedidoJpaRepository pedidoRepository;
+    private final ConfirmacionDePagos confirmacionDePagos;
 
-    public PedidoController(IPedidoService pedidoService, PedidoJpaRepository pedidoRepository) {
+    public PedidoController(IPedidoService pedidoService, PedidoJpaRepository pedidoRepository,
+                            ConfirmacionDePagos confirmacionDePagos) {
         this.pedidoService = pedidoService;
         this.pedidoRepository = pedidoRepository;
+        this.confirmacionDePagos = confirmacionDePagos;
     }
 
     // =========================
@@ -109,6 +127,35 @@ public class PedidoController {
     }
 
  
+    // GET /api/pedidos/sin-envio?despuesDe=0&limite=50
+    // Cola de despacho: pedidos PAGADOS sin envío, de a páginas por cursor.
+    // siguiente es el id desde el que pedir la próxima página (null si no hay más).
+
+    @GetMapping("/sin-envio")
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> sinEnvio(@RequestParam(defaultValue = "0") long despuesDe,
+                                      @RequestParam(defaultValue = "50") int limite) {
+
+        if (limite < 1 || limite > MAXIMO_SIN_ENVIO) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "Parámetro inválido",
+                    "details", List.of("limite debe estar entre 1 y " + MAXIMO_SIN_ENVIO)
+            ));
+        }
+
+        // Pido uno de más para saber si hay otra página sin contar.
+        List<PedidoSinEnvio> filas = pedidoRepository.findSinEnvio(
+                EstadoDePedido.PAGADO, despuesDe, PageRequest.of(0, limite + 1));
+        boolean hayMas = filas.size() > limite;
+        if (hayMas) filas = filas.subList(0, limite);
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("pedidos", filas);
+        body.put("siguiente", hayMas ? filas.get(filas.size() - 1).id() : null);
+        return ResponseEntity.ok(body);
+    }
+
+
     // GET /api/pedidos/{id}
 
     @GetMapping("/{id}")
@@ -131,6 +178,57 @@ public class PedidoController {
         return ResponseEntity.ok(response);
     }
 
+    // =========================
+    // POST /api/pedidos/{id}/pago
+    // Confirma el pago. La clave de idempotencia puede venir en el body o en el
+    // header Idempotency-Key; los reintentos con la misma clave reciben la misma
+    // respuesta (con Idempotent-Replayed: true) sin volver a escribir.
+    // Sin @Transactional: la transacción la abre ConfirmacionDePagos solo para escribir.
+    // =========================
+    @PostMapping("/{id}/pago")
+    public ResponseEntity<?> confirmarPago(@PathVariable Long id,
+                                           @RequestBody @Valid ConfirmarPagoRequest request,
+                                           @RequestHeader(value = "Idempotency-Key", required = false) String claveHeader) {
+
+        String clave = request.getIdempotencyKey() != null ? request.getIdempotencyKey() : claveHeader;
+        if (clave != null && clave.length() > MAXIMO_CLAVE) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "Parámetro inválido",
+                    "details", List.of("idempotencyKey no puede tener más de " + MAXIMO_CLAVE + " caracteres")
+            ));
+        }
+
+        ConfirmacionDePagos.Respuesta respuesta = confirmacionDePagos.confirmar(
+                id, request.getMetodo(), request.getMonto(), clave);
+        Confirmacion c = respuesta.confirmacion();
+
+        HttpStatus status = switch (c.resultado()) {
+            case CONFIRMADO -> respuesta.repetida() ? HttpStatus.OK : HttpStatus.CREATED;
+            case NO_EXISTE -> HttpStatus.NOT_FOUND;
+            case MONTO_INVALIDO, CLAVE_REUTILIZADA -> HttpStatus.UNPROCESSABLE_ENTITY;
+            case ESTADO_INVALIDO, YA_PAGADO, CONFLICTO -> HttpStatus.CONFLICT;
+        };
+
+        Object body;
+        if (c.resultado() == ConfirmacionDePagos.Resultado.CONFIRMADO) {
+            Map<String, Object> pago = new LinkedHashMap<>();
+            pago.put("pedidoId", c.pedidoId());
+            pago.put("transaccionId", c.transaccionId());
+            pago.put("estado", EstadoDePedido.PAGADO);
+            pago.put("metodo", c.metodo());
+            pago.put("monto", c.monto());
+            pago.put("referencia", c.referencia());
+            pago.put("fecha", c.fecha());
+            body = pago;
+        } else {
+            body = Map.of("error", c.resultado().name(), "details", List.of(c.detalle()));
+        }
+
+        return ResponseEntity.status(status)
+                .header("Idempotent-Replayed", String.valueOf(respuesta.repetida()))
+                .body(body);
+    }
+
     // =========================
     // GET /api/pedidos/test/error500
 
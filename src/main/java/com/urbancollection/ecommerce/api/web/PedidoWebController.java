@@ -1,8 +1,10 @@
 package com.urbancollection.ecommerce.api.web;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.stereotype.Controller;
@@ -14,14 +16,21 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
-import com.urbancollection.ecommerce.domain.entity.catalogo.Cupon;
 import com.urbancollection.ecommerce.domain.entity.catalogo.Producto;
 import com.urbancollection.ecommerce.domain.entity.usuarios.Usuario;
 import com.urbancollection.ecommerce.domain.entity.ventas.ItemPedido;
 import com.urbancollection.ecommerce.domain.entity.ventas.Pedido;
 import com.urbancollection.ecommerce.domain.enums.EstadoDePedido;
 import com.urbancollection.ecommerce.domain.enums.MetodoDePago; // 👈 CORRECCIÓN: Nueva Importación
+import com.urbancollection.ecommerce.infrastructure.cache.CuponCache;
+import com.urbancollection.ecommerce.infrastructure.estados.EstadosDePedido;
+import com.urbancollection.ecommerce.infrastructure.paginacion.LecturaPorLotes;
+import com.urbancollection.ecommerce.infrastructure.paginacion.PaginaPorCursor;
+import com.urbancollection.ecommerce.infrastructure.pricing.MotorDePrecios;
+import com.urbancollection.ecommerce.infrastructure.search.Autocompletado;
+import com.urbancollection.ecommerce.infrastructure.stock.ReservasDeStock;
 import com.urbancollection.ecommerce.persistence.jpa.spring.CuponJpaRepository;
+import com.urbancollection.ecommerce.persistence.jpa.spring.PedidoFila;
 import com.urbancollection.ecommerce.persistence.jpa.spring.PedidoJpaRepository;
 import com.urbancollection.ecommerce.persistence.jpa.spring.ProductoJpaRepository;
 import com.urbancollection.ecommerce.persistence.jpa.spring.UsuarioJpaRepository;
@@ -39,27 +48,57 @@ public class PedidoWebController {
     private final ProductoJpaRepository productoRepository;
     // Repositorio para consultar y aplicar cupones de descuento.
     private final CuponJpaRepository cuponRepository;
+    // Caché de cupones: en el checkout valido el cupón sin ir a la base de datos.
+    private final CuponCache cuponCache;
+    // Motor que calcula subtotal, descuento, envío y total del pedido.
+    private final MotorDePrecios motorDePrecios;
+    // Reservas de stock en memoria: aparta y descuenta las unidades de cada pedido.
+    private final ReservasDeStock reservasDeStock;
+    // Cada venta suma popularidad a productos y cupón en el autocompletado.
+    private final Autocompletado autocompletado;
+    // Cambios de estado validados y con control de concurrencia.
+    private final EstadosDePedido estadosDePedido;
 
     // Constructor donde Spring inyecta todos los repositorios necesarios.
     public PedidoWebController(
             PedidoJpaRepository pedidoRepository,
             UsuarioJpaRepository usuarioRepository,
             ProductoJpaRepository productoRepository,
-            CuponJpaRepository cuponRepository) {
+            CuponJpaRepository cuponRepository,
+            CuponCache cuponCache,
+            MotorDePrecios motorDePrecios,
+            ReservasDeStock reservasDeStock,
+            Autocompletado autocompletado,
+            EstadosDePedido estadosDePedido) {
         this.pedidoRepository = pedidoRepository;
         this.usuarioRepository = usuarioRepository;
         this.productoRepository = productoRepository;
         this.cuponRepository = cuponRepository;
+        this.cuponCache = cuponCache;
+        this.motorDePrecios = motorDePrecios;
+        this.reservasDeStock = reservasDeStock;
+        this.autocompletado = autocompletado;
+        this.estadosDePedido = estadosDePedido;
     }
 
-    // Acción GET para mostrar el listado de todos los pedidos.
+    // Acción GET para mostrar el listado de pedidos por páginas (o todos con ?todo=true).
     @GetMapping
-    public String listar(Model model) {
+    public String listar(@RequestParam(defaultValue = "0") long despuesDe,
+                         @RequestParam(required = false) Integer tamano,
+                         @RequestParam(defaultValue = "false") boolean todo,
+                         Model model) {
         try {
-            // Busco todos los pedidos en la base de datos.
-            List<Pedido> pedidos = pedidoRepository.findAll();
-            // Los agrego al modelo para que la vista los muestre.
-            model.addAttribute("pedidos", pedidos);
+            if (todo) {
+                // Todos, de a lotes: se leen mientras la vista escribe la tabla.
+                model.addAttribute("pedidos", new LecturaPorLotes<>(pedidoRepository::findFilas, PedidoFila::id));
+                return "pedido/list";
+            }
+            // Busco una página de pedidos a partir del id despuesDe.
+            PaginaPorCursor<PedidoFila> pagina = PaginaPorCursor.leer(
+                    pedidoRepository::findFilas, PedidoFila::id, despuesDe, tamano);
+            // La agrego al modelo para que la vista la muestre.
+            model.addAttribute("pedidos", pagina.filas());
+            model.addAttribute("pagina", pagina);
             return "pedido/list";
         } catch (Exception e) {
             // Si ocurre un error, lo muestro en la vista.
@@ -72,15 +111,10 @@ public class PedidoWebController {
     @GetMapping("/create")
     public String mostrarFormularioCrear(Model model) {
         try {
-            // Cargo todos los usuarios, productos y cupones para llenar los combos del formulario.
+            // Cargo los usuarios para el combo. Productos y cupones no se listan:
+            // el formulario los busca con /api/autocomplete y guarda el id elegido.
             List<Usuario> usuarios = usuarioRepository.findAll();
-            List<Producto> productos = productoRepository.findAll();
-            List<Cupon> cupones = cuponRepository.findAll();
-
-            // Agrego las listas al modelo para que el formulario las use.
             model.addAttribute("usuarios", usuarios);
-            model.addAttribute("productos", productos);
-            model.addAttribute("cupones", cupones);
             // Valores por defecto en el formulario.
             model.addAttribute("usuarioId", "");
             model.addAttribute("cuponId", "");
@@ -123,6 +157,9 @@ public class PedidoWebController {
             return mostrarError(model, "Las cantidades no coinciden con los productos", usuarioId, cuponId);
         }
 
+        // Reserva de stock del pedido (si algo falla después de reservar, la libero).
+        ReservasDeStock.Reserva reserva = null;
+
         try {
             // Busco el usuario que hace el pedido.
             Optional<Usuario> usuarioOpt = usuarioRepository.findById(usuarioId);
@@ -148,20 +185,19 @@ public class PedidoWebController {
             }
 
             // Si el usuario seleccionó un cupón, lo busco y lo asigno al pedido.
-            if (cuponId != null) {
-                Optional<Cupon> cuponOpt = cuponRepository.findById(cuponId);
-                cuponOpt.ifPresent(pedido::setCupon);
-            }
+            // El cupón sale de la caché; para la relación basta una referencia (no hace SELECT).
+            Optional<CuponCache.Entrada> cuponOpt = cuponCache.buscarPorId(cuponId);
+            cuponOpt.ifPresent(c -> pedido.setCupon(cuponRepository.getReferenceById(c.getId())));
 
-            // Empiezo con subtotal en cero y lo iré sumando según los productos.
-            BigDecimal subtotal = BigDecimal.ZERO;
+            // Voy acumulando el subtotal en el motor de precios según los productos.
+            MotorDePrecios.Calculo calculo = motorDePrecios.nuevoCalculo();
             // Recorro todos los productos seleccionados.
             for (int i = 0; i < productosIds.size(); i++) {
                 Long productoId = productosIds.get(i);
                 Integer cantidad = cantidades.get(i);
 
-                // Si la cantidad no es válida, simplemente la ignoro.
-                if (cantidad == null || cantidad <= 0) continue;
+                // Si no se eligió producto o la cantidad no es válida, simplemente la ignoro.
+                if (productoId == null || cantidad == null || cantidad <= 0) continue;
 
                 // Busco el producto en base de datos.
                 Optional<Producto> productoOpt = productoRepository.findById(productoId);
@@ -169,14 +205,6 @@ public class PedidoWebController {
 
                 Producto producto = productoOpt.get();
 
-                // Valido que haya suficiente stock para la cantidad pedida.
-                if (producto.getStock() < cantidad) {
-                    return mostrarError(model, 
-                        "Stock insuficiente para " + producto.getNombre() + 
-                        " (disponible: " + producto.getStock() + ")", 
-                        usuarioId, cuponId);
-                }
-
                 // Creo el item del pedido 
                 ItemPedido item = new ItemPedido();
                 item.setPedido(pedido);
@@ -187,7 +215,7 @@ public class PedidoWebController {
                 // Agrego el item a la lista de items del pedido.
                 pedido.agregarItem(item);
                 // Actualizo el subtotal sumando cantidad * precio.
-                subtotal = subtotal.add(producto.getPrecio().multiply(new BigDecimal(cantidad)));
+                calculo.agregarLinea(producto.getPrecio(), cantidad);
             }
 
             // Si no se agregó ningún item válido, no tiene sentido crear el pedido.
@@ -195,52 +223,35 @@ public class PedidoWebController {
                 return mostrarError(model, "No se agregaron productos válidos al pedido", usuarioId, cuponId);
             }
 
-            // Asigno el subtotal calculado.
-            pedido.setSubtotal(subtotal);
-            // Variable para ir calculando el descuento final.
-            BigDecimal descuento = BigDecimal.ZERO;
-
-            // Si el pedido tiene cupón, calculo el descuento correspondiente.
-            if (pedido.getCupon() != null) {
-                Cupon cupon = pedido.getCupon();
-                if (cupon.isActivo()) {
-                    // Dependiendo del tipo de cupón, calculo el descuento.
-                    switch (cupon.getTipo()) {
-                        case PORCENTAJE:
-                            // Descuento = subtotal * porcentaje / 100, redondeando a 2 decimales.
-                            descuento = subtotal.multiply(cupon.getValorDescuento())
-                                    .divide(new BigDecimal("100"), 2, RoundingMode.HALF_UP);
-                            // Si hay un tope de descuento, lo respeto.
-                            if (cupon.getTopeDescuento() != null && descuento.compareTo(cupon.getTopeDescuento()) > 0) {
-                                descuento = cupon.getTopeDescuento();
-                            }
-                            break;
-                        case MONTO_FIJO:
-                            // En monto fijo, el descuento es un valor fijo.
-                            descuento = cupon.getValorDescuento();
-                            // Pero nunca puede ser mayor que el subtotal.
-                            if (descuento.compareTo(subtotal) > 0) {
-                                descuento = subtotal;
-                            }
-                            break;
-                    }
-                }
+            // Aparto el stock de todos los productos de una vez (todo o nada).
+            // Así dos pedidos al mismo tiempo no pueden vender la misma unidad.
+            ReservasDeStock.IntentoDeReserva intento = reservasDeStock.reservar(cantidadesPorProducto(pedido));
+            if (!intento.isExitoso()) {
+                return mostrarError(model,
+                    "Stock insuficiente para " + nombreProducto(pedido, intento.getProductoId()) +
+                    " (disponible: " + Math.max(0, intento.getDisponible()) + ")",
+                    usuarioId, cuponId);
             }
+            reserva = intento.getReserva();
 
-            // Asigno el descuento calculado.
-            pedido.setDescuento(descuento);
-            // Total = subtotal - descuento.
-            pedido.setTotal(subtotal.subtract(descuento));
+            // El cupón solo cuenta si está vigente (activo y dentro de fechas);
+            // el mínimo de compra y los topes los revisa el motor.
+            MotorDePrecios.Regla regla = cuponOpt
+                    .filter(c -> c.vigenteEn(LocalDateTime.now()))
+                    .map(CuponCache.Entrada::getRegla)
+                    .orElse(null);
+
+            // Calculo subtotal, descuento y total de una vez (el checkout web no cobra envío).
+            motorDePrecios.cerrar(calculo, regla, BigDecimal.ZERO).aplicarA(pedido);
 
             // Guardo el pedido en la base de datos.
             pedidoRepository.save(pedido);
 
-            // Actualizo el stock de cada producto según las cantidades vendidas.
-            for (ItemPedido item : pedido.getItems()) {
-                Producto producto = item.getProducto();
-                producto.setStock(producto.getStock() - item.getCantidad());
-                productoRepository.save(producto);
-            }
+            // El pedido web nace pagado: la reserva pasa directo a venta.
+            // El stock en la BD lo actualiza ReservasDeStock en segundo plano.
+            reservasDeStock.vincular(reserva, pedido.getId());
+            reservasDeStock.confirmar(reserva.getId());
+            autocompletado.registrarVenta(pedido);
 
             // Mensaje de éxito al crear el pedido.
             redirectAttributes.addFlashAttribute("successMessage", 
@@ -248,7 +259,10 @@ public class PedidoWebController {
             return "redirect:/web/pedidos";
 
         } catch (Exception e) {
-            // Si algo falla en cualquier parte del proceso, muestro el error.
+            // Si algo falla en cualquier parte del proceso, devuelvo lo reservado y muestro el error.
+            if (reserva != null) {
+                reservasDeStock.liberar(reserva.getId());
+            }
             return mostrarError(model, "Error al crear el pedido: " + e.getMessage(), 
                               usuarioId, cuponId);
         }
@@ -304,19 +318,42 @@ public class PedidoWebController {
                 return "redirect:/web/pedidos/" + id;
             }
 
+            EstadoDePedido nuevoEstado;
             try {
                 // Intento convertir el String a enum de EstadoDePedido.
-                EstadoDePedido nuevoEstado = EstadoDePedido.valueOf(estado);
-                pedido.setEstado(nuevoEstado);
-                // Guardo el nuevo estado del pedido.
-                pedidoRepository.save(pedido);
-
-                redirectAttributes.addFlashAttribute("successMessage", 
-                    "✓ Estado del pedido actualizado exitosamente");
+                nuevoEstado = EstadoDePedido.valueOf(estado);
             } catch (IllegalArgumentException e) {
                 // Si el estado no coincide con el enum, es inválido.
                 redirectAttributes.addFlashAttribute("errorMessage", 
                     "⚠ Estado de pedido inválido: " + estado);
+                return "redirect:/web/pedidos/" + id;
+            }
+
+            // Cambio solo la columna de estado, validando la transición y sin pisar
+            // un cambio que otro haya hecho en el medio (ver EstadosDePedido).
+            EstadosDePedido.Cambio cambio = estadosDePedido.cambiar(id, nuevoEstado);
+            switch (cambio.resultado()) {
+                case CAMBIADO -> {
+                    // Si se pagó, la reserva (si tiene) pasa a venta; si se canceló, el stock vuelve.
+                    // Solo el que hizo el cambio llega acá, así el stock se devuelve una sola vez.
+                    if (nuevoEstado == EstadoDePedido.PAGADO) {
+                        reservasDeStock.confirmarPorPedido(id);
+                    } else if (nuevoEstado == EstadoDePedido.CANCELADO) {
+                        devolverStock(pedido);
+                    }
+                    redirectAttributes.addFlashAttribute("successMessage", 
+                        "✓ Estado del pedido actualizado exitosamente");
+                }
+                case SIN_CAMBIOS -> redirectAttributes.addFlashAttribute("successMessage", 
+                    "✓ El pedido ya estaba en estado " + nuevoEstado);
+                case TRANSICION_INVALIDA -> redirectAttributes.addFlashAttribute("errorMessage", 
+                    "⚠ Un pedido " + cambio.anterior() + " no puede pasar a " + nuevoEstado);
+                case NO_EXISTE -> {
+                    redirectAttributes.addFlashAttribute("errorMessage", "⚠ Pedido no encontrado");
+                    return "redirect:/web/pedidos";
+                }
+                case CONFLICTO -> redirectAttributes.addFlashAttribute("errorMessage", 
+                    "⚠ El pedido se está modificando en este momento, intente de nuevo");
             }
 
             return "redirect:/web/pedidos/" + id;
@@ -344,11 +381,10 @@ public class PedidoWebController {
 
             Pedido pedido = pedidoOpt.get();
 
-            // Antes de borrar el pedido, devuelvo el stock de los productos.
-            for (ItemPedido item : pedido.getItems()) {
-                Producto producto = item.getProducto();
-                producto.setStock(producto.getStock() + item.getCantidad());
-                productoRepository.save(producto);
+            // Antes de borrar el pedido, devuelvo el stock de los productos
+            // (si estaba cancelado ya se devolvió al cancelarlo).
+            if (pedido.getEstado() != EstadoDePedido.CANCELADO) {
+                devolverStock(pedido);
             }
 
             // Ahora sí elimino el pedido.
@@ -366,6 +402,32 @@ public class PedidoWebController {
         }
     }
 
+    // Devuelve el stock de un pedido: si aún tiene reserva la libero, si no, sumo las unidades vendidas.
+    private void devolverStock(Pedido pedido) {
+        if (!reservasDeStock.liberarPorPedido(pedido.getId())) {
+            reservasDeStock.devolver(cantidadesPorProducto(pedido));
+        }
+    }
+
+    // Junta las cantidades del pedido por id de producto.
+    private static Map<Long, Integer> cantidadesPorProducto(Pedido pedido) {
+        Map<Long, Integer> cantidades = new LinkedHashMap<>();
+        for (ItemPedido item : pedido.getItems()) {
+            if (item.getProducto() == null || item.getProducto().getId() == null) continue;
+            cantidades.merge(item.getProducto().getId(), item.getCantidad(), Integer::sum);
+        }
+        return cantidades;
+    }
+
+    private static String nombreProducto(Pedido pedido, Long productoId) {
+        for (ItemPedido item : pedido.getItems()) {
+            if (item.getProducto() != null && productoId.equals(item.getProducto().getId())) {
+                return item.getProducto().getNombre();
+            }
+        }
+        return "el producto " + productoId;
+    }
+
     // Método privado de ayuda para centralizar el manejo de errores en la creación.
     private String mostrarError(Model model, String mensaje, Long usuarioId, Long cuponId) {
         // Agrego el mensaje de error al modelo.
@@ -374,16 +436,15 @@ public class PedidoWebController {
         model.addAttribute("usuarioId", usuarioId);
         model.addAttribute("cuponId", cuponId);
 
+        // El cupón elegido se vuelve a mostrar por su código (sale de la caché, sin SELECT).
+        cuponCache.buscarPorId(cuponId).ifPresent(c -> model.addAttribute("cuponCodigo", c.getCodigo()));
+
         try {
-            // Intento recargar las listas para que el formulario se pueda volver a mostrar.
+            // Intento recargar los usuarios para que el formulario se pueda volver a mostrar.
             model.addAttribute("usuarios", usuarioRepository.findAll());
-            model.addAttribute("productos", productoRepository.findAll());
-            model.addAttribute("cupones", cuponRepository.findAll());
         } catch (Exception e) {
-            // Si algo falla al cargar las listas, las dejo vacías para evitar errores.
+            // Si algo falla al cargar la lista, la dejo vacía para evitar errores.
             model.addAttribute("usuarios", List.of());
-            model.addAttribute("productos", List.of());
-            model.addAttribute("cupones", List.of());
         }
 
         // Siempre regreso a la vista de creación de pedido.
@@ -7,6 +7,8 @@ import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -17,12 +19,17 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import com.urbancollection.ecommerce.application.dto.ProductoDTO;
 import com.urbancollection.ecommerce.application.service.IProductoService;
 import com.urbancollection.ecommerce.domain.base.OperationResult;
 import com.urbancollection.ecommerce.domain.entity.catalogo.Producto;
+import com.urbancollection.ecommerce.infrastructure.cache.VersionesDeRecursos;
+import com.urbancollection.ecommerce.infrastructure.formatos.FormatosBinarios;
+import com.urbancollection.ecommerce.infrastructure.search.BuscadorDeProductos;
 
 @RestController
 @RequestMapping("/api/productos")
@@ -32,20 +39,63 @@ public class ProductoController {
 
     private final IProductoService productoService; // ✅ CAMBIADO: Service en lugar de Repository
 
-    public ProductoController(IProductoService productoService) {
+    private final BuscadorDeProductos buscadorDeProductos;
+
+    private final VersionesDeRecursos versiones;
+
+    public ProductoController(IProductoService productoService, BuscadorDeProductos buscadorDeProductos,
+                              VersionesDeRecursos versiones) {
         this.productoService = productoService;
+        this.buscadorDeProductos = buscadorDeProductos;
+        this.versiones = versiones;
     }
 
     // ================== GET /api/productos ==================
+    // GET condicional: si el cliente manda el ETag (o la fecha) de la versión actual
+    // se contesta 304 sin ir a la BD. El ETag depende del formato pedido (Vary: Accept).
     @GetMapping
-    public ResponseEntity<List<ProductoDTO>> listar() {
+    public ResponseEntity<List<ProductoDTO>> listar(WebRequest request) {
+        VersionesDeRecursos.Version version = versiones.de(VersionesDeRecursos.PRODUCTOS)
+                .en(FormatosBinarios.negociado(request.getHeader(HttpHeaders.ACCEPT)));
+        CacheControl cacheControl = versiones.cacheControl(VersionesDeRecursos.PRODUCTOS);
+        if (request.checkNotModified(version.etag(), version.ultimaModificacion())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(version.etag()).varyBy(HttpHeaders.ACCEPT)
+                    .lastModified(version.ultimaModificacion()).cacheControl(cacheControl).build();
+        }
+
         List<ProductoDTO> lista = productoService.listar();
-        return ResponseEntity.ok(lista);
+        return ResponseEntity.ok().eTag(version.etag()).varyBy(HttpHeaders.ACCEPT)
+                .lastModified(version.ultimaModificacion()).cacheControl(cacheControl).body(lista);
+    }
+
+    // ================== GET /api/productos/search?q= ==================
+    @GetMapping("/search")
+    public ResponseEntity<?> buscar(@RequestParam(name = "q", required = false) String q,
+                                   @RequestParam(name = "limite", defaultValue = "20") int limite) {
+        if (q == null || q.isBlank()) {
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "Debe indicar el texto a buscar (q)"));
+        }
+        if (limite < 1 || limite > 100) {
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "El límite debe estar entre 1 y 100"));
+        }
+        return ResponseEntity.ok(buscadorDeProductos.buscar(q, limite));
     }
 
     // ================== GET /api/productos/{id} ==================
     @GetMapping("/{id}")
-    public ResponseEntity<?> getById(@PathVariable Long id) {
+    public ResponseEntity<?> getById(@PathVariable Long id, WebRequest request) {
+        VersionesDeRecursos.Version version = versiones.de(VersionesDeRecursos.PRODUCTOS, id)
+                .en(FormatosBinarios.negociado(request.getHeader(HttpHeaders.ACCEPT)));
+        CacheControl cacheControl = versiones.cacheControl(VersionesDeRecursos.PRODUCTOS);
+        if (request.checkNotModified(version.etag(), version.ultimaModificacion())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(version.etag()).varyBy(HttpHeaders.ACCEPT)
+                    .lastModified(version.ultimaModificacion()).cacheControl(cacheControl).build();
+        }
+
         Optional<ProductoDTO> producto = productoService.buscarPorId(id);
         
         if (producto.isEmpty()) {
@@ -54,7 +104,8 @@ public class ProductoController {
                     .body(Map.of("error", "Producto no encontrado"));
         }
         
-        return ResponseEntity.ok(producto.get());
+        return ResponseEntity.ok().eTag(version.etag()).varyBy(HttpHeaders.ACCEPT)
+                .lastModified(version.ultimaModificacion()).cacheControl(cacheControl).body(producto.get());
     }
 
     // ================== POST /api/productos ==================
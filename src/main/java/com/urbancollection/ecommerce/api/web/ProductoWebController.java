@@ -1,7 +1,6 @@
 package com.urbancollection.ecommerce.api.web;
 
 import java.math.BigDecimal;
-import java.util.List;
 import java.util.Optional;
 
 import org.springframework.stereotype.Controller;
@@ -14,6 +13,12 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import com.urbancollection.ecommerce.domain.entity.catalogo.Producto;
+import com.urbancollection.ecommerce.infrastructure.paginacion.LecturaPorLotes;
+import com.urbancollection.ecommerce.infrastructure.paginacion.PaginaPorCursor;
+import com.urbancollection.ecommerce.infrastructure.search.Autocompletado;
+import com.urbancollection.ecommerce.infrastructure.search.BuscadorDeProductos;
+import com.urbancollection.ecommerce.infrastructure.stock.ReservasDeStock;
+import com.urbancollection.ecommerce.persistence.jpa.spring.ProductoFila;
 import com.urbancollection.ecommerce.persistence.jpa.spring.ProductoJpaRepository;
 
 @Controller
@@ -23,20 +28,39 @@ public class ProductoWebController {
 
     // Repositorio JPA para acceder a la tabla de productos en la base de datos.
     private final ProductoJpaRepository productoRepository;
+    // Reservas de stock en memoria; se enteran cuando aquí se cambia el stock a mano.
+    private final ReservasDeStock reservasDeStock;
+    // Índice de búsqueda y autocompletado; se actualizan cuando se crea, edita o borra un producto.
+    private final BuscadorDeProductos buscadorDeProductos;
+    private final Autocompletado autocompletado;
 
     // Constructor donde Spring inyecta el repositorio de productos.
-    public ProductoWebController(ProductoJpaRepository productoRepository) {
+    public ProductoWebController(ProductoJpaRepository productoRepository, ReservasDeStock reservasDeStock,
+                                 BuscadorDeProductos buscadorDeProductos, Autocompletado autocompletado) {
         this.productoRepository = productoRepository;
+        this.reservasDeStock = reservasDeStock;
+        this.buscadorDeProductos = buscadorDeProductos;
+        this.autocompletado = autocompletado;
     }
 
     @GetMapping
-    // Acción GET que lista todos los productos y los manda a la vista.
-    public String listar(Model model) {
+    // Acción GET que lista los productos por páginas (o todos con ?todo=true) y los manda a la vista.
+    public String listar(@RequestParam(defaultValue = "0") long despuesDe,
+                         @RequestParam(required = false) Integer tamano,
+                         @RequestParam(defaultValue = "false") boolean todo,
+                         Model model) {
         try {
-            // Obtengo todos los productos de la base de datos.
-            List<Producto> productos = productoRepository.findAll();
-            // Los agrego al modelo para que la vista pueda mostrarlos.
-            model.addAttribute("productos", productos);
+            if (todo) {
+                // Todos, de a lotes: se leen mientras la vista escribe la tabla.
+                model.addAttribute("productos", new LecturaPorLotes<>(productoRepository::findFilas, ProductoFila::id));
+                return "producto/list";
+            }
+            // Una página de productos a partir del id despuesDe.
+            PaginaPorCursor<ProductoFila> pagina = PaginaPorCursor.leer(
+                    productoRepository::findFilas, ProductoFila::id, despuesDe, tamano);
+            // La agrego al modelo para que la vista pueda mostrarla.
+            model.addAttribute("productos", pagina.filas());
+            model.addAttribute("pagina", pagina);
             return "producto/list";
         } catch (Exception e) {
             // Si ocurre un error, envío un mensaje de error a la vista.
@@ -95,7 +119,9 @@ public class ProductoWebController {
             producto.setSku("PROD-" + System.currentTimeMillis());
 
             // Guardo el producto en la base de datos.
-            productoRepository.save(producto);
+            Producto guardado = productoRepository.save(producto);
+            buscadorDeProductos.indexar(guardado);
+            autocompletado.producto(guardado);
 
             // Agrego un mensaje de éxito que se mostrará después del redirect.
             redirectAttributes.addFlashAttribute("successMessage", "✓ Producto creado exitosamente");
@@ -170,7 +196,10 @@ public class ProductoWebController {
             producto.setStock(stock);
 
             // Guardo los cambios en la base de datos.
-            productoRepository.save(producto);
+            Producto guardado = productoRepository.save(producto);
+            buscadorDeProductos.indexar(guardado);
+            autocompletado.producto(guardado);
+            reservasDeStock.refrescarStock(id, stock);
 
             // Mensaje de éxito después de actualizar.
             redirectAttributes.addFlashAttribute("successMessage", "✓ Producto actualizado exitosamente");
@@ -194,6 +223,9 @@ public class ProductoWebController {
 
             // Elimino el producto de la base de datos.
             productoRepository.deleteById(id);
+            reservasDeStock.olvidar(id);
+            buscadorDeProductos.eliminar(id);
+            autocompletado.quitarProducto(id);
             // Mensaje de éxito después de eliminar.
             redirectAttributes.addFlashAttribute("successMessage", "✓ Producto eliminado exitosamente");
             return "redirect:/web/productos";
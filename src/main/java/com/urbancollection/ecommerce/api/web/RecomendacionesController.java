@@ -0,0 +1,45 @@
+package com.urbancollection.ecommerce.api.web;
+
+import java.util.Map;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.urbancollection.ecommerce.infrastructure.recomendaciones.Recomendaciones;
+
+/**
+ * RecomendacionesController
+ *
+ * Recomendaciones precalculadas (se responden desde memoria):
+ * - GET /api/recomendaciones/mas-deseados?limite=10                      -> productos en más listas de deseos
+ * - GET /api/recomendaciones/productos/{id}/comprados-juntos?limite=5    -> los que más salen en el mismo pedido
+ */
+@RestController
+@RequestMapping("/api/recomendaciones")
+public class RecomendacionesController {
+
+    private final Recomendaciones recomendaciones;
+
+    public RecomendacionesController(Recomendaciones recomendaciones) {
+        this.recomendaciones = recomendaciones;
+    }
+
+    // ================== GET /api/recomendaciones/mas-deseados ==================
+    @GetMapping("/mas-deseados")
+    public ResponseEntity<?> masDeseados(@RequestParam(defaultValue = "10") int limite) {
+        return ResponseEntity.ok(Map.of("productos", recomendaciones.masDeseados().primeros(limite)));
+    }
+
+    // ================== GET /api/recomendaciones/productos/{id}/comprados-juntos ==================
+    @GetMapping("/productos/{id}/comprados-juntos")
+    public ResponseEntity<?> compradosJuntos(@PathVariable Long id,
+                                             @RequestParam(defaultValue = "5") int limite) {
+        return ResponseEntity.ok(Map.of(
+                "productoId", id,
+                "productos", recomendaciones.compradosJuntos(id).primeros(limite)));
+    }
+}
@@ -1,15 +1,14 @@
 package com.urbancollection.ecommerce.api.web;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.util.List;
 
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 
-import com.urbancollection.ecommerce.domain.entity.ventas.Pedido;
+import com.urbancollection.ecommerce.domain.enums.EstadoDePedido;
+import com.urbancollection.ecommerce.infrastructure.pricing.MotorDePrecios;
 import com.urbancollection.ecommerce.persistence.jpa.spring.PedidoJpaRepository;
 import com.urbancollection.ecommerce.persistence.jpa.spring.ProductoJpaRepository;
 import com.urbancollection.ecommerce.persistence.jpa.spring.UsuarioJpaRepository;
@@ -25,62 +24,56 @@ public class ReporteWebController {
     private final ProductoJpaRepository productoRepository;
     // Repositorio para consultar la cantidad de usuarios.
     private final UsuarioJpaRepository usuarioRepository;
+    // Motor de precios para sumar las ventas en centavos.
+    private final MotorDePrecios motorDePrecios;
 
     // Constructor donde Spring inyecta los repositorios necesarios.
     public ReporteWebController(PedidoJpaRepository pedidoRepository,
                                 ProductoJpaRepository productoRepository,
-                                UsuarioJpaRepository usuarioRepository) {
+                                UsuarioJpaRepository usuarioRepository,
+                                MotorDePrecios motorDePrecios) {
         this.pedidoRepository = pedidoRepository;
         this.productoRepository = productoRepository;
         this.usuarioRepository = usuarioRepository;
+        this.motorDePrecios = motorDePrecios;
     }
 
     @GetMapping
     // Método GET que arma los datos de los reportes y los envía a la vista.
     public String mostrarReportes(Model model) {
         try {
-            // Traigo todos los pedidos de la base de datos.
-            List<Pedido> todosPedidos = pedidoRepository.findAll();
-            
-            // Total de pedidos es simplemente el tamaño de la lista.
-            int totalPedidos = todosPedidos.size();
+            // Cantidad y suma de totales de los pedidos por estado, calculadas en la BD
+            // (no se cargan los pedidos: con muchos, traerlos todos era lo que más tardaba).
+            long totalPedidos = 0L;
+            BigDecimal sumaTotales = BigDecimal.ZERO;
+            long pedidosPendientes = 0L;
+            long pedidosPagados = 0L;
+            long pedidosCompletados = 0L;
+            for (Object[] fila : pedidoRepository.resumenPorEstado()) {
+                EstadoDePedido estado = (EstadoDePedido) fila[0];
+                long cantidad = ((Number) fila[1]).longValue();
+                totalPedidos += cantidad;
+                if (fila[2] != null) sumaTotales = sumaTotales.add((BigDecimal) fila[2]);
+                // Los que están en algún estado que contenga la palabra "PENDIENTE".
+                if (estado != null && estado.name().contains("PENDIENTE")) pedidosPendientes += cantidad;
+                // Los que están exactamente en estado PAGADO o COMPLETADO.
+                if (estado != null && estado.name().equals("PAGADO")) pedidosPagados += cantidad;
+                if (estado != null && estado.name().equals("COMPLETADO")) pedidosCompletados += cantidad;
+            }
             // Cantidad total de productos registrados.
             long totalProductos = productoRepository.count();
             // Cantidad total de usuarios registrados.
             long totalUsuarios = usuarioRepository.count();
             
-            // Sumo el total de cada pedido, ignorando los null.
-            BigDecimal totalVentas = todosPedidos.stream()
-                    .map(Pedido::getTotal)
-                    .filter(total -> total != null)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-            
-            // Si hay pedidos, calculo el promedio de ventas, si no, el promedio es cero.
-            BigDecimal promedioVenta = totalPedidos > 0 
-                    ? totalVentas.divide(new BigDecimal(totalPedidos), 2, RoundingMode.HALF_UP)
-                    : BigDecimal.ZERO;
-            
-            // Cuento cuántos pedidos están en algún estado que contenga la palabra "PENDIENTE".
-            long pedidosPendientes = todosPedidos.stream()
-                    .filter(p -> p.getEstado() != null && p.getEstado().name().contains("PENDIENTE"))
-                    .count();
-            
-            // Cuento cuántos pedidos están exactamente en estado PAGADO.
-            long pedidosPagados = todosPedidos.stream()
-                    .filter(p -> p.getEstado() != null && p.getEstado().name().equals("PAGADO"))
-                    .count();
-            
-            // Cuento cuántos pedidos están exactamente en estado COMPLETADO.
-            long pedidosCompletados = todosPedidos.stream()
-                    .filter(p -> p.getEstado() != null && p.getEstado().name().equals("COMPLETADO"))
-                    .count();
+            // Total de ventas y promedio por pedido (los pedidos sin total cuentan en el promedio).
+            MotorDePrecios.ResumenVentas ventas = motorDePrecios.resumirVentas(sumaTotales, totalPedidos);
             
             // Mando todos los valores calculados al modelo para que la vista los muestre.
             model.addAttribute("totalPedidos", totalPedidos);
             model.addAttribute("totalProductos", totalProductos);
             model.addAttribute("totalUsuarios", totalUsuarios);
-            model.addAttribute("totalVentas", totalVentas);
-            model.addAttribute("promedioVenta", promedioVenta);
+            model.addAttribute("totalVentas", ventas.totalVentas());
+            model.addAttribute("promedioVenta", ventas.promedioVenta());
             model.addAttribute("pedidosPendientes", pedidosPendientes);
             model.addAttribute("pedidosPagados", pedidosPagados);
             model.addAttribute("pedidosCompletados", pedidosCompletados);
@@ -0,0 +1,126 @@
+package com.urbancollection.ecommerce.api.web;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.urbancollection.ecommerce.api.web.dto.ItemPedidoRequest;
+import com.urbancollection.ecommerce.infrastructure.stock.ReservasDeStock;
+
+import jakarta.validation.Valid;
+
+/**
+ * StockController
+ *
+ * Endpoints de reservas de stock:
+ * - GET    /api/stock/{productoId}/disponible   -> disponible para vender (sin BD)
+ * - POST   /api/stock/reservas                  -> aparta unidades por un tiempo (TTL)
+ * - POST   /api/stock/reservas/{id}/confirmar   -> el pago entró, se descuenta el stock
+ * - DELETE /api/stock/reservas/{id}             -> cancela la reserva
+ * - POST   /api/stock/{productoId}/caliente     -> pasa el producto a modo caliente (oferta relámpago)
+ */
+@RestController
+@RequestMapping("/api/stock")
+public class StockController {
+
+    private final ReservasDeStock reservasDeStock;
+
+    public StockController(ReservasDeStock reservasDeStock) {
+        this.reservasDeStock = reservasDeStock;
+    }
+
+    // ================== GET /api/stock/{productoId}/disponible ==================
+    @GetMapping("/{productoId}/disponible")
+    public ResponseEntity<?> disponible(@PathVariable Long productoId) {
+        return reservasDeStock.disponible(productoId)
+                .<ResponseEntity<?>>map(d -> ResponseEntity.ok(Map.of("productoId", productoId, "disponible", d)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("error", "Producto no encontrado")));
+    }
+
+    // ================== POST /api/stock/{productoId}/caliente ==================
+    @PostMapping("/{productoId}/caliente")
+    public ResponseEntity<?> activarModoCaliente(@PathVariable Long productoId) {
+        if (!reservasDeStock.activarModoCaliente(productoId)) {
+            return reservasDeStock.disponible(productoId).isPresent()
+                    ? ResponseEntity.status(HttpStatus.CONFLICT)
+                            .body(Map.of("error", "Se está escribiendo el stock del producto, intente de nuevo"))
+                    : ResponseEntity.status(HttpStatus.NOT_FOUND)
+                            .body(Map.of("error", "Producto no encontrado"));
+        }
+        return ResponseEntity.ok(Map.of("productoId", productoId, "caliente", true,
+                "disponible", reservasDeStock.disponible(productoId).orElse(0)));
+    }
+
+    // ================== POST /api/stock/reservas ==================
+    @PostMapping("/reservas")
+    public ResponseEntity<?> reservar(@RequestBody @Valid List<ItemPedidoRequest> items) {
+        if (items == null || items.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Debe enviar al menos un item"));
+        }
+
+        // @Valid sobre la lista no valida cada item, así que lo reviso acá
+        // (sin productoId o con cantidad < 1 -> 400, en vez de reservar algo raro o fallar con 500).
+        Map<Long, Integer> cantidades = new LinkedHashMap<>();
+        for (ItemPedidoRequest item : items) {
+            if (item == null || item.getProductoId() == null) {
+                return ResponseEntity.badRequest().body(Map.of("error", "productoId es obligatorio"));
+            }
+            if (item.getCantidad() < 1) {
+                return ResponseEntity.badRequest().body(Map.of("error", "cantidad debe ser >= 1",
+                        "productoId", item.getProductoId()));
+            }
+            cantidades.merge(item.getProductoId(), item.getCantidad(), Integer::sum);
+        }
+
+        ReservasDeStock.IntentoDeReserva intento = reservasDeStock.reservar(cantidades);
+
+        switch (intento.getResultado()) {
+            case PRODUCTO_NO_EXISTE:
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("error", "Producto no encontrado", "productoId", intento.getProductoId()));
+            case SIN_STOCK:
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(Map.of("error", "Stock insuficiente",
+                                "productoId", intento.getProductoId(),
+                                "disponible", intento.getDisponible()));
+            default:
+                ReservasDeStock.Reserva reserva = intento.getReserva();
+                return ResponseEntity.status(HttpStatus.CREATED).body(Map.of(
+                        "reservaId", reserva.getId(),
+                        "expiraEn", Instant.ofEpochMilli(reserva.getExpiraEn()).toString(),
+                        "cantidades", reserva.getCantidades()));
+        }
+    }
+
+    // ================== POST /api/stock/reservas/{id}/confirmar ==================
+    @PostMapping("/reservas/{id}/confirmar")
+    public ResponseEntity<?> confirmar(@PathVariable long id) {
+        if (!reservasDeStock.confirmar(id)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "La reserva no existe o ya venció"));
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    // ================== DELETE /api/stock/reservas/{id} ==================
+    @DeleteMapping("/reservas/{id}")
+    public ResponseEntity<?> liberar(@PathVariable long id) {
+        if (!reservasDeStock.liberar(id)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "La reserva no existe o ya venció"));
+        }
+        return ResponseEntity.noContent().build();
+    }
+}
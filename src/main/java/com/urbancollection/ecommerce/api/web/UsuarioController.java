@@ -1,5 +1,7 @@
 package com.urbancollection.ecommerce.api.web;
 
+import com.urbancollection.ecommerce.api.web.dto.UsuarioMapper;
+import com.urbancollection.ecommerce.api.web.dto.UsuarioResponse;
 import com.urbancollection.ecommerce.application.service.IUsuarioService;
 import com.urbancollection.ecommerce.domain.base.OperationResult;
 import com.urbancollection.ecommerce.domain.entity.usuarios.Usuario;
@@ -26,10 +28,13 @@ public class UsuarioController {
 
     // ================== GET /api/usuarios ==================
     // Endpoint para listar todos los usuarios registrados.
+    // Se devuelve UsuarioResponse (plano y sin la contraseña) en lugar de la entidad.
     @GetMapping
-    public ResponseEntity<List<Usuario>> listar() {
-        // Le pedimos al servicio la lista de usuarios.
-        List<Usuario> usuarios = usuarioService.listar();
+    public ResponseEntity<List<UsuarioResponse>> listar() {
+        // Le pedimos al servicio la lista de usuarios y la pasamos a DTO.
+        List<UsuarioResponse> usuarios = usuarioService.listar().stream()
+                .map(UsuarioMapper::toResponse)
+                .toList();
         // Devolvemos la lista con código 200 OK.
         return ResponseEntity.ok(usuarios);
     }
@@ -37,7 +42,7 @@ public class UsuarioController {
     // ================== POST /api/usuarios ==================
     // Endpoint para crear un nuevo usuario a partir de un JSON en el body.
     @PostMapping
-    public ResponseEntity<Usuario> crear(@RequestBody CrearUsuarioRequest request) {
+    public ResponseEntity<UsuarioResponse> crear(@RequestBody CrearUsuarioRequest request) {
         // Creamos una entidad Usuario usando los datos que vienen en el request (DTO).
         Usuario usuario = new Usuario();
         usuario.setNombre(request.getNombre());
@@ -54,7 +59,7 @@ public class UsuarioController {
         }
 
         // Si todo salió bien, devolvemos 201 Created con el usuario creado en el body.
-        return ResponseEntity.status(HttpStatus.CREATED).body(usuario);
+        return ResponseEntity.status(HttpStatus.CREATED).body(UsuarioMapper.toResponse(usuario));
     }
 
     // ================== DTO ==================
@@ -1,6 +1,5 @@
 package com.urbancollection.ecommerce.api.web;
 
-import java.util.List;
 import java.util.Optional;
 
 import org.springframework.stereotype.Controller;
@@ -11,6 +10,10 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import com.urbancollection.ecommerce.domain.entity.logistica.Direccion;
 import com.urbancollection.ecommerce.domain.entity.usuarios.Usuario;
 import com.urbancollection.ecommerce.domain.repository.DireccionRepository;
+import com.urbancollection.ecommerce.infrastructure.cache.CacheDeSegundoNivel;
+import com.urbancollection.ecommerce.infrastructure.paginacion.LecturaPorLotes;
+import com.urbancollection.ecommerce.infrastructure.paginacion.PaginaPorCursor;
+import com.urbancollection.ecommerce.persistence.jpa.spring.UsuarioFila;
 import com.urbancollection.ecommerce.persistence.jpa.spring.UsuarioJpaRepository;
 
 @Controller
@@ -22,21 +25,35 @@ public class UsuarioWebController {
     private final UsuarioJpaRepository usuarioRepository;
     // Repositorio de dominio para manejar direcciones asociadas a un usuario.
     private final DireccionRepository direccionRepository;
+    // Caché de segundo nivel; al borrar un usuario se vacía la de direcciones (las cascadas de la BD no pasan por Hibernate).
+    private final CacheDeSegundoNivel cacheDeSegundoNivel;
 
     // Constructor donde Spring inyecta los repositorios necesarios.
-    public UsuarioWebController(UsuarioJpaRepository usuarioRepository, DireccionRepository direccionRepository) {
+    public UsuarioWebController(UsuarioJpaRepository usuarioRepository, DireccionRepository direccionRepository,
+                                CacheDeSegundoNivel cacheDeSegundoNivel) {
         this.usuarioRepository = usuarioRepository;
         this.direccionRepository = direccionRepository;
+        this.cacheDeSegundoNivel = cacheDeSegundoNivel;
     }
 
     @GetMapping
-    // Acción GET que lista todos los usuarios y los manda a la vista.
-    public String listar(Model model) {
+    // Acción GET que lista los usuarios por páginas (o todos con ?todo=true) y los manda a la vista.
+    public String listar(@RequestParam(defaultValue = "0") long despuesDe,
+                         @RequestParam(required = false) Integer tamano,
+                         @RequestParam(defaultValue = "false") boolean todo,
+                         Model model) {
         try {
-            // Busco todos los usuarios en la base de datos.
-            List<Usuario> usuarios = usuarioRepository.findAll();
-            // Agrego la lista al modelo para que la vista los muestre.
-            model.addAttribute("usuarios", usuarios);
+            if (todo) {
+                // Todos, de a lotes: se leen mientras la vista escribe la tabla.
+                model.addAttribute("usuarios", new LecturaPorLotes<>(usuarioRepository::findFilas, UsuarioFila::id));
+                return "usuario/list";
+            }
+            // Busco una página de usuarios a partir del id despuesDe.
+            PaginaPorCursor<UsuarioFila> pagina = PaginaPorCursor.leer(
+                    usuarioRepository::findFilas, UsuarioFila::id, despuesDe, tamano);
+            // Agrego la página al modelo para que la vista la muestre.
+            model.addAttribute("usuarios", pagina.filas());
+            model.addAttribute("pagina", pagina);
             return "usuario/list";
         } catch (Exception e) {
             // Si hay un error, envío un mensaje a la vista.
@@ -233,6 +250,7 @@ public class UsuarioWebController {
 
             // Elimino el usuario de la base de datos.
             usuarioRepository.deleteById(id);
+            cacheDeSegundoNivel.invalidar(Direccion.class);
             // Mensaje de éxito después de eliminar.
             redirectAttributes.addFlashAttribute("successMessage", "✓ Usuario eliminado exitosamente");
             return "redirect:/web/usuarios";
@@ -0,0 +1,20 @@
+package com.urbancollection.ecommerce.api.web.dto;
+
+import com.urbancollection.ecommerce.domain.entity.logistica.Envio;
+
+public class EnvioMapper {
+
+    public static EnvioResponse toResponse(Envio envio) {
+        if (envio == null) return null;
+
+        EnvioResponse dto = new EnvioResponse();
+        dto.setId(envio.getId());
+        // getId() de un proxy de Hibernate no lo inicializa: el pedido no se carga
+        dto.setPedidoId(envio.getPedido() != null ? envio.getPedido().getId() : null);
+        dto.setTracking(envio.getTracking());
+        dto.setEstado(envio.getEstado() != null ? envio.getEstado().name() : null);
+        dto.setCreatedAt(envio.getCreatedAt());
+        dto.setUpdatedAt(envio.getUpdatedAt());
+        return dto;
+    }
+}
@@ -0,0 +1,69 @@
+package com.urbancollection.ecommerce.api.web.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * EnvioResponse
+ *
+ * Lo que devuelve /api/envios: el envío plano, con el id del pedido en lugar
+ * del pedido entero. Así serializarlo nunca dispara cargas lazy del pedido,
+ * su usuario, su dirección o sus items.
+ */
+public class EnvioResponse {
+
+    private Long id;
+    private Long pedidoId;
+    private String tracking;
+    private String estado;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    // Getters & Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getPedidoId() {
+        return pedidoId;
+    }
+
+    public void setPedidoId(Long pedidoId) {
+        this.pedidoId = pedidoId;
+    }
+
+    public String getTracking() {
+        return tracking;
+    }
+
+    public void setTracking(String tracking) {
+        this.tracking = tracking;
+    }
+
+    public String getEstado() {
+        return estado;
+    }
+
+    public void setEstado(String estado) {
+        this.estado = estado;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,21 @@
+package com.urbancollection.ecommerce.api.web.dto;
+
+/**
+ * EstadoEnvioRequest
+ *
+ * Un item de POST /api/envios/estados: el tracking del envío y el estado nuevo.
+ *
+ * El estado va como texto (no como EstadoDeEnvio) para que un valor desconocido
+ * se informe en el resultado de ese item y no rechace el lote entero.
+ */
+public class EstadoEnvioRequest {
+
+    private String tracking;
+    private String estado;
+
+    public String getTracking() { return tracking; }
+    public void setTracking(String tracking) { this.tracking = tracking; }
+
+    public String getEstado() { return estado; }
+    public void setEstado(String estado) { this.estado = estado; }
+}
@@ -0,0 +1,18 @@
+package com.urbancollection.ecommerce.api.web.dto;
+
+import com.urbancollection.ecommerce.domain.entity.usuarios.Usuario;
+
+public class UsuarioMapper {
+
+    public static UsuarioResponse toResponse(Usuario usuario) {
+        if (usuario == null) return null;
+
+        UsuarioResponse dto = new UsuarioResponse();
+        dto.setId(usuario.getId());
+        dto.setNombre(usuario.getNombre());
+        dto.setCorreo(usuario.getCorreo());
+        dto.setTelefono(usuario.getTelefono());
+        dto.setRol(usuario.getRol());
+        return dto;
+    }
+}
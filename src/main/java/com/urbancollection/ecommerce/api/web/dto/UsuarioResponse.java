@@ -0,0 +1,56 @@
+package com.urbancollection.ecommerce.api.web.dto;
+
+/**
+ * UsuarioResponse
+ *
+ * Lo que devuelve /api/usuarios: los datos del usuario sin la contraseña.
+ */
+public class UsuarioResponse {
+
+    private Long id;
+    private String nombre;
+    private String correo;
+    private String telefono;
+    private String rol;
+
+    // Getters & Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public void setNombre(String nombre) {
+        this.nombre = nombre;
+    }
+
+    public String getCorreo() {
+        return correo;
+    }
+
+    public void setCorreo(String correo) {
+        this.correo = correo;
+    }
+
+    public String getTelefono() {
+        return telefono;
+    }
+
+    public void setTelefono(String telefono) {
+        this.telefono = telefono;
+    }
+
+    public String getRol() {
+        return rol;
+    }
+
+    public void setRol(String rol) {
+        this.rol = rol;
+    }
+}
@@ -0,0 +1,199 @@
+package com.urbancollection.ecommerce.infrastructure.cache;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * CacheDeSegundoNivel
+ *
+ * Caché de segundo nivel de Hibernate (JCache con Ehcache 3, en memoria) para
+ * las entidades que se leen mucho más de lo que se escriben.
+ *
+ * Cada entidad tiene su región con tamaño máximo (las menos usadas salen
+ * primero) y TTL. Como las entidades vienen del dominio y no se les puede poner
+ * @Cache, se declaran como cacheables con hibernate.classcache.* (ver configurar).
+ *
+ * Consistencia:
+ * - Las escrituras por JPA (save, delete, los adapters y los *WebController)
+ *   actualizan la región solas (estrategia read-write).
+ * - Los UPDATE masivos en JPQL hacen que Hibernate vacíe la región entera de
+ *   esa entidad. Para sumar a una columna de una sola fila (como el stock que
+ *   vuelca ReservasDeStock cada segundo) está sumar(...), que saca de la caché
+ *   solo esa entidad.
+ * - Lo que cambia la BD sin pasar por Hibernate (cascadas de la BD, JDBC, otra
+ *   aplicación) no se ve: para eso está invalidar(...). Entre varias instancias
+ *   cada una tiene su caché, y el TTL acota cuánto puede durar un dato viejo.
+ *
+ * Métricas (Micrometer, por región): cache.l2.aciertos, cache.l2.fallos y
+ * cache.l2.escrituras, tomadas de las estadísticas de Hibernate.
+ */
+public class CacheDeSegundoNivel {
+
+    /**
+     * Region:
+     * Región de una entidad: nombre, cuántas entidades guarda como máximo y
+     * cuánto vive cada una desde que se cargó o se escribió.
+     */
+    public record Region(String nombre, Class<?> entidad, long maximo, Duration ttl) {
+    }
+
+    private static final AtomicLong instancias = new AtomicLong();
+
+    // Espacio de consulta de sumar(...): no es de ninguna entidad, así Hibernate no vacía regiones.
+    static final String ESPACIO_SUMAS = "l2_sumas";
+
+    private final List<Region> regiones;
+    private final CacheManager cacheManager;
+
+    public CacheDeSegundoNivel(List<Region> regiones) {
+        this.regiones = List.copyOf(regiones);
+        // URI propio: cada instancia tiene su CacheManager (en los tests se crean varias)
+        EhcacheCachingProvider proveedor = (EhcacheCachingProvider) Caching.getCachingProvider(
+                EhcacheCachingProvider.class.getName());
+        this.cacheManager = proveedor.getCacheManager(URI.create("urn:ecommerce:l2:" + instancias.incrementAndGet()),
+                new DefaultConfiguration(getClass().getClassLoader()));
+        for (Region region : this.regiones) {
+            cacheManager.createCache(region.nombre(), Eh107Configuration.fromEhcacheCacheConfiguration(
+                    CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+                                    ResourcePoolsBuilder.heap(region.maximo()))
+                            .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(region.ttl()))));
+        }
+    }
+
+    public List<Region> getRegiones() {
+        return regiones;
+    }
+
+    CacheManager getCacheManager() {
+        return cacheManager;
+    }
+
+    /**
+     * configurar:
+     * Agrega a las propiedades de Hibernate lo necesario para usar estas
+     * regiones. Se llama desde un HibernatePropertiesCustomizer, antes de armar
+     * el EntityManagerFactory.
+     */
+    public void configurar(Map<String, Object> propiedades) {
+        propiedades.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, "true");
+        propiedades.put(AvailableSettings.CACHE_REGION_FACTORY, ConfigSettings.SIMPLE_FACTORY_NAME);
+        propiedades.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+        // una región que no esté declarada acá es un error de configuración
+        propiedades.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        propiedades.put(AvailableSettings.GENERATE_STATISTICS, "true");
+        for (Region region : regiones) {
+            propiedades.put(AvailableSettings.CLASS_CACHE_PREFIX + "." + region.entidad().getName(),
+                    "read-write," + region.nombre());
+        }
+    }
+
+    /**
+     * invalidar:
+     * Vacía la región de la entidad. La próxima lectura de cada una va a la BD.
+     */
+    public void invalidar(Class<?> entidad) {
+        for (Region region : regiones) {
+            if (region.entidad().equals(entidad)) {
+                Cache<Object, Object> cache = cacheManager.getCache(region.nombre());
+                if (cache != null) cache.clear();
+                return;
+            }
+        }
+        throw new IllegalArgumentException("No hay región de caché para " + entidad.getSimpleName());
+    }
+
+    /**
+     * registrarMetricas:
+     * Publica aciertos, fallos y escrituras de cada región. Necesita el
+     * EntityManagerFactory ya armado (las estadísticas son de Hibernate).
+     */
+    public void registrarMetricas(EntityManagerFactory entityManagerFactory, MeterRegistry metricas) {
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        for (Region region : regiones) {
+            String nombre = region.nombre();
+            FunctionCounter.builder("cache.l2.aciertos", estadisticas, e -> de(e, nombre).getHitCount())
+                    .tag("region", nombre).register(metricas);
+            FunctionCounter.builder("cache.l2.fallos", estadisticas, e -> de(e, nombre).getMissCount())
+                    .tag("region", nombre).register(metricas);
+            FunctionCounter.builder("cache.l2.escrituras", estadisticas, e -> de(e, nombre).getPutCount())
+                    .tag("region", nombre).register(metricas);
+        }
+    }
+
+    /**
+     * sumar:
+     * UPDATE tabla SET columna = columna + delta WHERE id = ? por SQL nativo, dentro de
+     * la transacción en curso. Con JPQL Hibernate vaciaría la región entera de la
+     * entidad; acá la consulta se sincroniza con un espacio propio (no toca ninguna
+     * región) y solo se saca de la caché la entidad con ese id, después del commit
+     * (si se sacara antes, otra lectura podría volver a cachear el valor viejo).
+     * Tabla y columnas salen del mapeo de Hibernate. Devuelve las filas tocadas.
+     */
+    public static int sumar(EntityManager entityManager, Class<?> entidad, String propiedad, Object id, long delta) {
+        SessionFactoryImplementor sessionFactory = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactoryImplementor.class);
+        AbstractEntityPersister persister = (AbstractEntityPersister) sessionFactory.getMappingMetamodel()
+                .getEntityDescriptor(entidad);
+        String columna = persister.getPropertyColumnNames(propiedad)[0];
+        String sql = "UPDATE " + persister.getTableName() + " SET " + columna + " = " + columna + " + ?1"
+                + " WHERE " + persister.getIdentifierColumnNames()[0] + " = ?2";
+
+        int filas = entityManager.createNativeQuery(sql)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace(ESPACIO_SUMAS)
+                .setParameter(1, delta)
+                .setParameter(2, id)
+                .executeUpdate();
+
+        Runnable sacar = () -> sessionFactory.getCache().evict(entidad, id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int estado) {
+                    sacar.run();
+                }
+            });
+        } else {
+            sacar.run();
+        }
+        return filas;
+    }
+
+    private static CacheRegionStatistics de(Statistics estadisticas, String region) {
+        return estadisticas.getDomainDataRegionStatistics(region);
+    }
+
+    public void cerrar() {
+        cacheManager.close();
+    }
+}
@@ -0,0 +1,152 @@
+package com.urbancollection.ecommerce.infrastructure.cache;
+
+import java.util.Locale;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * ColumnaNormalizada
+ *
+ * Columna calculada y persistida con el valor de otra columna sin espacios
+ * al costado y en minúsculas o mayúsculas, con su índice. La crea la
+ * aplicación al arrancar (las entidades vienen del dominio y no se pueden
+ * tocar). Al ser calculada la base la llena sola para las filas existentes
+ * y en cada escritura.
+ *
+ * Con unica = true el índice es UNIQUE. Para que las filas con la columna
+ * original en NULL no choquen entre sí, en ese caso la columna calculada
+ * vale '#' + id (ningún valor normalizado real empieza con '#').
+ *
+ * Soporta SQL Server y H2. En otra base, o si el DDL falla, sqlBuscarIds()
+ * compara contra la expresión (igual de correcto, pero sin índice).
+ */
+public final class ColumnaNormalizada {
+
+    private static final Logger log = LoggerFactory.getLogger(ColumnaNormalizada.class);
+
+    public enum Caso {
+        MINUSCULAS("LOWER"),
+        MAYUSCULAS("UPPER");
+
+        private final String funcion;
+
+        Caso(String funcion) {
+            this.funcion = funcion;
+        }
+    }
+
+    private final String tabla;
+    private final String columnaId;
+    private final String columnaOrigen;
+    private final String nombre;
+    private final Caso caso;
+    private final boolean unica;
+    private volatile boolean creada;
+
+    public ColumnaNormalizada(String tabla, String columnaId, String columnaOrigen,
+                              String nombre, Caso caso, boolean unica) {
+        this.tabla = tabla;
+        this.columnaId = columnaId;
+        this.columnaOrigen = columnaOrigen;
+        this.nombre = nombre;
+        this.caso = caso;
+        this.unica = unica;
+    }
+
+    /**
+     * Toma la tabla y las columnas que Hibernate usa para la propiedad de la entidad.
+     */
+    public static ColumnaNormalizada de(EntityManagerFactory emf, Class<?> entidad, String propiedad,
+                                        String nombre, Caso caso, boolean unica) {
+        AbstractEntityPersister persister = (AbstractEntityPersister) emf.unwrap(SessionFactoryImplementor.class)
+                .getMappingMetamodel().getEntityDescriptor(entidad);
+        return new ColumnaNormalizada(
+                persister.getPropertyTableName(propiedad),
+                persister.getIdentifierColumnNames()[0],
+                persister.getPropertyColumnNames(propiedad)[0],
+                nombre, caso, unica);
+    }
+
+    public String getTabla() {
+        return tabla;
+    }
+
+    public String getColumnaId() {
+        return columnaId;
+    }
+
+    public String getColumnaOrigen() {
+        return columnaOrigen;
+    }
+
+    public boolean isCreada() {
+        return creada;
+    }
+
+    // El mismo cálculo que hace la base, para armar el parámetro de búsqueda.
+    public String normalizar(String valor) {
+        if (valor == null) return "";
+        String limpio = valor.trim();
+        return caso == Caso.MINUSCULAS ? limpio.toLowerCase(Locale.ROOT) : limpio.toUpperCase(Locale.ROOT);
+    }
+
+    // Lo que hay que comparar en un WHERE: la columna si se creó, si no la expresión.
+    public String expresion() {
+        return creada ? nombre : caso.funcion + "(TRIM(" + columnaOrigen + "))";
+    }
+
+    // SELECT de los ids cuya columna normalizada es igual al parámetro (ya normalizado).
+    public String sqlBuscarIds() {
+        return "SELECT " + columnaId + " FROM " + tabla + " WHERE " + expresion() + " = ?";
+    }
+
+    /**
+     * crear:
+     * Agrega la columna y el índice si no existen. Devuelve true si quedaron listos.
+     * Si el índice único falla (por ejemplo, hay valores repetidos) la columna se usa igual.
+     */
+    public boolean crear(JdbcTemplate jdbc) {
+        String base;
+        try {
+            base = jdbc.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+        } catch (RuntimeException ex) {
+            log.warn("No se pudo leer el tipo de base para {}.{}: {}", tabla, nombre, ex.getMessage());
+            return false;
+        }
+
+        String indice = (unica ? "ux_" : "ix_") + tabla + "_" + nombre;
+        String crearIndice = "CREATE " + (unica ? "UNIQUE " : "") + "INDEX ";
+        try {
+            if ("Microsoft SQL Server".equals(base)) {
+                String expresion = caso.funcion + "(LTRIM(RTRIM(" + columnaOrigen + ")))";
+                if (unica) expresion = "ISNULL(" + expresion + ", '#' + CAST(" + columnaId + " AS VARCHAR(20)))";
+                jdbc.execute("IF COL_LENGTH('" + tabla + "', '" + nombre + "') IS NULL "
+                        + "ALTER TABLE " + tabla + " ADD " + nombre + " AS " + expresion + " PERSISTED");
+                creada = true;
+                jdbc.execute("IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = '" + indice
+                        + "' AND object_id = OBJECT_ID('" + tabla + "')) "
+                        + crearIndice + indice + " ON " + tabla + " (" + nombre + ")");
+            } else if ("H2".equals(base)) {
+                String expresion = caso.funcion + "(TRIM(" + columnaOrigen + "))";
+                if (unica) expresion = "COALESCE(" + expresion + ", CONCAT('#', " + columnaId + "))";
+                jdbc.execute("ALTER TABLE " + tabla + " ADD COLUMN IF NOT EXISTS " + nombre
+                        + " VARCHAR(255) GENERATED ALWAYS AS (" + expresion + ")");
+                creada = true;
+                jdbc.execute(crearIndice + "IF NOT EXISTS " + indice + " ON " + tabla + " (" + nombre + ")");
+            } else {
+                log.info("Base {} sin columna {}; se compara contra {}({})", base, nombre, caso.funcion, columnaOrigen);
+            }
+        } catch (RuntimeException ex) {
+            log.warn("No se pudo crear {} en {}: {}", creada ? "el índice " + indice : "la columna " + nombre,
+                    tabla, ex.getMessage());
+        }
+        return creada;
+    }
+}
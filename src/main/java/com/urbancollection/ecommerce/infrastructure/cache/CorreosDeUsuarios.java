@@ -0,0 +1,288 @@
+package com.urbancollection.ecommerce.infrastructure.cache;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.urbancollection.ecommerce.domain.entity.usuarios.Usuario;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * CorreosDeUsuarios
+ *
+ * Búsqueda de usuarios por correo sin importar mayúsculas, usando un índice.
+ *
+ * Antes se comparaba UPPER(correo) = UPPER(:correo), que en SQL Server obliga a
+ * recorrer toda la tabla. Ahora:
+ * - Al arrancar se agrega (si no existe) la columna calculada y persistida
+ *   correo_normalizado = LOWER(TRIM(correo)) con su índice. Al ser calculada,
+ *   la base la llena sola para las filas que ya existían y en cada escritura.
+ * - Las consultas comparan contra esa columna con el correo ya normalizado en Java.
+ * - Delante hay un FiltroDeBloom con todos los correos: si dice que el correo
+ *   no está, se responde "libre" sin ir a la BD (el caso normal al crear usuarios).
+ *
+ * El filtro se arma leyendo los correos en streaming, se actualiza con cada
+ * insert/update de Usuario (listener de Hibernate) y se vuelve a armar cada
+ * tanto para soltar correos borrados o cambiados y ver altas hechas por otras
+ * instancias de la aplicación.
+ *
+ * Que no se pierda un correo al reconstruir: cada alta se registra al hacer el
+ * insert (para que se vea enseguida) y otra vez después del commit. Un insert
+ * anterior a la reconstrucción que se confirma cuando la lectura ya pasó queda
+ * así en el filtro nuevo (registrarConfirmado mira primero el que se está armando).
+ * Lo que el filtro no puede saber (altas de otra instancia hasta el próximo
+ * rearmado, dos altas del mismo correo a la vez) lo frena el índice UNIQUE de
+ * correo_normalizado: el insert repetido falla en la BD.
+ *
+ * La columna la crea ColumnaNormalizada. Si la base no es SQL Server ni H2, o el
+ * DDL falla, se compara contra LOWER(TRIM(correo)) (sin índice) y el filtro sigue funcionando.
+ */
+public class CorreosDeUsuarios {
+
+    private static final Logger log = LoggerFactory.getLogger(CorreosDeUsuarios.class);
+
+    static final String COLUMNA_NORMALIZADA = "correo_normalizado";
+    private static final double TASA_FALSOS_POSITIVOS = 0.01;
+
+    private final JdbcTemplate jdbc;
+    private final String tabla;
+    private final String columnaCorreo;
+    private final long capacidadMinima;
+    private final long reconstruirMs;
+    private final ColumnaNormalizada columna;
+
+    private volatile String sqlBuscarId;
+    private volatile FiltroDeBloom filtro;
+    private volatile FiltroDeBloom enConstruccion;
+    private final AtomicLong agregadosDesdeReconstruir = new AtomicLong();
+    private final AtomicLong respondidasSinBd = new AtomicLong();
+    private final AtomicLong consultasABd = new AtomicLong();
+    private ScheduledExecutorService tareas;
+
+    public CorreosDeUsuarios(JdbcTemplate jdbc, String tabla, String columnaId, String columnaCorreo,
+                             long capacidadMinima, long reconstruirMs) {
+        this.jdbc = jdbc;
+        this.tabla = tabla;
+        this.columnaCorreo = columnaCorreo;
+        this.capacidadMinima = capacidadMinima;
+        this.reconstruirMs = reconstruirMs;
+        this.columna = new ColumnaNormalizada(tabla, columnaId, columnaCorreo, COLUMNA_NORMALIZADA,
+                ColumnaNormalizada.Caso.MINUSCULAS, true);
+        this.sqlBuscarId = columna.sqlBuscarIds();
+    }
+
+    /**
+     * Arma la instancia con los nombres de tabla y columnas que Hibernate usa para Usuario,
+     * y registra los listeners que agregan al filtro cada correo que se inserta o cambia
+     * (al escribirlo y otra vez al confirmar la transacción).
+     */
+    public static CorreosDeUsuarios paraUsuarios(EntityManagerFactory emf, JdbcTemplate jdbc,
+                                                 long capacidadMinima, long reconstruirMs) {
+        SessionFactoryImplementor sessionFactory = emf.unwrap(SessionFactoryImplementor.class);
+        AbstractEntityPersister persister = (AbstractEntityPersister) sessionFactory
+                .getMappingMetamodel().getEntityDescriptor(Usuario.class);
+
+        CorreosDeUsuarios correos = new CorreosDeUsuarios(jdbc,
+                persister.getPropertyTableName("correo"),
+                persister.getIdentifierColumnNames()[0],
+                persister.getPropertyColumnNames("correo")[0],
+                capacidadMinima, reconstruirMs);
+
+        EventListenerRegistry registro = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+        registro.appendListeners(EventType.POST_INSERT, new PostInsertEventListener() {
+            @Override
+            public void onPostInsert(PostInsertEvent event) {
+                if (event.getEntity() instanceof Usuario u) correos.registrar(u.getCorreo());
+            }
+
+            @Override
+            public boolean requiresPostCommitHandling(EntityPersister p) {
+                return false;
+            }
+        });
+        registro.appendListeners(EventType.POST_UPDATE, new PostUpdateEventListener() {
+            @Override
+            public void onPostUpdate(PostUpdateEvent event) {
+                if (event.getEntity() instanceof Usuario u) correos.registrar(u.getCorreo());
+            }
+
+            @Override
+            public boolean requiresPostCommitHandling(EntityPersister p) {
+                return false;
+            }
+        });
+        registro.appendListeners(EventType.POST_COMMIT_INSERT, new PostCommitInsertEventListener() {
+            @Override
+            public void onPostInsert(PostInsertEvent event) {
+                if (event.getEntity() instanceof Usuario u) correos.registrarConfirmado(u.getCorreo());
+            }
+
+            @Override
+            public void onPostInsertCommitFailed(PostInsertEvent event) {
+            }
+
+            @Override
+            public boolean requiresPostCommitHandling(EntityPersister p) {
+                return p.getMappedClass() == Usuario.class;
+            }
+        });
+        registro.appendListeners(EventType.POST_COMMIT_UPDATE, new PostCommitUpdateEventListener() {
+            @Override
+            public void onPostUpdate(PostUpdateEvent event) {
+                if (event.getEntity() instanceof Usuario u) correos.registrarConfirmado(u.getCorreo());
+            }
+
+            @Override
+            public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+            }
+
+            @Override
+            public boolean requiresPostCommitHandling(EntityPersister p) {
+                return p.getMappedClass() == Usuario.class;
+            }
+        });
+        return correos;
+    }
+
+    // ===================== CICLO DE VIDA =====================
+
+    public void iniciar() {
+        columna.crear(jdbc);
+        sqlBuscarId = columna.sqlBuscarIds();
+        reconstruirSeguro();
+
+        tareas = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "correos-usuarios");
+            t.setDaemon(true);
+            return t;
+        });
+        tareas.scheduleWithFixedDelay(this::reconstruirSeguro, reconstruirMs, reconstruirMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void cerrar() {
+        if (tareas != null) tareas.shutdownNow();
+    }
+
+    // ===================== CONSULTAS =====================
+
+    // true si hay un usuario con ese correo (sin importar mayúsculas ni espacios).
+    public boolean existe(String correo) {
+        return buscarId(correo).isPresent();
+    }
+
+    // Id del usuario con ese correo.
+    public Optional<Long> buscarId(String correo) {
+        String normalizado = normalizar(correo);
+        if (normalizado.isEmpty()) return Optional.empty();
+
+        FiltroDeBloom f = filtro;
+        if (f != null && !f.puedeContener(normalizado)) {
+            respondidasSinBd.incrementAndGet();
+            return Optional.empty();
+        }
+
+        consultasABd.incrementAndGet();
+        List<Long> ids = jdbc.queryForList(sqlBuscarId, Long.class, normalizado);
+        return ids.isEmpty() ? Optional.empty() : Optional.of(ids.get(0));
+    }
+
+    // Lo llaman los listeners de Hibernate con cada correo nuevo o cambiado.
+    public void registrar(String correo) {
+        if (correo == null) return;
+        FiltroDeBloom f = agregar(normalizar(correo));
+        if (f == null) return;
+        if (agregadosDesdeReconstruir.incrementAndGet() > f.getCapacidad() / 2 && tareas != null) {
+            // Se está llenando: lo rearmo más grande sin esperar al próximo turno.
+            agregadosDesdeReconstruir.set(Long.MIN_VALUE);
+            tareas.execute(this::reconstruirSeguro);
+        }
+    }
+
+    // Lo llaman los listeners después del commit: el mismo correo otra vez, sin contarlo.
+    public void registrarConfirmado(String correo) {
+        if (correo != null) agregar(normalizar(correo));
+    }
+
+    // Primero el que se está armando y después el actual: si ya no hay uno en
+    // construcción, el actual es el nuevo (reconstruir lo cambia antes de soltarlo).
+    private FiltroDeBloom agregar(String normalizado) {
+        FiltroDeBloom siguiente = enConstruccion;
+        if (siguiente != null) siguiente.agregar(normalizado);
+        FiltroDeBloom f = filtro;
+        if (f != null) f.agregar(normalizado);
+        return f;
+    }
+
+    public long getRespondidasSinBd() {
+        return respondidasSinBd.get();
+    }
+
+    public long getConsultasABd() {
+        return consultasABd.get();
+    }
+
+    public static String normalizar(String correo) {
+        return correo == null ? "" : correo.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // ===================== FILTRO =====================
+
+    /**
+     * reconstruir:
+     * Arma un filtro nuevo leyendo todos los correos en streaming (sin cargar entidades)
+     * y lo cambia por el anterior. Se dimensiona al doble de lo que hay para dejar lugar.
+     */
+    public void reconstruir() {
+        Long cantidad = jdbc.queryForObject("SELECT COUNT(*) FROM " + tabla, Long.class);
+        FiltroDeBloom nuevo = new FiltroDeBloom(
+                Math.max(capacidadMinima, (cantidad != null ? cantidad : 0) * 2), TASA_FALSOS_POSITIVOS);
+
+        // Mientras leo, registrar(...) escribe en los dos filtros: así no se pierden
+        // los correos de transacciones que todavía no se ven en la lectura. Las que
+        // hicieron el insert antes de este punto y confirman después de la lectura
+        // entran por registrarConfirmado.
+        enConstruccion = nuevo;
+        try {
+            jdbc.query("SELECT " + columnaCorreo + " FROM " + tabla,
+                    rs -> { nuevo.agregar(normalizar(rs.getString(1))); });
+            agregadosDesdeReconstruir.set(0);
+            filtro = nuevo;
+        } finally {
+            enConstruccion = null;
+        }
+    }
+
+    private void reconstruirSeguro() {
+        try {
+            reconstruir();
+        } catch (RuntimeException ex) {
+            // Sin filtro todas las consultas van a la BD: más lento, pero correcto.
+            log.warn("No se pudo armar el filtro de correos: {}", ex.getMessage());
+            filtro = null;
+        }
+    }
+
+    String getSqlBuscarId() {
+        return sqlBuscarId;
+    }
+}
@@ -0,0 +1,262 @@
+package com.urbancollection.ecommerce.infrastructure.cache;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.urbancollection.ecommerce.domain.entity.catalogo.Cupon;
+import com.urbancollection.ecommerce.domain.enums.TipoDescuento;
+import com.urbancollection.ecommerce.infrastructure.pricing.MotorDePrecios;
+import com.urbancollection.ecommerce.persistence.jpa.spring.CuponJpaRepository;
+
+/**
+ * CuponCache
+ *
+ * Copia en memoria de todos los cupones, indexada por id y por código.
+ * Los cupones cambian muy poco y se consultan en cada checkout, así que
+ * la idea es no ir a la base de datos para validarlos.
+ *
+ * - La primera consulta carga todos los cupones de una vez.
+ * - Cada escritura (adapter o controlador web) refresca la entrada.
+ * - Ya cargada la caché, un id o código que no está se toma como inexistente.
+ * - recargar() arma los índices nuevos aparte y los cambia de una sola vez,
+ *   así un checkout que lee mientras tanto nunca ve la caché vacía.
+ * - Con recargarMs > 0 se recarga sola cada tanto: es lo que trae los cambios
+ *   hechos por otra instancia o por fuera de la aplicación (tardan hasta recargarMs).
+ *
+ * Cada entrada guarda la ventana de vigencia ya calculada (activo + fechas),
+ * así comprobar si un cupón aplica son solo dos comparaciones, y la regla
+ * de descuento ya compilada para MotorDePrecios.
+ */
+public class CuponCache {
+
+    /**
+     * Entrada:
+     * Foto inmutable de un cupón con su ventana de vigencia precalculada.
+     * Si el cupón está inactivo la ventana queda vacía (nunca vigente).
+     * El código se guarda tal cual está en la BD; la clave normalizada solo
+     * sirve para el índice por código.
+     */
+    public static final class Entrada {
+
+        private final Long id;
+        private final String codigo;
+        private final String clave;
+        private final boolean activo;
+        private final TipoDescuento tipo;
+        private final BigDecimal valorDescuento;
+        private final BigDecimal minimoCompra;
+        private final BigDecimal topeDescuento;
+        private final LocalDateTime fechaInicio;
+        private final LocalDateTime fechaFin;
+
+        // Ventana [desde, hasta] ya resuelta; sin fechas = sin límite.
+        private final LocalDateTime desde;
+        private final LocalDateTime hasta;
+
+        // Regla de descuento en centavos (null si al cupón le falta tipo o valor).
+        private final MotorDePrecios.Regla regla;
+
+        Entrada(Cupon cupon) {
+            this.id = cupon.getId();
+            this.codigo = cupon.getCodigo();
+            this.clave = normalizar(codigo);
+            this.activo = cupon.isActivo();
+            this.tipo = cupon.getTipo();
+            this.valorDescuento = cupon.getValorDescuento();
+            this.minimoCompra = cupon.getMinimoCompra();
+            this.topeDescuento = cupon.getTopeDescuento();
+            this.fechaInicio = cupon.getFechaInicio();
+            this.fechaFin = cupon.getFechaFin();
+
+            if (activo) {
+                this.desde = fechaInicio != null ? fechaInicio : LocalDateTime.MIN;
+                this.hasta = fechaFin != null ? fechaFin : LocalDateTime.MAX;
+            } else {
+                // ventana vacía: desde > hasta
+                this.desde = LocalDateTime.MAX;
+                this.hasta = LocalDateTime.MIN;
+            }
+
+            this.regla = MotorDePrecios.compilar(cupon);
+        }
+
+        // true si el cupón está activo y "ahora" cae dentro de sus fechas.
+        public boolean vigenteEn(LocalDateTime ahora) {
+            return !ahora.isBefore(desde) && !ahora.isAfter(hasta);
+        }
+
+        // true si está vigente y el subtotal llega al mínimo de compra (si tiene).
+        public boolean aplicaA(LocalDateTime ahora, BigDecimal subtotal) {
+            if (!vigenteEn(ahora)) return false;
+            return minimoCompra == null || subtotal.compareTo(minimoCompra) >= 0;
+        }
+
+        // Devuelve una entidad nueva (desconectada) para que nadie modifique la caché por accidente.
+        public Cupon aCupon() {
+            Cupon cupon = new Cupon();
+            cupon.setId(id);
+            cupon.setCodigo(codigo);
+            cupon.setActivo(activo);
+            cupon.setTipo(tipo);
+            cupon.setValorDescuento(valorDescuento);
+            cupon.setMinimoCompra(minimoCompra);
+            cupon.setTopeDescuento(topeDescuento);
+            cupon.setFechaInicio(fechaInicio);
+            cupon.setFechaFin(fechaFin);
+            return cupon;
+        }
+
+        public Long getId() { return id; }
+        public String getCodigo() { return codigo; }
+        String getClave() { return clave; }
+        public boolean isActivo() { return activo; }
+        public TipoDescuento getTipo() { return tipo; }
+        public BigDecimal getValorDescuento() { return valorDescuento; }
+        public BigDecimal getMinimoCompra() { return minimoCompra; }
+        public BigDecimal getTopeDescuento() { return topeDescuento; }
+        public LocalDateTime getFechaInicio() { return fechaInicio; }
+        public LocalDateTime getFechaFin() { return fechaFin; }
+        public MotorDePrecios.Regla getRegla() { return regla; }
+    }
+
+    // Los dos índices juntos, para cambiarlos a la vez al recargar.
+    private record Indices(Map<Long, Entrada> porId, Map<String, Entrada> porCodigo) {
+
+        static Indices vacios() {
+            return new Indices(new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+        }
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(CuponCache.class);
+
+    private final CuponJpaRepository jpaRepository;
+    private final long recargarMs;
+
+    private volatile Indices indices = Indices.vacios();
+
+    // Se pone en true después de la primera carga completa.
+    private volatile boolean cargado = false;
+
+    private ScheduledExecutorService tareas;
+
+    public CuponCache(CuponJpaRepository jpaRepository) {
+        this(jpaRepository, 0);
+    }
+
+    public CuponCache(CuponJpaRepository jpaRepository, long recargarMs) {
+        this.jpaRepository = jpaRepository;
+        this.recargarMs = recargarMs;
+    }
+
+    // ===================== CICLO DE VIDA =====================
+
+    public void iniciar() {
+        if (recargarMs <= 0) return;
+        tareas = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "cupon-cache");
+            t.setDaemon(true);
+            return t;
+        });
+        tareas.scheduleWithFixedDelay(this::recargarSeguro, recargarMs, recargarMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void cerrar() {
+        if (tareas != null) tareas.shutdownNow();
+    }
+
+    // Busca por id sin ir a la base de datos (salvo la carga inicial).
+    public Optional<Entrada> buscarPorId(Long id) {
+        if (id == null) return Optional.empty();
+        cargarSiHaceFalta();
+        return Optional.ofNullable(indices.porId().get(id));
+    }
+
+    // Busca por código; el código se compara en mayúsculas y sin espacios, igual que se guarda.
+    public Optional<Entrada> buscarPorCodigo(String codigo) {
+        if (codigo == null || codigo.isBlank()) return Optional.empty();
+        cargarSiHaceFalta();
+        return Optional.ofNullable(indices.porCodigo().get(normalizar(codigo)));
+    }
+
+    /**
+     * actualizar:
+     * Se llama después de guardar un cupón.
+     * Si el código cambió, quito el índice viejo para que no quede colgado.
+     */
+    public void actualizar(Cupon cupon) {
+        if (cupon == null || cupon.getId() == null) return;
+
+        Entrada nueva = new Entrada(cupon);
+        synchronized (this) {
+            Map<Long, Entrada> porId = indices.porId();
+            Map<String, Entrada> porCodigo = indices.porCodigo();
+            Entrada vieja = porId.put(nueva.getId(), nueva);
+            if (vieja != null && vieja.getClave() != null && !vieja.getClave().equals(nueva.getClave())) {
+                porCodigo.remove(vieja.getClave(), vieja);
+            }
+            if (nueva.getClave() != null) {
+                porCodigo.put(nueva.getClave(), nueva);
+            }
+        }
+    }
+
+    // Se llama después de borrar un cupón.
+    public void eliminar(Long id) {
+        if (id == null) return;
+
+        synchronized (this) {
+            Entrada vieja = indices.porId().remove(id);
+            if (vieja != null && vieja.getClave() != null) {
+                indices.porCodigo().remove(vieja.getClave(), vieja);
+            }
+        }
+    }
+
+    // Vuelve a leer todos los cupones de la base de datos.
+    public synchronized void recargar() {
+        List<Cupon> cupones = jpaRepository.findAll();
+        Indices nuevos = Indices.vacios();
+        for (Cupon cupon : cupones) {
+            if (cupon.getId() == null) continue;
+            Entrada entrada = new Entrada(cupon);
+            nuevos.porId().put(entrada.getId(), entrada);
+            if (entrada.getClave() != null) {
+                nuevos.porCodigo().put(entrada.getClave(), entrada);
+            }
+        }
+        indices = nuevos;
+        cargado = true;
+    }
+
+    private void recargarSeguro() {
+        try {
+            recargar();
+        } catch (RuntimeException ex) {
+            // Sigo con los cupones que ya tenía; la próxima vuelta lo vuelve a intentar.
+            log.warn("No se pudieron recargar los cupones: {}", ex.getMessage());
+        }
+    }
+
+    private void cargarSiHaceFalta() {
+        if (cargado) return;
+        synchronized (this) {
+            if (!cargado) {
+                recargar();
+            }
+        }
+    }
+
+    private static String normalizar(String codigo) {
+        return codigo == null ? null : codigo.trim().toUpperCase();
+    }
+}
@@ -0,0 +1,226 @@
+package com.urbancollection.ecommerce.infrastructure.cache;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.urbancollection.ecommerce.domain.entity.logistica.Envio;
+import com.urbancollection.ecommerce.persistence.jpa.spring.EnvioJpaRepository;
+
+/**
+ * EnvioCache
+ *
+ * Caché de envíos por código de tracking y por id de pedido. Los clientes
+ * consultan la página de seguimiento todo el tiempo y los envíos cambian
+ * pocas veces (al crearlos y en cada cambio de estado).
+ *
+ * - Se guarda una Foto inmutable del envío (no la entidad), con su ETag.
+ * - También se recuerda "no existe" para no ir a la BD por códigos inválidos.
+ * - Toda escritura de envíos tiene que llamar a invalidar(...) después de
+ *   guardar/borrar (lo hacen EnvioRepositoryJpaAdapter y EnvioWebController).
+ * - Un contador de invalidaciones evita guardar una foto leída antes de
+ *   una escritura que terminó mientras se leía.
+ * - Dentro de una transacción se invalida al momento y otra vez después del
+ *   commit: una lectura de otro hilo entre el save y el commit ve la fila vieja,
+ *   y sin la segunda invalidación quedaría guardada todo el TTL.
+ * - Las invalidaciones son de esta instancia: lo que escribe otra instancia (o
+ *   la BD por fuera) se ve cuando vence la entrada. "No existe" vence mucho
+ *   antes (un envío recién creado en otra instancia tiene que aparecer enseguida).
+ *   Que no haya dos envíos para el mismo pedido lo asegura el índice único
+ *   ux_envio_pedido (ver IndicesDeConsulta), no esta caché.
+ *
+ * El tracking se busca contra la columna tracking_normalizado (UPPER(TRIM(tracking)))
+ * con índice UNIQUE, que crea ColumnaNormalizada al arrancar.
+ */
+public class EnvioCache {
+
+    public static final String COLUMNA_TRACKING = "tracking_normalizado";
+
+    /**
+     * Foto:
+     * Copia plana de un envío para responder sin entidad ni sesión de JPA.
+     */
+    public record Foto(Long id, Long pedidoId, String tracking, String estado,
+                       LocalDateTime createdAt, LocalDateTime updatedAt, String etag) {
+
+        static Foto de(Envio envio) {
+            Long pedidoId = envio.getPedido() != null ? envio.getPedido().getId() : null;
+            String estado = envio.getEstado() != null ? envio.getEstado().name() : null;
+            int hash = Objects.hash(envio.getId(), pedidoId, envio.getTracking(), estado,
+                    envio.getCreatedAt(), envio.getUpdatedAt());
+            String etag = "\"" + envio.getId() + "-" + Integer.toHexString(hash) + "\"";
+            return new Foto(envio.getId(), pedidoId, envio.getTracking(), estado,
+                    envio.getCreatedAt(), envio.getUpdatedAt(), etag);
+        }
+    }
+
+    // Marca de "no existe" (ConcurrentHashMap no acepta null).
+    private static final Foto NO_EXISTE = new Foto(null, null, null, null, null, null, null);
+
+    // Foto (o NO_EXISTE) y hasta cuándo vale (System.nanoTime).
+    private record Entrada(Foto foto, long vence) {
+    }
+
+    private final EnvioJpaRepository envioRepository;
+    private final JdbcTemplate jdbc;
+    private final ColumnaNormalizada columnaTracking;
+    private final int maximoEntradas;
+    private final long ttlNanos;
+    private final long ttlNoExisteNanos;
+
+    private final ConcurrentHashMap<String, Entrada> porTracking = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Entrada> porPedido = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Foto> porId = new ConcurrentHashMap<>();
+    private final AtomicLong invalidaciones = new AtomicLong();
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+
+    public EnvioCache(EnvioJpaRepository envioRepository, JdbcTemplate jdbc,
+                      ColumnaNormalizada columnaTracking, int maximoEntradas,
+                      Duration ttl, Duration ttlNoExiste) {
+        this.envioRepository = envioRepository;
+        this.jdbc = jdbc;
+        this.columnaTracking = columnaTracking;
+        this.maximoEntradas = Math.max(1, maximoEntradas);
+        this.ttlNanos = ttl.toNanos();
+        this.ttlNoExisteNanos = ttlNoExiste.toNanos();
+    }
+
+    // Crea la columna normalizada con su índice único (si no existe).
+    public void iniciar() {
+        columnaTracking.crear(jdbc);
+    }
+
+    // ===================== CONSULTAS =====================
+
+    public Optional<Foto> porTracking(String tracking) {
+        String codigo = columnaTracking.normalizar(tracking);
+        // '#' está reservado para los envíos sin tracking en la columna normalizada.
+        if (codigo.isEmpty() || codigo.startsWith("#")) return Optional.empty();
+        return buscar(porTracking, codigo, () -> {
+            List<Long> ids = jdbc.queryForList(columnaTracking.sqlBuscarIds(), Long.class, codigo);
+            return ids.isEmpty() ? Optional.empty() : envioRepository.findById(ids.get(0));
+        });
+    }
+
+    public Optional<Foto> porPedido(Long pedidoId) {
+        if (pedidoId == null) return Optional.empty();
+        return buscar(porPedido, pedidoId, () -> envioRepository.findByPedidoId(pedidoId));
+    }
+
+    public String normalizarTracking(String tracking) {
+        return columnaTracking.normalizar(tracking);
+    }
+
+    public ColumnaNormalizada getColumnaTracking() {
+        return columnaTracking;
+    }
+
+    // ===================== INVALIDACIÓN =====================
+
+    // Después de guardar un envío: saca lo que se tenía por su id, su tracking y su pedido.
+    public void invalidar(Envio envio) {
+        if (envio == null) return;
+        Long id = envio.getId();
+        String tracking = envio.getTracking() != null ? columnaTracking.normalizar(envio.getTracking()) : null;
+        Long pedidoId = envio.getPedido() != null ? envio.getPedido().getId() : null;
+        ahoraYAlConfirmar(() -> {
+            invalidaciones.incrementAndGet();
+            if (id != null) quitarPorId(id);
+            if (tracking != null) porTracking.remove(tracking);
+            if (pedidoId != null) porPedido.remove(pedidoId);
+        });
+    }
+
+    // Después de borrar un envío.
+    public void invalidarPorId(Long id) {
+        ahoraYAlConfirmar(() -> {
+            invalidaciones.incrementAndGet();
+            quitarPorId(id);
+        });
+    }
+
+    private static void ahoraYAlConfirmar(Runnable invalidacion) {
+        invalidacion.run();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidacion.run();
+            }
+        });
+    }
+
+    public void vaciar() {
+        invalidaciones.incrementAndGet();
+        porTracking.clear();
+        porPedido.clear();
+        porId.clear();
+    }
+
+    public long getAciertos() {
+        return aciertos.get();
+    }
+
+    public long getFallos() {
+        return fallos.get();
+    }
+
+    // ===================== INTERNOS =====================
+
+    private <K> Optional<Foto> buscar(ConcurrentHashMap<K, Entrada> mapa, K clave, Supplier<Optional<Envio>> cargar) {
+        Entrada entrada = mapa.get(clave);
+        if (entrada != null) {
+            if (entrada.vence() - System.nanoTime() > 0) {
+                aciertos.incrementAndGet();
+                return entrada.foto() == NO_EXISTE ? Optional.empty() : Optional.of(entrada.foto());
+            }
+            mapa.remove(clave, entrada);
+        }
+
+        fallos.incrementAndGet();
+        long antes = invalidaciones.get();
+        Optional<Foto> leida = cargar.get().map(Foto::de);
+
+        // Si hubo una escritura mientras leía, no guardo (podría ser una foto vieja).
+        if (invalidaciones.get() == antes) {
+            if (porTracking.size() + porPedido.size() > maximoEntradas) recortar();
+            long ttl = leida.isPresent() ? ttlNanos : ttlNoExisteNanos;
+            mapa.put(clave, new Entrada(leida.orElse(NO_EXISTE), System.nanoTime() + ttl));
+            leida.ifPresent(f -> porId.put(f.id(), f));
+            if (invalidaciones.get() != antes) mapa.remove(clave);
+        }
+        return leida;
+    }
+
+    private void quitarPorId(Long id) {
+        Foto foto = porId.remove(id);
+        if (foto == null) return;
+        if (foto.tracking() != null) porTracking.remove(columnaTracking.normalizar(foto.tracking()));
+        if (foto.pedidoId() != null) porPedido.remove(foto.pedidoId());
+    }
+
+    // Al pasarse del máximo suelto un 10% cualquiera (es una caché de lectura, se recarga sola).
+    private void recortar() {
+        int sacar = Math.max(1, maximoEntradas / 10);
+        for (ConcurrentHashMap<?, Entrada> mapa : List.of(porTracking, porPedido)) {
+            Iterator<Entrada> it = mapa.values().iterator();
+            for (int i = 0; i < sacar / 2 + 1 && it.hasNext(); i++) {
+                Foto f = it.next().foto();
+                it.remove();
+                // la misma foto puede estar en el otro mapa: la saco de todos
+                if (f != NO_EXISTE) quitarPorId(f.id());
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.urbancollection.ecommerce.infrastructure.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * FiltroDeBloom
+ *
+ * Conjunto aproximado de textos: si puedeContener(...) da false, el texto
+ * seguro no se agregó nunca; si da true, puede que sí (con la tasa de falsos
+ * positivos pedida). No se pueden quitar elementos: para eso se arma otro.
+ *
+ * Los bits van en un AtomicLongArray, así agregar y consultar desde varios
+ * hilos a la vez no necesita locks.
+ */
+public final class FiltroDeBloom {
+
+    private final AtomicLongArray bits;
+    private final long cantidadBits;
+    private final int funciones;
+    private final long capacidad;
+
+    /**
+     * @param capacidad cantidad de elementos para la que se dimensiona
+     * @param tasaFalsosPositivos por ejemplo 0.01 = 1%
+     */
+    public FiltroDeBloom(long capacidad, double tasaFalsosPositivos) {
+        this.capacidad = Math.max(1, capacidad);
+        // m = -n ln(p) / (ln 2)^2 ; k = m/n ln 2
+        long m = (long) Math.ceil(-this.capacidad * Math.log(tasaFalsosPositivos) / (Math.log(2) * Math.log(2)));
+        this.cantidadBits = Math.max(64, (m + 63) / 64 * 64);
+        this.funciones = Math.max(1, (int) Math.round((double) cantidadBits / this.capacidad * Math.log(2)));
+        this.bits = new AtomicLongArray((int) (cantidadBits / 64));
+    }
+
+    public long getCapacidad() {
+        return capacidad;
+    }
+
+    public void agregar(String texto) {
+        long h = hash(texto);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        for (int i = 1; i <= funciones; i++) {
+            long bit = indice(h1 + i * h2);
+            long mascara = 1L << (bit & 63);
+            int palabra = (int) (bit >>> 6);
+            long actual;
+            while (((actual = bits.get(palabra)) & mascara) == 0
+                    && !bits.compareAndSet(palabra, actual, actual | mascara)) {
+                // reintento si otro hilo cambió la misma palabra
+            }
+        }
+    }
+
+    public boolean puedeContener(String texto) {
+        long h = hash(texto);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        for (int i = 1; i <= funciones; i++) {
+            long bit = indice(h1 + i * h2);
+            if ((bits.get((int) (bit >>> 6)) & (1L << (bit & 63))) == 0) return false;
+        }
+        return true;
+    }
+
+    private long indice(int combinado) {
+        // el combinado puede ser negativo: lo paso a positivo antes del módulo
+        return (combinado & 0x7fffffffL) % cantidadBits;
+    }
+
+    // FNV-1a de 64 bits con una mezcla final (así los 32 bits altos y bajos sirven por separado).
+    private static long hash(String texto) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < texto.length(); i++) {
+            h ^= texto.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,252 @@
+package com.urbancollection.ecommerce.infrastructure.cache;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * VersionesDeRecursos
+ *
+ * Versión en memoria de los recursos del catálogo que los clientes consultan
+ * todo el tiempo (productos, cupones, envíos), para contestar GET condicionales
+ * (If-None-Match / If-Modified-Since) con 304 sin ir a la BD ni armar el cuerpo.
+ *
+ * - Cada recurso tiene una versión para la lista ("productos") y una por id
+ *   ("productos/7"). Un cambio en un id sube las dos.
+ * - La versión no sale de hashear el cuerpo: la suben las escrituras.
+ *   Las de JPA las ve un listener de Hibernate después del commit (escucharEscrituras);
+ *   lo que se escribe por JDBC tiene que llamar a cambio(...) o cambioGeneral(...).
+ * - Un id que nunca se escribió está en la versión 0: no hace falta guardar nada
+ *   por él, y si se escribe pasa a 1 o más.
+ * - El ETag lleva la hora de arranque, así después de reiniciar ningún ETag viejo coincide.
+ * - El ETag es débil (W/"..."): Tomcat no comprime las respuestas con ETag fuerte
+ *   (el cuerpo comprimido ya no sería el mismo byte a byte). checkNotModified
+ *   compara los ETag débiles en los GET, así que el 304 sigue saliendo igual.
+ * - Los endpoints negocian el formato por Accept: el ETag lleva el tipo
+ *   (Version.en) y la respuesta manda Vary: Accept, así una caché no le da
+ *   el CBOR guardado a un cliente que pidió JSON.
+ *
+ * SOLO SIRVE CON UNA INSTANCIA de la aplicación. Las versiones viven en memoria
+ * y no salen de la BD: con varias instancias un cambio solo sube la versión en
+ * la que lo escribió, y las demás siguen contestando 304 con el cuerpo viejo
+ * hasta que les llegue un cambio propio (no hay TTL que lo arregle). Para
+ * escalar a más de una hay que sacar la versión de la BD (una columna de
+ * versión o de última modificación leída en la misma conexión que el cuerpo).
+ *
+ * Al leer, la versión se toma ANTES de ir a la BD y el cuerpo se lee de la
+ * primaria: si una escritura termina en el medio, el cuerpo nuevo sale con el
+ * ETag viejo (y el próximo GET lo baja de nuevo), nunca un cuerpo viejo con el
+ * ETag nuevo. Leerlo de la réplica rompería eso (la versión sube al confirmar en
+ * la primaria y la réplica puede estar atrasada): los servicios no abren
+ * transacciones y las de los repositorios van siempre a la primaria (ver
+ * RuteoDeLecturas). Un GET condicional no se puede envolver en un
+ * @Transactional(readOnly = true).
+ */
+public class VersionesDeRecursos {
+
+    public static final String PRODUCTOS = "productos";
+    public static final String CUPONES = "cupones";
+    public static final String ENVIOS = "envios";
+
+    /**
+     * Version:
+     * Lo que va en los encabezados: ETag y Last-Modified (epoch ms).
+     */
+    public record Version(String etag, long ultimaModificacion) {
+
+        // El mismo recurso en otro formato (JSON, CBOR, Smile) es otro cuerpo: otro ETag.
+        public Version en(MediaType formato) {
+            return new Version(etag.substring(0, etag.length() - 1) + "-" + formato.getSubtype() + "\"",
+                    ultimaModificacion);
+        }
+    }
+
+    /**
+     * Politica:
+     * Cache-Control de un recurso. maxAge 0 = el cliente revalida siempre.
+     * Las públicas las pueden guardar proxies y CDN; las privadas solo el cliente.
+     */
+    public record Politica(Duration maxAge, boolean publica) {
+
+        CacheControl cacheControl() {
+            CacheControl cc = maxAge.isZero() ? CacheControl.noCache() : CacheControl.maxAge(maxAge).mustRevalidate();
+            return publica ? cc.cachePublic() : cc.cachePrivate();
+        }
+    }
+
+    // Número de versión y hora del último cambio de una clave.
+    private record Estado(long numero, long modificado) {
+    }
+
+    private final String arranque;
+    private final long arrancado;
+    private final Map<String, CacheControl> politicas;
+    private final ConcurrentHashMap<String, Estado> estados = new ConcurrentHashMap<>();
+
+    public VersionesDeRecursos(Map<String, Politica> politicas) {
+        this.arrancado = System.currentTimeMillis();
+        this.arranque = Long.toString(arrancado, 36);
+        Map<String, CacheControl> cc = new ConcurrentHashMap<>();
+        politicas.forEach((recurso, politica) -> cc.put(recurso, politica.cacheControl()));
+        this.politicas = cc;
+    }
+
+    // ===================== CONSULTAS =====================
+
+    // Versión de la lista del recurso.
+    public Version de(String recurso) {
+        Estado lista = estado(recurso);
+        return new Version(etag(arranque + "-" + lista.numero()), lista.modificado());
+    }
+
+    // Versión de un id del recurso (también cambia con cambioGeneral).
+    public Version de(String recurso, Object id) {
+        Estado general = estado(recurso + "/*");
+        Estado uno = estado(recurso + "/" + id);
+        return new Version(etag(arranque + "-" + general.numero() + "-" + uno.numero()),
+                Math.max(general.modificado(), uno.modificado()));
+    }
+
+    private static String etag(String valor) {
+        return "W/\"" + valor + "\"";
+    }
+
+    public CacheControl cacheControl(String recurso) {
+        return politicas.getOrDefault(recurso, CacheControl.noCache());
+    }
+
+    // ===================== CAMBIOS =====================
+
+    /**
+     * cambio:
+     * Sube la versión del id y la de la lista. Si hay una transacción de Spring
+     * en curso se hace al confirmarla (antes, otro GET podría leer la fila
+     * vieja y guardarla con la versión nueva).
+     */
+    public void cambio(String recurso, Object id) {
+        alConfirmar(() -> cambioConfirmado(recurso, id));
+    }
+
+    /**
+     * cambioGeneral:
+     * Sube la versión de todos los ids del recurso y la de la lista. Para
+     * cambios que afectan a muchos sin saber cuáles.
+     */
+    public void cambioGeneral(String recurso) {
+        alConfirmar(() -> {
+            subir(recurso + "/*");
+            subir(recurso);
+        });
+    }
+
+    void cambioConfirmado(String recurso, Object id) {
+        subir(recurso + "/" + id);
+        subir(recurso);
+    }
+
+    private static void alConfirmar(Runnable cambio) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cambio.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cambio.run();
+            }
+        });
+    }
+
+    private Estado estado(String clave) {
+        Estado e = estados.get(clave);
+        return e != null ? e : new Estado(0, arrancado);
+    }
+
+    private void subir(String clave) {
+        // Last-Modified va en segundos: nunca lo dejo igual al anterior aunque sea el mismo segundo
+        estados.compute(clave, (k, e) -> e == null
+                ? new Estado(1, Math.max(System.currentTimeMillis(), arrancado + 1000))
+                : new Estado(e.numero() + 1, Math.max(System.currentTimeMillis(), e.modificado() + 1000)));
+    }
+
+    // ===================== LISTENERS =====================
+
+    /**
+     * escucharEscrituras:
+     * Registra listeners de Hibernate que, después de cada commit, suben la
+     * versión del recurso de las entidades indicadas (clase -> recurso).
+     */
+    public VersionesDeRecursos escucharEscrituras(EntityManagerFactory emf, Map<Class<?>, String> recursos) {
+        EventListenerRegistry registro = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+
+        registro.appendListeners(EventType.POST_COMMIT_INSERT, new PostCommitInsertEventListener() {
+            @Override
+            public void onPostInsert(PostInsertEvent event) {
+                avisar(recursos, event.getPersister(), event.getId());
+            }
+
+            @Override
+            public void onPostInsertCommitFailed(PostInsertEvent event) {
+            }
+
+            @Override
+            public boolean requiresPostCommitHandling(EntityPersister p) {
+                return recursos.containsKey(p.getMappedClass());
+            }
+        });
+        registro.appendListeners(EventType.POST_COMMIT_UPDATE, new PostCommitUpdateEventListener() {
+            @Override
+            public void onPostUpdate(PostUpdateEvent event) {
+                avisar(recursos, event.getPersister(), event.getId());
+            }
+
+            @Override
+            public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+            }
+
+            @Override
+            public boolean requiresPostCommitHandling(EntityPersister p) {
+                return recursos.containsKey(p.getMappedClass());
+            }
+        });
+        registro.appendListeners(EventType.POST_COMMIT_DELETE, new PostCommitDeleteEventListener() {
+            @Override
+            public void onPostDelete(PostDeleteEvent event) {
+                avisar(recursos, event.getPersister(), event.getId());
+            }
+
+            @Override
+            public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+            }
+
+            @Override
+            public boolean requiresPostCommitHandling(EntityPersister p) {
+                return recursos.containsKey(p.getMappedClass());
+            }
+        });
+        return this;
+    }
+
+    private void avisar(Map<Class<?>, String> recursos, EntityPersister persister, Object id) {
+        String recurso = recursos.get(persister.getMappedClass());
+        if (recurso != null && id != null) cambioConfirmado(recurso, id);
+    }
+}
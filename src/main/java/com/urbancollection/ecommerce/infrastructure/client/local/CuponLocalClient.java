@@ -0,0 +1,73 @@
+package com.urbancollection.ecommerce.infrastructure.client.local;
+
+import java.util.List;
+import java.util.Optional;
+
+import com.urbancollection.ecommerce.application.service.ICuponService;
+import com.urbancollection.ecommerce.domain.base.OperationResult;
+import com.urbancollection.ecommerce.domain.entity.catalogo.Cupon;
+import com.urbancollection.ecommerce.domain.repository.CuponRepository;
+import com.urbancollection.ecommerce.infrastructure.client.ICuponApiClient;
+
+/**
+ * CuponLocalClient
+ *
+ * ICuponApiClient dentro del mismo proceso: lee del CuponRepository en
+ * lugar de hacer HTTP contra /api/cupones de esta misma aplicación.
+ * Las escrituras pasan por ICuponService, como en el controller; si falla,
+ * RuntimeException como el cliente HTTP con un 400.
+ * Se usa con api.client.modo=local (ver DependenciesConfig).
+ */
+public class CuponLocalClient implements ICuponApiClient {
+
+    private final CuponRepository cuponRepository;
+    private final ICuponService cuponService;
+
+    public CuponLocalClient(CuponRepository cuponRepository, ICuponService cuponService) {
+        this.cuponRepository = cuponRepository;
+        this.cuponService = cuponService;
+    }
+
+    @Override
+    public List<Cupon> listar() {
+        return cuponRepository.findAll();
+    }
+
+    @Override
+    public Optional<Cupon> buscarPorId(Long id) {
+        return Optional.ofNullable(cuponRepository.findById(id));
+    }
+
+    @Override
+    public Cupon crear(Cupon cupon) {
+        exitoso(cuponService.crear(cupon), "crear");
+        return cupon;
+    }
+
+    @Override
+    public Cupon actualizar(Long id, Cupon cupon) {
+        existente(id);
+        cupon.setId(id);
+        exitoso(cuponService.actualizar(id, cupon), "actualizar");
+        return cupon;
+    }
+
+    @Override
+    public void eliminar(Long id) {
+        existente(id);
+        exitoso(cuponService.eliminar(id), "eliminar");
+    }
+
+    // Igual que el cliente HTTP con un 404: actualizar o eliminar algo que no existe es un error.
+    private void existente(Long id) {
+        if (cuponRepository.findById(id) == null) {
+            throw new RuntimeException("No existe el cupón con id " + id);
+        }
+    }
+
+    private static void exitoso(OperationResult result, String operacion) {
+        if (!result.isSuccess()) {
+            throw new RuntimeException("No se pudo " + operacion + " el cupón: " + result.getMessage());
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.urbancollection.ecommerce.infrastructure.client.local;
+
+import java.util.List;
+import java.util.Optional;
+
+import com.urbancollection.ecommerce.application.service.IEnvioService;
+import com.urbancollection.ecommerce.domain.base.OperationResult;
+import com.urbancollection.ecommerce.domain.entity.logistica.Envio;
+import com.urbancollection.ecommerce.domain.enums.EstadoDeEnvio;
+import com.urbancollection.ecommerce.domain.enums.EstadoDePedido;
+import com.urbancollection.ecommerce.domain.repository.EnvioRepository;
+import com.urbancollection.ecommerce.infrastructure.client.IEnvioApiClient;
+import com.urbancollection.ecommerce.infrastructure.estados.EstadosDePedido;
+import com.urbancollection.ecommerce.infrastructure.logistica.EstadosDeEnvioEnLote;
+
+/**
+ * EnvioLocalClient
+ *
+ * IEnvioApiClient dentro del mismo proceso: lee del EnvioRepository en
+ * lugar de hacer HTTP contra /api/envios de esta misma aplicación.
+ * Las escrituras pasan por IEnvioService y actualizar revisa lo mismo que
+ * PUT /api/envios/{id}: la transición de estado y, al entregar, que el pedido
+ * pueda pasar a COMPLETADO. Si algo no pasa, RuntimeException como el cliente
+ * HTTP con un 4xx.
+ * Se usa con api.client.modo=local (ver DependenciesConfig).
+ */
+public class EnvioLocalClient implements IEnvioApiClient {
+
+    private final EnvioRepository envioRepository;
+    private final IEnvioService envioService;
+    private final EstadosDePedido estadosDePedido;
+
+    public EnvioLocalClient(EnvioRepository envioRepository, IEnvioService envioService,
+                            EstadosDePedido estadosDePedido) {
+        this.envioRepository = envioRepository;
+        this.envioService = envioService;
+        this.estadosDePedido = estadosDePedido;
+    }
+
+    @Override
+    public List<Envio> listar() {
+        return envioRepository.findAll();
+    }
+
+    @Override
+    public Optional<Envio> buscarPorId(Long id) {
+        return Optional.ofNullable(envioRepository.findById(id));
+    }
+
+    @Override
+    public Envio crear(Envio envio) {
+        exitoso(envioService.crear(envio), "crear");
+        return envio;
+    }
+
+    @Override
+    public Envio actualizar(Long id, Envio envio) {
+        EstadoDeEnvio anterior = existente(id).getEstado();
+        EstadoDeEnvio nuevo = envio.getEstado();
+        if (nuevo != null && nuevo != anterior && !EstadosDeEnvioEnLote.transicionValida(anterior, nuevo)) {
+            throw new RuntimeException("El envío " + id + " no puede pasar de " + anterior + " a " + nuevo);
+        }
+        if (nuevo == EstadoDeEnvio.ENTREGADO && anterior != EstadoDeEnvio.ENTREGADO) {
+            EstadosDePedido.Cambio cambio = estadosDePedido.cambiar(envio.getPedido().getId(), EstadoDePedido.COMPLETADO);
+            if (!cambio.cambiado() && cambio.resultado() != EstadosDePedido.Resultado.SIN_CAMBIOS) {
+                throw new RuntimeException("El pedido del envío " + id + " no se pudo completar: " + cambio.resultado());
+            }
+        }
+        envio.setId(id);
+        exitoso(envioService.actualizar(id, envio), "actualizar");
+        return envio;
+    }
+
+    @Override
+    public void eliminar(Long id) {
+        existente(id);
+        exitoso(envioService.eliminar(id), "eliminar");
+    }
+
+    // Igual que el cliente HTTP con un 404: actualizar o eliminar algo que no existe es un error.
+    private Envio existente(Long id) {
+        Envio envio = envioRepository.findById(id);
+        if (envio == null) {
+            throw new RuntimeException("No existe el envío con id " + id);
+        }
+        return envio;
+    }
+
+    private static void exitoso(OperationResult result, String operacion) {
+        if (!result.isSuccess()) {
+            throw new RuntimeException("No se pudo " + operacion + " el envío: " + result.getMessage());
+        }
+    }
+}
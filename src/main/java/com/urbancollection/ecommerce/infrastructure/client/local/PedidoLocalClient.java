@@ -0,0 +1,85 @@
+package com.urbancollection.ecommerce.infrastructure.client.local;
+
+import java.util.List;
+import java.util.Optional;
+
+import com.urbancollection.ecommerce.domain.entity.ventas.ItemPedido;
+import com.urbancollection.ecommerce.domain.entity.ventas.Pedido;
+import com.urbancollection.ecommerce.domain.repository.PedidoRepository;
+import com.urbancollection.ecommerce.infrastructure.client.IPedidoApiClient;
+
+/**
+ * PedidoLocalClient
+ *
+ * IPedidoApiClient dentro del mismo proceso: va directo al PedidoRepository en
+ * lugar de hacer HTTP contra /api/pedidos de esta misma aplicación.
+ * Se usa con api.client.modo=local (ver DependenciesConfig).
+ */
+public class PedidoLocalClient implements IPedidoApiClient {
+
+    private final PedidoRepository pedidoRepository;
+
+    public PedidoLocalClient(PedidoRepository pedidoRepository) {
+        this.pedidoRepository = pedidoRepository;
+    }
+
+    @Override
+    public List<Pedido> listar() {
+        return pedidoRepository.findAll();
+    }
+
+    @Override
+    public Optional<Pedido> buscarPorId(Long id) {
+        return Optional.ofNullable(pedidoRepository.findById(id));
+    }
+
+    @Override
+    public Pedido crear(Pedido pedido) {
+        validar(pedido);
+        return pedidoRepository.save(pedido);
+    }
+
+    @Override
+    public Pedido actualizar(Long id, Pedido pedido) {
+        existente(id);
+        validar(pedido);
+        pedido.setId(id);
+        return pedidoRepository.save(pedido);
+    }
+
+    @Override
+    public void eliminar(Long id) {
+        existente(id);
+        pedidoRepository.delete(id);
+    }
+
+    // Lo mismo que pide PedidoCreateRequest en POST /api/pedidos: usuario, dirección y al
+    // menos un item con producto y cantidad mayor que 0. No pasa por IPedidoService porque
+    // este cliente es justamente donde PedidoService guarda lo que ya validó.
+    private static void validar(Pedido pedido) {
+        if (pedido.getUsuario() == null || pedido.getUsuario().getId() == null) {
+            throw new IllegalArgumentException("El pedido no tiene usuario");
+        }
+        if (pedido.getDireccionEntrega() == null || pedido.getDireccionEntrega().getId() == null) {
+            throw new IllegalArgumentException("El pedido no tiene dirección de entrega");
+        }
+        if (pedido.getItems() == null || pedido.getItems().isEmpty()) {
+            throw new IllegalArgumentException("El pedido no tiene items");
+        }
+        for (ItemPedido item : pedido.getItems()) {
+            if (item == null || item.getProducto() == null || item.getProducto().getId() == null) {
+                throw new IllegalArgumentException("Hay un item del pedido sin producto");
+            }
+            if (item.getCantidad() < 1) {
+                throw new IllegalArgumentException("La cantidad debe ser mayor que 0");
+            }
+        }
+    }
+
+    // Igual que el cliente HTTP con un 404: actualizar o eliminar algo que no existe es un error.
+    private void existente(Long id) {
+        if (pedidoRepository.findById(id) == null) {
+            throw new RuntimeException("No existe el pedido con id " + id);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.urbancollection.ecommerce.infrastructure.client.local;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import com.urbancollection.ecommerce.application.service.IProductoService;
+import com.urbancollection.ecommerce.domain.base.OperationResult;
+import com.urbancollection.ecommerce.domain.entity.catalogo.Producto;
+import com.urbancollection.ecommerce.domain.repository.ProductoRepository;
+import com.urbancollection.ecommerce.infrastructure.client.IProductoApiClient;
+
+/**
+ * ProductoLocalClient
+ *
+ * IProductoApiClient dentro del mismo proceso: lee del ProductoRepository en
+ * lugar de hacer HTTP contra /api/productos de esta misma aplicación.
+ * Las escrituras pasan por las mismas validaciones que ProductoController y por
+ * IProductoService; si algo no pasa, RuntimeException como el cliente HTTP con un 400.
+ * Se usa con api.client.modo=local (ver DependenciesConfig).
+ */
+public class ProductoLocalClient implements IProductoApiClient {
+
+    private final ProductoRepository productoRepository;
+    private final IProductoService productoService;
+
+    public ProductoLocalClient(ProductoRepository productoRepository, IProductoService productoService) {
+        this.productoRepository = productoRepository;
+        this.productoService = productoService;
+    }
+
+    @Override
+    public List<Producto> listar() {
+        return productoRepository.findAll();
+    }
+
+    @Override
+    public Optional<Producto> buscarPorId(Long id) {
+        return Optional.ofNullable(productoRepository.findById(id));
+    }
+
+    @Override
+    public Producto crear(Producto producto) {
+        validar(producto);
+        exitoso(productoService.crear(producto), "crear");
+        return producto;
+    }
+
+    @Override
+    public Producto actualizar(Long id, Producto producto) {
+        existente(id);
+        validar(producto);
+        producto.setId(id);
+        exitoso(productoService.actualizar(id, producto), "actualizar");
+        return producto;
+    }
+
+    @Override
+    public void eliminar(Long id) {
+        existente(id);
+        exitoso(productoService.eliminar(id), "eliminar");
+    }
+
+    // Las mismas validaciones que POST y PUT /api/productos.
+    private static void validar(Producto producto) {
+        if (producto.getNombre() == null || producto.getNombre().trim().isEmpty()) {
+            throw new IllegalArgumentException("El nombre es obligatorio");
+        }
+        if (producto.getPrecio() == null || producto.getPrecio().compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("El precio debe ser mayor a 0");
+        }
+        if (producto.getStock() < 0) {
+            throw new IllegalArgumentException("El stock no puede ser negativo");
+        }
+    }
+
+    private static void exitoso(OperationResult result, String operacion) {
+        if (!result.isSuccess()) {
+            throw new RuntimeException("No se pudo " + operacion + " el producto: " + result.getMessage());
+        }
+    }
+
+    // Igual que el cliente HTTP con un 404: actualizar o eliminar algo que no existe es un error.
+    private void existente(Long id) {
+        if (productoRepository.findById(id) == null) {
+            throw new RuntimeException("No existe el producto con id " + id);
+        }
+    }
+}
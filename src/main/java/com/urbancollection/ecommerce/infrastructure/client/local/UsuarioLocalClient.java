@@ -0,0 +1,73 @@
+package com.urbancollection.ecommerce.infrastructure.client.local;
+
+import java.util.List;
+import java.util.Optional;
+
+import com.urbancollection.ecommerce.application.service.IUsuarioService;
+import com.urbancollection.ecommerce.domain.base.OperationResult;
+import com.urbancollection.ecommerce.domain.entity.usuarios.Usuario;
+import com.urbancollection.ecommerce.domain.repository.UsuarioRepository;
+import com.urbancollection.ecommerce.infrastructure.client.IUsuarioApiClient;
+
+/**
+ * UsuarioLocalClient
+ *
+ * IUsuarioApiClient dentro del mismo proceso: lee del UsuarioRepository en
+ * lugar de hacer HTTP contra /api/usuarios de esta misma aplicación.
+ * Las escrituras pasan por IUsuarioService, como en el controller; si falla,
+ * RuntimeException como el cliente HTTP con un 400.
+ * Se usa con api.client.modo=local (ver DependenciesConfig).
+ */
+public class UsuarioLocalClient implements IUsuarioApiClient {
+
+    private final UsuarioRepository usuarioRepository;
+    private final IUsuarioService usuarioService;
+
+    public UsuarioLocalClient(UsuarioRepository usuarioRepository, IUsuarioService usuarioService) {
+        this.usuarioRepository = usuarioRepository;
+        this.usuarioService = usuarioService;
+    }
+
+    @Override
+    public List<Usuario> listar() {
+        return usuarioRepository.findAll();
+    }
+
+    @Override
+    public Optional<Usuario> buscarPorId(Long id) {
+        return Optional.ofNullable(usuarioRepository.findById(id));
+    }
+
+    @Override
+    public Usuario crear(Usuario usuario) {
+        exitoso(usuarioService.crear(usuario), "crear");
+        return usuario;
+    }
+
+    @Override
+    public Usuario actualizar(Long id, Usuario usuario) {
+        existente(id);
+        usuario.setId(id);
+        exitoso(usuarioService.actualizar(id, usuario), "actualizar");
+        return usuario;
+    }
+
+    @Override
+    public void eliminar(Long id) {
+        existente(id);
+        exitoso(usuarioService.eliminar(id), "eliminar");
+    }
+
+    // Igual que el cliente HTTP con un 404: actualizar o eliminar algo que no existe es un error.
+    private void existente(Long id) {
+        if (usuarioRepository.findById(id) == null) {
+            throw new RuntimeException("No existe el usuario con id " + id);
+        }
+    }
+
+    private static void exitoso(OperationResult result, String operacion) {
+        if (!result.isSuccess()) {
+            throw new RuntimeException("No se pudo " + operacion + " el usuario: " + result.getMessage());
+        }
+    }
+}
@@ -1,10 +1,29 @@
 package com.urbancollection.ecommerce.infrastructure.config;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import jakarta.persistence.EntityManagerFactory;
+
 import com.urbancollection.ecommerce.application.service.CuponService;
 import com.urbancollection.ecommerce.application.service.DireccionService;
 import com.urbancollection.ecommerce.application.service.EnvioService;
@@ -16,8 +35,14 @@ import com.urbancollection.ecommerce.application.service.IProductoService;
 import com.urbancollection.ecommerce.application.service.IUsuarioService;
 import com.urbancollection.ecommerce.application.service.PedidoService;
 import com.urbancollection.ecommerce.application.service.ProductoService;
-import com.urbancollection.ecommerce.application.service.StockServiceImpl;
 import com.urbancollection.ecommerce.application.service.UsuarioService;
+import com.urbancollection.ecommerce.domain.entity.catalogo.Cupon;
+import com.urbancollection.ecommerce.domain.entity.catalogo.Producto;
+import com.urbancollection.ecommerce.domain.entity.logistica.Direccion;
+import com.urbancollection.ecommerce.domain.entity.logistica.Envio;
+import com.urbancollection.ecommerce.domain.entity.usuarios.Usuario;
+import com.urbancollection.ecommerce.domain.entity.ventas.Pedido;
+import com.urbancollection.ecommerce.domain.entity.ventas.TransaccionPago;
 import com.urbancollection.ecommerce.domain.repository.CuponRepository;
 import com.urbancollection.ecommerce.domain.repository.DireccionRepository;
 import com.urbancollection.ecommerce.domain.repository.EnvioRepository;
@@ -26,6 +51,12 @@ import com.urbancollection.ecommerce.domain.repository.ProductoRepository;
 import com.urbancollection.ecommerce.domain.repository.TransaccionPagoRepository;
 import com.urbancollection.ecommerce.domain.repository.UsuarioRepository;
 import com.urbancollection.ecommerce.domain.service.StockService;
+import com.urbancollection.ecommerce.infrastructure.cache.CacheDeSegundoNivel;
+import com.urbancollection.ecommerce.infrastructure.cache.CorreosDeUsuarios;
+import com.urbancollection.ecommerce.infrastructure.cache.ColumnaNormalizada;
+import com.urbancollection.ecommerce.infrastructure.cache.CuponCache;
+import com.urbancollection.ecommerce.infrastructure.cache.EnvioCache;
+import com.urbancollection.ecommerce.infrastructure.cache.VersionesDeRecursos;
 import com.urbancollection.ecommerce.infrastructure.client.ICuponApiClient;
 import com.urbancollection.ecommerce.infrastructure.client.IEnvioApiClient;
 import com.urbancollection.ecommerce.infrastructure.client.IPedidoApiClient;
@@ -36,6 +67,37 @@ import com.urbancollection.ecommerce.infrastructure.client.Impl.EnvioApiClient;
 import com.urbancollection.ecommerce.infrastructure.client.Impl.PedidoApiClient;
 import com.urbancollection.ecommerce.infrastructure.client.Impl.ProductoApiClient;
 import com.urbancollection.ecommerce.infrastructure.client.Impl.UsuarioApiClient;
+import com.urbancollection.ecommerce.infrastructure.client.local.CuponLocalClient;
+import com.urbancollection.ecommerce.infrastructure.client.local.EnvioLocalClient;
+import com.urbancollection.ecommerce.infrastructure.client.local.PedidoLocalClient;
+import com.urbancollection.ecommerce.infrastructure.client.local.ProductoLocalClient;
+import com.urbancollection.ecommerce.infrastructure.client.local.UsuarioLocalClient;
+import com.urbancollection.ecommerce.infrastructure.deseos.ListasDeDeseos;
+import com.urbancollection.ecommerce.infrastructure.estados.EstadosDePedido;
+import com.urbancollection.ecommerce.infrastructure.formatos.FormatosBinarios;
+import com.urbancollection.ecommerce.infrastructure.logistica.EstadosDeEnvioEnLote;
+import com.urbancollection.ecommerce.infrastructure.notification.NotificationMockAdapter;
+import com.urbancollection.ecommerce.infrastructure.outbox.ConsumidorDeNotificaciones;
+import com.urbancollection.ecommerce.infrastructure.outbox.Outbox;
+import com.urbancollection.ecommerce.infrastructure.outbox.RelayDeOutbox;
+import com.urbancollection.ecommerce.infrastructure.pagos.ConciliacionDePagos;
+import com.urbancollection.ecommerce.infrastructure.pagos.ConfirmacionDePagos;
+import com.urbancollection.ecommerce.infrastructure.pricing.MotorDePrecios;
+import com.urbancollection.ecommerce.infrastructure.recomendaciones.Recomendaciones;
+import com.urbancollection.ecommerce.infrastructure.search.Autocompletado;
+import com.urbancollection.ecommerce.infrastructure.search.BuscadorDeProductos;
+import com.urbancollection.ecommerce.infrastructure.stock.ReservasDeStock;
+import com.urbancollection.ecommerce.infrastructure.stock.StockConReservas;
+import com.urbancollection.ecommerce.persistence.jpa.spring.CuponJpaRepository;
+import com.urbancollection.ecommerce.persistence.jpa.spring.EnvioJpaRepository;
+import com.urbancollection.ecommerce.persistence.jpa.spring.ItemPedidoJpaRepository;
+import com.urbancollection.ecommerce.persistence.jpa.spring.ListaDeseosJpaRepository;
+import com.urbancollection.ecommerce.persistence.jpa.spring.PedidoJpaRepository;
+import com.urbancollection.ecommerce.persistence.jpa.spring.ProductoJpaRepository;
+import com.urbancollection.ecommerce.persistence.jpa.spring.TransaccionPagoJpaRepository;
+import com.urbancollection.ecommerce.persistence.jpa.spring.UsuarioJpaRepository;
+import com.urbancollection.ecommerce.shared.logging.LoggerPort;
+import com.urbancollection.ecommerce.shared.notification.NotificationPort;
 
 /**
  * Clase de configuración donde registro los beans de los servicios de la aplicación.
@@ -48,27 +110,42 @@ public class DependenciesConfig {
     @Value("${api.base.url:http://localhost:8081}")
     private String apiBaseUrl;
 
+    // "local" (por defecto, igual que application.properties): los ApiClients leen de los
+    // repositorios y escriben por los services en este mismo proceso. "http": llaman a api.base.url.
+    @Value("${api.client.modo:local}")
+    private String modoClientes;
+
     // =====================  REST TEMPLATE =====================
 
     /**
      * Bean de RestTemplate para realizar peticiones HTTP.
      * Usado por todos los ApiClients para consumir la API REST.
      * Se mantiene para tests y uso futuro.
+     * Con api.client.formato=cbor o smile las respuestas se piden en binario
+     * (ver FormatosBinarios); json lo deja como siempre.
      */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(@Value("${api.client.formato:json}") String formato,
+                                     ObjectProvider<Jackson2ObjectMapperBuilder> builders) {
+        return FormatosBinarios.restTemplate(FormatosBinarios.Formato.de(formato), builders::getObject);
     }
 
     // =====================  API CLIENTS (PARA TESTS Y MICROSERVICIOS FUTUROS) =====================
+    // Con api.client.modo=local cada I*ApiClient se arma con su *LocalClient, que
+    // usa el repositorio y el service en el mismo proceso: sin serializar, sin socket y sin
+    // ocupar un hilo de Tomcat por llamada, con las mismas validaciones que la API. "http" queda para cuando la API
+    // corre en otro proceso (api.base.url apunta a ella).
 
     /**
      * Bean del cliente API de Productos.
      * Se mantiene para tests unitarios y preparación de microservicios.
      */
     @Bean
-    public IProductoApiClient productoApiClient(RestTemplate restTemplate) {
-        return new ProductoApiClient(restTemplate, apiBaseUrl);
+    public IProductoApiClient productoApiClient(RestTemplate restTemplate, ProductoRepository productoRepository,
+                                                IProductoService productoService) {
+        return clientesLocales()
+                ? new ProductoLocalClient(productoRepository, productoService)
+                : new ProductoApiClient(restTemplate, apiBaseUrl);
     }
 
     /**
@@ -76,8 +153,10 @@ public class DependenciesConfig {
      * Se mantiene para tests unitarios y preparación de microservicios.
      */
     @Bean
-    public IPedidoApiClient pedidoApiClient(RestTemplate restTemplate) {
-        return new PedidoApiClient(restTemplate, apiBaseUrl);
+    public IPedidoApiClient pedidoApiClient(RestTemplate restTemplate, PedidoRepository pedidoRepository) {
+        return clientesLocales()
+                ? new PedidoLocalClient(pedidoRepository)
+                : new PedidoApiClient(restTemplate, apiBaseUrl);
     }
 
     /**
@@ -85,8 +164,11 @@ public class DependenciesConfig {
      * Se mantiene para tests unitarios y preparación de microservicios.
      */
     @Bean
-    public IEnvioApiClient envioApiClient(RestTemplate restTemplate) {
-        return new EnvioApiClient(restTemplate, apiBaseUrl);
+    public IEnvioApiClient envioApiClient(RestTemplate restTemplate, EnvioRepository envioRepository,
+                                          IEnvioService envioService, EstadosDePedido estadosDePedido) {
+        return clientesLocales()
+                ? new EnvioLocalClient(envioRepository, envioService, estadosDePedido)
+                : new EnvioApiClient(restTemplate, apiBaseUrl);
     }
 
     /**
@@ -94,8 +176,11 @@ public class DependenciesConfig {
      * Se mantiene para tests unitarios y preparación de microservicios.
      */
     @Bean
-    public ICuponApiClient cuponApiClient(RestTemplate restTemplate) {
-        return new CuponApiClient(restTemplate, apiBaseUrl);
+    public ICuponApiClient cuponApiClient(RestTemplate restTemplate, CuponRepository cuponRepository,
+                                          ICuponService cuponService) {
+        return clientesLocales()
+                ? new CuponLocalClient(cuponRepository, cuponService)
+                : new CuponApiClient(restTemplate, apiBaseUrl);
     }
 
     /**
@@ -103,18 +188,367 @@ public class DependenciesConfig {
      * Se mantiene para tests unitarios y preparación de microservicios.
      */
     @Bean
-    public IUsuarioApiClient usuarioApiClient(RestTemplate restTemplate) {
-        return new UsuarioApiClient(restTemplate, apiBaseUrl);
+    public IUsuarioApiClient usuarioApiClient(RestTemplate restTemplate, UsuarioRepository usuarioRepository,
+                                              IUsuarioService usuarioService) {
+        return clientesLocales()
+                ? new UsuarioLocalClient(usuarioRepository, usuarioService)
+                : new UsuarioApiClient(restTemplate, apiBaseUrl);
+    }
+
+    private boolean clientesLocales() {
+        return switch (modoClientes.trim().toLowerCase(Locale.ROOT)) {
+            case "local" -> true;
+            case "http" -> false;
+            default -> throw new IllegalArgumentException(
+                    "api.client.modo debe ser http o local, no: " + modoClientes);
+        };
+    }
+
+    // ===================== CACHES =====================
+
+    /**
+     * Caché en memoria de cupones (por id y por código).
+     * La usan el adapter de cupones y el checkout web. Se relee entera cada
+     * recargar-ms para ver lo que cambiaron otras instancias.
+     */
+    @Bean(initMethod = "iniciar", destroyMethod = "cerrar")
+    public CuponCache cuponCache(CuponJpaRepository cuponJpaRepository,
+                                 @Value("${cupones.cache.recargar-ms:60000}") long recargarMs) {
+        return new CuponCache(cuponJpaRepository, recargarMs);
+    }
+
+    /**
+     * Caché de segundo nivel de Hibernate: una región por entidad de referencia,
+     * cada una con su tamaño máximo y TTL.
+     */
+    @Bean(destroyMethod = "cerrar")
+    public CacheDeSegundoNivel cacheDeSegundoNivel(
+            @Value("${cache.l2.producto.maximo:10000}") long productoMaximo,
+            @Value("${cache.l2.producto.ttl-segundos:300}") long productoTtl,
+            @Value("${cache.l2.cupon.maximo:2000}") long cuponMaximo,
+            @Value("${cache.l2.cupon.ttl-segundos:600}") long cuponTtl,
+            @Value("${cache.l2.direccion.maximo:20000}") long direccionMaximo,
+            @Value("${cache.l2.direccion.ttl-segundos:600}") long direccionTtl,
+            @Value("${cache.l2.usuario.maximo:20000}") long usuarioMaximo,
+            @Value("${cache.l2.usuario.ttl-segundos:600}") long usuarioTtl) {
+        return new CacheDeSegundoNivel(List.of(
+                new CacheDeSegundoNivel.Region("producto", Producto.class, productoMaximo, Duration.ofSeconds(productoTtl)),
+                new CacheDeSegundoNivel.Region("cupon", Cupon.class, cuponMaximo, Duration.ofSeconds(cuponTtl)),
+                new CacheDeSegundoNivel.Region("direccion", Direccion.class, direccionMaximo, Duration.ofSeconds(direccionTtl)),
+                new CacheDeSegundoNivel.Region("usuario", Usuario.class, usuarioMaximo, Duration.ofSeconds(usuarioTtl))));
+    }
+
+    /**
+     * Pasa las regiones a Hibernate antes de que Spring Boot arme el EntityManagerFactory.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer cacheDeSegundoNivelEnHibernate(CacheDeSegundoNivel cacheDeSegundoNivel) {
+        return cacheDeSegundoNivel::configurar;
+    }
+
+    /**
+     * Aciertos, fallos y escrituras de cada región en /actuator/metrics.
+     */
+    @Bean
+    public MeterBinder cacheDeSegundoNivelMetricas(CacheDeSegundoNivel cacheDeSegundoNivel,
+                                                   EntityManagerFactory entityManagerFactory) {
+        return metricas -> cacheDeSegundoNivel.registrarMetricas(entityManagerFactory, metricas);
+    }
+
+    /**
+     * Versiones de productos, cupones y envíos para los GET condicionales (ETag /
+     * Last-Modified) y el Cache-Control de cada uno. Las escrituras por JPA las
+     * ven listeners de Hibernate; las de JDBC avisan a mano. Las versiones están
+     * en memoria: solo vale con una instancia de la aplicación.
+     */
+    @Bean
+    public VersionesDeRecursos versionesDeRecursos(
+            EntityManagerFactory entityManagerFactory,
+            @Value("${http.cache.productos.max-age-segundos:60}") long productosMaxAge,
+            @Value("${http.cache.cupones.max-age-segundos:300}") long cuponesMaxAge,
+            @Value("${http.cache.envios.max-age-segundos:0}") long enviosMaxAge) {
+        return new VersionesDeRecursos(Map.of(
+                VersionesDeRecursos.PRODUCTOS, new VersionesDeRecursos.Politica(Duration.ofSeconds(productosMaxAge), true),
+                VersionesDeRecursos.CUPONES, new VersionesDeRecursos.Politica(Duration.ofSeconds(cuponesMaxAge), true),
+                VersionesDeRecursos.ENVIOS, new VersionesDeRecursos.Politica(Duration.ofSeconds(enviosMaxAge), false)))
+                .escucharEscrituras(entityManagerFactory, Map.of(
+                        Producto.class, VersionesDeRecursos.PRODUCTOS,
+                        Cupon.class, VersionesDeRecursos.CUPONES,
+                        Envio.class, VersionesDeRecursos.ENVIOS));
+    }
+
+    // ===================== BÚSQUEDA =====================
+
+    /**
+     * Índice de búsqueda de productos en memoria (nombre, descripción y sku).
+     * Se mantiene al día desde el adapter de productos y el CRUD web.
+     */
+    @Bean
+    public BuscadorDeProductos buscadorDeProductos(ProductoJpaRepository productoJpaRepository) {
+        return new BuscadorDeProductos(productoJpaRepository);
+    }
+
+    /**
+     * Autocompletado de nombres de producto y códigos de cupón (árbol de prefijos).
+     * Se actualiza en los mismos puntos que el buscador y al crear pedidos web.
+     */
+    @Bean
+    public Autocompletado autocompletado(ProductoJpaRepository productoJpaRepository,
+                                         CuponJpaRepository cuponJpaRepository,
+                                         ItemPedidoJpaRepository itemPedidoJpaRepository,
+                                         PedidoJpaRepository pedidoJpaRepository) {
+        return new Autocompletado(productoJpaRepository, cuponJpaRepository, itemPedidoJpaRepository, pedidoJpaRepository);
+    }
+
+    // ===================== PRECIOS =====================
+
+    /**
+     * Motor de precios (subtotal, descuento, envío y total en centavos).
+     * Lo usan el checkout web y los reportes.
+     */
+    @Bean
+    public MotorDePrecios motorDePrecios() {
+        return new MotorDePrecios();
+    }
+
+    // ===================== RESERVAS DE STOCK =====================
+
+    /**
+     * Reservas de stock en memoria con TTL y escritura diferida a la BD.
+     * iniciar/cerrar arrancan y detienen el barrido de vencidas y el volcado.
+     * Solo vale con una instancia, y una caída pierde las ventas sin volcar
+     * (ver ReservasDeStock).
+     * stock.calientes.productos: ids que arrancan en modo caliente (ofertas relámpago).
+     */
+    @Bean(initMethod = "iniciar", destroyMethod = "cerrar")
+    public ReservasDeStock reservasDeStock(ProductoJpaRepository productoJpaRepository,
+                                           @Value("${stock.reservas.franjas:64}") int franjas,
+                                           @Value("${stock.reservas.ttl-minutos:15}") long ttlMinutos,
+                                           @Value("${stock.reservas.barrido-ms:5000}") long barridoMs,
+                                           @Value("${stock.reservas.volcado-ms:1000}") long volcadoMs,
+                                           @Value("${stock.calientes.productos:}") Set<Long> calientes,
+                                           @Value("${stock.calientes.franjas:16}") int franjasCalientes,
+                                           VersionesDeRecursos versionesDeRecursos) {
+        return new ReservasDeStock(productoJpaRepository, franjas, Duration.ofMinutes(ttlMinutos), barridoMs, volcadoMs,
+                calientes, franjasCalientes).avisarA(versionesDeRecursos);
+    }
+
+    // ===================== CORREOS DE USUARIOS =====================
+
+    /**
+     * Búsqueda de usuarios por correo contra la columna normalizada e indexada,
+     * con un filtro de Bloom delante para responder "correo libre" sin ir a la BD.
+     * La usa UsuarioJpaRepository (existsByCorreoIgnoreCase / findByCorreoIgnoreCase).
+     */
+    @Bean(initMethod = "iniciar", destroyMethod = "cerrar")
+    public CorreosDeUsuarios correosDeUsuarios(EntityManagerFactory entityManagerFactory,
+                                               JdbcTemplate jdbcTemplate,
+                                               @Value("${usuarios.correos.capacidad-minima:10000}") long capacidadMinima,
+                                               @Value("${usuarios.correos.reconstruir-ms:600000}") long reconstruirMs) {
+        return CorreosDeUsuarios.paraUsuarios(entityManagerFactory, jdbcTemplate, capacidadMinima, reconstruirMs);
+    }
+
+    // ===================== ENVÍOS =====================
+
+    /**
+     * Caché de envíos por tracking y por pedido (la página de seguimiento se consulta mucho).
+     * iniciar crea la columna tracking_normalizado con índice único si no existe.
+     */
+    @Bean(initMethod = "iniciar")
+    public EnvioCache envioCache(EnvioJpaRepository envioJpaRepository,
+                                 JdbcTemplate jdbcTemplate,
+                                 EntityManagerFactory entityManagerFactory,
+                                 @Value("${envios.cache.maximo:50000}") int maximo,
+                                 @Value("${envios.cache.ttl-segundos:300}") long ttlSegundos,
+                                 @Value("${envios.cache.ttl-no-existe-segundos:10}") long ttlNoExisteSegundos) {
+        ColumnaNormalizada tracking = ColumnaNormalizada.de(entityManagerFactory, Envio.class, "tracking",
+                EnvioCache.COLUMNA_TRACKING, ColumnaNormalizada.Caso.MAYUSCULAS, true);
+        return new EnvioCache(envioJpaRepository, jdbcTemplate, tracking, maximo,
+                Duration.ofSeconds(ttlSegundos), Duration.ofSeconds(ttlNoExisteSegundos));
+    }
+
+    /**
+     * Cambios de estado de envíos en lote por tracking (POST /api/envios/estados).
+     * Un SELECT ... IN para leer y UPDATEs en batch de JDBC para escribir.
+     * Los pedidos de los envíos que quedan ENTREGADO pasan a COMPLETADO.
+     */
+    @Bean
+    public EstadosDeEnvioEnLote estadosDeEnvioEnLote(EntityManagerFactory entityManagerFactory,
+                                                     JdbcTemplate jdbcTemplate,
+                                                     PlatformTransactionManager transactionManager,
+                                                     EnvioCache envioCache,
+                                                     VersionesDeRecursos versionesDeRecursos,
+                                                     EstadosDePedido estadosDePedido,
+                                                     @Value("${envios.estados.maximo-por-lote:10000}") int maximoPorLote) {
+        return EstadosDeEnvioEnLote.paraEnvios(entityManagerFactory, jdbcTemplate,
+                new TransactionTemplate(transactionManager), envioCache, maximoPorLote)
+                .avisarA(versionesDeRecursos)
+                .completarPedidosCon(estadosDePedido);
+    }
+
+    // ===================== ESTADOS DE PEDIDO =====================
+
+    /**
+     * Cambios de estado de pedidos: valida la transición y hace un UPDATE con control de versión.
+     * iniciar agrega la columna pedido.version si no existe.
+     * Cada cambio escribe su PedidoEstadoCambiado en la outbox en la misma transacción.
+     */
+    @Bean(initMethod = "iniciar")
+    public EstadosDePedido estadosDePedido(EntityManagerFactory entityManagerFactory,
+                                           JdbcTemplate jdbcTemplate,
+                                           PlatformTransactionManager transactionManager,
+                                           Outbox outbox,
+                                           @Value("${pedidos.estados.maximo-intentos:3}") int maximoIntentos) {
+        return EstadosDePedido.paraPedidos(entityManagerFactory, jdbcTemplate, maximoIntentos)
+                .publicarEn(outbox, new TransactionTemplate(transactionManager));
+    }
+
+    // ===================== PAGOS =====================
+
+    /**
+     * Confirmación de pagos: repetidos por clave de idempotencia en memoria y
+     * una transacción corta (estado + TransaccionPago) con timeout propio.
+     */
+    @Bean
+    public ConfirmacionDePagos confirmacionDePagos(PedidoJpaRepository pedidoJpaRepository,
+                                                  TransaccionPagoJpaRepository transaccionPagoJpaRepository,
+                                                  EstadosDePedido estadosDePedido,
+                                                  PlatformTransactionManager transactionManager,
+                                                  @Value("${pagos.confirmacion.ttl-segundos:3600}") long ttlSegundos,
+                                                  @Value("${pagos.confirmacion.timeout-segundos:5}") int timeoutSegundos,
+                                                  @Value("${pagos.confirmacion.espera-ms:7000}") long esperaMs) {
+        TransactionTemplate escritura = new TransactionTemplate(transactionManager);
+        escritura.setTimeout(timeoutSegundos);
+        return new ConfirmacionDePagos(pedidoJpaRepository, transaccionPagoJpaRepository,
+                estadosDePedido, escritura, ttlSegundos, esperaMs);
+    }
+
+    /**
+     * Reporte de conciliación de pagos (totales por día y método con COUNT/SUM en la BD),
+     * una consulta corta por día y de a una conciliación a la vez.
+     */
+    @Bean
+    public ConciliacionDePagos conciliacionDePagos(EntityManagerFactory entityManagerFactory,
+                                                  JdbcTemplate jdbcTemplate,
+                                                  @Value("${pagos.conciliacion.timeout-segundos:10}") int timeoutSegundos,
+                                                  @Value("${pagos.conciliacion.maximo-dias:366}") int maximoDias) {
+        return ConciliacionDePagos.paraPagos(entityManagerFactory, jdbcTemplate, timeoutSegundos, maximoDias);
+    }
+
+    // ===================== OUTBOX =====================
+
+    /**
+     * Notificador (por ahora solo escribe en el log). Lo usa el relay de la outbox.
+     */
+    @Bean
+    public NotificationPort notificationPort(LoggerPort loggerPort) {
+        return new NotificationMockAdapter(loggerPort);
+    }
+
+    /**
+     * Tabla outbox_evento y listeners de Hibernate que escriben ahí los eventos de
+     * Pedido y TransaccionPago, en la misma transacción del save.
+     * crear agrega la tabla si no existe.
+     */
+    @Bean(initMethod = "crear")
+    public Outbox outbox(EntityManagerFactory entityManagerFactory,
+                         JdbcTemplate jdbcTemplate,
+                         ObjectMapper objectMapper) {
+        return new Outbox(jdbcTemplate, objectMapper).escucharPedidosYPagos(entityManagerFactory);
+    }
+
+    /**
+     * Hilo que publica los eventos de la outbox en lotes, en orden por pedido,
+     * al notificador (al correo del cliente). Con varias instancias publica solo
+     * la que tiene el turno. Métricas en /actuator/metrics/outbox.*
+     */
+    @Bean(initMethod = "iniciar", destroyMethod = "cerrar")
+    public RelayDeOutbox relayDeOutbox(Outbox outbox,
+                                       JdbcTemplate jdbcTemplate,
+                                       PedidoJpaRepository pedidoJpaRepository,
+                                       NotificationPort notificationPort,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${outbox.relay.lote:200}") int lote,
+                                       @Value("${outbox.relay.intervalo-ms:500}") long intervaloMs,
+                                       @Value("${outbox.relay.maximo-intentos:10}") int maximoIntentos,
+                                       @Value("${outbox.retencion-horas:72}") long retencionHoras,
+                                       @Value("${outbox.relay.turno-ms:30000}") long turnoMs) {
+        return new RelayDeOutbox(outbox, jdbcTemplate,
+                List.of(new ConsumidorDeNotificaciones(notificationPort, pedidoJpaRepository)),
+                lote, intervaloMs, maximoIntentos, retencionHoras, turnoMs, meterRegistry);
+    }
+
+    // ===================== ÍNDICES DE CONSULTA =====================
+
+    /**
+     * Índices que piden las consultas de los repositorios y que las entidades del dominio no declaran.
+     * - ux_envio_pedido: un solo envío por pedido (EnvioCache no lo puede asegurar
+     *   entre instancias); también lo usa el NOT EXISTS de pedidos sin envío.
+     * - ix_pedido_estado_id: filtrar por estado recorriendo por id (cola de despacho).
+     * - ix_transaccion_*: consultas del libro de pagos (por pedido, por estado y por
+     *   rango de fechas, paginadas por cursor) y la conciliación por día.
+     */
+    @Bean(initMethod = "crear")
+    public IndicesDeConsulta indicesDeConsulta(EntityManagerFactory entityManagerFactory,
+                                               JdbcTemplate jdbcTemplate) {
+        return new IndicesDeConsulta(entityManagerFactory, jdbcTemplate)
+                .unico(Envio.class, "ux_envio_pedido", "pedido")
+                .indice(Pedido.class, "ix_pedido_estado_id", "estado", "id")
+                .indice(TransaccionPago.class, "ix_transaccion_pedido", "pedido")
+                .indice(TransaccionPago.class, "ix_transaccion_estado_id", "estado", "id")
+                .indice(TransaccionPago.class, "ix_transaccion_fecha_id", "fecha", "id");
+    }
+
+    // ===================== LISTAS DE DESEOS =====================
+
+    /**
+     * Listas de deseos en memoria (un conjunto comprimido de productos por usuario),
+     * con escritura directa a la BD. deseos.cache.usuarios: cuántas listas se guardan a la vez.
+     */
+    @Bean
+    public ListasDeDeseos listasDeDeseos(ListaDeseosJpaRepository listaDeseosJpaRepository,
+                                         UsuarioJpaRepository usuarioJpaRepository,
+                                         ProductoJpaRepository productoJpaRepository,
+                                         @Value("${deseos.cache.usuarios:10000}") int maximoUsuarios) {
+        return new ListasDeDeseos(listaDeseosJpaRepository, usuarioJpaRepository, productoJpaRepository, maximoUsuarios);
+    }
+
+    // ===================== RECOMENDACIONES =====================
+
+    /**
+     * "Más deseados" y "comprados juntos" precalculados en segundo plano.
+     * Se engancha a ListasDeDeseos para recibir las altas y bajas al momento.
+     * Cada recalcular-todo-ms vuelve a procesar el historial entero (pedidos que
+     * se confirmaron tarde, items editados).
+     */
+    @Bean(initMethod = "iniciar", destroyMethod = "cerrar")
+    public Recomendaciones recomendaciones(ItemPedidoJpaRepository itemPedidoJpaRepository,
+                                           ListaDeseosJpaRepository listaDeseosJpaRepository,
+                                           ListasDeDeseos listasDeDeseos,
+                                           PlatformTransactionManager transactionManager,
+                                           @Value("${recomendaciones.top-deseados:50}") int topDeseados,
+                                           @Value("${recomendaciones.top-relacionados:10}") int topRelacionados,
+                                           @Value("${recomendaciones.refresco-ms:60000}") long refrescoMs,
+                                           @Value("${recomendaciones.recontar-deseos-ms:3600000}") long recontarDeseosMs,
+                                           @Value("${recomendaciones.recalcular-todo-ms:86400000}") long recalcularTodoMs) {
+        TransactionTemplate lectura = new TransactionTemplate(transactionManager);
+        lectura.setReadOnly(true);
+
+        Recomendaciones recomendaciones = new Recomendaciones(itemPedidoJpaRepository, listaDeseosJpaRepository, lectura,
+                topDeseados, topRelacionados, refrescoMs, recontarDeseosMs, recalcularTodoMs);
+        listasDeDeseos.setOyente(recomendaciones::cambioEnDeseos);
+        return recomendaciones;
     }
 
     // ===================== STOCK SERVICE =====================
 
     /**
-     * StockService usa ProductoRepository directamente.
+     * StockService de PedidoService sobre ReservasDeStock: POST /api/pedidos
+     * descuenta del mismo stock en memoria que el checkout web.
      */
     @Bean
-    public StockService stockService(ProductoRepository productoRepository) {
-        return new StockServiceImpl(productoRepository);
+    public StockService stockService(ReservasDeStock reservasDeStock) {
+        return new StockConReservas(reservasDeStock);
     }
 
     // ===================== PEDIDO SERVICE =====================
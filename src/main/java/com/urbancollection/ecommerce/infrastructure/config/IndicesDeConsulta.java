@@ -0,0 +1,106 @@
+package com.urbancollection.ecommerce.infrastructure.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * IndicesDeConsulta
+ *
+ * Índices que necesitan las consultas de la aplicación y que Hibernate no crea
+ * (las entidades vienen del dominio y no se les puede poner @Index).
+ *
+ * Se declaran por entidad y propiedades; los nombres de tabla y columnas se
+ * toman de Hibernate. crear() los agrega al arrancar si no existen (SQL Server
+ * y H2). Si algo falla se avisa en el log y la aplicación sigue (las consultas
+ * funcionan igual, solo que más lentas).
+ *
+ * Los únicos (unico) además hacen cumplir una regla que las cachés en memoria no
+ * pueden asegurar entre instancias. No cuentan los NULL: en SQL Server van
+ * filtrados (WHERE ... IS NOT NULL); H2 ya los deja repetir. Si hay datos
+ * repetidos no se crean y queda el aviso en el log.
+ */
+public class IndicesDeConsulta {
+
+    private static final Logger log = LoggerFactory.getLogger(IndicesDeConsulta.class);
+
+    private record Indice(String nombre, String tabla, List<String> columnas, boolean unico) {
+    }
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final JdbcTemplate jdbc;
+    private final List<Indice> indices = new ArrayList<>();
+
+    public IndicesDeConsulta(EntityManagerFactory entityManagerFactory, JdbcTemplate jdbc) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * indice:
+     * Declara un índice sobre las propiedades de la entidad, en ese orden.
+     * "id" es el identificador; una relación (@ManyToOne) usa su columna de clave foránea.
+     */
+    public IndicesDeConsulta indice(Class<?> entidad, String nombre, String... propiedades) {
+        return agregar(entidad, nombre, false, propiedades);
+    }
+
+    // Igual que indice, pero UNIQUE.
+    public IndicesDeConsulta unico(Class<?> entidad, String nombre, String... propiedades) {
+        return agregar(entidad, nombre, true, propiedades);
+    }
+
+    private IndicesDeConsulta agregar(Class<?> entidad, String nombre, boolean unico, String... propiedades) {
+        AbstractEntityPersister persister = (AbstractEntityPersister) entityManagerFactory
+                .unwrap(SessionFactoryImplementor.class).getMappingMetamodel().getEntityDescriptor(entidad);
+
+        List<String> columnas = new ArrayList<>();
+        for (String propiedad : propiedades) {
+            columnas.add("id".equals(propiedad)
+                    ? persister.getIdentifierColumnNames()[0]
+                    : persister.getPropertyColumnNames(propiedad)[0]);
+        }
+        indices.add(new Indice(nombre, persister.getTableName(), columnas, unico));
+        return this;
+    }
+
+    public void crear() {
+        String base;
+        try {
+            base = jdbc.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+        } catch (RuntimeException ex) {
+            log.warn("No se pudieron crear los índices de consulta: {}", ex.getMessage());
+            return;
+        }
+
+        for (Indice indice : indices) {
+            String columnas = String.join(", ", indice.columnas());
+            String crear = indice.unico() ? "CREATE UNIQUE INDEX " : "CREATE INDEX ";
+            try {
+                if ("Microsoft SQL Server".equals(base)) {
+                    String filtro = indice.unico()
+                            ? " WHERE " + String.join(" IS NOT NULL AND ", indice.columnas()) + " IS NOT NULL"
+                            : "";
+                    jdbc.execute("IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = '" + indice.nombre()
+                            + "' AND object_id = OBJECT_ID('" + indice.tabla() + "')) "
+                            + crear + indice.nombre() + " ON " + indice.tabla() + " (" + columnas + ")" + filtro);
+                } else if ("H2".equals(base)) {
+                    jdbc.execute(crear + "IF NOT EXISTS " + indice.nombre()
+                            + " ON " + indice.tabla() + " (" + columnas + ")");
+                } else {
+                    log.info("Base {}: no se crea el índice {}", base, indice.nombre());
+                }
+            } catch (RuntimeException ex) {
+                log.warn("No se pudo crear el índice {} en {}: {}", indice.nombre(), indice.tabla(), ex.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.urbancollection.ecommerce.infrastructure.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.urbancollection.ecommerce.infrastructure.datos.RuteoDeLecturas;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * LecturasEnReplicaConfig
+ *
+ * Se activa solo si está configurada replica.datasource.url. Arma dos pools
+ * Hikari (primaria y replica) y deja como DataSource de la aplicación un
+ * RuteoDeLecturas detrás de un LazyConnectionDataSourceProxy: los métodos con
+ * @Transactional(readOnly = true) de la aplicación leen de la réplica y el resto
+ * (incluidas las lecturas sueltas de los repositorios) va a la primaria.
+ *
+ * Sin la propiedad, Spring Boot arma el DataSource de siempre y nada cambia.
+ */
+@Configuration
+@ConditionalOnProperty(name = "replica.datasource.url")
+public class LecturasEnReplicaConfig {
+
+    /**
+     * Pool de la primaria: spring.datasource.* y spring.datasource.hikari.*, como antes.
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSourcePrimaria(DataSourceProperties propiedades) {
+        HikariDataSource pool = propiedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        pool.setPoolName(RuteoDeLecturas.PRIMARIA);
+        return pool;
+    }
+
+    /**
+     * Pool de la réplica: usuario y contraseña de la primaria si no se indican otros.
+     */
+    @Bean
+    public HikariDataSource dataSourceReplica(
+            DataSourceProperties propiedades,
+            @Value("${replica.datasource.url}") String url,
+            @Value("${replica.datasource.username:}") String usuario,
+            @Value("${replica.datasource.password:}") String password,
+            @Value("${replica.datasource.maximum-pool-size:10}") int maximoConexiones) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName(RuteoDeLecturas.REPLICA);
+        pool.setJdbcUrl(url);
+        pool.setDriverClassName(propiedades.determineDriverClassName());
+        pool.setUsername(usuario.isEmpty() ? propiedades.determineUsername() : usuario);
+        pool.setPassword(password.isEmpty() ? propiedades.determinePassword() : password);
+        pool.setMaximumPoolSize(maximoConexiones);
+        pool.setReadOnly(true);
+        return pool;
+    }
+
+    /**
+     * Ruteo con el latido que mide el atraso de la réplica.
+     */
+    @Bean(initMethod = "iniciar", destroyMethod = "cerrar")
+    public RuteoDeLecturas ruteoDeLecturas(
+            @Qualifier("dataSourcePrimaria") DataSource primaria,
+            @Qualifier("dataSourceReplica") DataSource replica,
+            @Value("${replica.atraso.maximo-ms:5000}") long maximoAtrasoMs,
+            @Value("${replica.latido.intervalo-ms:1000}") long intervaloMs,
+            MeterRegistry metricas) {
+        return new RuteoDeLecturas(primaria, replica, maximoAtrasoMs, intervaloMs, metricas);
+    }
+
+    /**
+     * DataSource que usan JPA, los JdbcTemplate y el transaction manager.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(RuteoDeLecturas ruteo) {
+        return new LazyConnectionDataSourceProxy(ruteo);
+    }
+}
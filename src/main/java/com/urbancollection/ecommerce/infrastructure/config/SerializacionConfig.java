@@ -0,0 +1,60 @@
+package com.urbancollection.ecommerce.infrastructure.config;
+
+import java.util.List;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.urbancollection.ecommerce.infrastructure.formatos.FormatosBinarios;
+
+/**
+ * SerializacionConfig
+ *
+ * Ajustes del ObjectMapper de Spring (el que usan los @RestController).
+ *
+ * Blackbird cambia la reflexión que usa Jackson para leer getters y llamar
+ * setters por lambdas generadas una vez por propiedad (LambdaMetafactory).
+ * El JSON que sale es el mismo; solo baja el costo por objeto en las listas
+ * grandes. Spring Boot registra solo cualquier bean Module en el ObjectMapper.
+ * Se apaga con json.blackbird.enabled=false.
+ *
+ * CBOR y Smile (ver FormatosBinarios): Spring MVC los agrega solo al ver las
+ * librerías, pero con un ObjectMapper propio. Acá se cambian por unos armados
+ * con el builder de Spring Boot (mismos módulos y opciones que el JSON), o se
+ * sacan con api.formatos-binarios.enabled=false.
+ */
+@Configuration
+public class SerializacionConfig implements WebMvcConfigurer {
+
+    private final ObjectProvider<Jackson2ObjectMapperBuilder> builders;
+    private final boolean formatosBinarios;
+
+    public SerializacionConfig(ObjectProvider<Jackson2ObjectMapperBuilder> builders,
+                               @Value("${api.formatos-binarios.enabled:true}") boolean formatosBinarios) {
+        this.builders = builders;
+        this.formatosBinarios = formatosBinarios;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "json.blackbird.enabled", havingValue = "true", matchIfMissing = true)
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+
+    // Quedan al final de la lista: JSON sigue siendo lo que recibe quien no pide otra cosa.
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.removeIf(FormatosBinarios::esBinario);
+        if (formatosBinarios) {
+            converters.addAll(FormatosBinarios.convertidores(builders::getObject));
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.urbancollection.ecommerce.infrastructure.datos;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * RuteoDeLecturas
+ *
+ * DataSource que manda las transacciones readOnly a la réplica y todo lo demás
+ * (escrituras, transacciones normales, código sin transacción) a la primaria.
+ *
+ * Leer lo que uno acaba de escribir: solo van a la réplica las transacciones
+ * readOnly que abre la aplicación (un @Transactional(readOnly = true) en un
+ * controlador o un TransactionTemplate de solo lectura). Las que Spring Data abre
+ * por su cuenta en cada llamada al repositorio (findById, findAll, consultas
+ * derivadas) y las de los adaptadores de persistencia van a la primaria: ahí están
+ * los "buscar y después guardar", las validaciones de duplicados y las lecturas
+ * justo después de un save, que no pueden ver una réplica atrasada (y los cuerpos
+ * de los GET condicionales de VersionesDeRecursos). Se distinguen
+ * por el nombre de la transacción (clase.método que la abrió); ver EN_PRIMARIA.
+ * Quien marca algo readOnly acepta leer hasta maximoAtrasoMs atrasado.
+ *
+ * Se tiene que usar envuelto en un LazyConnectionDataSourceProxy: el
+ * transaction manager pide la conexión al empezar la transacción, antes de
+ * marcarla como readOnly; con el proxy la conexión real se elige recién en la
+ * primera consulta, cuando ya se sabe si es de solo lectura.
+ *
+ * Atraso de la réplica: cada intervaloMs se escribe la hora en la tabla
+ * replica_latido de la primaria y se lee en la réplica (ver verificar). Si pasa de
+ * maximoAtrasoMs, o la réplica no responde, las lecturas van a la primaria
+ * hasta que se ponga al día. Hasta la primera verificación también.
+ *
+ * Métricas (Micrometer): datasource.ruteo.conexiones{pool=primaria|replica},
+ * datasource.ruteo.desvios (lecturas que fueron a la primaria por atraso) y
+ * datasource.replica.atraso (gauge, ms). Las de cada pool (hikaricp.*) las
+ * publica Spring Boot con el nombre del pool.
+ */
+public class RuteoDeLecturas extends AbstractRoutingDataSource {
+
+    private static final Logger log = LoggerFactory.getLogger(RuteoDeLecturas.class);
+
+    public static final String PRIMARIA = "primaria";
+    public static final String REPLICA = "replica";
+    public static final String TABLA_LATIDO = "replica_latido";
+
+    // Transacciones que, aunque sean readOnly, leen de la primaria (por el paquete de quien la abrió).
+    static final List<String> EN_PRIMARIA = List.of(
+            "org.springframework.data.",
+            "com.urbancollection.ecommerce.persistence.");
+
+    private final JdbcTemplate primaria;
+    private final JdbcTemplate replica;
+    private final long maximoAtrasoMs;
+    private final long intervaloMs;
+
+    private final Counter conexionesPrimaria;
+    private final Counter conexionesReplica;
+    private final Counter desvios;
+    private final AtomicLong atrasoMs = new AtomicLong(-1);
+
+    private volatile boolean replicaAlDia;
+    private volatile long ultimoLatido;
+    private ScheduledExecutorService tareas;
+
+    public RuteoDeLecturas(DataSource primaria, DataSource replica, long maximoAtrasoMs, long intervaloMs,
+                           MeterRegistry metricas) {
+        this.primaria = new JdbcTemplate(primaria);
+        this.replica = new JdbcTemplate(replica);
+        this.replica.setQueryTimeout((int) Math.max(1, intervaloMs / 1000));
+        this.maximoAtrasoMs = maximoAtrasoMs;
+        this.intervaloMs = Math.max(100, intervaloMs);
+
+        setTargetDataSources(Map.of(PRIMARIA, primaria, REPLICA, replica));
+        setDefaultTargetDataSource(primaria);
+        afterPropertiesSet();
+
+        this.conexionesPrimaria = metricas.counter("datasource.ruteo.conexiones", "pool", PRIMARIA);
+        this.conexionesReplica = metricas.counter("datasource.ruteo.conexiones", "pool", REPLICA);
+        this.desvios = metricas.counter("datasource.ruteo.desvios");
+        Gauge.builder("datasource.replica.atraso", atrasoMs, AtomicLong::get).baseUnit("milliseconds").register(metricas);
+    }
+
+    // ===================== RUTEO =====================
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || abiertaPorRepositorio(TransactionSynchronizationManager.getCurrentTransactionName())) {
+            conexionesPrimaria.increment();
+            return PRIMARIA;
+        }
+        if (!replicaAlDia) {
+            desvios.increment();
+            conexionesPrimaria.increment();
+            return PRIMARIA;
+        }
+        conexionesReplica.increment();
+        return REPLICA;
+    }
+
+    static boolean abiertaPorRepositorio(String transaccion) {
+        if (transaccion == null) return false;
+        for (String prefijo : EN_PRIMARIA) {
+            if (transaccion.startsWith(prefijo)) return true;
+        }
+        return false;
+    }
+
+    public boolean isReplicaAlDia() {
+        return replicaAlDia;
+    }
+
+    // Último atraso medido en ms (-1 si la réplica no respondió).
+    public long getAtrasoMs() {
+        return atrasoMs.get();
+    }
+
+    // ===================== CICLO DE VIDA =====================
+
+    public void iniciar() {
+        crearLatido();
+        tareas = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "latido-replica");
+            t.setDaemon(true);
+            return t;
+        });
+        tareas.scheduleWithFixedDelay(this::verificar, 0, intervaloMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void cerrar() {
+        if (tareas != null) tareas.shutdownNow();
+    }
+
+    // Crea la tabla del latido en la primaria si no existe (SQL Server y H2).
+    void crearLatido() {
+        try {
+            String base = primaria.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+            if ("Microsoft SQL Server".equals(base)) {
+                primaria.execute("IF OBJECT_ID('" + TABLA_LATIDO + "') IS NULL CREATE TABLE " + TABLA_LATIDO
+                        + " (id INT PRIMARY KEY, instante BIGINT NOT NULL)");
+            } else if ("H2".equals(base)) {
+                primaria.execute("CREATE TABLE IF NOT EXISTS " + TABLA_LATIDO
+                        + " (id INT PRIMARY KEY, instante BIGINT NOT NULL)");
+            } else {
+                log.info("Base {}: no se crea la tabla {}", base, TABLA_LATIDO);
+            }
+        } catch (RuntimeException ex) {
+            log.warn("No se pudo crear la tabla {}: {}", TABLA_LATIDO, ex.getMessage());
+        }
+    }
+
+    /**
+     * verificar:
+     * Un latido: lee la hora que tiene la réplica, escribe la hora actual en la
+     * primaria y decide si las lecturas pueden ir a la réplica.
+     *
+     * Se compara contra el latido anterior (escrito hace intervaloMs): si la
+     * réplica ya lo ve, está al día; si no, el atraso es desde la hora que ve.
+     */
+    public void verificar() {
+        Long visto;
+        try {
+            visto = replica.query("SELECT instante FROM " + TABLA_LATIDO + " WHERE id = 1",
+                    rs -> rs.next() ? rs.getLong(1) : null);
+        } catch (RuntimeException ex) {
+            log.warn("La réplica no respondió: {}", ex.getMessage());
+            visto = null;
+        }
+
+        long ahora = System.currentTimeMillis();
+        try {
+            if (primaria.update("UPDATE " + TABLA_LATIDO + " SET instante = ? WHERE id = 1", ahora) == 0) {
+                primaria.update("INSERT INTO " + TABLA_LATIDO + " (id, instante) VALUES (1, ?)", ahora);
+            }
+        } catch (RuntimeException ex) {
+            // sin latido no se puede medir: mejor leer de la primaria
+            log.warn("No se pudo escribir el latido en la primaria: {}", ex.getMessage());
+            cambiar(false, -1);
+            return;
+        }
+
+        long anterior = ultimoLatido;
+        ultimoLatido = ahora;
+        if (visto == null || anterior == 0) {
+            cambiar(false, visto == null ? -1 : Math.max(0, ahora - visto));
+            return;
+        }
+        // otra instancia puede haber escrito una hora más nueva: también cuenta como al día
+        long atraso = visto >= anterior ? 0 : ahora - visto;
+        cambiar(atraso <= maximoAtrasoMs, atraso);
+    }
+
+    private void cambiar(boolean alDia, long atraso) {
+        atrasoMs.set(atraso);
+        if (alDia != replicaAlDia) {
+            if (alDia) {
+                log.info("Réplica al día (atraso {} ms): las lecturas vuelven a la réplica", atraso);
+            } else {
+                log.warn("Réplica atrasada o caída (atraso {} ms): las lecturas van a la primaria", atraso);
+            }
+        }
+        replicaAlDia = alDia;
+    }
+}
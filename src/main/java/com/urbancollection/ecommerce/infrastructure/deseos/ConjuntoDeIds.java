@@ -0,0 +1,274 @@
+package com.urbancollection.ecommerce.infrastructure.deseos;
+
+import java.util.Arrays;
+
+/**
+ * ConjuntoDeIds
+ *
+ * Conjunto de ids (long >= 0) comprimido al estilo Roaring:
+ * - El id se parte en parte alta (id >>> 16) y parte baja (16 bits).
+ * - Por cada parte alta hay un contenedor con las partes bajas:
+ *   - hasta 4096 valores: arreglo ordenado de char (2 bytes por id);
+ *   - más de 4096: mapa de bits fijo de 8 KB (65536 bits); vuelve a arreglo
+ *     recién al bajar de 2048.
+ *
+ * Para una lista de deseos típica (decenas de productos con ids cercanos)
+ * queda un solo contenedor chico, y contiene(...) es una búsqueda binaria
+ * sobre las claves más otra sobre el arreglo.
+ *
+ * No es seguro para varios hilos: quien lo usa sincroniza por fuera.
+ */
+public final class ConjuntoDeIds {
+
+    // Con más de esto el mapa de bits (8 KB) ocupa menos que el arreglo.
+    static final int MAXIMO_ARREGLO = 4096;
+
+    private long[] claves = new long[0];
+    private Contenedor[] contenedores = new Contenedor[0];
+    private int cantidadClaves;
+    private int tamanio;
+
+    public static ConjuntoDeIds de(Iterable<Long> ids) {
+        ConjuntoDeIds conjunto = new ConjuntoDeIds();
+        for (Long id : ids) {
+            if (id != null) conjunto.agregar(id);
+        }
+        return conjunto;
+    }
+
+    // ===================== OPERACIONES =====================
+
+    // true si no estaba.
+    public boolean agregar(long id) {
+        validar(id);
+        long alta = id >>> 16;
+        char baja = (char) id;
+
+        int pos = Arrays.binarySearch(claves, 0, cantidadClaves, alta);
+        if (pos < 0) {
+            pos = -pos - 1;
+            insertarClave(pos, alta);
+        }
+        Contenedor c = contenedores[pos];
+        if (!c.agregar(baja)) return false;
+        if (c instanceof Arreglo a && a.cantidad > MAXIMO_ARREGLO) {
+            contenedores[pos] = a.aMapa();
+        }
+        tamanio++;
+        return true;
+    }
+
+    // true si estaba.
+    public boolean quitar(long id) {
+        if (id < 0) return false;
+        int pos = Arrays.binarySearch(claves, 0, cantidadClaves, id >>> 16);
+        if (pos < 0) return false;
+
+        Contenedor c = contenedores[pos];
+        if (!c.quitar((char) id)) return false;
+        tamanio--;
+        if (c.cantidad() == 0) {
+            quitarClave(pos);
+        } else if (c instanceof Mapa m && m.cantidad <= MAXIMO_ARREGLO / 2) {
+            // vuelve a arreglo con margen, así agregar/quitar en el límite no convierte cada vez
+            contenedores[pos] = m.aArreglo();
+        }
+        return true;
+    }
+
+    public boolean contiene(long id) {
+        if (id < 0) return false;
+        int pos = Arrays.binarySearch(claves, 0, cantidadClaves, id >>> 16);
+        return pos >= 0 && contenedores[pos].contiene((char) id);
+    }
+
+    public int tamanio() {
+        return tamanio;
+    }
+
+    // Los ids de menor a mayor.
+    public long[] aArreglo() {
+        long[] ids = new long[tamanio];
+        int n = 0;
+        for (int i = 0; i < cantidadClaves; i++) {
+            n = contenedores[i].copiar(claves[i] << 16, ids, n);
+        }
+        return ids;
+    }
+
+    // Aproximado, para ver cuánto ocupa la caché.
+    public long bytesAproximados() {
+        long bytes = 32L + claves.length * 8L + contenedores.length * 8L;
+        for (int i = 0; i < cantidadClaves; i++) {
+            bytes += contenedores[i].bytes();
+        }
+        return bytes;
+    }
+
+    private static void validar(long id) {
+        if (id < 0) throw new IllegalArgumentException("Los ids deben ser positivos: " + id);
+    }
+
+    private void insertarClave(int pos, long alta) {
+        if (cantidadClaves == claves.length) {
+            int nuevo = Math.max(4, cantidadClaves * 2);
+            claves = Arrays.copyOf(claves, nuevo);
+            contenedores = Arrays.copyOf(contenedores, nuevo);
+        }
+        System.arraycopy(claves, pos, claves, pos + 1, cantidadClaves - pos);
+        System.arraycopy(contenedores, pos, contenedores, pos + 1, cantidadClaves - pos);
+        claves[pos] = alta;
+        contenedores[pos] = new Arreglo();
+        cantidadClaves++;
+    }
+
+    private void quitarClave(int pos) {
+        System.arraycopy(claves, pos + 1, claves, pos, cantidadClaves - pos - 1);
+        System.arraycopy(contenedores, pos + 1, contenedores, pos, cantidadClaves - pos - 1);
+        cantidadClaves--;
+        contenedores[cantidadClaves] = null;
+    }
+
+    // ===================== CONTENEDORES =====================
+
+    private interface Contenedor {
+        boolean agregar(char v);
+
+        boolean quitar(char v);
+
+        boolean contiene(char v);
+
+        int cantidad();
+
+        int copiar(long base, long[] destino, int desde);
+
+        long bytes();
+    }
+
+    // Partes bajas ordenadas.
+    private static final class Arreglo implements Contenedor {
+
+        char[] valores = new char[4];
+        int cantidad;
+
+        @Override
+        public boolean agregar(char v) {
+            int pos = Arrays.binarySearch(valores, 0, cantidad, v);
+            if (pos >= 0) return false;
+            pos = -pos - 1;
+            if (cantidad == valores.length) {
+                valores = Arrays.copyOf(valores, Math.min(MAXIMO_ARREGLO + 1, cantidad * 2));
+            }
+            System.arraycopy(valores, pos, valores, pos + 1, cantidad - pos);
+            valores[pos] = v;
+            cantidad++;
+            return true;
+        }
+
+        @Override
+        public boolean quitar(char v) {
+            int pos = Arrays.binarySearch(valores, 0, cantidad, v);
+            if (pos < 0) return false;
+            System.arraycopy(valores, pos + 1, valores, pos, cantidad - pos - 1);
+            cantidad--;
+            return true;
+        }
+
+        @Override
+        public boolean contiene(char v) {
+            return Arrays.binarySearch(valores, 0, cantidad, v) >= 0;
+        }
+
+        @Override
+        public int cantidad() {
+            return cantidad;
+        }
+
+        @Override
+        public int copiar(long base, long[] destino, int desde) {
+            for (int i = 0; i < cantidad; i++) {
+                destino[desde++] = base | valores[i];
+            }
+            return desde;
+        }
+
+        @Override
+        public long bytes() {
+            return 24L + valores.length * 2L;
+        }
+
+        Mapa aMapa() {
+            Mapa m = new Mapa();
+            for (int i = 0; i < cantidad; i++) {
+                m.agregar(valores[i]);
+            }
+            return m;
+        }
+    }
+
+    // 65536 bits.
+    private static final class Mapa implements Contenedor {
+
+        final long[] bits = new long[1024];
+        int cantidad;
+
+        @Override
+        public boolean agregar(char v) {
+            long antes = bits[v >>> 6];
+            long despues = antes | (1L << v);
+            if (antes == despues) return false;
+            bits[v >>> 6] = despues;
+            cantidad++;
+            return true;
+        }
+
+        @Override
+        public boolean quitar(char v) {
+            long antes = bits[v >>> 6];
+            long despues = antes & ~(1L << v);
+            if (antes == despues) return false;
+            bits[v >>> 6] = despues;
+            cantidad--;
+            return true;
+        }
+
+        @Override
+        public boolean contiene(char v) {
+            return (bits[v >>> 6] & (1L << v)) != 0;
+        }
+
+        @Override
+        public int cantidad() {
+            return cantidad;
+        }
+
+        @Override
+        public int copiar(long base, long[] destino, int desde) {
+            for (int palabra = 0; palabra < bits.length; palabra++) {
+                long w = bits[palabra];
+                while (w != 0) {
+                    destino[desde++] = base | ((long) palabra << 6) | Long.numberOfTrailingZeros(w);
+                    w &= w - 1;
+                }
+            }
+            return desde;
+        }
+
+        @Override
+        public long bytes() {
+            return 24L + bits.length * 8L;
+        }
+
+        Arreglo aArreglo() {
+            Arreglo a = new Arreglo();
+            a.valores = new char[Math.max(4, cantidad)];
+            long[] tmp = new long[cantidad];
+            copiar(0, tmp, 0);
+            for (int i = 0; i < cantidad; i++) {
+                a.valores[i] = (char) tmp[i];
+            }
+            a.cantidad = cantidad;
+            return a;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.urbancollection.ecommerce.infrastructure.deseos;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import com.urbancollection.ecommerce.domain.entity.ventas.ListaDeseos;
+import com.urbancollection.ecommerce.persistence.jpa.spring.ListaDeseosJpaRepository;
+import com.urbancollection.ecommerce.persistence.jpa.spring.ProductoJpaRepository;
+import com.urbancollection.ecommerce.persistence.jpa.spring.UsuarioJpaRepository;
+
+/**
+ * ListasDeDeseos
+ *
+ * Listas de deseos en memoria: por cada usuario, un ConjuntoDeIds con los
+ * productos que guardó. Así marcar "en tu lista" en una página de 100
+ * productos es una sola búsqueda en el mapa y 100 consultas al conjunto,
+ * sin ir a la BD (antes era un existsBy... por producto).
+ *
+ * - Caché acotada: a lo sumo maximoUsuarios listas. Al pasarse se sacan
+ *   las menos usadas (queda un 90% para no expulsar en cada carga).
+ * - Si la lista de un usuario no está, se carga con un SELECT de solo los
+ *   ids de producto.
+ * - Escritura directa (write-through): primero se escribe en la BD y recién
+ *   después en memoria, con la lista del usuario bloqueada. Si la BD falla,
+ *   la memoria no cambia.
+ */
+public class ListasDeDeseos {
+
+    public enum Resultado {
+        AGREGADO,
+        YA_ESTABA,
+        USUARIO_NO_EXISTE,
+        PRODUCTO_NO_EXISTE
+    }
+
+    /**
+     * Oyente:
+     * Recibe cada alta (+1) o baja (-1) de un producto en alguna lista (lo usa Recomendaciones).
+     */
+    public interface Oyente {
+        void cambio(long productoId, int delta);
+    }
+
+    private static final class Entrada {
+        final ConjuntoDeIds productos;
+        volatile long ultimoUso;
+
+        Entrada(ConjuntoDeIds productos) {
+            this.productos = productos;
+        }
+    }
+
+    private final ListaDeseosJpaRepository listaDeseosRepository;
+    private final UsuarioJpaRepository usuarioRepository;
+    private final ProductoJpaRepository productoRepository;
+    private final int maximoUsuarios;
+
+    private final ConcurrentHashMap<Long, Entrada> entradas = new ConcurrentHashMap<>();
+    private final AtomicLong reloj = new AtomicLong();
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong cargas = new AtomicLong();
+    private volatile Oyente oyente;
+
+    public ListasDeDeseos(ListaDeseosJpaRepository listaDeseosRepository,
+                          UsuarioJpaRepository usuarioRepository,
+                          ProductoJpaRepository productoRepository,
+                          int maximoUsuarios) {
+        this.listaDeseosRepository = listaDeseosRepository;
+        this.usuarioRepository = usuarioRepository;
+        this.productoRepository = productoRepository;
+        this.maximoUsuarios = Math.max(1, maximoUsuarios);
+    }
+
+    // ===================== CONSULTAS =====================
+
+    // Ids de producto de la lista, de menor a mayor.
+    public long[] listar(Long usuarioId) {
+        Entrada e = obtener(usuarioId);
+        synchronized (e) {
+            return e.productos.aArreglo();
+        }
+    }
+
+    // Para cada producto pedido, si está en la lista (respeta el orden en que vinieron).
+    public Map<Long, Boolean> contiene(Long usuarioId, Collection<Long> productoIds) {
+        Entrada e = obtener(usuarioId);
+        Map<Long, Boolean> resultado = new LinkedHashMap<>();
+        synchronized (e) {
+            for (Long id : productoIds) {
+                resultado.put(id, id != null && e.productos.contiene(id));
+            }
+        }
+        return resultado;
+    }
+
+    public boolean contiene(Long usuarioId, Long productoId) {
+        Entrada e = obtener(usuarioId);
+        synchronized (e) {
+            return e.productos.contiene(productoId);
+        }
+    }
+
+    // ===================== ESCRITURAS =====================
+
+    public Resultado agregar(Long usuarioId, Long productoId) {
+        Entrada e = obtener(usuarioId);
+        synchronized (e) {
+            if (e.productos.contiene(productoId)) return Resultado.YA_ESTABA;
+            if (!usuarioRepository.existsById(usuarioId)) return Resultado.USUARIO_NO_EXISTE;
+            if (!productoRepository.existsById(productoId)) return Resultado.PRODUCTO_NO_EXISTE;
+
+            ListaDeseos item = new ListaDeseos();
+            item.setUsuario(usuarioRepository.getReferenceById(usuarioId));
+            item.setProducto(productoRepository.getReferenceById(productoId));
+            item.setFechaAgregado(LocalDateTime.now());
+            listaDeseosRepository.save(item);
+
+            e.productos.agregar(productoId);
+        }
+        aplicarSiSeRecargo(usuarioId, e, c -> c.agregar(productoId));
+        avisar(productoId, 1);
+        return Resultado.AGREGADO;
+    }
+
+    // true si estaba y se quitó.
+    public boolean quitar(Long usuarioId, Long productoId) {
+        Entrada e = obtener(usuarioId);
+        synchronized (e) {
+            if (!e.productos.contiene(productoId)) return false;
+            listaDeseosRepository.borrarPorUsuarioYProducto(usuarioId, productoId);
+            e.productos.quitar(productoId);
+        }
+        aplicarSiSeRecargo(usuarioId, e, c -> c.quitar(productoId));
+        avisar(productoId, -1);
+        return true;
+    }
+
+    public void setOyente(Oyente oyente) {
+        this.oyente = oyente;
+    }
+
+    // Suelta la lista de un usuario (la próxima consulta la vuelve a cargar).
+    public void olvidar(Long usuarioId) {
+        entradas.remove(usuarioId);
+    }
+
+    // ===================== ESTADÍSTICAS =====================
+
+    public int getUsuariosEnCache() {
+        return entradas.size();
+    }
+
+    public long getAciertos() {
+        return aciertos.get();
+    }
+
+    public long getCargas() {
+        return cargas.get();
+    }
+
+    // ===================== CACHÉ =====================
+
+    private Entrada obtener(Long usuarioId) {
+        Entrada e = entradas.get(usuarioId);
+        if (e != null) {
+            aciertos.incrementAndGet();
+        } else {
+            // Cargo fuera del mapa para no bloquear a otros usuarios mientras va la consulta.
+            cargas.incrementAndGet();
+            Entrada cargada = new Entrada(ConjuntoDeIds.de(listaDeseosRepository.findProductoIdsByUsuarioId(usuarioId)));
+            e = entradas.putIfAbsent(usuarioId, cargada);
+            if (e == null) {
+                e = cargada;
+                if (entradas.size() > maximoUsuarios) expulsar();
+            }
+        }
+        e.ultimoUso = reloj.incrementAndGet();
+        return e;
+    }
+
+    private synchronized void expulsar() {
+        if (entradas.size() <= maximoUsuarios) return;
+
+        List<Map.Entry<Long, Entrada>> todas = new ArrayList<>(entradas.entrySet());
+        todas.sort(Comparator.comparingLong(entrada -> entrada.getValue().ultimoUso));
+        int sobran = todas.size() - (int) (maximoUsuarios * 0.9);
+        for (int i = 0; i < sobran; i++) {
+            entradas.remove(todas.get(i).getKey(), todas.get(i).getValue());
+        }
+    }
+
+    private void avisar(Long productoId, int delta) {
+        Oyente o = oyente;
+        if (o != null) o.cambio(productoId, delta);
+    }
+
+    /**
+     * Si mientras se escribía la entrada se expulsó y otro hilo la volvió a cargar
+     * (quizás antes de que la escritura llegara a la BD), repito el cambio en la nueva.
+     */
+    private void aplicarSiSeRecargo(Long usuarioId, Entrada escrita, Consumer<ConjuntoDeIds> cambio) {
+        Entrada actual = entradas.get(usuarioId);
+        if (actual != null && actual != escrita) {
+            synchronized (actual) {
+                cambio.accept(actual.productos);
+            }
+        }
+    }
+}
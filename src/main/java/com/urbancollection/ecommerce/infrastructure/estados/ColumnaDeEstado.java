@@ -0,0 +1,60 @@
+package com.urbancollection.ecommerce.infrastructure.estados;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.type.descriptor.converter.spi.BasicValueConverter;
+
+/**
+ * ColumnaDeEstado
+ *
+ * Columna donde una entidad guarda un enum, para leerla y escribirla por JDBC
+ * sin pasar por JPA. El valor de cada constante en la columna (nombre con
+ * EnumType.STRING, número con ORDINAL o lo que dé un converter) se toma del
+ * mapeo de Hibernate, así no hay que suponerlo.
+ */
+public final class ColumnaDeEstado<E extends Enum<E>> {
+
+    private final String columna;
+    private final Map<E, Object> aColumna;
+    private final Map<String, E> deColumna = new HashMap<>();
+
+    public ColumnaDeEstado(String columna, Class<E> tipo, Function<E, Object> valorEnColumna) {
+        this.columna = columna;
+        this.aColumna = new EnumMap<>(tipo);
+        for (E valor : tipo.getEnumConstants()) {
+            Object enColumna = valorEnColumna.apply(valor);
+            aColumna.put(valor, enColumna);
+            // comparo como texto: el driver puede devolver el ordinal como Short, Integer, etc.
+            deColumna.put(String.valueOf(enColumna), valor);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static <E extends Enum<E>> ColumnaDeEstado<E> de(AbstractEntityPersister persister, String propiedad,
+                                                            Class<E> tipo) {
+        BasicValueConverter convertidor = persister.findAttributeMapping(propiedad)
+                .getSingleJdbcMapping().getValueConverter();
+        Function<E, Object> valor = convertidor != null
+                ? estado -> convertidor.toRelationalValue(estado)
+                : Enum::name;
+        return new ColumnaDeEstado<>(persister.getPropertyColumnNames(propiedad)[0], tipo, valor);
+    }
+
+    public String getColumna() {
+        return columna;
+    }
+
+    // Valor a bindear en un PreparedStatement.
+    public Object valor(E estado) {
+        return aColumna.get(estado);
+    }
+
+    // Estado a partir de lo que devolvió rs.getObject(...); null si es NULL o no se reconoce.
+    public E leer(Object valor) {
+        return valor != null ? deColumna.get(String.valueOf(valor)) : null;
+    }
+}
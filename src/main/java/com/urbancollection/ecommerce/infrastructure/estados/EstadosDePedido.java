@@ -0,0 +1,228 @@
+package com.urbancollection.ecommerce.infrastructure.estados;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.urbancollection.ecommerce.domain.entity.ventas.Pedido;
+import com.urbancollection.ecommerce.domain.enums.EstadoDePedido;
+import com.urbancollection.ecommerce.infrastructure.outbox.Outbox;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * EstadosDePedido
+ *
+ * Cambios de estado de pedidos con validación de transiciones y control de
+ * concurrencia optimista. Antes se hacía valueOf(estado) + save(pedido): no se
+ * validaba nada, el save reescribía todas las columnas y si el admin y un
+ * webhook cambiaban el mismo pedido a la vez, el último pisaba al primero.
+ *
+ * cambiar(id, nuevo):
+ * 1. Lee estado y versión del pedido (solo esas columnas).
+ * 2. Valida la transición contra la tabla.
+ * 3. UPDATE pedido SET estado = ?, version = version + 1
+ *    WHERE id = ? AND estado = <leído> AND version = <leída>
+ * 4. Si no tocó ninguna fila, otro lo cambió en el medio: vuelve a 1 (hasta
+ *    maximoIntentos veces) y la transición se valida contra el estado nuevo.
+ *
+ * Pedido viene del dominio y no tiene @Version, así que la columna "version"
+ * la agrega iniciar() (BIGINT NOT NULL DEFAULT 0, en SQL Server y H2). La
+ * incrementa solo esta clase; por eso el UPDATE también compara el estado, que
+ * cubre los save(pedido) de JPA que no la tocan. Si no se puede crear la
+ * columna, se compara solo el estado.
+ *
+ * Con publicarEn(outbox, escritura) cada cambio hecho también escribe un
+ * PedidoEstadoCambiado en la Outbox, en la misma transacción que el UPDATE
+ * (el UPDATE va por JDBC y no lo ven los listeners de Hibernate).
+ *
+ * Quien llama usa el estado anterior que devuelve Cambio (no el de la entidad
+ * que tenga en memoria) para los efectos del cambio, como devolver stock.
+ */
+public class EstadosDePedido {
+
+    private static final Logger log = LoggerFactory.getLogger(EstadosDePedido.class);
+
+    public static final String COLUMNA_VERSION = "version";
+
+    // COMPLETADO y CANCELADO son finales. PAGADO -> COMPLETADO cubre envíos entregados
+    // sin que el pedido se haya marcado como ENVIADO.
+    private static final TablaDeTransiciones<EstadoDePedido> TRANSICIONES = TablaDeTransiciones.de(EstadoDePedido.class)
+            .permitir(EstadoDePedido.PENDIENTE_PAGO, EstadoDePedido.PAGADO, EstadoDePedido.CANCELADO)
+            .permitir(EstadoDePedido.PAGADO, EstadoDePedido.ENVIADO, EstadoDePedido.COMPLETADO, EstadoDePedido.CANCELADO)
+            .permitir(EstadoDePedido.ENVIADO, EstadoDePedido.COMPLETADO);
+
+    public enum Resultado {
+        CAMBIADO,
+        SIN_CAMBIOS,
+        TRANSICION_INVALIDA,
+        NO_EXISTE,
+        CONFLICTO
+    }
+
+    /**
+     * Cambio:
+     * Resultado de cambiar(...). anterior es el estado contra el que se validó
+     * (el de la BD al momento del UPDATE) y actual el que quedó.
+     */
+    public record Cambio(Resultado resultado, EstadoDePedido anterior, EstadoDePedido actual) {
+
+        public boolean cambiado() {
+            return resultado == Resultado.CAMBIADO;
+        }
+    }
+
+    private record Leido(EstadoDePedido estado, Object valorEnColumna, long version) {
+    }
+
+    private final JdbcTemplate jdbc;
+    private final String tabla;
+    private final String columnaId;
+    private final ColumnaDeEstado<EstadoDePedido> estado;
+    private final int maximoIntentos;
+    private volatile boolean conVersion;
+    private Outbox outbox;
+    private TransactionTemplate escritura;
+
+    private final AtomicLong cambios = new AtomicLong();
+    private final AtomicLong conflictos = new AtomicLong();
+
+    public EstadosDePedido(JdbcTemplate jdbc, String tabla, String columnaId,
+                           ColumnaDeEstado<EstadoDePedido> estado, int maximoIntentos) {
+        this.jdbc = jdbc;
+        this.tabla = tabla;
+        this.columnaId = columnaId;
+        this.estado = estado;
+        this.maximoIntentos = Math.max(1, maximoIntentos);
+    }
+
+    /**
+     * Toma la tabla, el id y cómo se guarda el estado del mapeo de Hibernate.
+     */
+    public static EstadosDePedido paraPedidos(EntityManagerFactory emf, JdbcTemplate jdbc, int maximoIntentos) {
+        AbstractEntityPersister persister = (AbstractEntityPersister) emf.unwrap(SessionFactoryImplementor.class)
+                .getMappingMetamodel().getEntityDescriptor(Pedido.class);
+        return new EstadosDePedido(jdbc, persister.getTableName(), persister.getIdentifierColumnNames()[0],
+                ColumnaDeEstado.de(persister, "estado", EstadoDePedido.class), maximoIntentos);
+    }
+
+    // Publica los cambios en la outbox; escritura tiene que usar el mismo DataSource que jdbc.
+    public EstadosDePedido publicarEn(Outbox outbox, TransactionTemplate escritura) {
+        this.outbox = outbox;
+        this.escritura = escritura;
+        return this;
+    }
+
+    // Agrega la columna de versión si no existe.
+    public void iniciar() {
+        try {
+            String base = jdbc.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+            if ("Microsoft SQL Server".equals(base)) {
+                jdbc.execute("IF COL_LENGTH('" + tabla + "', '" + COLUMNA_VERSION + "') IS NULL "
+                        + "ALTER TABLE " + tabla + " ADD " + COLUMNA_VERSION + " BIGINT NOT NULL "
+                        + "CONSTRAINT df_" + tabla + "_" + COLUMNA_VERSION + " DEFAULT 0");
+                conVersion = true;
+            } else if ("H2".equals(base)) {
+                jdbc.execute("ALTER TABLE " + tabla + " ADD COLUMN IF NOT EXISTS "
+                        + COLUMNA_VERSION + " BIGINT DEFAULT 0 NOT NULL");
+                conVersion = true;
+            } else {
+                log.info("Base {} sin columna {}.{}; los cambios de estado comparan solo el estado",
+                        base, tabla, COLUMNA_VERSION);
+            }
+        } catch (RuntimeException ex) {
+            log.warn("No se pudo crear la columna {}.{}: {}", tabla, COLUMNA_VERSION, ex.getMessage());
+        }
+    }
+
+    // ===================== TRANSICIONES =====================
+
+    public static boolean transicionValida(EstadoDePedido desde, EstadoDePedido hacia) {
+        // un pedido sin estado se trata como recién creado
+        return TRANSICIONES.esValida(desde != null ? desde : EstadoDePedido.PENDIENTE_PAGO, hacia);
+    }
+
+    // Estados a los que puede pasar un pedido en el estado dado (para armar el formulario).
+    public static Set<EstadoDePedido> destinos(EstadoDePedido desde) {
+        return TRANSICIONES.destinos(desde != null ? desde : EstadoDePedido.PENDIENTE_PAGO);
+    }
+
+    // ===================== CAMBIOS =====================
+
+    public Cambio cambiar(long pedidoId, EstadoDePedido nuevo) {
+        for (int intento = 1; intento <= maximoIntentos; intento++) {
+            Leido leido = leer(pedidoId);
+            if (leido == null) return new Cambio(Resultado.NO_EXISTE, null, null);
+            if (leido.estado() == nuevo) return new Cambio(Resultado.SIN_CAMBIOS, nuevo, nuevo);
+            if (!transicionValida(leido.estado(), nuevo)) {
+                return new Cambio(Resultado.TRANSICION_INVALIDA, leido.estado(), leido.estado());
+            }
+
+            if (escribirYPublicar(pedidoId, nuevo, leido)) {
+                cambios.incrementAndGet();
+                return new Cambio(Resultado.CAMBIADO, leido.estado(), nuevo);
+            }
+            conflictos.incrementAndGet();
+        }
+
+        log.warn("Pedido {}: no se pudo pasar a {} después de {} intentos", pedidoId, nuevo, maximoIntentos);
+        return new Cambio(Resultado.CONFLICTO, null, null);
+    }
+
+    public long getCambios() {
+        return cambios.get();
+    }
+
+    // UPDATE que no tocaron ninguna fila porque otro cambió el pedido en el medio.
+    public long getConflictos() {
+        return conflictos.get();
+    }
+
+    // ===================== INTERNOS =====================
+
+    private Leido leer(long pedidoId) {
+        boolean version = conVersion;
+        String sql = "SELECT " + estado.getColumna() + (version ? ", " + COLUMNA_VERSION : "")
+                + " FROM " + tabla + " WHERE " + columnaId + " = ?";
+        List<Leido> filas = jdbc.query(sql, (rs, i) -> {
+            Object valor = rs.getObject(1);
+            return new Leido(estado.leer(valor), valor, version ? rs.getLong(2) : -1);
+        }, pedidoId);
+        return filas.isEmpty() ? null : filas.get(0);
+    }
+
+    private boolean escribirYPublicar(long pedidoId, EstadoDePedido nuevo, Leido leido) {
+        if (outbox == null) return escribir(pedidoId, nuevo, leido);
+        return Boolean.TRUE.equals(escritura.execute(tx -> {
+            if (!escribir(pedidoId, nuevo, leido)) return false;
+            outbox.pedidoEstadoCambiado(pedidoId, leido.estado(), nuevo);
+            return true;
+        }));
+    }
+
+    private boolean escribir(long pedidoId, EstadoDePedido nuevo, Leido leido) {
+        boolean version = leido.version() >= 0;
+        // comparo contra lo que había en la columna (aunque no sea un estado conocido)
+        String sql = "UPDATE " + tabla + " SET " + estado.getColumna() + " = ?"
+                + (version ? ", " + COLUMNA_VERSION + " = " + COLUMNA_VERSION + " + 1" : "")
+                + " WHERE " + columnaId + " = ? AND " + estado.getColumna()
+                + (leido.valorEnColumna() == null ? " IS NULL" : " = ?")
+                + (version ? " AND " + COLUMNA_VERSION + " = ?" : "");
+
+        return jdbc.update(sql, ps -> {
+            int i = 1;
+            ps.setObject(i++, estado.valor(nuevo));
+            ps.setLong(i++, pedidoId);
+            if (leido.valorEnColumna() != null) ps.setObject(i++, leido.valorEnColumna());
+            if (version) ps.setLong(i, leido.version());
+        }) == 1;
+    }
+}
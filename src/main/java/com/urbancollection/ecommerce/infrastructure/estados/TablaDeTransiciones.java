@@ -0,0 +1,57 @@
+package com.urbancollection.ecommerce.infrastructure.estados;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * TablaDeTransiciones
+ *
+ * Qué cambios de estado se permiten para un enum. Por cada estado de origen
+ * se guarda una máscara de bits con los destinos permitidos (bit = ordinal),
+ * así validar una transición es un AND, sin recorrer listas.
+ *
+ * Se arma una sola vez (en un static) con permitir(...) y después solo se consulta.
+ * Soporta enums de hasta 64 valores.
+ */
+public final class TablaDeTransiciones<E extends Enum<E>> {
+
+    private final Class<E> tipo;
+    private final long[] permitidos;
+
+    private TablaDeTransiciones(Class<E> tipo) {
+        E[] valores = tipo.getEnumConstants();
+        if (valores.length > Long.SIZE) {
+            throw new IllegalArgumentException(tipo.getSimpleName() + " tiene más de 64 valores");
+        }
+        this.tipo = tipo;
+        this.permitidos = new long[valores.length];
+    }
+
+    public static <E extends Enum<E>> TablaDeTransiciones<E> de(Class<E> tipo) {
+        return new TablaDeTransiciones<>(tipo);
+    }
+
+    @SafeVarargs
+    public final TablaDeTransiciones<E> permitir(E desde, E... hacia) {
+        for (E destino : hacia) {
+            permitidos[desde.ordinal()] |= 1L << destino.ordinal();
+        }
+        return this;
+    }
+
+    public boolean esValida(E desde, E hacia) {
+        return (permitidos[desde.ordinal()] & (1L << hacia.ordinal())) != 0;
+    }
+
+    public boolean esFinal(E estado) {
+        return permitidos[estado.ordinal()] == 0;
+    }
+
+    public Set<E> destinos(E desde) {
+        EnumSet<E> destinos = EnumSet.noneOf(tipo);
+        for (E valor : tipo.getEnumConstants()) {
+            if (esValida(desde, valor)) destinos.add(valor);
+        }
+        return destinos;
+    }
+}
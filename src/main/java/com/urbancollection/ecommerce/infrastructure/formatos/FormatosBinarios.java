@@ -0,0 +1,133 @@
+package com.urbancollection.ecommerce.infrastructure.formatos;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * FormatosBinarios
+ *
+ * CBOR y Smile son el mismo modelo de datos que JSON (mismo Jackson, mismos
+ * DTO y anotaciones) pero en binario: números y fechas sin pasar a texto,
+ * nombres de campo más cortos (Smile los repite por referencia) y sin escapar
+ * strings. Son para el tráfico entre nuestros servicios; los clientes externos
+ * siguen en JSON.
+ *
+ * - Servidor: convertidores() se agregan DESPUÉS del de JSON, así un cliente
+ *   que acepta cualquier cosa (o no manda Accept) recibe JSON, y solo el que
+ *   pide application/cbor o application/x-jackson-smile recibe binario.
+ * - Clientes (ApiClients): restTemplate(formato) pone primero un lector del
+ *   formato, así el Accept lo pide antes que JSON. Si el servidor no lo
+ *   soporta contesta JSON y se lee igual. Los cuerpos que se MANDAN siguen en
+ *   JSON: cualquier versión del servidor los entiende.
+ */
+public final class FormatosBinarios {
+
+    public static final MediaType CBOR = MediaType.APPLICATION_CBOR;
+    public static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+
+    // En el orden de los convertidores del servidor
+    private static final List<MediaType> PRODUCIDOS = List.of(MediaType.APPLICATION_JSON, CBOR, SMILE);
+
+    /**
+     * Formato:
+     * Lo que piden los ApiClients. JSON deja el RestTemplate como siempre.
+     */
+    public enum Formato {
+        JSON, CBOR, SMILE;
+
+        public static Formato de(String nombre) {
+            try {
+                return valueOf(nombre.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Formato desconocido: " + nombre + " (json, cbor o smile)");
+            }
+        }
+    }
+
+    private FormatosBinarios() {
+    }
+
+    /**
+     * convertidores:
+     * CBOR y Smile para el servidor, armados con el builder de Spring (mismos
+     * módulos y opciones que el JSON). Cada llamada a builders debe dar uno nuevo.
+     */
+    public static List<HttpMessageConverter<?>> convertidores(Supplier<Jackson2ObjectMapperBuilder> builders) {
+        return List.of(
+                new MappingJackson2CborHttpMessageConverter(builders.get().factory(new CBORFactory()).build()),
+                new MappingJackson2SmileHttpMessageConverter(builders.get().factory(new SmileFactory()).build()));
+    }
+
+    /**
+     * negociado:
+     * Tipo con el que va a salir una respuesta para este Accept, eligiendo como
+     * Spring MVC: el aceptado más específico (y de mayor q) y, dentro de él, JSON
+     * antes que los binarios. Sin Accept, con uno inválido o sin coincidencias, JSON.
+     * Lo usan los GET condicionales, que necesitan el formato antes de armar el cuerpo.
+     */
+    public static MediaType negociado(String accept) {
+        if (accept == null || accept.isBlank()) return MediaType.APPLICATION_JSON;
+        List<MediaType> aceptados;
+        try {
+            aceptados = new ArrayList<>(MediaType.parseMediaTypes(accept));
+            MimeTypeUtils.sortBySpecificity(aceptados);
+        } catch (IllegalArgumentException e) {
+            return MediaType.APPLICATION_JSON;
+        }
+        for (MediaType aceptado : aceptados) {
+            for (MediaType producido : PRODUCIDOS) {
+                if (aceptado.isCompatibleWith(producido)) return producido;
+            }
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+
+    // Los que Spring agrega por su cuenta cuando las librerías están en el classpath.
+    public static boolean esBinario(HttpMessageConverter<?> convertidor) {
+        return convertidor instanceof MappingJackson2CborHttpMessageConverter
+                || convertidor instanceof MappingJackson2SmileHttpMessageConverter;
+    }
+
+    /**
+     * restTemplate:
+     * RestTemplate para los ApiClients que prefiere el formato indicado al leer.
+     */
+    public static RestTemplate restTemplate(Formato formato, Supplier<Jackson2ObjectMapperBuilder> builders) {
+        RestTemplate restTemplate = new RestTemplate();
+        if (formato == Formato.JSON) return restTemplate;
+
+        restTemplate.getMessageConverters().removeIf(FormatosBinarios::esBinario);
+        restTemplate.getMessageConverters().add(0, formato == Formato.CBOR
+                ? new SoloLectura(builders.get().factory(new CBORFactory()).build(), CBOR)
+                : new SoloLectura(builders.get().factory(new SmileFactory()).build(), SMILE));
+        return restTemplate;
+    }
+
+    // Convertidor que solo lee: al escribir se salta y los cuerpos salen en JSON.
+    private static final class SoloLectura extends AbstractJackson2HttpMessageConverter {
+
+        SoloLectura(ObjectMapper objectMapper, MediaType tipo) {
+            super(objectMapper, tipo);
+        }
+
+        @Override
+        public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+            return false;
+        }
+    }
+}
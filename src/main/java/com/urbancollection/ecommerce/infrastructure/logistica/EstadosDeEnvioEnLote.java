@@ -0,0 +1,343 @@
+package com.urbancollection.ecommerce.infrastructure.logistica;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.urbancollection.ecommerce.domain.entity.logistica.Envio;
+import com.urbancollection.ecommerce.domain.enums.EstadoDeEnvio;
+import com.urbancollection.ecommerce.domain.enums.EstadoDePedido;
+import com.urbancollection.ecommerce.infrastructure.cache.ColumnaNormalizada;
+import com.urbancollection.ecommerce.infrastructure.cache.EnvioCache;
+import com.urbancollection.ecommerce.infrastructure.cache.VersionesDeRecursos;
+import com.urbancollection.ecommerce.infrastructure.estados.ColumnaDeEstado;
+import com.urbancollection.ecommerce.infrastructure.estados.EstadosDePedido;
+import com.urbancollection.ecommerce.infrastructure.estados.TablaDeTransiciones;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * EstadosDeEnvioEnLote
+ *
+ * Cambios de estado de envíos en lote (webhooks de las transportadoras, que
+ * mandan miles de (tracking, estado) juntos). Antes cada uno era un
+ * PUT /api/envios/{id}: buscar el envío, buscar el pedido y guardar.
+ *
+ * Para un lote:
+ * 1. Se buscan todos los envíos con SELECT ... WHERE tracking_normalizado IN (...),
+ *    en tandas de MAXIMO_IN valores (SQL Server acepta hasta 2100 parámetros).
+ * 2. Las transiciones se validan en memoria, en el orden en que vinieron (si un
+ *    tracking viene dos veces, el segundo parte del estado que dejó el primero).
+ * 3. Con completarPedidosCon(estadosDePedido), los pedidos de los envíos que pasan
+ *    a ENTREGADO pasan primero a COMPLETADO (igual que al editar un envío). Si el
+ *    pedido no puede pasar (por ejemplo está CANCELADO, o lo está cambiando otro),
+ *    ese envío no se escribe y sus items quedan en CONFLICTO.
+ * 4. Se escribe un UPDATE por envío que cambió, todos en batch de JDBC y en una
+ *    transacción. El UPDATE lleva "AND estado = <estado leído>": si otro cambió el
+ *    envío entre la lectura y la escritura, no se pisa y el item queda en CONFLICTO.
+ * 5. Se invalidan en EnvioCache los envíos escritos.
+ *
+ * Se escribe por JDBC, así que no pasan por JPA: el valor del estado en la columna
+ * (nombre u ordinal) lo resuelve ColumnaDeEstado con el mapeo de Hibernate.
+ */
+public class EstadosDeEnvioEnLote {
+
+    private static final Logger log = LoggerFactory.getLogger(EstadosDeEnvioEnLote.class);
+
+    static final int MAXIMO_IN = 1000;
+    private static final int TAMANIO_BATCH = 500;
+
+    // Transiciones permitidas. ENTREGADO es final; FALLIDO puede volver a EN_TRANSITO (reintento).
+    private static final TablaDeTransiciones<EstadoDeEnvio> TRANSICIONES = TablaDeTransiciones.de(EstadoDeEnvio.class)
+            .permitir(EstadoDeEnvio.PENDIENTE, EstadoDeEnvio.EN_TRANSITO, EstadoDeEnvio.ENTREGADO, EstadoDeEnvio.FALLIDO)
+            .permitir(EstadoDeEnvio.EN_TRANSITO, EstadoDeEnvio.ENTREGADO, EstadoDeEnvio.FALLIDO)
+            .permitir(EstadoDeEnvio.FALLIDO, EstadoDeEnvio.EN_TRANSITO);
+
+    public enum Resultado {
+        ACTUALIZADO,
+        SIN_CAMBIOS,
+        NO_EXISTE,
+        TRANSICION_INVALIDA,
+        DATOS_INVALIDOS,
+        CONFLICTO
+    }
+
+    /**
+     * Cambio:
+     * Un item del lote, tal como llega (el estado es texto para poder responder DATOS_INVALIDOS por item).
+     */
+    public record Cambio(String tracking, String estado) {
+    }
+
+    /**
+     * Item:
+     * Resultado de un item, en la misma posición que en el lote. estado es el del envío
+     * después de aplicar el item (null si no existe).
+     */
+    public record Item(String tracking, Resultado resultado, String estado) {
+    }
+
+    // Un envío leído: el estado de la BD y el que va quedando al aplicar los items.
+    private static final class Fila {
+        final long id;
+        final Long pedidoId;
+        final EstadoDeEnvio leido;
+        EstadoDeEnvio actual;
+
+        Fila(long id, Long pedidoId, EstadoDeEnvio leido) {
+            this.id = id;
+            this.pedidoId = pedidoId;
+            this.leido = leido;
+            this.actual = leido;
+        }
+    }
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate escritura;
+    private final EnvioCache envioCache;
+    private final ColumnaNormalizada tracking;
+    private final ColumnaDeEstado<EstadoDeEnvio> estado;
+    private final String columnaActualizado;
+    private final String columnaPedido;
+    private final int maximoPorLote;
+    private VersionesDeRecursos versiones;
+    private EstadosDePedido estadosDePedido;
+
+    public EstadosDeEnvioEnLote(JdbcTemplate jdbc, TransactionTemplate escritura, EnvioCache envioCache,
+                                ColumnaNormalizada tracking, ColumnaDeEstado<EstadoDeEnvio> estado,
+                                String columnaActualizado, String columnaPedido, int maximoPorLote) {
+        this.jdbc = jdbc;
+        this.escritura = escritura;
+        this.envioCache = envioCache;
+        this.tracking = tracking;
+        this.estado = estado;
+        this.columnaActualizado = columnaActualizado;
+        this.columnaPedido = columnaPedido;
+        this.maximoPorLote = Math.max(1, maximoPorLote);
+    }
+
+    /**
+     * Toma las columnas de estado, pedido y updatedAt de Envio, y cómo se guarda el estado, del mapeo de Hibernate.
+     */
+    public static EstadosDeEnvioEnLote paraEnvios(EntityManagerFactory emf, JdbcTemplate jdbc,
+                                                  TransactionTemplate escritura, EnvioCache envioCache,
+                                                  int maximoPorLote) {
+        AbstractEntityPersister persister = (AbstractEntityPersister) emf.unwrap(SessionFactoryImplementor.class)
+                .getMappingMetamodel().getEntityDescriptor(Envio.class);
+        return new EstadosDeEnvioEnLote(jdbc, escritura, envioCache, envioCache.getColumnaTracking(),
+                ColumnaDeEstado.de(persister, "estado", EstadoDeEnvio.class),
+                persister.getPropertyColumnNames("updatedAt")[0],
+                persister.getPropertyColumnNames("pedido")[0],
+                maximoPorLote);
+    }
+
+    // Los envíos que cambian suben su versión (GET condicional de /api/envios/{id}).
+    public EstadosDeEnvioEnLote avisarA(VersionesDeRecursos versiones) {
+        this.versiones = versiones;
+        return this;
+    }
+
+    // Los envíos que pasan a ENTREGADO completan su pedido (paso 3).
+    public EstadosDeEnvioEnLote completarPedidosCon(EstadosDePedido estadosDePedido) {
+        this.estadosDePedido = estadosDePedido;
+        return this;
+    }
+
+    public int getMaximoPorLote() {
+        return maximoPorLote;
+    }
+
+    public static boolean transicionValida(EstadoDeEnvio desde, EstadoDeEnvio hacia) {
+        // un envío sin estado se trata como recién creado
+        return TRANSICIONES.esValida(desde != null ? desde : EstadoDeEnvio.PENDIENTE, hacia);
+    }
+
+    /**
+     * aplicar:
+     * Aplica el lote y devuelve un Item por cada cambio, en el mismo orden.
+     */
+    public List<Item> aplicar(List<Cambio> cambios) {
+        if (cambios.size() > maximoPorLote) {
+            throw new IllegalArgumentException("El lote supera el máximo de " + maximoPorLote + " cambios");
+        }
+
+        // 1. normalizo y busco todos los envíos de una vez
+        String[] codigos = new String[cambios.size()];
+        Set<String> distintos = new LinkedHashSet<>();
+        for (int i = 0; i < cambios.size(); i++) {
+            Cambio c = cambios.get(i);
+            String codigo = c != null ? tracking.normalizar(c.tracking()) : "";
+            // '#' está reservado para los envíos sin tracking en la columna normalizada.
+            if (codigo.isEmpty() || codigo.startsWith("#")) codigo = null;
+            codigos[i] = codigo;
+            if (codigo != null) distintos.add(codigo);
+        }
+        Map<String, Fila> filas = leer(distintos);
+
+        // 2. transiciones en memoria, en orden
+        Resultado[] resultados = new Resultado[cambios.size()];
+        for (int i = 0; i < cambios.size(); i++) {
+            EstadoDeEnvio nuevo = cambios.get(i) != null ? estadoDe(cambios.get(i).estado()) : null;
+            if (codigos[i] == null || nuevo == null) {
+                resultados[i] = Resultado.DATOS_INVALIDOS;
+                continue;
+            }
+            Fila fila = filas.get(codigos[i]);
+            if (fila == null) {
+                resultados[i] = Resultado.NO_EXISTE;
+            } else if (fila.actual == nuevo) {
+                resultados[i] = Resultado.SIN_CAMBIOS;
+            } else if (!transicionValida(fila.actual, nuevo)) {
+                resultados[i] = Resultado.TRANSICION_INVALIDA;
+            } else {
+                fila.actual = nuevo;
+                resultados[i] = Resultado.ACTUALIZADO;
+            }
+        }
+
+        // 3. pedidos de los que se entregan; si el pedido no puede, el envío queda como estaba
+        Set<Long> sinPedido = completarPedidos(filas.values());
+
+        // 4. un UPDATE por envío que quedó distinto de como se leyó
+        Set<Long> enConflicto = escribir(filas.values());
+
+        // 5. armo la respuesta
+        List<Item> items = new ArrayList<>(cambios.size());
+        for (int i = 0; i < cambios.size(); i++) {
+            Fila fila = codigos[i] != null ? filas.get(codigos[i]) : null;
+            Resultado r = resultados[i];
+            if (r == Resultado.ACTUALIZADO && (enConflicto.contains(fila.id) || sinPedido.contains(fila.id))) {
+                r = Resultado.CONFLICTO;
+            }
+
+            String estado = null;
+            if (fila != null) {
+                EstadoDeEnvio e = enConflicto.contains(fila.id) ? null : fila.actual;
+                estado = e != null ? e.name() : null;
+            }
+            items.add(new Item(cambios.get(i) != null ? cambios.get(i).tracking() : null, r, estado));
+        }
+        return items;
+    }
+
+    // ===================== INTERNOS =====================
+
+    private Map<String, Fila> leer(Set<String> codigos) {
+        Map<String, Fila> filas = new HashMap<>(codigos.size() * 2);
+        List<String> lista = new ArrayList<>(codigos);
+        String expresion = tracking.expresion();
+
+        for (int desde = 0; desde < lista.size(); desde += MAXIMO_IN) {
+            List<String> tanda = lista.subList(desde, Math.min(desde + MAXIMO_IN, lista.size()));
+            String sql = "SELECT " + tracking.getColumnaId() + ", " + expresion + ", " + estado.getColumna() + ", "
+                    + columnaPedido + " FROM " + tracking.getTabla()
+                    + " WHERE " + expresion + " IN (" + String.join(", ", Collections.nCopies(tanda.size(), "?")) + ")";
+            jdbc.query(sql, rs -> {
+                long pedido = rs.getLong(4);
+                filas.put(rs.getString(2), new Fila(rs.getLong(1), rs.wasNull() ? null : pedido,
+                        estado.leer(rs.getObject(3))));
+            }, tanda.toArray());
+        }
+        return filas;
+    }
+
+    // Devuelve los ids que no se pudieron escribir porque alguien los cambió después de leerlos.
+    private Set<Long> escribir(Iterable<Fila> filas) {
+        List<Fila> conEstado = new ArrayList<>();
+        List<Fila> sinEstado = new ArrayList<>();
+        for (Fila fila : filas) {
+            if (fila.actual == fila.leido) continue;
+            (fila.leido != null ? conEstado : sinEstado).add(fila);
+        }
+        if (conEstado.isEmpty() && sinEstado.isEmpty()) return Set.of();
+
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        String update = "UPDATE " + tracking.getTabla() + " SET " + estado.getColumna() + " = ?, "
+                + columnaActualizado + " = ? WHERE " + tracking.getColumnaId() + " = ? AND " + estado.getColumna();
+
+        Set<Long> enConflicto = new LinkedHashSet<>();
+        try {
+            escritura.executeWithoutResult(tx -> {
+                enConflicto.addAll(batch(update + " = ?", conEstado, ahora, true));
+                enConflicto.addAll(batch(update + " IS NULL", sinEstado, ahora, false));
+            });
+        } finally {
+            for (Fila fila : conEstado) invalidar(fila.id);
+            for (Fila fila : sinEstado) invalidar(fila.id);
+        }
+        return enConflicto;
+    }
+
+    // Antes de escribir los envíos: cada cambio de pedido va en su propia transacción (ver EstadosDePedido).
+    // Devuelve los ids de los envíos cuyo pedido no pudo pasar a COMPLETADO; esos vuelven al estado leído.
+    private Set<Long> completarPedidos(Iterable<Fila> filas) {
+        if (estadosDePedido == null) return Set.of();
+        Set<Long> sinPedido = new LinkedHashSet<>();
+        for (Fila fila : filas) {
+            if (fila.actual != EstadoDeEnvio.ENTREGADO || fila.leido == EstadoDeEnvio.ENTREGADO) continue;
+            if (fila.pedidoId == null) continue;
+            try {
+                EstadosDePedido.Cambio cambio = estadosDePedido.cambiar(fila.pedidoId, EstadoDePedido.COMPLETADO);
+                if (cambio.cambiado() || cambio.resultado() == EstadosDePedido.Resultado.SIN_CAMBIOS) continue;
+                log.warn("Envío {} no se entrega: el pedido {} no pasó a COMPLETADO: {} (estado {})",
+                        fila.id, fila.pedidoId, cambio.resultado(), cambio.anterior());
+            } catch (RuntimeException ex) {
+                log.warn("Envío {} no se entrega: no se pudo completar el pedido {}: {}",
+                        fila.id, fila.pedidoId, ex.getMessage());
+            }
+            fila.actual = fila.leido;
+            sinPedido.add(fila.id);
+        }
+        return sinPedido;
+    }
+
+    private void invalidar(long id) {
+        envioCache.invalidarPorId(id);
+        if (versiones != null) versiones.cambio(VersionesDeRecursos.ENVIOS, id);
+    }
+
+    private List<Long> batch(String sql, List<Fila> filas, Timestamp ahora, boolean conEstadoLeido) {
+        List<Long> enConflicto = new ArrayList<>();
+        if (filas.isEmpty()) return enConflicto;
+
+        int[][] cuentas = jdbc.batchUpdate(sql, filas, TAMANIO_BATCH, (ps, fila) -> {
+            ps.setObject(1, estado.valor(fila.actual));
+            ps.setTimestamp(2, ahora);
+            ps.setLong(3, fila.id);
+            if (conEstadoLeido) ps.setObject(4, estado.valor(fila.leido));
+        });
+
+        int i = 0;
+        for (int[] tanda : cuentas) {
+            for (int cuenta : tanda) {
+                // SUCCESS_NO_INFO (-2): el driver no informa la cuenta; se toma como escrito.
+                if (cuenta == 0) enConflicto.add(filas.get(i).id);
+                i++;
+            }
+        }
+        return enConflicto;
+    }
+
+    private static EstadoDeEnvio estadoDe(String texto) {
+        if (texto == null) return null;
+        try {
+            return EstadoDeEnvio.valueOf(texto.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+}
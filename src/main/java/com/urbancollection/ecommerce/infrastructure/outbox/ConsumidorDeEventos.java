@@ -0,0 +1,19 @@
+package com.urbancollection.ecommerce.infrastructure.outbox;
+
+/**
+ * ConsumidorDeEventos
+ *
+ * Quien recibe los eventos que publica RelayDeOutbox (el worker de tareas, el notificador...).
+ *
+ * - La entrega es "al menos una vez": si consumir lanza una excepción el evento se
+ *   vuelve a entregar, también a los consumidores a los que ya les había llegado.
+ *   Por eso consumir tiene que tolerar repetidos (usar el id del evento).
+ * - Los eventos de una misma entidad llegan en orden: mientras uno falle, los
+ *   siguientes de esa entidad esperan.
+ * - Un consumidor ignora los tipos que no le interesan simplemente retornando.
+ */
+@FunctionalInterface
+public interface ConsumidorDeEventos {
+
+    void consumir(EventoOutbox evento) throws Exception;
+}
@@ -0,0 +1,46 @@
+package com.urbancollection.ecommerce.infrastructure.outbox;
+
+import java.util.Optional;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.urbancollection.ecommerce.persistence.jpa.spring.PedidoJpaRepository;
+import com.urbancollection.ecommerce.shared.notification.NotificationPort;
+
+/**
+ * ConsumidorDeNotificaciones
+ *
+ * Avisa por NotificationPort los cambios que le importan al cliente
+ * (pago registrado y cambios de estado del pedido). El resto se ignora.
+ * El aviso va al correo del usuario del pedido; si el pedido ya no existe
+ * o no tiene usuario con correo, se descarta (reintentar no lo arreglaría).
+ */
+public class ConsumidorDeNotificaciones implements ConsumidorDeEventos {
+
+    private static final Logger log = LoggerFactory.getLogger(ConsumidorDeNotificaciones.class);
+
+    private static final Set<String> TIPOS = Set.of(Outbox.PEDIDO_ESTADO_CAMBIADO, Outbox.PAGO_REGISTRADO);
+
+    private final NotificationPort notificaciones;
+    private final PedidoJpaRepository pedidos;
+
+    public ConsumidorDeNotificaciones(NotificationPort notificaciones, PedidoJpaRepository pedidos) {
+        this.notificaciones = notificaciones;
+        this.pedidos = pedidos;
+    }
+
+    @Override
+    public void consumir(EventoOutbox evento) {
+        if (!TIPOS.contains(evento.tipo())) return;
+
+        Optional<String> correo = pedidos.findCorreoDelCliente(evento.agregadoId())
+                .filter(c -> !c.isBlank());
+        if (correo.isEmpty()) {
+            log.warn("Sin correo para avisar {} de {}", evento.tipo(), evento.claveDeAgregado());
+            return;
+        }
+        notificaciones.sendInfo(correo.get(), evento.tipo() + " " + evento.payload());
+    }
+}
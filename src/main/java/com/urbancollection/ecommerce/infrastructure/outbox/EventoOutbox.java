@@ -0,0 +1,19 @@
+package com.urbancollection.ecommerce.infrastructure.outbox;
+
+import java.time.LocalDateTime;
+
+/**
+ * EventoOutbox
+ *
+ * Un evento guardado en la tabla outbox_evento. agregado + agregadoId dicen de
+ * qué entidad es (por ejemplo "Pedido", 15): los eventos de una misma entidad se
+ * entregan en el orden en que se escribieron. payload es JSON.
+ */
+public record EventoOutbox(long id, String agregado, long agregadoId, String tipo, String payload,
+                           LocalDateTime creado, int intentos) {
+
+    // Clave para el orden por entidad.
+    public String claveDeAgregado() {
+        return agregado + ":" + agregadoId;
+    }
+}
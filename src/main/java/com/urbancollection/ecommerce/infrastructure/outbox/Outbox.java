@@ -0,0 +1,299 @@
+package com.urbancollection.ecommerce.infrastructure.outbox;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.urbancollection.ecommerce.domain.entity.ventas.Pedido;
+import com.urbancollection.ecommerce.domain.entity.ventas.TransaccionPago;
+import com.urbancollection.ecommerce.domain.enums.EstadoDePedido;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Outbox
+ *
+ * Tabla outbox_evento: los eventos de pedidos y pagos se guardan en la misma
+ * transacción que el cambio que los produce. Si la transacción hace rollback el
+ * evento desaparece con ella; si hace commit, el evento queda guardado aunque
+ * el proceso se caiga justo después. RelayDeOutbox los lee y los publica.
+ *
+ * Con esto el checkout solo paga un INSERT chico: el trabajo de después
+ * (tareas, notificaciones) corre fuera de la request.
+ *
+ * registrar(...) usa el JdbcTemplate de la aplicación, que toma la conexión de
+ * la transacción JPA en curso. Los eventos de Pedido y TransaccionPago los
+ * escriben listeners de Hibernate (escucharPedidosYPagos), así que cualquier
+ * save(...) los genera sin tocar los servicios del dominio.
+ *
+ * Todos los eventos de un pedido (también los de sus pagos) usan el agregado
+ * "Pedido" con el id del pedido, para que el relay los entregue en orden.
+ *
+ * La tabla la crea crear() al arrancar (SQL Server y H2). Si no existe, registrar
+ * no hace nada y se avisa en el log una vez, para no tumbar el checkout.
+ *
+ * outbox_relay tiene una sola fila con el turno del relay (dueño y vencimiento):
+ * con varias instancias publica solo la que tiene el turno, así un evento no sale
+ * dos veces ni uno de un pedido se adelanta a otro anterior (ver RelayDeOutbox).
+ */
+public class Outbox {
+
+    private static final Logger log = LoggerFactory.getLogger(Outbox.class);
+
+    public static final String TABLA = "outbox_evento";
+    public static final String TABLA_TURNO = "outbox_relay";
+
+    public static final String AGREGADO_PEDIDO = "Pedido";
+    public static final String PEDIDO_CREADO = "PedidoCreado";
+    public static final String PEDIDO_ESTADO_CAMBIADO = "PedidoEstadoCambiado";
+    public static final String PAGO_REGISTRADO = "PagoRegistrado";
+
+    private static final String SQL_INSERTAR = "INSERT INTO " + TABLA
+            + " (agregado, agregado_id, tipo, payload, creado, intentos) VALUES (?, ?, ?, ?, ?, 0)";
+
+    private static final String SQL_PENDIENTES = "SELECT id, agregado, agregado_id, tipo, payload, creado, intentos FROM "
+            + TABLA + " WHERE publicado IS NULL ORDER BY id";
+
+    private final JdbcTemplate jdbc;
+    private final ObjectMapper objectMapper;
+    private volatile boolean activa;
+    private volatile boolean avisado;
+
+    public Outbox(JdbcTemplate jdbc, ObjectMapper objectMapper) {
+        this.jdbc = jdbc;
+        this.objectMapper = objectMapper;
+    }
+
+    // ===================== ESQUEMA =====================
+
+    public void crear() {
+        try {
+            String base = jdbc.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+            if ("Microsoft SQL Server".equals(base)) {
+                jdbc.execute("IF OBJECT_ID('" + TABLA + "') IS NULL CREATE TABLE " + TABLA + " ("
+                        + "id BIGINT IDENTITY(1,1) PRIMARY KEY, agregado VARCHAR(50) NOT NULL, "
+                        + "agregado_id BIGINT NOT NULL, tipo VARCHAR(100) NOT NULL, payload NVARCHAR(MAX) NOT NULL, "
+                        + "creado DATETIME2 NOT NULL, publicado DATETIME2 NULL, intentos INT NOT NULL DEFAULT 0)");
+                // índice filtrado: solo los pendientes, que es lo que lee el relay
+                jdbc.execute("IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'ix_outbox_pendientes' "
+                        + "AND object_id = OBJECT_ID('" + TABLA + "')) "
+                        + "CREATE INDEX ix_outbox_pendientes ON " + TABLA + " (id) WHERE publicado IS NULL");
+                jdbc.execute("IF OBJECT_ID('" + TABLA_TURNO + "') IS NULL CREATE TABLE " + TABLA_TURNO + " ("
+                        + "id INT PRIMARY KEY, duenio VARCHAR(200) NULL, vence DATETIME2 NULL)");
+            } else if ("H2".equals(base)) {
+                jdbc.execute("CREATE TABLE IF NOT EXISTS " + TABLA + " ("
+                        + "id BIGINT AUTO_INCREMENT PRIMARY KEY, agregado VARCHAR(50) NOT NULL, "
+                        + "agregado_id BIGINT NOT NULL, tipo VARCHAR(100) NOT NULL, payload VARCHAR(1000000) NOT NULL, "
+                        + "creado TIMESTAMP NOT NULL, publicado TIMESTAMP, intentos INT DEFAULT 0 NOT NULL)");
+                jdbc.execute("CREATE INDEX IF NOT EXISTS ix_outbox_pendientes ON " + TABLA + " (publicado, id)");
+                jdbc.execute("CREATE TABLE IF NOT EXISTS " + TABLA_TURNO + " ("
+                        + "id INT PRIMARY KEY, duenio VARCHAR(200), vence TIMESTAMP)");
+            } else {
+                log.info("Base {}: no se crea la tabla {}", base, TABLA);
+            }
+        } catch (RuntimeException ex) {
+            log.warn("No se pudo crear la tabla {}: {}", TABLA, ex.getMessage());
+        }
+
+        // activa si las tablas existen, las haya creado yo o no
+        try {
+            jdbc.queryForList("SELECT id FROM " + TABLA + " WHERE 1 = 0");
+            jdbc.update("INSERT INTO " + TABLA_TURNO + " (id) SELECT 1 WHERE NOT EXISTS "
+                    + "(SELECT 1 FROM " + TABLA_TURNO + " WHERE id = 1)");
+            activa = true;
+        } catch (RuntimeException ex) {
+            activa = false;
+            log.error("Sin tabla {}: los eventos de pedidos y pagos no se van a publicar", TABLA);
+        }
+    }
+
+    public boolean isActiva() {
+        return activa;
+    }
+
+    // ===================== ESCRITURA =====================
+
+    /**
+     * registrar:
+     * Guarda un evento en la transacción en curso. payload se serializa a JSON.
+     */
+    public void registrar(String agregado, long agregadoId, String tipo, Map<String, ?> payload) {
+        if (!activa) {
+            if (!avisado) {
+                avisado = true;
+                log.warn("Outbox inactiva: se descarta {} de {} {}", tipo, agregado, agregadoId);
+            }
+            return;
+        }
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            // sigue funcionando (autocommit), pero ya no es atómico con el cambio
+            log.warn("Evento {} de {} {} registrado fuera de una transacción", tipo, agregado, agregadoId);
+        }
+        jdbc.update(SQL_INSERTAR, agregado, agregadoId, tipo, json(payload), Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    public void pedidoEstadoCambiado(long pedidoId, EstadoDePedido anterior, EstadoDePedido actual) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("pedidoId", pedidoId);
+        payload.put("anterior", anterior);
+        payload.put("estado", actual);
+        registrar(AGREGADO_PEDIDO, pedidoId, PEDIDO_ESTADO_CAMBIADO, payload);
+    }
+
+    private String json(Map<String, ?> payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("Payload no serializable: " + ex.getOriginalMessage(), ex);
+        }
+    }
+
+    // ===================== LECTURA (RELAY) =====================
+
+    // Los primeros n pendientes, en el orden en que se escribieron.
+    List<EventoOutbox> pendientes(JdbcTemplate lectura, int n) {
+        lectura.setMaxRows(n);
+        return lectura.query(SQL_PENDIENTES, (rs, i) -> new EventoOutbox(
+                rs.getLong(1), rs.getString(2), rs.getLong(3), rs.getString(4), rs.getString(5),
+                rs.getTimestamp(6).toLocalDateTime(), rs.getInt(7)));
+    }
+
+    long contarPendientes() {
+        Long n = jdbc.queryForObject("SELECT COUNT(*) FROM " + TABLA + " WHERE publicado IS NULL", Long.class);
+        return n != null ? n : 0;
+    }
+
+    void marcarPublicados(List<Long> ids) {
+        if (ids.isEmpty()) return;
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        jdbc.batchUpdate("UPDATE " + TABLA + " SET publicado = ? WHERE id = ?",
+                ids.stream().map(id -> new Object[] {ahora, id}).toList());
+    }
+
+    void sumarIntento(List<Long> ids) {
+        if (ids.isEmpty()) return;
+        jdbc.batchUpdate("UPDATE " + TABLA + " SET intentos = intentos + 1 WHERE id = ?",
+                ids.stream().map(id -> new Object[] {id}).toList());
+    }
+
+    /**
+     * tomarTurno:
+     * Toma o renueva el turno del relay por "duracion". Devuelve false si lo tiene
+     * otro y todavía no venció. El vencimiento lo calcula cada instancia con su
+     * reloj, así que los relojes tienen que estar sincronizados (NTP) con un
+     * margen muy por debajo de la duración.
+     */
+    boolean tomarTurno(String duenio, Duration duracion) {
+        LocalDateTime ahora = LocalDateTime.now();
+        return jdbc.update("UPDATE " + TABLA_TURNO + " SET duenio = ?, vence = ? WHERE id = 1 "
+                        + "AND (duenio IS NULL OR duenio = ? OR vence < ?)",
+                duenio, Timestamp.valueOf(ahora.plus(duracion)), duenio, Timestamp.valueOf(ahora)) == 1;
+    }
+
+    // Suelta el turno (al cerrar), para que otra instancia no tenga que esperar que venza.
+    void soltarTurno(String duenio) {
+        jdbc.update("UPDATE " + TABLA_TURNO + " SET duenio = NULL, vence = NULL WHERE id = 1 AND duenio = ?", duenio);
+    }
+
+    // Borra los publicados antes de la fecha dada. Devuelve cuántos borró.
+    int purgar(LocalDateTime publicadosAntesDe) {
+        return jdbc.update("DELETE FROM " + TABLA + " WHERE publicado IS NOT NULL AND publicado < ?",
+                Timestamp.valueOf(publicadosAntesDe));
+    }
+
+    // ===================== LISTENERS =====================
+
+    /**
+     * Registra los listeners de Hibernate que escriben los eventos:
+     * - insert de Pedido: PedidoCreado
+     * - update de Pedido que cambia el estado: PedidoEstadoCambiado
+     * - insert de TransaccionPago: PagoRegistrado (en el agregado del pedido)
+     *
+     * Corren durante el flush, dentro de la transacción del save.
+     */
+    public Outbox escucharPedidosYPagos(EntityManagerFactory emf) {
+        EventListenerRegistry registro = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+
+        registro.appendListeners(EventType.POST_INSERT, new PostInsertEventListener() {
+            @Override
+            public void onPostInsert(PostInsertEvent event) {
+                if (event.getEntity() instanceof Pedido p) {
+                    pedidoCreado(p);
+                } else if (event.getEntity() instanceof TransaccionPago t) {
+                    pagoRegistrado(t);
+                }
+            }
+
+            @Override
+            public boolean requiresPostCommitHandling(EntityPersister p) {
+                return false;
+            }
+        });
+        registro.appendListeners(EventType.POST_UPDATE, new PostUpdateEventListener() {
+            @Override
+            public void onPostUpdate(PostUpdateEvent event) {
+                if (!(event.getEntity() instanceof Pedido p) || p.getId() == null) return;
+                EstadoDePedido anterior = estadoAnterior(event);
+                if (anterior != p.getEstado()) pedidoEstadoCambiado(p.getId(), anterior, p.getEstado());
+            }
+
+            @Override
+            public boolean requiresPostCommitHandling(EntityPersister p) {
+                return false;
+            }
+        });
+        return this;
+    }
+
+    private void pedidoCreado(Pedido p) {
+        if (p.getId() == null) return;
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("pedidoId", p.getId());
+        // getId() de un proxy no lo inicializa
+        payload.put("usuarioId", p.getUsuario() != null ? p.getUsuario().getId() : null);
+        payload.put("estado", p.getEstado());
+        payload.put("total", p.getTotal());
+        registrar(AGREGADO_PEDIDO, p.getId(), PEDIDO_CREADO, payload);
+    }
+
+    private void pagoRegistrado(TransaccionPago t) {
+        if (t.getPedido() == null || t.getPedido().getId() == null) return;
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("pedidoId", t.getPedido().getId());
+        payload.put("transaccionId", t.getId());
+        payload.put("metodo", t.getMetodo());
+        payload.put("monto", t.getMonto());
+        payload.put("estado", t.getEstado());
+        payload.put("referencia", t.getReferencia());
+        registrar(AGREGADO_PEDIDO, t.getPedido().getId(), PAGO_REGISTRADO, payload);
+    }
+
+    // Estado de la entidad antes del update; si Hibernate no lo tiene, se toma como cambiado.
+    private static EstadoDePedido estadoAnterior(PostUpdateEvent event) {
+        Object[] antes = event.getOldState();
+        if (antes == null) return null;
+        int indice = Arrays.asList(event.getPersister().getPropertyNames()).indexOf("estado");
+        return indice >= 0 && antes[indice] instanceof EstadoDePedido e ? e : null;
+    }
+}
@@ -0,0 +1,197 @@
+package com.urbancollection.ecommerce.infrastructure.outbox;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * RelayDeOutbox
+ *
+ * Hilo de fondo que lee los eventos pendientes de la Outbox en lotes y se los
+ * pasa a los consumidores (ConsumidorDeEventos), en el orden en que se escribieron.
+ *
+ * Cada vuelta:
+ * 0. Toma (o renueva) el turno en outbox_relay. Si lo tiene otra instancia y no
+ *    venció, no hace nada: con varias instancias publica una sola a la vez, así
+ *    un evento no se entrega dos veces y el orden por entidad se mantiene.
+ * 1. Lee hasta "lote" pendientes ordenados por id.
+ * 2. Entrega cada evento a todos los consumidores. Si uno falla, el evento
+ *    suma un intento y los siguientes de la misma entidad (agregado + id) no se
+ *    entregan en esta vuelta: así nunca llega un evento antes que uno anterior
+ *    de la misma entidad. Los de otras entidades siguen.
+ * 3. Marca los entregados como publicados con un solo batch.
+ * Si salió un lote entero de pendientes vuelve a leer enseguida; si no, espera intervaloMs.
+ *
+ * Un evento que falla maximoIntentos veces se descarta (se marca publicado y
+ * se loguea como error) para no frenar para siempre a su entidad.
+ *
+ * La entrega es "al menos una vez" (si el proceso se cae entre consumir y
+ * marcar, el evento se repite). El turno dura turnoMs y se renueva en cada lote:
+ * un lote tiene que tardar bastante menos que eso, o una instancia trabada más
+ * que el turno puede terminar su lote mientras otra ya tomó el relevo.
+ *
+ * Métricas (Micrometer): outbox.eventos.publicados, outbox.eventos.fallidos,
+ * outbox.eventos.descartados, outbox.eventos.pendientes (gauge), outbox.lote (timer)
+ * y outbox.eventos.demora (timer: de escrito a publicado).
+ */
+public class RelayDeOutbox {
+
+    private static final Logger log = LoggerFactory.getLogger(RelayDeOutbox.class);
+
+    private final Outbox outbox;
+    private final JdbcTemplate lectura;
+    private final List<ConsumidorDeEventos> consumidores;
+    private final int lote;
+    private final long intervaloMs;
+    private final int maximoIntentos;
+    private final long retencionHoras;
+    private final Duration turno;
+    // Quién tiene el turno: una instancia (y un relay) distinto cada vez que arranca.
+    private final String duenio = UUID.randomUUID().toString();
+
+    private final Counter publicados;
+    private final Counter fallidos;
+    private final Counter descartados;
+    private final Timer tiempoDeLote;
+    private final Timer demora;
+    private final AtomicLong pendientes = new AtomicLong();
+
+    private ScheduledExecutorService tareas;
+    private volatile LocalDateTime ultimaPurga = LocalDateTime.MIN;
+
+    public RelayDeOutbox(Outbox outbox, JdbcTemplate jdbc, List<ConsumidorDeEventos> consumidores,
+                         int lote, long intervaloMs, int maximoIntentos, long retencionHoras,
+                         long turnoMs, MeterRegistry metricas) {
+        this.outbox = outbox;
+        // JdbcTemplate propio: setMaxRows no tiene que afectar al resto de la aplicación
+        this.lectura = new JdbcTemplate(jdbc.getDataSource());
+        this.consumidores = List.copyOf(consumidores);
+        this.lote = Math.max(1, lote);
+        this.intervaloMs = Math.max(10, intervaloMs);
+        this.maximoIntentos = Math.max(1, maximoIntentos);
+        this.retencionHoras = retencionHoras;
+        this.turno = Duration.ofMillis(Math.max(1000, turnoMs));
+
+        this.publicados = metricas.counter("outbox.eventos.publicados");
+        this.fallidos = metricas.counter("outbox.eventos.fallidos");
+        this.descartados = metricas.counter("outbox.eventos.descartados");
+        this.tiempoDeLote = metricas.timer("outbox.lote");
+        this.demora = metricas.timer("outbox.eventos.demora");
+        Gauge.builder("outbox.eventos.pendientes", pendientes, AtomicLong::get).register(metricas);
+    }
+
+    // ===================== CICLO DE VIDA =====================
+
+    public void iniciar() {
+        if (!outbox.isActiva()) {
+            log.warn("Outbox inactiva: el relay no arranca");
+            return;
+        }
+        tareas = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "relay-outbox");
+            t.setDaemon(true);
+            return t;
+        });
+        tareas.scheduleWithFixedDelay(this::vueltaSegura, intervaloMs, intervaloMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void cerrar() {
+        if (tareas == null) return;
+        tareas.shutdownNow();
+        try {
+            if (tareas.awaitTermination(5, TimeUnit.SECONDS)) outbox.soltarTurno(duenio);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException ex) {
+            log.warn("No se pudo soltar el turno del relay: {}", ex.getMessage());
+        }
+    }
+
+    private void vueltaSegura() {
+        try {
+            // mientras salgan lotes enteros hay atraso: sigo sin esperar
+            while (!Thread.currentThread().isInterrupted() && publicarLote() == lote) {
+            }
+            pendientes.set(outbox.contarPendientes());
+            purgarSiToca();
+        } catch (RuntimeException ex) {
+            log.warn("Relay de outbox: {}", ex.getMessage());
+        }
+    }
+
+    private void purgarSiToca() {
+        if (retencionHoras <= 0) return;
+        LocalDateTime ahora = LocalDateTime.now();
+        if (ultimaPurga.isAfter(ahora.minusHours(1))) return;
+        ultimaPurga = ahora;
+        int borrados = outbox.purgar(ahora.minusHours(retencionHoras));
+        if (borrados > 0) log.info("Outbox: {} eventos publicados purgados", borrados);
+    }
+
+    // ===================== PUBLICACIÓN =====================
+
+    /**
+     * publicarLote:
+     * Una vuelta del relay. Devuelve cuántos eventos dejó de estar pendientes
+     * (entregados o descartados); 0 si el turno lo tiene otra instancia.
+     */
+    public int publicarLote() {
+        if (!outbox.tomarTurno(duenio, turno)) return 0;
+        return tiempoDeLote.record(() -> {
+            List<EventoOutbox> eventos = outbox.pendientes(lectura, lote);
+
+            List<Long> entregados = new ArrayList<>();
+            List<Long> conFallo = new ArrayList<>();
+            Set<String> trabados = new HashSet<>();
+            LocalDateTime ahora = LocalDateTime.now();
+
+            for (EventoOutbox evento : eventos) {
+                if (trabados.contains(evento.claveDeAgregado())) continue;
+                try {
+                    for (ConsumidorDeEventos consumidor : consumidores) consumidor.consumir(evento);
+                    entregados.add(evento.id());
+                    publicados.increment();
+                    demora.record(Duration.between(evento.creado(), ahora));
+                } catch (Exception ex) {
+                    fallidos.increment();
+                    if (evento.intentos() + 1 >= maximoIntentos) {
+                        log.error("Evento {} ({} de {}) descartado después de {} intentos: {}", evento.id(),
+                                evento.tipo(), evento.claveDeAgregado(), maximoIntentos, ex.getMessage());
+                        descartados.increment();
+                        entregados.add(evento.id());
+                    } else {
+                        log.warn("Evento {} ({} de {}) falló, se reintenta: {}", evento.id(),
+                                evento.tipo(), evento.claveDeAgregado(), ex.getMessage());
+                        conFallo.add(evento.id());
+                        trabados.add(evento.claveDeAgregado());
+                    }
+                }
+            }
+
+            outbox.marcarPublicados(entregados);
+            outbox.sumarIntento(conFallo);
+            return entregados.size();
+        });
+    }
+
+    public long getPendientes() {
+        return pendientes.get();
+    }
+}
@@ -0,0 +1,76 @@
+package com.urbancollection.ecommerce.infrastructure.paginacion;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.springframework.data.domain.PageRequest;
+
+/**
+ * LecturaPorLotes
+ *
+ * Todas las filas de un listado, leídas de a lotes por cursor a medida que la
+ * vista las recorre. Es para el modo "ver todo" de las tablas grandes: con
+ * Thymeleaf escribiendo mientras procesa, cada lote se manda al navegador
+ * (respuesta chunked) antes de leer el siguiente, así la memoria es la de un
+ * lote y no la de la tabla entera.
+ *
+ * Las consultas deben devolver proyecciones (records), no entidades: con
+ * open-in-view las entidades quedarían todas en el contexto de persistencia.
+ *
+ * Se lee mientras se arma la respuesta: si la BD falla a mitad de camino la
+ * página queda cortada (la respuesta ya salió con 200).
+ */
+public class LecturaPorLotes<T> implements Iterable<T> {
+
+    public static final int LOTE = 500;
+
+    private final PaginaPorCursor.Consulta<T> consulta;
+    private final PaginaPorCursor.Id<T> id;
+    private final int lote;
+    // el primer lote se lee una sola vez: lo usan isEmpty() y el recorrido
+    private List<T> primero;
+
+    public LecturaPorLotes(PaginaPorCursor.Consulta<T> consulta, PaginaPorCursor.Id<T> id) {
+        this(consulta, id, LOTE);
+    }
+
+    LecturaPorLotes(PaginaPorCursor.Consulta<T> consulta, PaginaPorCursor.Id<T> id, int lote) {
+        this.consulta = consulta;
+        this.id = id;
+        this.lote = lote;
+    }
+
+    public boolean isEmpty() {
+        return primerLote().isEmpty();
+    }
+
+    private List<T> primerLote() {
+        if (primero == null) primero = consulta.leer(0L, PageRequest.of(0, lote));
+        return primero;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<>() {
+            private List<T> actual = primerLote();
+            private int i;
+
+            @Override
+            public boolean hasNext() {
+                if (i < actual.size()) return true;
+                // un lote incompleto es el último
+                if (actual.size() < lote) return false;
+                actual = consulta.leer(id.de(actual.get(actual.size() - 1)), PageRequest.of(0, lote));
+                i = 0;
+                return !actual.isEmpty();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return actual.get(i++);
+            }
+        };
+    }
+}
@@ -0,0 +1,76 @@
+package com.urbancollection.ecommerce.infrastructure.paginacion;
+
+import java.util.Iterator;
+import java.util.List;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * PaginaPorCursor
+ *
+ * Una página de un listado de /web/** ordenado por id, leída con cursor
+ * ("los siguientes N después del id X") en lugar de OFFSET: la página 2.000
+ * cuesta lo mismo que la primera, y no hace falta un COUNT(*) por pedido.
+ *
+ * Se pide una fila de más para saber si hay página siguiente sin contar.
+ * Se recorre directo en la vista (th:each) y tiene isEmpty() como una lista.
+ */
+public record PaginaPorCursor<T>(List<T> filas, long despuesDe, Long siguiente, int tamano) implements Iterable<T> {
+
+    public static final int TAMANO_POR_DEFECTO = 50;
+    public static final int TAMANO_MAXIMO = 200;
+
+    /**
+     * Consulta:
+     * Las filas con id mayor a despuesDe, ordenadas por id. El tamaño lo da
+     * pagina (siempre PageRequest.of(0, n)), como PedidoJpaRepository.findSinEnvio.
+     */
+    @FunctionalInterface
+    public interface Consulta<T> {
+        List<T> leer(long despuesDe, Pageable pagina);
+    }
+
+    /**
+     * Id:
+     * Cómo sacar el id (el cursor) de una fila.
+     */
+    @FunctionalInterface
+    public interface Id<T> {
+        long de(T fila);
+    }
+
+    public static <T> PaginaPorCursor<T> leer(Consulta<T> consulta, Id<T> id, long despuesDe, Integer tamano) {
+        int n = tamano(tamano);
+        long desde = Math.max(despuesDe, 0L);
+        List<T> leidas = consulta.leer(desde, PageRequest.of(0, n + 1));
+        if (leidas.size() <= n) {
+            return new PaginaPorCursor<>(leidas, desde, null, n);
+        }
+        List<T> filas = leidas.subList(0, n);
+        return new PaginaPorCursor<>(filas, desde, id.de(filas.get(n - 1)), n);
+    }
+
+    // Tamaño pedido por la URL, entre 1 y TAMANO_MAXIMO (null = por defecto).
+    public static int tamano(Integer pedido) {
+        if (pedido == null) return TAMANO_POR_DEFECTO;
+        return Math.max(1, Math.min(pedido, TAMANO_MAXIMO));
+    }
+
+    public boolean isEmpty() {
+        return filas.isEmpty();
+    }
+
+    public boolean esPrimera() {
+        return despuesDe == 0L;
+    }
+
+    public boolean hayMas() {
+        return siguiente != null;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return filas.iterator();
+    }
+}
@@ -0,0 +1,119 @@
+package com.urbancollection.ecommerce.infrastructure.pagos;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.urbancollection.ecommerce.domain.entity.ventas.TransaccionPago;
+import com.urbancollection.ecommerce.domain.enums.MetodoDePago;
+import com.urbancollection.ecommerce.infrastructure.estados.ColumnaDeEstado;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * ConciliacionDePagos
+ *
+ * Reporte de conciliación: cantidad y total de pagos por día, MetodoDePago y
+ * estado. Lo calcula la BD (COUNT/SUM con GROUP BY) y las filas se van pasando
+ * a quien llama a medida que llegan, sin cargar transacciones en memoria.
+ *
+ * Para que finanzas lo pueda correr en horario de trabajo sin frenar el checkout:
+ * - Una consulta corta por día (rango por fecha sobre ix_transaccion_fecha_id),
+ *   en vez de una sola que recorra meses y sostenga locks todo ese tiempo.
+ * - Cada consulta tiene timeout y fetch size propios.
+ * - Una sola conciliación a la vez: si ya hay una corriendo, recorrer lanza
+ *   ConciliacionEnCurso antes de tocar la BD.
+ * - El rango está limitado a maximoDias.
+ */
+public class ConciliacionDePagos {
+
+    /**
+     * Fila:
+     * Totales de un día para un método y estado. metodo es null si la columna
+     * tiene un valor que no es un MetodoDePago conocido.
+     */
+    public record Fila(LocalDate dia, MetodoDePago metodo, String estado, long cantidad, BigDecimal total) {
+    }
+
+    public static class ConciliacionEnCurso extends RuntimeException {
+        public ConciliacionEnCurso() {
+            super("Ya hay una conciliación en curso");
+        }
+    }
+
+    private final JdbcTemplate lectura;
+    private final String sql;
+    private final ColumnaDeEstado<MetodoDePago> metodo;
+    private final int maximoDias;
+    private final Semaphore enCurso = new Semaphore(1);
+
+    public ConciliacionDePagos(JdbcTemplate jdbc, String tabla, String columnaFecha,
+                               ColumnaDeEstado<MetodoDePago> metodo, String columnaEstado, String columnaMonto,
+                               int timeoutSegundos, int maximoDias) {
+        // JdbcTemplate propio: timeout y fetch size solo para el reporte
+        this.lectura = new JdbcTemplate(jdbc.getDataSource());
+        this.lectura.setQueryTimeout(timeoutSegundos);
+        this.lectura.setFetchSize(500);
+        this.metodo = metodo;
+        this.maximoDias = maximoDias;
+        this.sql = "SELECT " + metodo.getColumna() + ", " + columnaEstado + ", COUNT(*), SUM(" + columnaMonto + ")"
+                + " FROM " + tabla
+                + " WHERE " + columnaFecha + " >= ? AND " + columnaFecha + " < ?"
+                + " GROUP BY " + metodo.getColumna() + ", " + columnaEstado
+                + " ORDER BY " + metodo.getColumna() + ", " + columnaEstado;
+    }
+
+    /**
+     * Toma la tabla y las columnas del mapeo de Hibernate.
+     */
+    public static ConciliacionDePagos paraPagos(EntityManagerFactory emf, JdbcTemplate jdbc,
+                                                int timeoutSegundos, int maximoDias) {
+        AbstractEntityPersister persister = (AbstractEntityPersister) emf.unwrap(SessionFactoryImplementor.class)
+                .getMappingMetamodel().getEntityDescriptor(TransaccionPago.class);
+        return new ConciliacionDePagos(jdbc, persister.getTableName(),
+                persister.getPropertyColumnNames("fecha")[0],
+                ColumnaDeEstado.de(persister, "metodo", MetodoDePago.class),
+                persister.getPropertyColumnNames("estado")[0],
+                persister.getPropertyColumnNames("monto")[0],
+                timeoutSegundos, maximoDias);
+    }
+
+    public int getMaximoDias() {
+        return maximoDias;
+    }
+
+    /**
+     * recorrer:
+     * Pasa a "fila" los totales de cada día entre desde y hasta (los dos
+     * incluidos), en orden de día, método y estado. Devuelve cuántas filas pasó.
+     */
+    public int recorrer(LocalDate desde, LocalDate hasta, Consumer<Fila> fila) {
+        long dias = ChronoUnit.DAYS.between(desde, hasta) + 1;
+        if (dias < 1 || dias > maximoDias) {
+            throw new IllegalArgumentException("El rango debe tener entre 1 y " + maximoDias + " días");
+        }
+        if (!enCurso.tryAcquire()) throw new ConciliacionEnCurso();
+        try {
+            int[] filas = {0};
+            for (LocalDate dia = desde; !dia.isAfter(hasta); dia = dia.plusDays(1)) {
+                LocalDate esteDia = dia;
+                lectura.query(sql, rs -> {
+                    BigDecimal total = rs.getBigDecimal(4);
+                    fila.accept(new Fila(esteDia, metodo.leer(rs.getObject(1)), rs.getString(2), rs.getLong(3),
+                            total != null ? total : BigDecimal.ZERO));
+                    filas[0]++;
+                }, Timestamp.valueOf(dia.atStartOfDay()), Timestamp.valueOf(dia.plusDays(1).atStartOfDay()));
+            }
+            return filas[0];
+        } finally {
+            enCurso.release();
+        }
+    }
+}
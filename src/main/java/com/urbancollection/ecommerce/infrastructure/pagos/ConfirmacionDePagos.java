@@ -0,0 +1,251 @@
+package com.urbancollection.ecommerce.infrastructure.pagos;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.urbancollection.ecommerce.domain.entity.ventas.TransaccionPago;
+import com.urbancollection.ecommerce.domain.enums.EstadoDePedido;
+import com.urbancollection.ecommerce.domain.enums.MetodoDePago;
+import com.urbancollection.ecommerce.infrastructure.estados.EstadosDePedido;
+import com.urbancollection.ecommerce.infrastructure.estados.EstadosDePedido.Cambio;
+import com.urbancollection.ecommerce.persistence.jpa.spring.PedidoJpaRepository;
+import com.urbancollection.ecommerce.persistence.jpa.spring.PedidoParaPago;
+import com.urbancollection.ecommerce.persistence.jpa.spring.TransaccionPagoJpaRepository;
+
+/**
+ * ConfirmacionDePagos
+ *
+ * Confirma el pago de un pedido: registra la TransaccionPago y pasa el pedido a
+ * PAGADO. Las pasarelas de pago reintentan mucho (y a veces en ráfaga) con la
+ * misma clave de idempotencia, así que los repetidos se resuelven en memoria:
+ *
+ * 1. (pedido, clave) se busca en un mapa en memoria. Si ya está, se devuelve
+ *    la misma respuesta sin tocar la BD; si la primera todavía se está
+ *    procesando, el repetido espera su resultado (una sola escritura por clave
+ *    aunque lleguen cien a la vez), hasta esperaMs: si la primera sigue trabada
+ *    (por ejemplo esperando un lock de la BD) el repetido recibe CONFLICTO y no
+ *    se queda con el hilo. Si la clave vuelve con otro método o monto, se rechaza.
+ * 2. La primera lee solo total y estado del pedido y compara el monto en memoria.
+ * 3. Una transacción corta: UPDATE condicional del estado (EstadosDePedido, que
+ *    solo pasa de PENDIENTE_PAGO a PAGADO una vez) + INSERT de la TransaccionPago.
+ *    Los eventos de la outbox van en esa misma transacción.
+ *
+ * La clave se guarda como referencia del pago: si la memoria ya no la tiene
+ * (reinicio, otra instancia, expiró), un reintento sobre un pedido ya pagado
+ * encuentra el pago por esa referencia y responde igual. Sin clave no hay
+ * memoria: el UPDATE condicional evita el doble cobro y el segundo recibe YA_PAGADO.
+ *
+ * Las respuestas viven ttlSegundos; las que fallan por una excepción o por
+ * CONFLICTO no se guardan, para que el reintento pueda volver a probar.
+ */
+public class ConfirmacionDePagos {
+
+    public static final String ESTADO_APROBADO = "APROBADO";
+
+    // Cada cuántas claves nuevas se barren las vencidas.
+    private static final int BARRIDO_CADA = 1024;
+
+    public enum Resultado {
+        CONFIRMADO,
+        NO_EXISTE,
+        MONTO_INVALIDO,
+        ESTADO_INVALIDO,
+        YA_PAGADO,
+        CLAVE_REUTILIZADA,
+        CONFLICTO
+    }
+
+    /**
+     * Confirmacion:
+     * Resultado de confirmar(...). Los datos del pago vienen solo si resultado es CONFIRMADO.
+     */
+    public record Confirmacion(Resultado resultado, Long pedidoId, Long transaccionId, MetodoDePago metodo,
+                               BigDecimal monto, String referencia, LocalDateTime fecha, String detalle) {
+
+        static Confirmacion error(Resultado resultado, Long pedidoId, String detalle) {
+            return new Confirmacion(resultado, pedidoId, null, null, null, null, null, detalle);
+        }
+
+        static Confirmacion de(TransaccionPago t, Long pedidoId) {
+            return new Confirmacion(Resultado.CONFIRMADO, pedidoId, t.getId(), t.getMetodo(), t.getMonto(),
+                    t.getReferencia(), t.getFecha(), null);
+        }
+    }
+
+    // repetida: la respuesta ya se había dado antes (no se escribió nada ahora).
+    public record Respuesta(Confirmacion confirmacion, boolean repetida) {
+    }
+
+    private record Entrada(String huella, CompletableFuture<Confirmacion> futuro, long venceMs) {
+    }
+
+    private final PedidoJpaRepository pedidos;
+    private final TransaccionPagoJpaRepository pagos;
+    private final EstadosDePedido estados;
+    private final TransactionTemplate escritura;
+    private final long ttlMs;
+    private final long esperaMs;
+
+    private final Map<String, Entrada> entradas = new ConcurrentHashMap<>();
+    private final AtomicLong nuevas = new AtomicLong();
+    private final AtomicLong confirmados = new AtomicLong();
+    private final AtomicLong repetidos = new AtomicLong();
+
+    public ConfirmacionDePagos(PedidoJpaRepository pedidos, TransaccionPagoJpaRepository pagos,
+                               EstadosDePedido estados, TransactionTemplate escritura, long ttlSegundos,
+                               long esperaMs) {
+        this.pedidos = pedidos;
+        this.pagos = pagos;
+        this.estados = estados;
+        this.escritura = escritura;
+        this.ttlMs = Math.max(1, ttlSegundos) * 1000;
+        this.esperaMs = Math.max(1, esperaMs);
+    }
+
+    // ===================== CONFIRMAR =====================
+
+    public Respuesta confirmar(long pedidoId, MetodoDePago metodo, BigDecimal monto, String clave) {
+        if (clave == null || clave.isBlank()) return procesar(pedidoId, metodo, monto, null);
+
+        String llave = pedidoId + ":" + clave;
+        String huella = metodo + "|" + monto.stripTrailingZeros().toPlainString();
+        long ahora = System.currentTimeMillis();
+
+        Entrada nueva = new Entrada(huella, new CompletableFuture<>(), ahora + ttlMs);
+        Entrada previa = entradas.putIfAbsent(llave, nueva);
+        if (previa != null && previa.venceMs() < ahora && entradas.replace(llave, previa, nueva)) {
+            previa = null;
+        }
+
+        if (previa != null) {
+            repetidos.incrementAndGet();
+            if (!previa.huella().equals(huella)) {
+                return new Respuesta(Confirmacion.error(Resultado.CLAVE_REUTILIZADA, pedidoId,
+                        "La clave " + clave + " ya se usó con otro método o monto"), true);
+            }
+            return new Respuesta(esperar(previa.futuro(), pedidoId), true);
+        }
+
+        if (nuevas.incrementAndGet() % BARRIDO_CADA == 0) barrer(ahora);
+        try {
+            Respuesta respuesta = procesar(pedidoId, metodo, monto, clave);
+            if (respuesta.confirmacion().resultado() == Resultado.CONFLICTO) entradas.remove(llave, nueva);
+            nueva.futuro().complete(respuesta.confirmacion());
+            return respuesta;
+        } catch (RuntimeException ex) {
+            entradas.remove(llave, nueva);
+            nueva.futuro().completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    public long getConfirmados() {
+        return confirmados.get();
+    }
+
+    // Repetidos resueltos en memoria, sin tocar la BD.
+    public long getRepetidos() {
+        return repetidos.get();
+    }
+
+    public int getClavesEnMemoria() {
+        return entradas.size();
+    }
+
+    // ===================== INTERNOS =====================
+
+    private Respuesta procesar(long pedidoId, MetodoDePago metodo, BigDecimal monto, String clave) {
+        PedidoParaPago pedido = pedidos.findParaPago(pedidoId).orElse(null);
+        if (pedido == null) {
+            return new Respuesta(Confirmacion.error(Resultado.NO_EXISTE, pedidoId,
+                    "No existe un pedido con id " + pedidoId), false);
+        }
+
+        // reintento que la memoria ya no tiene: el pago quedó guardado con la clave como referencia
+        if (clave != null && pedido.estado() == EstadoDePedido.PAGADO) {
+            TransaccionPago previo = pagos.findFirstByPedido_IdAndReferencia(pedidoId, clave).orElse(null);
+            if (previo != null) return new Respuesta(Confirmacion.de(previo, pedidoId), true);
+        }
+
+        if (pedido.total() == null || monto.compareTo(pedido.total()) != 0) {
+            return new Respuesta(Confirmacion.error(Resultado.MONTO_INVALIDO, pedidoId,
+                    "El monto " + monto + " no coincide con el total del pedido " + pedido.total()), false);
+        }
+        if (pedido.estado() == EstadoDePedido.PAGADO) {
+            return new Respuesta(Confirmacion.error(Resultado.YA_PAGADO, pedidoId,
+                    "El pedido " + pedidoId + " ya está pagado"), false);
+        }
+        if (!EstadosDePedido.transicionValida(pedido.estado(), EstadoDePedido.PAGADO)) {
+            return new Respuesta(Confirmacion.error(Resultado.ESTADO_INVALIDO, pedidoId,
+                    "Un pedido " + pedido.estado() + " no se puede pagar"), false);
+        }
+
+        return new Respuesta(escritura.execute(tx -> registrar(pedidoId, metodo, monto, clave)), false);
+    }
+
+    // Dentro de la transacción: primero el UPDATE condicional; si no pasó, no se inserta nada.
+    private Confirmacion registrar(long pedidoId, MetodoDePago metodo, BigDecimal monto, String clave) {
+        Cambio cambio = estados.cambiar(pedidoId, EstadoDePedido.PAGADO);
+        switch (cambio.resultado()) {
+            case CAMBIADO:
+                break;
+            case SIN_CAMBIOS:
+                return Confirmacion.error(Resultado.YA_PAGADO, pedidoId, "El pedido " + pedidoId + " ya está pagado");
+            case TRANSICION_INVALIDA:
+                return Confirmacion.error(Resultado.ESTADO_INVALIDO, pedidoId,
+                        "Un pedido " + cambio.anterior() + " no se puede pagar");
+            case NO_EXISTE:
+                return Confirmacion.error(Resultado.NO_EXISTE, pedidoId, "No existe un pedido con id " + pedidoId);
+            default:
+                return Confirmacion.error(Resultado.CONFLICTO, pedidoId,
+                        "El pedido " + pedidoId + " cambió mientras se confirmaba el pago, reintentar");
+        }
+
+        TransaccionPago pago = new TransaccionPago();
+        pago.setPedido(pedidos.getReferenceById(pedidoId));
+        pago.setMetodo(metodo);
+        pago.setMonto(monto);
+        pago.setEstado(ESTADO_APROBADO);
+        pago.setReferencia(clave);
+        pago.setFecha(LocalDateTime.now());
+        pago = pagos.save(pago);
+
+        confirmados.incrementAndGet();
+        return Confirmacion.de(pago, pedidoId);
+    }
+
+    private Confirmacion esperar(CompletableFuture<Confirmacion> futuro, long pedidoId) {
+        try {
+            return futuro.get(esperaMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            return enProceso(pedidoId);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return enProceso(pedidoId);
+        } catch (ExecutionException ex) {
+            // el original falló: el repetido recibe el mismo error
+            if (ex.getCause() instanceof RuntimeException r) throw r;
+            throw new CompletionException(ex.getCause());
+        }
+    }
+
+    // No se guarda: el próximo reintento vuelve a esperar (o encuentra la respuesta).
+    private static Confirmacion enProceso(long pedidoId) {
+        return Confirmacion.error(Resultado.CONFLICTO, pedidoId,
+                "El pago con esa clave todavía se está procesando, intente de nuevo");
+    }
+
+    private void barrer(long ahora) {
+        entradas.values().removeIf(e -> e.venceMs() < ahora && e.futuro().isDone());
+    }
+}
@@ -0,0 +1,216 @@
+package com.urbancollection.ecommerce.infrastructure.pricing;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+import com.urbancollection.ecommerce.domain.entity.catalogo.Cupon;
+import com.urbancollection.ecommerce.domain.entity.ventas.ItemPedido;
+import com.urbancollection.ecommerce.domain.entity.ventas.Pedido;
+import com.urbancollection.ecommerce.domain.enums.TipoDescuento;
+
+/**
+ * MotorDePrecios
+ *
+ * Calcula subtotal, descuento, envío y total de un pedido en una sola pasada.
+ *
+ * Por dentro todo se hace con long en centavos (sin crear BigDecimal por línea);
+ * solo se convierte a BigDecimal al entrar (precios, cupón) y al salir (Totales).
+ *
+ * Reglas del descuento (las mismas que tenía el checkout web):
+ * - PORCENTAJE: subtotal * valor / 100, redondeado HALF_UP, con tope si lo hay.
+ * - MONTO_FIJO: el valor fijo.
+ * - En los dos casos el descuento nunca pasa del subtotal.
+ * - Si el cupón tiene mínimo de compra y no se llega, no hay descuento.
+ */
+public class MotorDePrecios {
+
+    // El porcentaje se guarda con 4 decimales: 15% -> 150000.
+    private static final long ESCALA_PORCENTAJE = 1_000_000L;
+
+    /**
+     * Regla:
+     * Cupón "compilado" a centavos. Se arma una vez (por ejemplo en CuponCache)
+     * y se reutiliza en cada checkout.
+     */
+    public static final class Regla {
+        private final TipoDescuento tipo;
+        private final long valor;              // centavos (MONTO_FIJO) o porcentaje * 10^4 (PORCENTAJE)
+        private final long topeCentavos;       // -1 = sin tope
+        private final long minimoCentavos;     // 0 = sin mínimo
+
+        private Regla(TipoDescuento tipo, long valor, long topeCentavos, long minimoCentavos) {
+            this.tipo = tipo;
+            this.valor = valor;
+            this.topeCentavos = topeCentavos;
+            this.minimoCentavos = minimoCentavos;
+        }
+
+        public TipoDescuento getTipo() { return tipo; }
+    }
+
+    /**
+     * Calculo:
+     * Acumulador de líneas de un carrito. Se usa mientras se recorren los productos
+     * y al final se cierra con cerrar(...).
+     */
+    public static final class Calculo {
+        private long subtotalCentavos;
+
+        public Calculo agregarLinea(BigDecimal precioUnitario, int cantidad) {
+            subtotalCentavos = Math.addExact(subtotalCentavos,
+                    Math.multiplyExact(aCentavos(precioUnitario), (long) cantidad));
+            return this;
+        }
+
+        public long getSubtotalCentavos() {
+            return subtotalCentavos;
+        }
+    }
+
+    /**
+     * Totales:
+     * Resultado del cálculo. Los campos van en centavos y los getters devuelven BigDecimal
+     * con 2 decimales para guardar en el Pedido.
+     */
+    public record Totales(long subtotalCentavos, long descuentoCentavos, long envioCentavos, long totalCentavos) {
+        public BigDecimal getSubtotal() { return aBigDecimal(subtotalCentavos); }
+        public BigDecimal getDescuento() { return aBigDecimal(descuentoCentavos); }
+        public BigDecimal getEnvio() { return aBigDecimal(envioCentavos); }
+        public BigDecimal getTotal() { return aBigDecimal(totalCentavos); }
+
+        // Copia los cuatro montos al pedido.
+        public void aplicarA(Pedido pedido) {
+            pedido.setSubtotal(getSubtotal());
+            pedido.setDescuento(getDescuento());
+            pedido.setEnvio(getEnvio());
+            pedido.setTotal(getTotal());
+        }
+    }
+
+    /**
+     * ResumenVentas:
+     * Suma y promedio de los totales de un grupo de pedidos (para reportes).
+     */
+    public record ResumenVentas(BigDecimal totalVentas, BigDecimal promedioVenta) {
+    }
+
+    // ===================== COMPILAR CUPÓN =====================
+
+    // Pasa un cupón a Regla. Devuelve null si no tiene tipo o valor (no descuenta nada).
+    public static Regla compilar(Cupon cupon) {
+        if (cupon == null) return null;
+        return compilar(cupon.getTipo(), cupon.getValorDescuento(), cupon.getTopeDescuento(), cupon.getMinimoCompra());
+    }
+
+    public static Regla compilar(TipoDescuento tipo, BigDecimal valorDescuento,
+                                 BigDecimal topeDescuento, BigDecimal minimoCompra) {
+        if (tipo == null || valorDescuento == null) return null;
+
+        long valor = tipo == TipoDescuento.PORCENTAJE
+                ? valorDescuento.setScale(4, RoundingMode.HALF_UP).unscaledValue().longValueExact()
+                : aCentavos(valorDescuento);
+        long tope = topeDescuento != null ? aCentavos(topeDescuento) : -1L;
+        long minimo = minimoCompra != null ? aCentavos(minimoCompra) : 0L;
+        return new Regla(tipo, valor, tope, minimo);
+    }
+
+    // ===================== CALCULAR =====================
+
+    public Calculo nuevoCalculo() {
+        return new Calculo();
+    }
+
+    // Cierra el cálculo: aplica la regla (puede ser null = sin cupón) y suma el envío.
+    public Totales cerrar(Calculo calculo, Regla regla, BigDecimal envio) {
+        long subtotal = calculo.subtotalCentavos;
+        long descuento = descuentoCentavos(subtotal, regla);
+        long envioCentavos = aCentavos(envio);
+        long total = Math.addExact(subtotal - descuento, envioCentavos);
+        return new Totales(subtotal, descuento, envioCentavos, total);
+    }
+
+    // Atajo para pedidos ya armados: recorre los items (precio unitario guardado) una sola vez.
+    public Totales calcular(List<ItemPedido> items, Regla regla, BigDecimal envio) {
+        Calculo calculo = nuevoCalculo();
+        for (ItemPedido item : items) {
+            BigDecimal precio = item.getPrecioUnitario() != null
+                    ? item.getPrecioUnitario()
+                    : item.getProducto().getPrecio();
+            calculo.agregarLinea(precio, item.getCantidad());
+        }
+        return cerrar(calculo, regla, envio);
+    }
+
+    // Suma los totales (ignorando null) y saca el promedio entre todos los pedidos.
+    public ResumenVentas resumirVentas(List<Pedido> pedidos) {
+        long suma = 0L;
+        for (Pedido pedido : pedidos) {
+            if (pedido.getTotal() != null) {
+                suma = Math.addExact(suma, aCentavos(pedido.getTotal()));
+            }
+        }
+
+        return resumen(suma, pedidos.size());
+    }
+
+    // Lo mismo con la suma y la cantidad ya calculadas en la BD (SUM ignora los null, COUNT no).
+    public ResumenVentas resumirVentas(BigDecimal totalVentas, long pedidos) {
+        return resumen(aCentavos(totalVentas), pedidos);
+    }
+
+    private static ResumenVentas resumen(long suma, long pedidos) {
+        BigDecimal promedio = BigDecimal.ZERO;
+        if (pedidos > 0) {
+            promedio = aBigDecimal(suma).divide(BigDecimal.valueOf(pedidos), 2, RoundingMode.HALF_UP);
+        }
+        return new ResumenVentas(aBigDecimal(suma), promedio);
+    }
+
+    long descuentoCentavos(long subtotal, Regla regla) {
+        if (regla == null || subtotal <= 0 || subtotal < regla.minimoCentavos) return 0L;
+
+        long descuento;
+        switch (regla.tipo) {
+            case PORCENTAJE:
+                descuento = porcentaje(subtotal, regla.valor);
+                if (regla.topeCentavos >= 0 && descuento > regla.topeCentavos) {
+                    descuento = regla.topeCentavos;
+                }
+                break;
+            case MONTO_FIJO:
+                descuento = regla.valor;
+                break;
+            default:
+                descuento = 0L;
+        }
+        return Math.max(0L, Math.min(descuento, subtotal));
+    }
+
+    // subtotal * porcentaje / 10^6 con redondeo HALF_UP (valores positivos).
+    private static long porcentaje(long subtotal, long porcentajeE4) {
+        long producto = subtotal * porcentajeE4;
+        if (Math.multiplyHigh(subtotal, porcentajeE4) != 0 || producto < 0) {
+            // Montos enormes: caigo a BigDecimal para no desbordar.
+            return BigDecimal.valueOf(subtotal)
+                    .multiply(BigDecimal.valueOf(porcentajeE4))
+                    .divide(BigDecimal.valueOf(ESCALA_PORCENTAJE), 0, RoundingMode.HALF_UP)
+                    .longValueExact();
+        }
+        return (producto + ESCALA_PORCENTAJE / 2) / ESCALA_PORCENTAJE;
+    }
+
+    // ===================== CONVERSIONES (BORDES) =====================
+
+    public static long aCentavos(BigDecimal monto) {
+        if (monto == null) return 0L;
+        // Los precios ya vienen con 2 decimales: scaleByPowerOfTen no toca el valor interno
+        // y longValueExact lo lee directo (sin pasar por BigInteger).
+        BigDecimal dosDecimales = monto.scale() == 2 ? monto : monto.setScale(2, RoundingMode.HALF_UP);
+        return dosDecimales.scaleByPowerOfTen(2).longValueExact();
+    }
+
+    public static BigDecimal aBigDecimal(long centavos) {
+        return BigDecimal.valueOf(centavos, 2);
+    }
+}
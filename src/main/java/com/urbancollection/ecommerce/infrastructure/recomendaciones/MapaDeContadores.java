@@ -0,0 +1,113 @@
+package com.urbancollection.ecommerce.infrastructure.recomendaciones;
+
+import java.util.Arrays;
+
+/**
+ * MapaDeContadores
+ *
+ * Mapa long -> long con direccionamiento abierto (sondeo lineal) sobre dos
+ * arreglos primitivos. Sirve para contar por id de producto (o por par de
+ * ids) sin crear un Long y una entrada de HashMap por cada clave.
+ *
+ * Solo se suma: no hay borrado (un contador en 0 queda guardado).
+ * No es seguro para varios hilos.
+ */
+public final class MapaDeContadores {
+
+    @FunctionalInterface
+    public interface Visitante {
+        void visitar(long clave, long valor);
+    }
+
+    private static final float CARGA_MAXIMA = 0.6f;
+
+    // La clave 0 marca un casillero libre; el contador de la clave 0 va aparte.
+    private long[] claves;
+    private long[] valores;
+    private int cantidad;
+    private boolean tieneCero;
+    private long valorCero;
+
+    public MapaDeContadores() {
+        this(16);
+    }
+
+    public MapaDeContadores(int capacidadInicial) {
+        int n = Integer.highestOneBit(Math.max(4, (int) (capacidadInicial / CARGA_MAXIMA)) - 1) << 1;
+        claves = new long[n];
+        valores = new long[n];
+    }
+
+    // Suma delta al contador de la clave y devuelve el valor nuevo.
+    public long sumar(long clave, long delta) {
+        if (clave == 0) {
+            if (!tieneCero) {
+                tieneCero = true;
+                cantidad++;
+            }
+            return valorCero += delta;
+        }
+        int pos = buscar(clave);
+        if (claves[pos] == 0) {
+            claves[pos] = clave;
+            valores[pos] = delta;
+            if (++cantidad > claves.length * CARGA_MAXIMA) agrandar();
+            return delta;
+        }
+        return valores[pos] += delta;
+    }
+
+    public long obtener(long clave) {
+        if (clave == 0) return valorCero;
+        int pos = buscar(clave);
+        return claves[pos] == 0 ? 0 : valores[pos];
+    }
+
+    public int tamanio() {
+        return cantidad;
+    }
+
+    public void paraCada(Visitante visitante) {
+        if (tieneCero) visitante.visitar(0, valorCero);
+        for (int i = 0; i < claves.length; i++) {
+            if (claves[i] != 0) visitante.visitar(claves[i], valores[i]);
+        }
+    }
+
+    public void vaciar() {
+        Arrays.fill(claves, 0);
+        Arrays.fill(valores, 0);
+        cantidad = 0;
+        tieneCero = false;
+        valorCero = 0;
+    }
+
+    private int buscar(long clave) {
+        int mascara = claves.length - 1;
+        int pos = mezclar(clave) & mascara;
+        while (claves[pos] != 0 && claves[pos] != clave) {
+            pos = (pos + 1) & mascara;
+        }
+        return pos;
+    }
+
+    private void agrandar() {
+        long[] viejasClaves = claves;
+        long[] viejosValores = valores;
+        claves = new long[viejasClaves.length * 2];
+        valores = new long[viejasClaves.length * 2];
+        for (int i = 0; i < viejasClaves.length; i++) {
+            if (viejasClaves[i] != 0) {
+                int pos = buscar(viejasClaves[i]);
+                claves[pos] = viejasClaves[i];
+                valores[pos] = viejosValores[i];
+            }
+        }
+    }
+
+    // Los ids suelen ser consecutivos: los mezclo para que no caigan todos juntos.
+    private static int mezclar(long clave) {
+        long h = clave * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,340 @@
+package com.urbancollection.ecommerce.infrastructure.recomendaciones;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.urbancollection.ecommerce.infrastructure.deseos.ConjuntoDeIds;
+import com.urbancollection.ecommerce.persistence.jpa.spring.ItemPedidoJpaRepository;
+import com.urbancollection.ecommerce.persistence.jpa.spring.ListaDeseosJpaRepository;
+
+/**
+ * Recomendaciones
+ *
+ * Agregados precalculados para las páginas de producto:
+ * - "Los más deseados": top N de productos por cantidad de listas de deseos.
+ * - "Comprados juntos": por cada producto, los K productos que más veces
+ *   aparecen con él en el mismo pedido.
+ *
+ * Un hilo de fondo los mantiene al día y los endpoints leen fotos inmutables
+ * en memoria (nunca van a la BD).
+ *
+ * Comprados juntos (incremental):
+ * - Se guarda el último pedido procesado. En cada corrida se leen en streaming
+ *   solo los items de pedidos con id mayor, agrupados por pedido.
+ * - Por cada par de productos del pedido se suma 1 en los contadores de los dos
+ *   (un MapaDeContadores de vecinos por producto).
+ * - Solo se recalcula el top K de los productos que aparecieron en pedidos
+ *   nuevos. El costo depende de los pedidos nuevos, no del historial.
+ * - Los pedidos que se confirman con un id menor al último procesado (transacciones
+ *   largas) o los items editados después no se ven hasta recalcularTodo(), que
+ *   corre sola cada recalcularTodoMs (0 = nunca) y mientras tanto se siguen
+ *   sirviendo las fotos anteriores.
+ *
+ * Más deseados:
+ * - ListasDeDeseos avisa cada alta y baja (+1 / -1) y se aplican en la corrida.
+ * - Cada tanto se vuelve a contar con un GROUP BY para corregir desvíos
+ *   (altas por fuera de la aplicación, avisos que se cruzan con el conteo).
+ */
+public class Recomendaciones {
+
+    private static final Logger log = LoggerFactory.getLogger(Recomendaciones.class);
+
+    /**
+     * Ranking:
+     * Foto inmutable: ids de producto y su contador, de mayor a menor.
+     */
+    public record Ranking(long[] productoIds, long[] veces) {
+
+        static final Ranking VACIO = new Ranking(new long[0], new long[0]);
+
+        public int tamanio() {
+            return productoIds.length;
+        }
+
+        public List<Map<String, Long>> primeros(int limite) {
+            int n = Math.min(Math.max(0, limite), productoIds.length);
+            List<Map<String, Long>> lista = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                lista.add(Map.of("productoId", productoIds[i], "veces", veces[i]));
+            }
+            return lista;
+        }
+    }
+
+    private final ItemPedidoJpaRepository itemPedidoRepository;
+    private final ListaDeseosJpaRepository listaDeseosRepository;
+    private final TransactionTemplate lectura;
+    private final int topDeseados;
+    private final int topRelacionados;
+    private final long refrescoMs;
+    private final long recontarDeseosMs;
+    private final long recalcularTodoMs;
+
+    // Estado que solo toca el hilo de fondo (o quien tenga el lock de la instancia).
+    private final MapaDeContadores deseosPorProducto = new MapaDeContadores();
+    private final MapaDeContadores indiceDeVecinos = new MapaDeContadores();
+    private final List<MapaDeContadores> vecinos = new ArrayList<>();
+    private long ultimoPedido;
+    private long ultimoConteoDeseos;
+
+    // Avisos de ListasDeDeseos: {productoId, delta}.
+    private final ConcurrentLinkedQueue<long[]> cambiosDeseos = new ConcurrentLinkedQueue<>();
+
+    // Fotos que leen los endpoints.
+    private volatile Ranking masDeseados = Ranking.VACIO;
+    private final ConcurrentHashMap<Long, Ranking> compradosJuntos = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService tareas;
+
+    public Recomendaciones(ItemPedidoJpaRepository itemPedidoRepository,
+                           ListaDeseosJpaRepository listaDeseosRepository,
+                           TransactionTemplate lectura,
+                           int topDeseados, int topRelacionados,
+                           long refrescoMs, long recontarDeseosMs, long recalcularTodoMs) {
+        this.itemPedidoRepository = itemPedidoRepository;
+        this.listaDeseosRepository = listaDeseosRepository;
+        this.lectura = lectura;
+        this.topDeseados = topDeseados;
+        this.topRelacionados = topRelacionados;
+        this.refrescoMs = refrescoMs;
+        this.recontarDeseosMs = recontarDeseosMs;
+        this.recalcularTodoMs = recalcularTodoMs;
+    }
+
+    // ===================== CICLO DE VIDA =====================
+
+    public void iniciar() {
+        tareas = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "recomendaciones");
+            t.setDaemon(true);
+            return t;
+        });
+        // La primera corrida procesa todo el historial: va en el hilo de fondo para no demorar el arranque.
+        tareas.scheduleWithFixedDelay(this::refrescarSeguro, 0, refrescoMs, TimeUnit.MILLISECONDS);
+        // Mismo hilo: nunca se cruza con un refresco.
+        if (recalcularTodoMs > 0) {
+            tareas.scheduleWithFixedDelay(this::recalcularTodoSeguro, recalcularTodoMs, recalcularTodoMs,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void cerrar() {
+        if (tareas != null) tareas.shutdownNow();
+    }
+
+    // ===================== CONSULTAS =====================
+
+    public Ranking masDeseados() {
+        return masDeseados;
+    }
+
+    public Ranking compradosJuntos(Long productoId) {
+        return compradosJuntos.getOrDefault(productoId, Ranking.VACIO);
+    }
+
+    // Lo llama ListasDeDeseos con cada alta (+1) o baja (-1).
+    public void cambioEnDeseos(long productoId, int delta) {
+        cambiosDeseos.add(new long[] {productoId, delta});
+    }
+
+    // ===================== REFRESCO =====================
+
+    /**
+     * refrescar:
+     * Una corrida del trabajo de fondo. Devuelve cuántos pedidos nuevos se procesaron.
+     */
+    public synchronized int refrescar() {
+        int pedidos = procesarPedidosNuevos();
+        actualizarDeseos();
+        return pedidos;
+    }
+
+    /**
+     * recalcularTodo:
+     * Descarta los contadores y vuelve a procesar el historial completo. Las fotos
+     * se reemplazan al terminar (mientras tanto se sirven las anteriores) y se
+     * sacan las de productos que ya no tienen pares.
+     */
+    public synchronized void recalcularTodo() {
+        ultimoPedido = 0;
+        ultimoConteoDeseos = 0;
+        indiceDeVecinos.vaciar();
+        vecinos.clear();
+        refrescar();
+        compradosJuntos.keySet().removeIf(producto -> indiceDeVecinos.obtener(producto) == 0);
+    }
+
+    private void refrescarSeguro() {
+        try {
+            int pedidos = refrescar();
+            if (pedidos > 0) log.debug("Recomendaciones: {} pedidos nuevos procesados", pedidos);
+        } catch (RuntimeException ex) {
+            // Reintenta en la próxima corrida; las fotos anteriores se siguen sirviendo.
+            log.warn("No se pudieron actualizar las recomendaciones: {}", ex.getMessage());
+        }
+    }
+
+    private void recalcularTodoSeguro() {
+        try {
+            recalcularTodo();
+            log.debug("Recomendaciones: historial recalculado hasta el pedido {}", ultimoPedido);
+        } catch (RuntimeException ex) {
+            // Lo ya procesado queda y los refrescos siguen desde ahí; se reintenta en la próxima vuelta.
+            log.warn("No se pudieron recalcular las recomendaciones: {}", ex.getMessage());
+        }
+    }
+
+    private int procesarPedidosNuevos() {
+        ConjuntoDeIds tocados = new ConjuntoDeIds();
+        PedidoEnCurso actual = new PedidoEnCurso(ultimoPedido);
+
+        try {
+            lectura.executeWithoutResult(tx -> {
+                try (Stream<Object[]> filas = itemPedidoRepository.streamPedidoYProductoDesde(ultimoPedido)) {
+                    Iterator<Object[]> it = filas.iterator();
+                    while (it.hasNext()) {
+                        Object[] fila = it.next();
+                        long pedido = (Long) fila[0];
+                        if (pedido != actual.id) {
+                            contarPares(actual, tocados);
+                            ultimoPedido = actual.id;
+                            actual.empezar(pedido);
+                        }
+                        if (fila[1] != null) actual.agregar((Long) fila[1]);
+                    }
+                }
+                contarPares(actual, tocados);
+                ultimoPedido = actual.id;
+            });
+        } finally {
+            // Si la lectura se corta, lo ya contado queda y la próxima corrida sigue desde ultimoPedido.
+            for (long producto : tocados.aArreglo()) {
+                int indice = (int) indiceDeVecinos.obtener(producto);
+                compradosJuntos.put(producto, mejores(vecinos.get(indice - 1), topRelacionados));
+            }
+        }
+        return actual.procesados;
+    }
+
+    // Productos del pedido que se está leyendo del stream.
+    private static final class PedidoEnCurso {
+        long id;
+        int procesados;
+        long[] productos = new long[8];
+        int cantidad;
+
+        PedidoEnCurso(long id) {
+            this.id = id;
+        }
+
+        void empezar(long pedido) {
+            id = pedido;
+            cantidad = 0;
+            procesados++;
+        }
+
+        void agregar(long producto) {
+            if (cantidad == productos.length) productos = Arrays.copyOf(productos, cantidad * 2);
+            productos[cantidad++] = producto;
+        }
+    }
+
+    // Suma 1 a cada par distinto de productos del pedido (en los dos sentidos).
+    private void contarPares(PedidoEnCurso pedido, ConjuntoDeIds tocados) {
+        long[] productos = pedido.productos;
+        int n = pedido.cantidad;
+        if (n < 2) return;
+
+        // ordeno y saco repetidos (el mismo producto en dos items cuenta una vez)
+        Arrays.sort(productos, 0, n);
+        int distintos = 1;
+        for (int i = 1; i < n; i++) {
+            if (productos[i] != productos[distintos - 1]) productos[distintos++] = productos[i];
+        }
+
+        for (int i = 0; i < distintos; i++) {
+            MapaDeContadores deI = vecinosDe(productos[i]);
+            for (int j = i + 1; j < distintos; j++) {
+                deI.sumar(productos[j], 1);
+                vecinosDe(productos[j]).sumar(productos[i], 1);
+            }
+            tocados.agregar(productos[i]);
+        }
+    }
+
+    private MapaDeContadores vecinosDe(long producto) {
+        int indice = (int) indiceDeVecinos.obtener(producto);
+        if (indice == 0) {
+            vecinos.add(new MapaDeContadores(8));
+            indice = vecinos.size();
+            indiceDeVecinos.sumar(producto, indice);
+        }
+        return vecinos.get(indice - 1);
+    }
+
+    private void actualizarDeseos() {
+        long ahora = System.currentTimeMillis();
+        boolean cambio = false;
+
+        if (ultimoConteoDeseos == 0 || ahora - ultimoConteoDeseos >= recontarDeseosMs) {
+            // Los avisos anteriores ya están en el conteo.
+            cambiosDeseos.clear();
+            deseosPorProducto.vaciar();
+            for (Object[] fila : listaDeseosRepository.contarPorProducto()) {
+                deseosPorProducto.sumar((Long) fila[0], ((Number) fila[1]).longValue());
+            }
+            ultimoConteoDeseos = ahora;
+            cambio = true;
+        }
+
+        long[] aviso;
+        while ((aviso = cambiosDeseos.poll()) != null) {
+            deseosPorProducto.sumar(aviso[0], aviso[1]);
+            cambio = true;
+        }
+
+        if (cambio) masDeseados = mejores(deseosPorProducto, topDeseados);
+    }
+
+    /**
+     * mejores:
+     * Los k de mayor contador (solo los positivos), de mayor a menor.
+     * Guarda un arreglo ordenado de k y solo inserta si supera al último.
+     */
+    static Ranking mejores(MapaDeContadores contadores, int k) {
+        if (k <= 0) return Ranking.VACIO;
+        long[] ids = new long[k];
+        long[] veces = new long[k];
+        int[] n = {0};
+
+        contadores.paraCada((id, valor) -> {
+            if (valor <= 0) return;
+            if (n[0] == k && (valor < veces[k - 1] || (valor == veces[k - 1] && id > ids[k - 1]))) return;
+
+            int pos = n[0] < k ? n[0]++ : k - 1;
+            // corro hacia atrás mientras el nuevo sea mejor (más veces o, empatado, menor id)
+            while (pos > 0 && (valor > veces[pos - 1] || (valor == veces[pos - 1] && id < ids[pos - 1]))) {
+                ids[pos] = ids[pos - 1];
+                veces[pos] = veces[pos - 1];
+                pos--;
+            }
+            ids[pos] = id;
+            veces[pos] = valor;
+        });
+
+        return new Ranking(Arrays.copyOf(ids, n[0]), Arrays.copyOf(veces, n[0]));
+    }
+}
@@ -0,0 +1,419 @@
+package com.urbancollection.ecommerce.infrastructure.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * ArbolDePrefijos
+ *
+ * Árbol radix (trie comprimido) para autocompletar textos cortos, devolviendo
+ * los k más populares que empiezan con lo que se escribió.
+ *
+ * - Las claves se normalizan igual que en BuscadorDeProductos (minúsculas, sin acentos).
+ * - Cada texto se indexa desde el inicio de cada palabra (hasta 4), así "oxf"
+ *   encuentra "Camisa Oxford".
+ * - Cada nodo guarda la mayor popularidad de su subárbol: la búsqueda recorre
+ *   primero las ramas más populares y corta apenas junta k resultados.
+ *
+ * Por cada entrada se guarda solo id, texto y popularidad (en arreglos planos),
+ * no la entidad completa.
+ */
+public class ArbolDePrefijos {
+
+    private static final int MAX_PALABRAS = 4;
+    private static final Nodo[] SIN_HIJOS = new Nodo[0];
+    private static final int[] SIN_ENTRADAS = new int[0];
+
+    /**
+     * Coincidencia:
+     * Un texto que empieza con el prefijo buscado.
+     */
+    public record Coincidencia(Long id, String texto, int popularidad) {
+    }
+
+    private static final class Nodo {
+        char[] etiqueta;                 // tramo de la clave que lleva a este nodo
+        Nodo[] hijos = SIN_HIJOS;        // ordenados por la primera letra de su etiqueta
+        int[] entradas = SIN_ENTRADAS;   // entradas cuya clave termina aquí
+        int maxPopularidad;              // mayor popularidad en todo el subárbol
+
+        Nodo(char[] etiqueta) {
+            this.etiqueta = etiqueta;
+        }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Nodo raiz = new Nodo(new char[0]);
+
+    // Entradas en arreglos paralelos; los lugares libres se reutilizan.
+    private long[] ids = new long[64];
+    private String[] textos = new String[64];
+    private int[] popularidades = new int[64];
+    private int usados;
+    private final BitSet libres = new BitSet();
+    private final Map<Long, Integer> lugarPorId = new HashMap<>();
+
+    // ===================== ESCRITURA =====================
+
+    // Agrega o reemplaza el texto de un id.
+    public void poner(Long id, String texto, int popularidad) {
+        if (id == null || texto == null || texto.isBlank()) return;
+        lock.writeLock().lock();
+        try {
+            Integer anterior = lugarPorId.get(id);
+            if (anterior != null) {
+                // Mismo texto y popularidad que no baja: alcanza con subir los máximos.
+                // Si baja, los máximos del camino quedarían altos: quito y vuelvo a poner.
+                if (textos[anterior].equals(texto) && popularidad >= popularidades[anterior]) {
+                    subirPopularidad(anterior, popularidad - popularidades[anterior]);
+                    return;
+                }
+                quitarSinLock(id);
+            }
+
+            int lugar = nuevoLugar();
+            ids[lugar] = id;
+            textos[lugar] = texto;
+            popularidades[lugar] = Math.max(0, popularidad);
+            lugarPorId.put(id, lugar);
+            for (String clave : claves(texto)) {
+                insertar(raiz, clave, 0, lugar);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void quitar(Long id) {
+        if (id == null) return;
+        lock.writeLock().lock();
+        try {
+            quitarSinLock(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Suma popularidad (por ejemplo una venta). Solo crece, así que alcanza con subir los máximos del camino.
+    public void sumarPopularidad(Long id, int cantidad) {
+        if (id == null || cantidad <= 0) return;
+        lock.writeLock().lock();
+        try {
+            Integer lugar = lugarPorId.get(id);
+            if (lugar != null) subirPopularidad(lugar, cantidad);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void vaciar() {
+        lock.writeLock().lock();
+        try {
+            raiz.hijos = SIN_HIJOS;
+            raiz.entradas = SIN_ENTRADAS;
+            raiz.maxPopularidad = 0;
+            Arrays.fill(textos, 0, usados, null);
+            usados = 0;
+            libres.clear();
+            lugarPorId.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Popularidad actual de un id (0 si no está).
+    public int popularidad(Long id) {
+        lock.readLock().lock();
+        try {
+            Integer lugar = lugarPorId.get(id);
+            return lugar != null ? popularidades[lugar] : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int tamanio() {
+        lock.readLock().lock();
+        try {
+            return lugarPorId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ===================== LECTURA =====================
+
+    /**
+     * buscar:
+     * Los k textos más populares que tienen alguna palabra que empieza con "prefijo".
+     */
+    public List<Coincidencia> buscar(String prefijo, int k) {
+        String clave = normalizar(prefijo);
+        if (clave.isEmpty() || k <= 0) return List.of();
+
+        lock.readLock().lock();
+        try {
+            Nodo nodo = bajar(clave);
+            if (nodo == null) return List.of();
+
+            // Cola con nodos (por su máximo) y entradas (por su popularidad), la mayor primero.
+            // A igual puntaje salen antes las entradas, y entre entradas la de texto más corto.
+            PriorityQueue<Object[]> cola = new PriorityQueue<>((a, b) -> {
+                int c = Integer.compare((int) b[0], (int) a[0]);
+                if (c != 0) return c;
+                boolean aEsEntrada = a[1] instanceof Integer;
+                boolean bEsEntrada = b[1] instanceof Integer;
+                if (aEsEntrada != bEsEntrada) return aEsEntrada ? -1 : 1;
+                if (!aEsEntrada) return 0;
+                return Integer.compare(textos[(int) a[1]].length(), textos[(int) b[1]].length());
+            });
+            cola.add(new Object[] {nodo.maxPopularidad, nodo});
+
+            List<Coincidencia> resultado = new ArrayList<>(k);
+            BitSet vistos = new BitSet();
+            while (!cola.isEmpty() && resultado.size() < k) {
+                Object[] item = cola.poll();
+                if (item[1] instanceof Integer lugar) {
+                    if (!vistos.get(lugar)) {
+                        vistos.set(lugar);
+                        resultado.add(new Coincidencia(ids[lugar], textos[lugar], popularidades[lugar]));
+                    }
+                    continue;
+                }
+                Nodo n = (Nodo) item[1];
+                for (int lugar : n.entradas) {
+                    cola.add(new Object[] {popularidades[lugar], lugar});
+                }
+                for (Nodo hijo : n.hijos) {
+                    cola.add(new Object[] {hijo.maxPopularidad, hijo});
+                }
+            }
+            return resultado;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Devuelve el nodo debajo del cual están todas las claves que empiezan con "clave".
+    private Nodo bajar(String clave) {
+        Nodo nodo = raiz;
+        int i = 0;
+        while (i < clave.length()) {
+            Nodo hijo = hijo(nodo, clave.charAt(i));
+            if (hijo == null) return null;
+            int j = 0;
+            while (j < hijo.etiqueta.length && i < clave.length()) {
+                if (hijo.etiqueta[j] != clave.charAt(i)) return null;
+                i++;
+                j++;
+            }
+            nodo = hijo;
+        }
+        return nodo;
+    }
+
+    // ===================== ÁRBOL =====================
+
+    private void insertar(Nodo nodo, String clave, int desde, int lugar) {
+        int popularidad = popularidades[lugar];
+        while (true) {
+            nodo.maxPopularidad = Math.max(nodo.maxPopularidad, popularidad);
+            if (desde == clave.length()) {
+                nodo.entradas = agregar(nodo.entradas, lugar);
+                return;
+            }
+
+            Nodo hijo = hijo(nodo, clave.charAt(desde));
+            if (hijo == null) {
+                Nodo hoja = new Nodo(clave.substring(desde).toCharArray());
+                hoja.entradas = new int[] {lugar};
+                hoja.maxPopularidad = popularidad;
+                agregarHijo(nodo, hoja);
+                return;
+            }
+
+            int comun = 0;
+            while (comun < hijo.etiqueta.length && desde + comun < clave.length()
+                    && hijo.etiqueta[comun] == clave.charAt(desde + comun)) {
+                comun++;
+            }
+            if (comun < hijo.etiqueta.length) {
+                // Parto la etiqueta: nodo -> intermedio("comun") -> hijo(resto)
+                Nodo intermedio = new Nodo(Arrays.copyOf(hijo.etiqueta, comun));
+                hijo.etiqueta = Arrays.copyOfRange(hijo.etiqueta, comun, hijo.etiqueta.length);
+                intermedio.hijos = new Nodo[] {hijo};
+                intermedio.maxPopularidad = hijo.maxPopularidad;
+                reemplazarHijo(nodo, hijo, intermedio);
+                hijo = intermedio;
+            }
+            nodo = hijo;
+            desde += comun;
+        }
+    }
+
+    // Saca el lugar de la clave y recalcula máximos; limpia y junta nodos que quedan de sobra.
+    private boolean borrar(Nodo nodo, String clave, int desde, int lugar) {
+        if (desde == clave.length()) {
+            nodo.entradas = sacar(nodo.entradas, lugar);
+        } else {
+            Nodo hijo = hijo(nodo, clave.charAt(desde));
+            if (hijo == null) return false;
+            if (borrar(hijo, clave, desde + hijo.etiqueta.length, lugar)) {
+                quitarHijo(nodo, hijo);
+            } else if (hijo.entradas.length == 0 && hijo.hijos.length == 1) {
+                // Nodo de paso con un solo hijo: lo junto con él.
+                Nodo nieto = hijo.hijos[0];
+                char[] junta = Arrays.copyOf(hijo.etiqueta, hijo.etiqueta.length + nieto.etiqueta.length);
+                System.arraycopy(nieto.etiqueta, 0, junta, hijo.etiqueta.length, nieto.etiqueta.length);
+                nieto.etiqueta = junta;
+                reemplazarHijo(nodo, hijo, nieto);
+            }
+        }
+        recalcularMaximo(nodo);
+        return nodo != raiz && nodo.entradas.length == 0 && nodo.hijos.length == 0;
+    }
+
+    private void recalcularMaximo(Nodo nodo) {
+        int max = 0;
+        for (int lugar : nodo.entradas) max = Math.max(max, popularidades[lugar]);
+        for (Nodo hijo : nodo.hijos) max = Math.max(max, hijo.maxPopularidad);
+        nodo.maxPopularidad = max;
+    }
+
+    // Solo sirve para subir: los máximos del camino no se pueden bajar sin recalcular.
+    private void subirPopularidad(int lugar, int cantidad) {
+        if (cantidad <= 0) return;
+        popularidades[lugar] += cantidad;
+        for (String clave : claves(textos[lugar])) {
+            Nodo nodo = raiz;
+            int desde = 0;
+            while (nodo != null) {
+                nodo.maxPopularidad = Math.max(nodo.maxPopularidad, popularidades[lugar]);
+                if (desde == clave.length()) break;
+                nodo = hijo(nodo, clave.charAt(desde));
+                if (nodo != null) desde += nodo.etiqueta.length;
+            }
+        }
+    }
+
+    private void quitarSinLock(Long id) {
+        Integer lugar = lugarPorId.remove(id);
+        if (lugar == null) return;
+        for (String clave : claves(textos[lugar])) {
+            borrar(raiz, clave, 0, lugar);
+        }
+        textos[lugar] = null;
+        libres.set(lugar);
+    }
+
+    private int nuevoLugar() {
+        int libre = libres.nextSetBit(0);
+        if (libre >= 0) {
+            libres.clear(libre);
+            return libre;
+        }
+        if (usados == ids.length) {
+            ids = Arrays.copyOf(ids, usados * 2);
+            textos = Arrays.copyOf(textos, usados * 2);
+            popularidades = Arrays.copyOf(popularidades, usados * 2);
+        }
+        return usados++;
+    }
+
+    // Búsqueda binaria del hijo cuya etiqueta empieza con c.
+    private static Nodo hijo(Nodo nodo, char c) {
+        Nodo[] hijos = nodo.hijos;
+        int lo = 0;
+        int hi = hijos.length - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            char m = hijos[mid].etiqueta[0];
+            if (m < c) lo = mid + 1;
+            else if (m > c) hi = mid - 1;
+            else return hijos[mid];
+        }
+        return null;
+    }
+
+    private static void agregarHijo(Nodo nodo, Nodo hijo) {
+        Nodo[] hijos = nodo.hijos;
+        int pos = 0;
+        while (pos < hijos.length && hijos[pos].etiqueta[0] < hijo.etiqueta[0]) pos++;
+        Nodo[] nuevos = new Nodo[hijos.length + 1];
+        System.arraycopy(hijos, 0, nuevos, 0, pos);
+        nuevos[pos] = hijo;
+        System.arraycopy(hijos, pos, nuevos, pos + 1, hijos.length - pos);
+        nodo.hijos = nuevos;
+    }
+
+    private static void reemplazarHijo(Nodo nodo, Nodo viejo, Nodo nuevo) {
+        for (int i = 0; i < nodo.hijos.length; i++) {
+            if (nodo.hijos[i] == viejo) {
+                nodo.hijos[i] = nuevo;
+                return;
+            }
+        }
+    }
+
+    private static void quitarHijo(Nodo nodo, Nodo hijo) {
+        Nodo[] hijos = nodo.hijos;
+        if (hijos.length == 1) {
+            nodo.hijos = SIN_HIJOS;
+            return;
+        }
+        Nodo[] nuevos = new Nodo[hijos.length - 1];
+        int j = 0;
+        for (Nodo h : hijos) {
+            if (h != hijo) nuevos[j++] = h;
+        }
+        nodo.hijos = nuevos;
+    }
+
+    private static int[] agregar(int[] entradas, int lugar) {
+        for (int e : entradas) {
+            if (e == lugar) return entradas;
+        }
+        int[] nuevas = Arrays.copyOf(entradas, entradas.length + 1);
+        nuevas[entradas.length] = lugar;
+        return nuevas;
+    }
+
+    private static int[] sacar(int[] entradas, int lugar) {
+        int pos = -1;
+        for (int i = 0; i < entradas.length; i++) {
+            if (entradas[i] == lugar) pos = i;
+        }
+        if (pos < 0) return entradas;
+        if (entradas.length == 1) return SIN_ENTRADAS;
+        int[] nuevas = new int[entradas.length - 1];
+        System.arraycopy(entradas, 0, nuevas, 0, pos);
+        System.arraycopy(entradas, pos + 1, nuevas, pos, entradas.length - pos - 1);
+        return nuevas;
+    }
+
+    // ===================== CLAVES =====================
+
+    static String normalizar(String texto) {
+        return String.join(" ", BuscadorDeProductos.analizar(texto));
+    }
+
+    // "Camisa Oxford Azul" -> ["camisa oxford azul", "oxford azul", "azul"]
+    static List<String> claves(String texto) {
+        String normal = normalizar(texto);
+        List<String> claves = new ArrayList<>(MAX_PALABRAS);
+        int inicio = 0;
+        while (inicio < normal.length() && claves.size() < MAX_PALABRAS) {
+            claves.add(normal.substring(inicio));
+            int espacio = normal.indexOf(' ', inicio);
+            if (espacio < 0) break;
+            inicio = espacio + 1;
+        }
+        return claves;
+    }
+}
@@ -0,0 +1,201 @@
+package com.urbancollection.ecommerce.infrastructure.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.urbancollection.ecommerce.domain.entity.catalogo.Cupon;
+import com.urbancollection.ecommerce.domain.entity.catalogo.Producto;
+import com.urbancollection.ecommerce.domain.entity.ventas.ItemPedido;
+import com.urbancollection.ecommerce.domain.entity.ventas.Pedido;
+import com.urbancollection.ecommerce.persistence.jpa.spring.CuponJpaRepository;
+import com.urbancollection.ecommerce.persistence.jpa.spring.ItemPedidoJpaRepository;
+import com.urbancollection.ecommerce.persistence.jpa.spring.PedidoJpaRepository;
+import com.urbancollection.ecommerce.persistence.jpa.spring.ProductoJpaRepository;
+
+/**
+ * Autocompletado
+ *
+ * Sugerencias mientras se escribe para nombres de productos y códigos de cupón.
+ * Usa un ArbolDePrefijos por cada tipo.
+ *
+ * Popularidad:
+ * - Producto: unidades vendidas (suma de ItemPedido.cantidad).
+ * - Cupón: pedidos en los que se usó.
+ *
+ * La primera consulta carga id + texto (sin traer las entidades) y la popularidad
+ * con dos GROUP BY. Después se mantiene al día con los métodos de escritura,
+ * que se llaman donde se guardan productos, cupones y pedidos.
+ *
+ * recargar() arma árboles nuevos aparte y los cambia de una vez (las consultas
+ * siguen con los anteriores). Lo que se escribe mientras lee la BD queda en
+ * pendientes y se aplica encima de lo leído, igual que en BuscadorDeProductos.
+ */
+public class Autocompletado {
+
+    public static final String PRODUCTO = "producto";
+    public static final String CUPON = "cupon";
+
+    /**
+     * Sugerencia:
+     * Lo que devuelve /api/autocomplete por cada opción.
+     */
+    public record Sugerencia(String tipo, Long id, String texto, int popularidad) {
+    }
+
+    private final ProductoJpaRepository productoRepository;
+    private final CuponJpaRepository cuponRepository;
+    private final ItemPedidoJpaRepository itemPedidoRepository;
+    private final PedidoJpaRepository pedidoRepository;
+
+    // Los dos árboles juntos, para cambiarlos a la vez al recargar.
+    private record Arboles(ArbolDePrefijos productos, ArbolDePrefijos cupones) {
+    }
+
+    private volatile Arboles arboles = new Arboles(new ArbolDePrefijos(), new ArbolDePrefijos());
+    private volatile boolean cargado;
+    // Mientras recargar() lee la BD, las escrituras quedan acá (se aplican a los árboles nuevos).
+    // recargando y pendientes se tocan solo con el lock de pendientes.
+    private boolean recargando;
+    private final List<Consumer<Arboles>> pendientes = new ArrayList<>();
+
+    public Autocompletado(ProductoJpaRepository productoRepository,
+                          CuponJpaRepository cuponRepository,
+                          ItemPedidoJpaRepository itemPedidoRepository,
+                          PedidoJpaRepository pedidoRepository) {
+        this.productoRepository = productoRepository;
+        this.cuponRepository = cuponRepository;
+        this.itemPedidoRepository = itemPedidoRepository;
+        this.pedidoRepository = pedidoRepository;
+    }
+
+    // ===================== CONSULTA =====================
+
+    /**
+     * sugerir:
+     * Hasta k sugerencias para lo escrito. tipo = "producto", "cupon" o null (los dos,
+     * mezclados por popularidad).
+     */
+    public List<Sugerencia> sugerir(String prefijo, String tipo, int k) {
+        asegurarCargado();
+        Arboles actuales = arboles;
+        List<Sugerencia> resultado = new ArrayList<>();
+        if (tipo == null || PRODUCTO.equals(tipo)) {
+            for (ArbolDePrefijos.Coincidencia c : actuales.productos().buscar(prefijo, k)) {
+                resultado.add(new Sugerencia(PRODUCTO, c.id(), c.texto(), c.popularidad()));
+            }
+        }
+        if (tipo == null || CUPON.equals(tipo)) {
+            for (ArbolDePrefijos.Coincidencia c : actuales.cupones().buscar(prefijo, k)) {
+                resultado.add(new Sugerencia(CUPON, c.id(), c.texto(), c.popularidad()));
+            }
+        }
+        if (tipo == null) {
+            resultado.sort((a, b) -> Integer.compare(b.popularidad(), a.popularidad()));
+            if (resultado.size() > k) resultado = resultado.subList(0, k);
+        }
+        return resultado;
+    }
+
+    // ===================== ESCRITURAS =====================
+
+    // Al editar un texto se conserva la popularidad que ya tenía.
+    public void producto(Producto producto) {
+        if (producto == null) return;
+        Long id = producto.getId();
+        String nombre = producto.getNombre();
+        aplicar(a -> a.productos().poner(id, nombre, a.productos().popularidad(id)));
+    }
+
+    public void quitarProducto(Long id) {
+        aplicar(a -> a.productos().quitar(id));
+    }
+
+    public void cupon(Cupon cupon) {
+        if (cupon == null) return;
+        Long id = cupon.getId();
+        String codigo = cupon.getCodigo();
+        aplicar(a -> a.cupones().poner(id, codigo, a.cupones().popularidad(id)));
+    }
+
+    public void quitarCupon(Long id) {
+        aplicar(a -> a.cupones().quitar(id));
+    }
+
+    // Suma las unidades vendidas de cada producto y un uso al cupón del pedido.
+    public void registrarVenta(Pedido pedido) {
+        if (pedido == null) return;
+        List<ItemPedido> items = pedido.getItems() != null ? List.copyOf(pedido.getItems()) : List.of();
+        Long cuponId = pedido.getCupon() != null ? pedido.getCupon().getId() : null;
+        aplicar(a -> {
+            for (ItemPedido item : items) {
+                if (item.getProducto() != null) {
+                    a.productos().sumarPopularidad(item.getProducto().getId(), item.getCantidad());
+                }
+            }
+            if (cuponId != null) {
+                a.cupones().sumarPopularidad(cuponId, 1);
+            }
+        });
+    }
+
+    // Aplica el cambio a los árboles vivos, o lo deja pendiente si se está recargando.
+    // Sin cargar todavía no hace falta: la primera carga lo lee de la BD.
+    private void aplicar(Consumer<Arboles> cambio) {
+        synchronized (pendientes) {
+            if (recargando) {
+                pendientes.add(cambio);
+                return;
+            }
+            if (cargado) cambio.accept(arboles);
+        }
+    }
+
+    // Vuelve a cargar todo desde la BD en árboles nuevos y los cambia al terminar.
+    public synchronized void recargar() {
+        synchronized (pendientes) {
+            recargando = true;
+            pendientes.clear();
+        }
+
+        Arboles nuevos = new Arboles(new ArbolDePrefijos(), new ArbolDePrefijos());
+        try {
+            for (Object[] fila : productoRepository.findIdYNombre()) {
+                nuevos.productos().poner((Long) fila[0], (String) fila[1], 0);
+            }
+            for (Object[] fila : itemPedidoRepository.unidadesVendidasPorProducto()) {
+                nuevos.productos().sumarPopularidad((Long) fila[0], ((Number) fila[1]).intValue());
+            }
+
+            for (Object[] fila : cuponRepository.findIdYCodigo()) {
+                nuevos.cupones().poner((Long) fila[0], (String) fila[1], 0);
+            }
+            for (Object[] fila : pedidoRepository.usosPorCupon()) {
+                nuevos.cupones().sumarPopularidad((Long) fila[0], ((Number) fila[1]).intValue());
+            }
+        } catch (RuntimeException ex) {
+            synchronized (pendientes) {
+                // Falló la lectura: quedan los árboles que había, con los cambios que llegaron encima.
+                recargando = false;
+                if (cargado) pendientes.forEach(cambio -> cambio.accept(arboles));
+                pendientes.clear();
+            }
+            throw ex;
+        }
+
+        synchronized (pendientes) {
+            pendientes.forEach(cambio -> cambio.accept(nuevos));
+            pendientes.clear();
+            arboles = nuevos;
+            recargando = false;
+            cargado = true;
+        }
+    }
+
+    private void asegurarCargado() {
+        if (cargado) return;
+        synchronized (this) {
+            if (!cargado) recargar();
+        }
+    }
+}
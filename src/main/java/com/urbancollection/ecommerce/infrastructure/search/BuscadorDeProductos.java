@@ -0,0 +1,565 @@
+package com.urbancollection.ecommerce.infrastructure.search;
+
+import java.math.BigDecimal;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.urbancollection.ecommerce.domain.entity.catalogo.Producto;
+import com.urbancollection.ecommerce.persistence.jpa.spring.ProductoJpaRepository;
+
+/**
+ * BuscadorDeProductos
+ *
+ * Índice invertido en memoria sobre nombre, descripción y sku de los productos.
+ *
+ * - Tokeniza, pasa a minúsculas y quita acentos ("Camisón" -> "camison").
+ * - Cada término busca su coincidencia exacta, los términos que empiezan igual
+ *   (prefijo) y, si no hay exacta, los que están a 1-2 letras de distancia (typos).
+ * - Ordena con BM25; el nombre pesa más que el sku y el sku más que la descripción.
+ * - Primero exige que estén todos los términos; si así no hay nada, devuelve
+ *   los que tengan alguno.
+ *
+ * Se carga completo la primera vez que se usa y después se mantiene al día
+ * con indexar(...) / eliminar(...) desde los puntos donde se guardan productos.
+ * Los cambios que llegan mientras recargar() lee la BD se guardan y se aplican
+ * al terminar la carga (si no, la carga los pisaría con lo que leyó antes).
+ * Un producto editado o eliminado se marca como borrado (y se agrega de nuevo si
+ * se editó); los huecos se compactan cuando son más de 1.000 y más que los vivos,
+ * tanto desde indexar como desde eliminar.
+ */
+public class BuscadorDeProductos {
+
+    // Peso de cada campo en la frecuencia del término.
+    private static final int PESO_NOMBRE = 3;
+    private static final int PESO_SKU = 2;
+    private static final int PESO_DESCRIPCION = 1;
+
+    // Parámetros clásicos de BM25.
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    // Cuánto vale una coincidencia por prefijo o con typo frente a una exacta.
+    private static final float FACTOR_PREFIJO = 0.7f;
+    private static final float FACTOR_DIFUSO = 0.5f;
+    private static final int MAX_EXPANSIONES = 32;
+    private static final int MAX_TERMINOS_CONSULTA = 8;
+
+    private static final Set<String> VACIAS = Set.of(
+            "a", "al", "con", "de", "del", "el", "en", "la", "las", "lo", "los",
+            "o", "para", "por", "u", "un", "una", "y");
+
+    /**
+     * Resultado:
+     * Un producto encontrado con lo necesario para mostrarlo y su puntaje.
+     */
+    public record Resultado(Long id, String nombre, String descripcion, String sku,
+                            BigDecimal precio, float puntaje) {
+    }
+
+    // Lista de documentos (en orden creciente) donde aparece un término, con su frecuencia.
+    // n cuenta también los borrados sin compactar; vivos solo los que siguen en el índice (para el idf).
+    private static final class Postings {
+        int[] docs = new int[4];
+        int[] frecuencias = new int[4];
+        int n;
+        int vivos;
+
+        void agregar(int doc, int frecuencia) {
+            if (n == docs.length) {
+                docs = Arrays.copyOf(docs, n * 2);
+                frecuencias = Arrays.copyOf(frecuencias, n * 2);
+            }
+            docs[n] = doc;
+            frecuencias[n] = frecuencia;
+            n++;
+            vivos++;
+        }
+    }
+
+    // Lo que se guarda de cada producto indexado. postings son las listas de sus términos
+    // (para descontarlo de cada una al borrarlo).
+    private record Documento(Long id, String nombre, String descripcion, String sku,
+                             BigDecimal precio, int largo, Postings[] postings) {
+    }
+
+    // Arreglos de trabajo de una búsqueda (uno por hilo, para no crear nada por consulta).
+    private static final class Acumulador {
+        float[] puntajes = new float[0];
+        int[] mascaras = new int[0];
+        int[] tocados = new int[0];
+        int cantidadTocados;
+
+        void asegurar(int docs) {
+            if (puntajes.length < docs) {
+                int n = Math.max(docs, puntajes.length * 2);
+                puntajes = new float[n];
+                mascaras = new int[n];
+                tocados = new int[n];
+            }
+        }
+
+        void sumar(int doc, float puntaje, int bit) {
+            if (mascaras[doc] == 0) tocados[cantidadTocados++] = doc;
+            puntajes[doc] += puntaje;
+            mascaras[doc] |= bit;
+        }
+
+        void limpiar() {
+            for (int i = 0; i < cantidadTocados; i++) {
+                puntajes[tocados[i]] = 0f;
+                mascaras[tocados[i]] = 0;
+            }
+            cantidadTocados = 0;
+        }
+    }
+
+    private final ProductoJpaRepository productoRepository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ThreadLocal<Acumulador> acumuladores = ThreadLocal.withInitial(Acumulador::new);
+
+    private final TreeMap<String, Postings> terminos = new TreeMap<>();
+    // Términos agrupados por (primera letra, largo) para buscar typos sin recorrer todo el diccionario.
+    private final Map<String, List<String>> porPrimeraYLargo = new HashMap<>();
+    private final List<Documento> documentos = new ArrayList<>();
+    // Largo de cada documento en un arreglo plano (se lee por cada posting al puntuar).
+    private int[] largos = new int[1024];
+    private final Map<Long, Integer> docPorProducto = new HashMap<>();
+    private final BitSet borrados = new BitSet();
+    private long largoTotal;
+    private int vivos;
+
+    private volatile boolean cargado;
+    // Mientras recargar() lee la BD, indexar/eliminar dejan acá el cambio (null = eliminado).
+    private boolean recargando;
+    private final Map<Long, Producto> pendientes = new LinkedHashMap<>();
+
+    public BuscadorDeProductos(ProductoJpaRepository productoRepository) {
+        this.productoRepository = productoRepository;
+    }
+
+    // ===================== BÚSQUEDA =====================
+
+    /**
+     * buscar:
+     * Devuelve hasta "limite" productos ordenados por relevancia (el más relevante primero).
+     */
+    public List<Resultado> buscar(String consulta, int limite) {
+        List<String> tokens = analizar(consulta);
+        if (tokens.isEmpty() || limite <= 0) return List.of();
+        if (tokens.size() > MAX_TERMINOS_CONSULTA) tokens = tokens.subList(0, MAX_TERMINOS_CONSULTA);
+        asegurarCargado();
+
+        lock.readLock().lock();
+        Acumulador acumulador = acumuladores.get();
+        try {
+            acumulador.asegurar(documentos.size());
+            float largoPromedio = vivos == 0 ? 1f : (float) largoTotal / vivos;
+
+            for (int i = 0; i < tokens.size(); i++) {
+                puntuarTermino(tokens.get(i), 1 << i, largoPromedio, acumulador);
+            }
+
+            int todos = (1 << tokens.size()) - 1;
+            List<Resultado> resultados = mejores(acumulador, todos, limite);
+            if (resultados.isEmpty()) {
+                resultados = mejores(acumulador, 0, limite);
+            }
+            return resultados;
+        } finally {
+            acumulador.limpiar();
+            lock.readLock().unlock();
+        }
+    }
+
+    private void puntuarTermino(String token, int bit, float largoPromedio, Acumulador acumulador) {
+        Postings exacto = terminos.get(token);
+        if (exacto != null) {
+            puntuar(exacto, 1f, bit, largoPromedio, acumulador);
+        }
+
+        // Prefijo: "cami" encuentra "camisa", "camiseta", ...
+        if (token.length() >= 2) {
+            NavigableMap<String, Postings> conPrefijo =
+                    terminos.subMap(token, false, token + Character.MAX_VALUE, false);
+            int expandidos = 0;
+            for (Postings p : conPrefijo.values()) {
+                if (expandidos++ == MAX_EXPANSIONES) break;
+                puntuar(p, FACTOR_PREFIJO, bit, largoPromedio, acumulador);
+            }
+            if (expandidos > 0 || exacto != null) return;
+        }
+
+        // Difuso: solo si no hubo nada exacto ni por prefijo ("camsia" -> "camisa").
+        if (exacto == null && token.length() >= 4) {
+            int maxDistancia = token.length() >= 8 ? 2 : 1;
+            int expandidos = 0;
+            for (int largo = token.length() - maxDistancia; largo <= token.length() + maxDistancia; largo++) {
+                List<String> candidatos = porPrimeraYLargo.get(clave(token.charAt(0), largo));
+                if (candidatos == null) continue;
+                for (String candidato : candidatos) {
+                    if (expandidos == MAX_EXPANSIONES) return;
+                    if (distancia(token, candidato, maxDistancia) <= maxDistancia) {
+                        puntuar(terminos.get(candidato), FACTOR_DIFUSO, bit, largoPromedio, acumulador);
+                        expandidos++;
+                    }
+                }
+            }
+        }
+    }
+
+    private void puntuar(Postings postings, float factor, int bit, float largoPromedio, Acumulador acumulador) {
+        // idf de BM25 con los documentos vivos (los borrados sin compactar no cuentan)
+        if (postings.vivos == 0) return;
+        float idf = (float) Math.log(1 + (vivos - postings.vivos + 0.5) / (postings.vivos + 0.5));
+        if (idf <= 0f) idf = 0.01f;
+        float peso = factor * idf * (K1 + 1);
+        float normaFija = K1 * (1 - B);
+        float normaPorLargo = K1 * B / largoPromedio;
+        boolean hayBorrados = !borrados.isEmpty();
+        int[] docs = postings.docs;
+        int[] frecuencias = postings.frecuencias;
+        for (int i = 0; i < postings.n; i++) {
+            int doc = docs[i];
+            if (hayBorrados && borrados.get(doc)) continue;
+            float tf = frecuencias[i];
+            acumulador.sumar(doc, peso * tf / (tf + normaFija + normaPorLargo * largos[doc]), bit);
+        }
+    }
+
+    // Top-k con un heap de mínimos. mascaraRequerida = 0 acepta cualquier coincidencia.
+    private List<Resultado> mejores(Acumulador acumulador, int mascaraRequerida, int limite) {
+        PriorityQueue<Integer> heap = new PriorityQueue<>(limite + 1,
+                (a, b) -> Float.compare(acumulador.puntajes[a], acumulador.puntajes[b]));
+        for (int i = 0; i < acumulador.cantidadTocados; i++) {
+            int doc = acumulador.tocados[i];
+            if ((acumulador.mascaras[doc] & mascaraRequerida) != mascaraRequerida) continue;
+            if (heap.size() < limite) {
+                heap.add(doc);
+            } else if (acumulador.puntajes[doc] > acumulador.puntajes[heap.peek()]) {
+                heap.poll();
+                heap.add(doc);
+            }
+        }
+
+        Resultado[] ordenados = new Resultado[heap.size()];
+        for (int i = ordenados.length - 1; i >= 0; i--) {
+            int doc = heap.poll();
+            Documento d = documentos.get(doc);
+            ordenados[i] = new Resultado(d.id(), d.nombre(), d.descripcion(), d.sku(), d.precio(),
+                    acumulador.puntajes[doc]);
+        }
+        return Arrays.asList(ordenados);
+    }
+
+    // ===================== ACTUALIZACIÓN =====================
+
+    /**
+     * indexar:
+     * Agrega o reemplaza un producto en el índice.
+     */
+    public void indexar(Producto producto) {
+        if (producto == null || producto.getId() == null) return;
+        lock.writeLock().lock();
+        try {
+            if (recargando) {
+                pendientes.put(producto.getId(), producto);
+                return;
+            }
+            // sin cargar todavía: la primera carga lo lee de la BD
+            if (!cargado) return;
+            quitarSinLock(producto.getId());
+            agregarSinLock(producto);
+            compactarSiHaceFalta();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Saca un producto del índice (no hace nada si no estaba).
+    public void eliminar(Long productoId) {
+        if (productoId == null) return;
+        lock.writeLock().lock();
+        try {
+            if (recargando) {
+                pendientes.put(productoId, null);
+                return;
+            }
+            if (!cargado) return;
+            quitarSinLock(productoId);
+            compactarSiHaceFalta();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * recargar:
+     * Vuelve a armar el índice desde la BD. La lectura se hace sin el lock (las búsquedas
+     * siguen con el índice anterior); lo que se indexe o elimine mientras tanto queda en
+     * pendientes y se aplica encima de lo leído.
+     */
+    public synchronized void recargar() {
+        lock.writeLock().lock();
+        try {
+            recargando = true;
+            pendientes.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        List<Producto> productos;
+        try {
+            productos = productoRepository.findAll();
+        } catch (RuntimeException ex) {
+            lock.writeLock().lock();
+            try {
+                // Falló la lectura: queda el índice que había, con los cambios que llegaron encima.
+                // Si no había, la próxima carga los lee de la BD.
+                recargando = false;
+                if (cargado) aplicarPendientesSinLock();
+                pendientes.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw ex;
+        }
+
+        lock.writeLock().lock();
+        try {
+            terminos.clear();
+            porPrimeraYLargo.clear();
+            documentos.clear();
+            docPorProducto.clear();
+            borrados.clear();
+            largoTotal = 0;
+            vivos = 0;
+            for (Producto producto : productos) {
+                agregarSinLock(producto);
+            }
+            aplicarPendientesSinLock();
+            recargando = false;
+            cargado = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void aplicarPendientesSinLock() {
+        for (Map.Entry<Long, Producto> cambio : pendientes.entrySet()) {
+            quitarSinLock(cambio.getKey());
+            if (cambio.getValue() != null) agregarSinLock(cambio.getValue());
+        }
+        pendientes.clear();
+        compactarSiHaceFalta();
+    }
+
+    public int tamanio() {
+        asegurarCargado();
+        lock.readLock().lock();
+        try {
+            return vivos;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Documentos borrados que todavía no se compactaron.
+    int huecos() {
+        lock.readLock().lock();
+        try {
+            return borrados.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void asegurarCargado() {
+        if (cargado) return;
+        synchronized (this) {
+            if (!cargado) recargar();
+        }
+    }
+
+    private void agregarSinLock(Producto producto) {
+        Map<String, Integer> frecuencias = new HashMap<>();
+        int largo = 0;
+        largo += contar(producto.getNombre(), PESO_NOMBRE, frecuencias);
+        largo += contar(producto.getSku(), PESO_SKU, frecuencias);
+        largo += contar(producto.getDescripcion(), PESO_DESCRIPCION, frecuencias);
+
+        int doc = documentos.size();
+        if (doc == largos.length) largos = Arrays.copyOf(largos, doc * 2);
+        largos[doc] = largo;
+        Postings[] postings = new Postings[frecuencias.size()];
+        int i = 0;
+        for (Map.Entry<String, Integer> e : frecuencias.entrySet()) {
+            postings[i] = postingsDe(e.getKey());
+            postings[i++].agregar(doc, e.getValue());
+        }
+        documentos.add(new Documento(producto.getId(), producto.getNombre(), producto.getDescripcion(),
+                producto.getSku(), producto.getPrecio(), largo, postings));
+        docPorProducto.put(producto.getId(), doc);
+        largoTotal += largo;
+        vivos++;
+    }
+
+    private void quitarSinLock(Long productoId) {
+        Integer doc = docPorProducto.remove(productoId);
+        if (doc == null) return;
+        borrados.set(doc);
+        Documento documento = documentos.get(doc);
+        for (Postings p : documento.postings()) p.vivos--;
+        largoTotal -= documento.largo();
+        vivos--;
+    }
+
+    private Postings postingsDe(String termino) {
+        Postings p = terminos.get(termino);
+        if (p == null) {
+            p = new Postings();
+            terminos.put(termino, p);
+            porPrimeraYLargo.computeIfAbsent(clave(termino.charAt(0), termino.length()), k -> new ArrayList<>())
+                    .add(termino);
+        }
+        return p;
+    }
+
+    // Con el write lock tomado. Compacta cuando los huecos pasan de 1.000 y de la cantidad de vivos.
+    private void compactarSiHaceFalta() {
+        int huecos = borrados.cardinality();
+        if (huecos > 1_000 && huecos > vivos) compactar();
+    }
+
+    // Quita los documentos borrados y renumera (se llama con el write lock tomado).
+    private void compactar() {
+        int[] nuevoNumero = new int[documentos.size()];
+        List<Documento> quedan = new ArrayList<>(vivos);
+        for (int doc = 0; doc < documentos.size(); doc++) {
+            if (borrados.get(doc)) {
+                nuevoNumero[doc] = -1;
+            } else {
+                nuevoNumero[doc] = quedan.size();
+                quedan.add(documentos.get(doc));
+            }
+        }
+
+        var it = terminos.entrySet().iterator();
+        while (it.hasNext()) {
+            Postings p = it.next().getValue();
+            int n = 0;
+            for (int i = 0; i < p.n; i++) {
+                int nuevo = nuevoNumero[p.docs[i]];
+                if (nuevo < 0) continue;
+                p.docs[n] = nuevo;
+                p.frecuencias[n] = p.frecuencias[i];
+                n++;
+            }
+            p.n = n;
+            p.vivos = n;
+            if (n == 0) it.remove();
+        }
+
+        porPrimeraYLargo.clear();
+        for (String termino : terminos.keySet()) {
+            porPrimeraYLargo.computeIfAbsent(clave(termino.charAt(0), termino.length()), k -> new ArrayList<>())
+                    .add(termino);
+        }
+
+        documentos.clear();
+        documentos.addAll(quedan);
+        docPorProducto.clear();
+        for (int doc = 0; doc < documentos.size(); doc++) {
+            docPorProducto.put(documentos.get(doc).id(), doc);
+            largos[doc] = documentos.get(doc).largo();
+        }
+        borrados.clear();
+    }
+
+    // ===================== TEXTO =====================
+
+    /**
+     * analizar:
+     * Parte el texto en términos: minúsculas, sin acentos y sin palabras vacías ("de", "la", ...).
+     */
+    public static List<String> analizar(String texto) {
+        List<String> tokens = new ArrayList<>();
+        if (texto == null) return tokens;
+
+        StringBuilder actual = new StringBuilder();
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c >= 128) c = sinAcento(c);
+            if (Character.isLetterOrDigit(c)) {
+                actual.append(Character.toLowerCase(c));
+            } else {
+                cortar(actual, tokens);
+            }
+        }
+        cortar(actual, tokens);
+        return tokens;
+    }
+
+    private static void cortar(StringBuilder actual, List<String> tokens) {
+        if (actual.length() == 0) return;
+        String token = actual.toString();
+        actual.setLength(0);
+        if (!VACIAS.contains(token)) tokens.add(token);
+    }
+
+    // "á" -> "a", "ñ" -> "n", "ü" -> "u" (la letra base de la forma descompuesta).
+    private static char sinAcento(char c) {
+        return Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD).charAt(0);
+    }
+
+    private static int contar(String texto, int peso, Map<String, Integer> frecuencias) {
+        List<String> tokens = analizar(texto);
+        for (String token : tokens) {
+            frecuencias.merge(token, peso, Integer::sum);
+        }
+        return tokens.size() * peso;
+    }
+
+    private static String clave(char primera, int largo) {
+        return primera + ":" + largo;
+    }
+
+    // Distancia de edición (Levenshtein + letras cambiadas de lugar) con corte:
+    // si ya pasó de "maximo" devuelve maximo + 1.
+    static int distancia(String a, String b, int maximo) {
+        if (Math.abs(a.length() - b.length()) > maximo) return maximo + 1;
+        int[] dosAtras = new int[b.length() + 1];
+        int[] anterior = new int[b.length() + 1];
+        int[] fila = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) anterior[j] = j;
+
+        for (int i = 1; i <= a.length(); i++) {
+            fila[0] = i;
+            int minimoFila = fila[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int costo = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                fila[j] = Math.min(Math.min(fila[j - 1] + 1, anterior[j] + 1), anterior[j - 1] + costo);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    fila[j] = Math.min(fila[j], dosAtras[j - 2] + 1);
+                }
+                minimoFila = Math.min(minimoFila, fila[j]);
+            }
+            if (minimoFila > maximo) return maximo + 1;
+            int[] t = dosAtras;
+            dosAtras = anterior;
+            anterior = fila;
+            fila = t;
+        }
+        return anterior[b.length()];
+    }
+}
@@ -0,0 +1,182 @@
+package com.urbancollection.ecommerce.infrastructure.stock;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * ContadorCaliente
+ *
+ * Stock disponible de un producto "caliente" (mucha demanda al mismo tiempo)
+ * repartido en varias celdas que se descuentan por separado con CAS, sin locks.
+ *
+ * - Cada hilo empieza siempre por "su" celda, así los hilos casi no chocan.
+ * - Si su celda no alcanza, recorre las demás antes de decir que no hay.
+ * - agotado() es true solo cuando todas las celdas están en cero.
+ * - Si ajustar(...) tiene que quitar más de lo que hay en las celdas, lo que
+ *   falta queda como deuda y se cobra de lo primero que vuelva.
+ *
+ * Las celdas están separadas en memoria (128 bytes) para que dos núcleos
+ * no se peleen por la misma línea de caché.
+ */
+public final class ContadorCaliente {
+
+    // Cada celda ocupa 16 longs (128 bytes); solo se usa el primero.
+    private static final int SEPARACION = 16;
+
+    // Número que le toca a cada hilo para elegir su celda de inicio.
+    private static final AtomicInteger SIGUIENTE_HILO = new AtomicInteger();
+    private static final ThreadLocal<Integer> NUMERO_DE_HILO =
+            ThreadLocal.withInitial(SIGUIENTE_HILO::getAndIncrement);
+
+    private final AtomicLongArray celdas;
+    private final int franjas;
+    private final int mascara;
+
+    // Unidades que ajustar(...) tenía que quitar y no encontró en las celdas.
+    private final AtomicLong deuda = new AtomicLong();
+
+    /**
+     * @param franjas cantidad de celdas (se redondea a potencia de 2)
+     * @param disponible unidades iniciales, repartidas parejo entre las celdas
+     */
+    public ContadorCaliente(int franjas, long disponible) {
+        int n = 1;
+        while (n < franjas) n <<= 1;
+        this.franjas = n;
+        this.mascara = n - 1;
+        this.celdas = new AtomicLongArray(n * SEPARACION);
+
+        long base = Math.max(0, disponible) / n;
+        long resto = Math.max(0, disponible) % n;
+        for (int i = 0; i < n; i++) {
+            celdas.set(posicion(i), base + (i < resto ? 1 : 0));
+        }
+    }
+
+    public int getFranjas() {
+        return franjas;
+    }
+
+    /**
+     * tomar:
+     * Descuenta n unidades. Todo o nada: si entre todas las celdas no alcanza,
+     * devuelve lo que haya tomado y responde false.
+     */
+    public boolean tomar(int n) {
+        if (n <= 0) return true;
+        if (deuda.get() > 0) saldarDeuda();
+        int inicio = NUMERO_DE_HILO.get() & mascara;
+
+        // Camino rápido: una sola celda alcanza.
+        for (int k = 0; k < franjas; k++) {
+            int pos = posicion((inicio + k) & mascara);
+            long actual;
+            while ((actual = celdas.get(pos)) >= n) {
+                if (celdas.compareAndSet(pos, actual, actual - n)) return true;
+            }
+        }
+
+        // Camino lento: junto de varias celdas.
+        long falta = n;
+        long[] tomado = new long[franjas];
+        for (int k = 0; k < franjas && falta > 0; k++) {
+            int i = (inicio + k) & mascara;
+            int pos = posicion(i);
+            long actual;
+            while ((actual = celdas.get(pos)) > 0) {
+                long parte = Math.min(actual, falta);
+                if (celdas.compareAndSet(pos, actual, actual - parte)) {
+                    tomado[i] += parte;
+                    falta -= parte;
+                    break;
+                }
+            }
+        }
+        if (falta == 0) return true;
+
+        // No alcanzó: devuelvo lo que tomé.
+        for (int i = 0; i < franjas; i++) {
+            if (tomado[i] > 0) celdas.addAndGet(posicion(i), tomado[i]);
+        }
+        return false;
+    }
+
+    // Devuelve n unidades a la celda del hilo (primero pagan la deuda, si hay).
+    public void devolver(long n) {
+        if (n <= 0) return;
+        long d;
+        while (n > 0 && (d = deuda.get()) > 0) {
+            long pago = Math.min(d, n);
+            if (deuda.compareAndSet(d, d - pago)) n -= pago;
+        }
+        if (n > 0) celdas.addAndGet(posicion(NUMERO_DE_HILO.get() & mascara), n);
+    }
+
+    /**
+     * ajustar:
+     * Corrige el disponible en "delta" (por ejemplo cuando alguien editó el stock a mano).
+     * Si delta es negativo y no alcanza, el disponible queda en cero y lo que falta
+     * queda como deuda: lo que vuelva con devolver(...) la paga antes de poder venderse.
+     */
+    public void ajustar(long delta) {
+        if (delta >= 0) {
+            devolver(delta);
+            return;
+        }
+        long falta = quitar(-delta);
+        if (falta > 0) deuda.addAndGet(falta);
+    }
+
+    // Unidades que se deben (ver ajustar). 0 si no hay deuda.
+    public long deuda() {
+        return deuda.get();
+    }
+
+    // Suma de todas las celdas menos la deuda (foto aproximada si hay hilos descontando al mismo tiempo).
+    public long disponible() {
+        long total = 0;
+        for (int i = 0; i < franjas; i++) {
+            total += celdas.get(posicion(i));
+        }
+        return Math.max(0, total - deuda.get());
+    }
+
+    // true cuando no queda nada en ninguna celda (o lo que queda ya se debe).
+    public boolean agotado() {
+        if (deuda.get() > 0) return disponible() == 0;
+        for (int i = 0; i < franjas; i++) {
+            if (celdas.get(posicion(i)) > 0) return false;
+        }
+        return true;
+    }
+
+    // Saca hasta n unidades de las celdas, las que haya. Devuelve cuántas faltaron.
+    private long quitar(long n) {
+        long falta = n;
+        for (int i = 0; i < franjas && falta > 0; i++) {
+            int pos = posicion(i);
+            long actual;
+            while ((actual = celdas.get(pos)) > 0) {
+                long parte = Math.min(actual, falta);
+                if (celdas.compareAndSet(pos, actual, actual - parte)) {
+                    falta -= parte;
+                    break;
+                }
+            }
+        }
+        return falta;
+    }
+
+    // Cobra la deuda con unidades que quedaron en las celdas (por ejemplo devueltas
+    // mientras ajustar las recorría). Lo que sobre vuelve con devolver(...).
+    private void saldarDeuda() {
+        long d = deuda.get();
+        long tomado = d - quitar(d);
+        if (tomado > 0) devolver(tomado);
+    }
+
+    private static int posicion(int franja) {
+        return franja * SEPARACION;
+    }
+}
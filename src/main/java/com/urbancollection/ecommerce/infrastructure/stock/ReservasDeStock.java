@@ -0,0 +1,727 @@
+package com.urbancollection.ecommerce.infrastructure.stock;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.urbancollection.ecommerce.domain.entity.catalogo.Producto;
+import com.urbancollection.ecommerce.infrastructure.cache.VersionesDeRecursos;
+import com.urbancollection.ecommerce.persistence.jpa.spring.ProductoJpaRepository;
+
+/**
+ * ReservasDeStock
+ *
+ * Aparta stock en memoria mientras un pedido está pendiente de pago.
+ *
+ * Cómo funciona:
+ * - Por cada producto llevo en memoria el stock físico y cuánto hay reservado.
+ *   Disponible para vender = físico - reservado, sin ir a la base de datos
+ *   (solo la primera vez que se toca un producto se lee su stock).
+ * - Los productos se reparten en "franjas" (por id), cada una con su lock.
+ *   Una reserva de varios productos bloquea sus franjas en orden, así dos
+ *   checkouts al mismo tiempo nunca venden la misma unidad.
+ * - confirmar(...) convierte la reserva en venta: baja el stock físico y deja
+ *   el cambio pendiente de escribir. Un hilo aparte lo escribe en la BD
+ *   cada cierto tiempo (write-behind) con un UPDATE stock = stock + delta.
+ * - Las reservas que no se confirman antes de su TTL se liberan solas.
+ * - Todos los checkouts pasan por aquí: el web con reservar/confirmar y
+ *   POST /api/pedidos con vender (ver StockConReservas).
+ *
+ * Límites del write-behind:
+ * - Vale con una sola instancia de la aplicación. El stock en memoria es de
+ *   este proceso: otra instancia no ve sus reservas ni sus ventas y vendería
+ *   las mismas unidades.
+ * - Si el proceso se cae sin pasar por cerrar(), se pierde lo que no alcanzó a
+ *   volcarse (hasta volcado-ms de ventas): esos pedidos quedan PAGADO pero su
+ *   stock en la BD no bajó. Las reservas sin confirmar se pierden también,
+ *   pero esas no habían tocado la BD.
+ *
+ * Modo caliente (opcional, para productos en oferta relámpago):
+ * el disponible del producto se reparte en un ContadorCaliente y se descuenta
+ * sin locks; reservado y pendiente van en LongAdder. El volcado a la BD es el
+ * mismo. Se activa por configuración o con activarModoCaliente(...).
+ */
+public class ReservasDeStock {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservasDeStock.class);
+
+    // Resultado de intentar reservar.
+    public enum Resultado { RESERVADO, SIN_STOCK, PRODUCTO_NO_EXISTE }
+
+    /**
+     * Reserva:
+     * Unidades apartadas de uno o varios productos para un pedido.
+     */
+    public static final class Reserva {
+        private final long id;
+        private final Map<Long, Integer> cantidades;   // productoId -> unidades
+        private final long expiraEn;                   // epoch ms
+        private volatile Long pedidoId;
+
+        private Reserva(long id, Map<Long, Integer> cantidades, long expiraEn) {
+            this.id = id;
+            this.cantidades = cantidades;
+            this.expiraEn = expiraEn;
+        }
+
+        public long getId() { return id; }
+        public Map<Long, Integer> getCantidades() { return cantidades; }
+        public long getExpiraEn() { return expiraEn; }
+        public Long getPedidoId() { return pedidoId; }
+    }
+
+    /**
+     * IntentoDeReserva:
+     * Lo que devuelve reservar(). Si no se pudo, viene el producto que falló.
+     */
+    public static final class IntentoDeReserva {
+        private final Resultado resultado;
+        private final Reserva reserva;
+        private final Long productoId;
+        private final int disponible;
+
+        private IntentoDeReserva(Resultado resultado, Reserva reserva, Long productoId, int disponible) {
+            this.resultado = resultado;
+            this.reserva = reserva;
+            this.productoId = productoId;
+            this.disponible = disponible;
+        }
+
+        public boolean isExitoso() { return resultado == Resultado.RESERVADO; }
+        public Resultado getResultado() { return resultado; }
+        public Reserva getReserva() { return reserva; }
+        public Long getProductoId() { return productoId; }
+        public int getDisponible() { return disponible; }
+    }
+
+    // Estado de un producto dentro de su franja (solo se toca con el lock de la franja).
+    private static final class Existencia {
+        int fisico;        // stock según la BD + cambios aún no escritos
+        int reservado;     // unidades apartadas por reservas vivas
+        int pendiente;     // delta todavía no escrito en la BD
+        int enVuelo;       // delta que se está escribiendo ahora mismo
+    }
+
+    private static final class Franja {
+        final ReentrantLock lock = new ReentrantLock();
+        final Map<Long, Existencia> productos = new HashMap<>();
+    }
+
+    // Estado de un producto en modo caliente (todo sin locks).
+    private static final class Caliente {
+        final ContadorCaliente contador;             // disponible para vender
+        final LongAdder reservado = new LongAdder();
+        final LongAdder pendiente = new LongAdder(); // delta sin escribir en la BD
+        final AtomicLong enVuelo = new AtomicLong();
+        final AtomicLong enBd;                       // stock que creo que tiene la BD (ya volcado)
+
+        Caliente(int franjas, long disponible, long enBd) {
+            this.contador = new ContadorCaliente(franjas, disponible);
+            this.enBd = new AtomicLong(enBd);
+        }
+    }
+
+    private final ProductoJpaRepository productoRepository;
+    private final Duration ttl;
+    private final long barridoMs;
+    private final long volcadoMs;
+
+    private final Franja[] franjas;
+    private final int mascara;
+
+    private final Map<Long, Caliente> calientes = new ConcurrentHashMap<>();
+    private final Set<Long> calientesConfigurados;
+    private final int franjasCalientes;
+
+    private final Map<Long, Reserva> reservas = new ConcurrentHashMap<>();
+    private final Map<Long, Long> reservaPorPedido = new ConcurrentHashMap<>();
+    private final AtomicLong secuencia = new AtomicLong();
+
+    private ScheduledExecutorService programador;
+    private VersionesDeRecursos versiones;
+
+    /**
+     * @param franjas se redondea a potencia de 2
+     * @param ttl tiempo que vive una reserva sin confirmar
+     * @param barridoMs cada cuánto se buscan reservas vencidas
+     * @param volcadoMs cada cuánto se escriben en la BD los cambios de stock
+     */
+    public ReservasDeStock(ProductoJpaRepository productoRepository, int franjas,
+                           Duration ttl, long barridoMs, long volcadoMs) {
+        this(productoRepository, franjas, ttl, barridoMs, volcadoMs, Set.of(), 16);
+    }
+
+    /**
+     * @param calientesConfigurados productos que arrancan en modo caliente
+     * @param franjasCalientes celdas del ContadorCaliente de cada producto caliente
+     */
+    public ReservasDeStock(ProductoJpaRepository productoRepository, int franjas,
+                           Duration ttl, long barridoMs, long volcadoMs,
+                           Set<Long> calientesConfigurados, int franjasCalientes) {
+        this.productoRepository = productoRepository;
+        this.calientesConfigurados = Set.copyOf(calientesConfigurados);
+        this.franjasCalientes = franjasCalientes;
+        this.ttl = ttl;
+        this.barridoMs = barridoMs;
+        this.volcadoMs = volcadoMs;
+
+        int n = 1;
+        while (n < franjas) n <<= 1;
+        this.franjas = new Franja[n];
+        for (int i = 0; i < n; i++) {
+            this.franjas[i] = new Franja();
+        }
+        this.mascara = n - 1;
+    }
+
+    // Cada stock escrito en la BD sube la versión del producto (el stock va en GET /api/productos).
+    public ReservasDeStock avisarA(VersionesDeRecursos versiones) {
+        this.versiones = versiones;
+        return this;
+    }
+
+    // ===================== CICLO DE VIDA =====================
+
+    // Arranca los hilos de barrido (reservas vencidas) y volcado (write-behind).
+    public void iniciar() {
+        programador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "reservas-stock");
+            t.setDaemon(true);
+            return t;
+        });
+        programador.scheduleWithFixedDelay(this::expirarVencidasSeguro, barridoMs, barridoMs, TimeUnit.MILLISECONDS);
+        programador.scheduleWithFixedDelay(this::volcarSeguro, volcadoMs, volcadoMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Al apagar la app escribo lo que quede pendiente.
+    public void cerrar() {
+        if (programador != null) {
+            programador.shutdown();
+        }
+        volcar();
+    }
+
+    // ===================== CONSULTAS =====================
+
+    // Unidades que se pueden vender ahora (físico - reservado). Vacío si el producto no existe.
+    public Optional<Integer> disponible(Long productoId) {
+        if (!cargarSiHaceFalta(productoId)) return Optional.empty();
+
+        Caliente c = calientes.get(productoId);
+        if (c != null) {
+            return Optional.of((int) c.contador.disponible());
+        }
+
+        Franja franja = franja(productoId);
+        franja.lock.lock();
+        try {
+            Existencia e = franja.productos.get(productoId);
+            return e == null ? Optional.empty() : Optional.of(e.fisico - e.reservado);
+        } finally {
+            franja.lock.unlock();
+        }
+    }
+
+    public Optional<Reserva> buscar(long reservaId) {
+        return Optional.ofNullable(reservas.get(reservaId));
+    }
+
+    public Optional<Reserva> buscarPorPedido(Long pedidoId) {
+        if (pedidoId == null) return Optional.empty();
+        Long reservaId = reservaPorPedido.get(pedidoId);
+        return reservaId == null ? Optional.empty() : buscar(reservaId);
+    }
+
+    // ===================== OPERACIONES =====================
+
+    /**
+     * reservar:
+     * Aparta todas las cantidades o ninguna.
+     * Las cantidades del mismo producto se suman.
+     */
+    public IntentoDeReserva reservar(Map<Long, Integer> cantidades) {
+        // Junto cantidades por producto (ordenado para bloquear franjas siempre en el mismo orden).
+        TreeMap<Long, Integer> porProducto = new TreeMap<>();
+        for (Map.Entry<Long, Integer> linea : cantidades.entrySet()) {
+            if (linea.getKey() == null || linea.getValue() == null || linea.getValue() <= 0) continue;
+            porProducto.merge(linea.getKey(), linea.getValue(), Integer::sum);
+        }
+
+        // La lectura a la BD (primera vez de cada producto) se hace fuera de los locks.
+        for (Long productoId : porProducto.keySet()) {
+            if (!cargarSiHaceFalta(productoId)) {
+                return new IntentoDeReserva(Resultado.PRODUCTO_NO_EXISTE, null, productoId, 0);
+            }
+        }
+
+        // Primero los productos calientes (sin locks); si algo falla después, los devuelvo.
+        Map<Long, Integer> tomados = new HashMap<>();
+        TreeMap<Long, Integer> normales = new TreeMap<>();
+        for (Map.Entry<Long, Integer> linea : porProducto.entrySet()) {
+            Caliente c = calientes.get(linea.getKey());
+            if (c == null) {
+                normales.put(linea.getKey(), linea.getValue());
+            } else if (c.contador.tomar(linea.getValue())) {
+                tomados.put(linea.getKey(), linea.getValue());
+            } else {
+                devolverCalientes(tomados);
+                return new IntentoDeReserva(Resultado.SIN_STOCK, null, linea.getKey(), (int) c.contador.disponible());
+            }
+        }
+
+        List<Franja> bloqueadas = bloquear(normales.keySet());
+        try {
+            // Primero reviso todo...
+            for (Map.Entry<Long, Integer> linea : normales.entrySet()) {
+                Existencia e = franja(linea.getKey()).productos.get(linea.getKey());
+                if (e == null) {
+                    // se borró el producto (o pasó a modo caliente) mientras tanto
+                    devolverCalientes(tomados);
+                    return new IntentoDeReserva(Resultado.PRODUCTO_NO_EXISTE, null, linea.getKey(), 0);
+                }
+                int disponible = e.fisico - e.reservado;
+                if (disponible < linea.getValue()) {
+                    devolverCalientes(tomados);
+                    return new IntentoDeReserva(Resultado.SIN_STOCK, null, linea.getKey(), disponible);
+                }
+            }
+            // ...y luego aparto todo.
+            for (Map.Entry<Long, Integer> linea : normales.entrySet()) {
+                franja(linea.getKey()).productos.get(linea.getKey()).reservado += linea.getValue();
+            }
+        } finally {
+            desbloquear(bloqueadas);
+        }
+        for (Map.Entry<Long, Integer> linea : tomados.entrySet()) {
+            calientes.get(linea.getKey()).reservado.add(linea.getValue());
+        }
+
+        Reserva reserva = new Reserva(secuencia.incrementAndGet(), Map.copyOf(porProducto),
+                System.currentTimeMillis() + ttl.toMillis());
+        reservas.put(reserva.getId(), reserva);
+        return new IntentoDeReserva(Resultado.RESERVADO, reserva, null, 0);
+    }
+
+    /**
+     * vender:
+     * Descuenta unidades directo, sin pasar por una reserva (venta inmediata).
+     * Devuelve false si no alcanza o el producto no existe.
+     */
+    public boolean vender(Long productoId, int cantidad) {
+        if (!cargarSiHaceFalta(productoId)) return false;
+
+        Caliente c = calientes.get(productoId);
+        if (c != null) {
+            if (!c.contador.tomar(cantidad)) return false;
+            c.pendiente.add(-cantidad);
+            return true;
+        }
+
+        Franja franja = franja(productoId);
+        franja.lock.lock();
+        try {
+            Existencia e = franja.productos.get(productoId);
+            if (e == null || e.fisico - e.reservado < cantidad) return false;
+            e.fisico -= cantidad;
+            e.pendiente -= cantidad;
+            return true;
+        } finally {
+            franja.lock.unlock();
+        }
+    }
+
+    // Asocia la reserva al pedido ya guardado (para confirmarla o liberarla por pedido).
+    public void vincular(Reserva reserva, Long pedidoId) {
+        if (reserva == null || pedidoId == null) return;
+        reserva.pedidoId = pedidoId;
+        if (reservas.containsKey(reserva.getId())) {
+            reservaPorPedido.put(pedidoId, reserva.getId());
+        }
+    }
+
+    /**
+     * confirmar:
+     * El pedido se pagó: las unidades reservadas pasan a vendidas.
+     * Devuelve false si la reserva ya no existe (venció o se liberó).
+     */
+    public boolean confirmar(long reservaId) {
+        Reserva reserva = quitar(reservaId);
+        if (reserva == null) return false;
+
+        Map<Long, Integer> normales = new HashMap<>();
+        for (Map.Entry<Long, Integer> linea : reserva.getCantidades().entrySet()) {
+            Caliente c = calientes.get(linea.getKey());
+            if (c == null) {
+                normales.put(linea.getKey(), linea.getValue());
+            } else {
+                // ya se descontó del contador al reservar
+                c.reservado.add(-linea.getValue());
+                c.pendiente.add(-linea.getValue());
+            }
+        }
+
+        List<Franja> bloqueadas = bloquear(normales.keySet());
+        try {
+            for (Map.Entry<Long, Integer> linea : normales.entrySet()) {
+                Existencia e = franja(linea.getKey()).productos.get(linea.getKey());
+                if (e == null) continue;
+                e.reservado -= linea.getValue();
+                e.fisico -= linea.getValue();
+                e.pendiente -= linea.getValue();
+            }
+        } finally {
+            desbloquear(bloqueadas);
+        }
+        return true;
+    }
+
+    // Cancela la reserva y devuelve las unidades a disponible.
+    public boolean liberar(long reservaId) {
+        Reserva reserva = quitar(reservaId);
+        if (reserva == null) return false;
+
+        Map<Long, Integer> normales = new HashMap<>();
+        for (Map.Entry<Long, Integer> linea : reserva.getCantidades().entrySet()) {
+            Caliente c = calientes.get(linea.getKey());
+            if (c == null) {
+                normales.put(linea.getKey(), linea.getValue());
+            } else {
+                c.reservado.add(-linea.getValue());
+                c.contador.devolver(linea.getValue());
+            }
+        }
+
+        List<Franja> bloqueadas = bloquear(normales.keySet());
+        try {
+            for (Map.Entry<Long, Integer> linea : normales.entrySet()) {
+                Existencia e = franja(linea.getKey()).productos.get(linea.getKey());
+                if (e != null) {
+                    e.reservado -= linea.getValue();
+                }
+            }
+        } finally {
+            desbloquear(bloqueadas);
+        }
+        return true;
+    }
+
+    public boolean confirmarPorPedido(Long pedidoId) {
+        return buscarPorPedido(pedidoId).map(r -> confirmar(r.getId())).orElse(false);
+    }
+
+    public boolean liberarPorPedido(Long pedidoId) {
+        return buscarPorPedido(pedidoId).map(r -> liberar(r.getId())).orElse(false);
+    }
+
+    // Devuelve al stock unidades ya vendidas (por ejemplo al borrar un pedido pagado).
+    public void devolver(Map<Long, Integer> cantidades) {
+        Map<Long, Integer> normales = new HashMap<>();
+        for (Map.Entry<Long, Integer> linea : cantidades.entrySet()) {
+            if (linea.getValue() == null || !cargarSiHaceFalta(linea.getKey())) continue;
+            Caliente c = calientes.get(linea.getKey());
+            if (c == null) {
+                normales.put(linea.getKey(), linea.getValue());
+            } else {
+                c.contador.devolver(linea.getValue());
+                c.pendiente.add(linea.getValue());
+            }
+        }
+
+        List<Franja> bloqueadas = bloquear(normales.keySet());
+        try {
+            for (Map.Entry<Long, Integer> linea : normales.entrySet()) {
+                Existencia e = franja(linea.getKey()).productos.get(linea.getKey());
+                if (e == null || linea.getValue() == null) continue;
+                e.fisico += linea.getValue();
+                e.pendiente += linea.getValue();
+            }
+        } finally {
+            desbloquear(bloqueadas);
+        }
+    }
+
+    /**
+     * refrescarStock:
+     * Alguien escribió el stock directamente en la BD (edición del producto).
+     * El físico en memoria pasa a ser ese valor más lo que aún no se ha escrito.
+     */
+    public void refrescarStock(Long productoId, int stockEnBd) {
+        if (productoId == null) return;
+
+        Caliente c = calientes.get(productoId);
+        if (c != null) {
+            // Ajusto solo por lo que cambió en la BD. No recalculo el físico con contador,
+            // reservado y pendiente: reservar y confirmar los tocan en pasos separados sin
+            // lock, y una suma a mitad de camino inventaría o perdería unidades.
+            long anterior = c.enBd.getAndSet(stockEnBd);
+            c.contador.ajustar(stockEnBd - anterior);
+            return;
+        }
+
+        Franja franja = franja(productoId);
+        franja.lock.lock();
+        try {
+            Existencia e = franja.productos.get(productoId);
+            if (e != null) {
+                e.fisico = stockEnBd + e.pendiente + e.enVuelo;
+            }
+        } finally {
+            franja.lock.unlock();
+        }
+    }
+
+    // El producto se borró: lo saco de memoria.
+    public void olvidar(Long productoId) {
+        if (productoId == null) return;
+        calientes.remove(productoId);
+        Franja franja = franja(productoId);
+        franja.lock.lock();
+        try {
+            franja.productos.remove(productoId);
+        } finally {
+            franja.lock.unlock();
+        }
+    }
+
+    /**
+     * activarModoCaliente:
+     * Pasa un producto a contadores repartidos (para una oferta relámpago).
+     * Las reservas que ya tenía se conservan. Devuelve false si el producto
+     * no existe o si justo se está escribiendo su stock (hay que reintentar).
+     */
+    public boolean activarModoCaliente(Long productoId) {
+        if (!cargarSiHaceFalta(productoId)) return false;
+        if (calientes.containsKey(productoId)) return true;
+
+        Franja franja = franja(productoId);
+        franja.lock.lock();
+        try {
+            Existencia e = franja.productos.get(productoId);
+            if (e == null || e.enVuelo != 0) return false;
+
+            Caliente c = new Caliente(franjasCalientes, e.fisico - e.reservado, e.fisico - e.pendiente);
+            c.reservado.add(e.reservado);
+            c.pendiente.add(e.pendiente);
+            calientes.put(productoId, c);
+            franja.productos.remove(productoId);
+            return true;
+        } finally {
+            franja.lock.unlock();
+        }
+    }
+
+    public boolean esCaliente(Long productoId) {
+        return calientes.containsKey(productoId);
+    }
+
+    // true si el producto está en modo caliente y no le queda nada en ninguna celda.
+    public boolean agotado(Long productoId) {
+        Caliente c = calientes.get(productoId);
+        if (c != null) return c.contador.agotado();
+        return disponible(productoId).map(d -> d <= 0).orElse(true);
+    }
+
+    // ===================== TAREAS DE FONDO =====================
+
+    // Libera las reservas que pasaron su TTL sin confirmarse. Devuelve cuántas liberó.
+    public int expirarVencidas() {
+        long ahora = System.currentTimeMillis();
+        int liberadas = 0;
+        for (Reserva reserva : new ArrayList<>(reservas.values())) {
+            if (reserva.getExpiraEn() <= ahora && liberar(reserva.getId())) {
+                liberadas++;
+            }
+        }
+        if (liberadas > 0) {
+            log.info("Reservas de stock vencidas liberadas: {}", liberadas);
+        }
+        return liberadas;
+    }
+
+    /**
+     * volcar:
+     * Escribe en la BD los cambios de stock pendientes (write-behind).
+     * Si el UPDATE falla, el delta vuelve a quedar pendiente para el siguiente intento.
+     */
+    public int volcar() {
+        int escritos = 0;
+
+        // Productos calientes: consolido lo vendido en todas sus celdas en un solo UPDATE.
+        for (Map.Entry<Long, Caliente> p : calientes.entrySet()) {
+            Caliente c = p.getValue();
+            long delta = c.pendiente.sumThenReset();
+            if (delta == 0) continue;
+            c.enVuelo.addAndGet(delta);
+            try {
+                productoRepository.ajustarStock(p.getKey(), (int) delta);
+                c.enBd.addAndGet(delta);
+                escrito(p.getKey());
+                escritos++;
+            } catch (RuntimeException ex) {
+                log.warn("No se pudo escribir el stock del producto {}: {}", p.getKey(), ex.getMessage());
+                c.pendiente.add(delta);
+            } finally {
+                c.enVuelo.addAndGet(-delta);
+            }
+        }
+
+        for (Franja franja : franjas) {
+            Map<Long, Integer> lote = new HashMap<>();
+            franja.lock.lock();
+            try {
+                for (Map.Entry<Long, Existencia> p : franja.productos.entrySet()) {
+                    Existencia e = p.getValue();
+                    if (e.pendiente != 0) {
+                        lote.put(p.getKey(), e.pendiente);
+                        e.enVuelo += e.pendiente;
+                        e.pendiente = 0;
+                    }
+                }
+            } finally {
+                franja.lock.unlock();
+            }
+
+            for (Map.Entry<Long, Integer> cambio : lote.entrySet()) {
+                boolean ok = false;
+                try {
+                    productoRepository.ajustarStock(cambio.getKey(), cambio.getValue());
+                    escrito(cambio.getKey());
+                    ok = true;
+                    escritos++;
+                } catch (RuntimeException ex) {
+                    log.warn("No se pudo escribir el stock del producto {}: {}", cambio.getKey(), ex.getMessage());
+                }
+
+                franja.lock.lock();
+                try {
+                    Existencia e = franja.productos.get(cambio.getKey());
+                    if (e != null) {
+                        e.enVuelo -= cambio.getValue();
+                        if (!ok) {
+                            e.pendiente += cambio.getValue();
+                        }
+                    }
+                } finally {
+                    franja.lock.unlock();
+                }
+            }
+        }
+        return escritos;
+    }
+
+    private void escrito(Long productoId) {
+        if (versiones != null) versiones.cambio(VersionesDeRecursos.PRODUCTOS, productoId);
+    }
+
+    // ===================== INTERNOS =====================
+
+    // Mezclo los bits del id para que ids consecutivos caigan en franjas distintas.
+    private int indice(Long productoId) {
+        long h = productoId * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & mascara;
+    }
+
+    private Franja franja(Long productoId) {
+        return franjas[indice(productoId)];
+    }
+
+    // Lee el stock del producto la primera vez que se usa. false si no existe.
+    private boolean cargarSiHaceFalta(Long productoId) {
+        if (calientes.containsKey(productoId)) return true;
+
+        Franja franja = franja(productoId);
+        franja.lock.lock();
+        try {
+            if (franja.productos.containsKey(productoId)) return true;
+        } finally {
+            franja.lock.unlock();
+        }
+
+        Optional<Producto> producto = productoRepository.findById(productoId);
+        if (producto.isEmpty()) return false;
+
+        if (calientesConfigurados.contains(productoId)) {
+            int stock = producto.get().getStock();
+            calientes.putIfAbsent(productoId, new Caliente(franjasCalientes, stock, stock));
+            return true;
+        }
+
+        franja.lock.lock();
+        try {
+            franja.productos.computeIfAbsent(productoId, id -> {
+                Existencia e = new Existencia();
+                e.fisico = producto.get().getStock();
+                return e;
+            });
+        } finally {
+            franja.lock.unlock();
+        }
+        return true;
+    }
+
+    // Bloquea las franjas de esos productos siempre en el mismo orden (por índice) para evitar deadlocks.
+    private List<Franja> bloquear(Iterable<Long> productoIds) {
+        TreeMap<Integer, Franja> orden = new TreeMap<>();
+        for (Long productoId : productoIds) {
+            int i = indice(productoId);
+            orden.put(i, franjas[i]);
+        }
+        List<Franja> bloqueadas = new ArrayList<>(orden.values());
+        for (Franja f : bloqueadas) {
+            f.lock.lock();
+        }
+        return bloqueadas;
+    }
+
+    private void desbloquear(List<Franja> bloqueadas) {
+        for (int i = bloqueadas.size() - 1; i >= 0; i--) {
+            bloqueadas.get(i).lock.unlock();
+        }
+    }
+
+    private void devolverCalientes(Map<Long, Integer> tomados) {
+        for (Map.Entry<Long, Integer> linea : tomados.entrySet()) {
+            Caliente c = calientes.get(linea.getKey());
+            if (c != null) c.contador.devolver(linea.getValue());
+        }
+    }
+
+    private Reserva quitar(long reservaId) {
+        Reserva reserva = reservas.remove(reservaId);
+        if (reserva != null && reserva.getPedidoId() != null) {
+            reservaPorPedido.remove(reserva.getPedidoId(), reserva.getId());
+        }
+        return reserva;
+    }
+
+    private void expirarVencidasSeguro() {
+        try {
+            expirarVencidas();
+        } catch (RuntimeException ex) {
+            log.warn("Error liberando reservas vencidas", ex);
+        }
+    }
+
+    private void volcarSeguro() {
+        try {
+            volcar();
+        } catch (RuntimeException ex) {
+            log.warn("Error escribiendo el stock pendiente", ex);
+        }
+    }
+}
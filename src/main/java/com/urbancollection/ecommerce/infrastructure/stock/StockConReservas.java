@@ -0,0 +1,62 @@
+package com.urbancollection.ecommerce.infrastructure.stock;
+
+import java.util.Map;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.urbancollection.ecommerce.domain.service.StockService;
+
+/**
+ * StockConReservas
+ *
+ * StockService de PedidoService (POST /api/pedidos) sobre ReservasDeStock: todos
+ * los checkouts descuentan del mismo stock en memoria que el checkout web y
+ * POST /api/stock/reservas, en lugar de leer el stock de la BD y guardar el
+ * número absoluto (que pisaría lo que ReservasDeStock aún no escribió).
+ *
+ * - hayStock mira el disponible (físico - reservado) de ReservasDeStock.
+ * - descontar vende con ReservasDeStock.vender, que revisa y descuenta en un
+ *   solo paso: si entre hayStock y descontar otro se llevó las unidades, lanza
+ *   IllegalStateException en lugar de dejar el stock negativo.
+ * - Si la transacción del pedido se revierte, lo ya descontado vuelve con
+ *   ReservasDeStock.devolver(...).
+ *
+ * La escritura a la BD es la de ReservasDeStock (write-behind), con sus mismos
+ * límites: ver la documentación de esa clase.
+ */
+public class StockConReservas implements StockService {
+
+    private final ReservasDeStock reservas;
+
+    public StockConReservas(ReservasDeStock reservas) {
+        this.reservas = reservas;
+    }
+
+    @Override
+    public boolean hayStock(Long productoId, int cantidad) {
+        if (productoId == null) return false;
+        return reservas.disponible(productoId).map(d -> d >= cantidad).orElse(false);
+    }
+
+    @Override
+    public void descontar(Long productoId, int cantidad) {
+        if (productoId == null || cantidad <= 0) return;
+        if (!reservas.vender(productoId, cantidad)) {
+            throw new IllegalStateException("No hay stock suficiente del producto " + productoId);
+        }
+        devolverSiSeRevierte(productoId, cantidad);
+    }
+
+    private void devolverSiSeRevierte(Long productoId, int cantidad) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    reservas.devolver(Map.of(productoId, cantidad));
+                }
+            }
+        });
+    }
+}
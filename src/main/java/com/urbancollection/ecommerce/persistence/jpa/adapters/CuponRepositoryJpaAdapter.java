@@ -2,6 +2,8 @@ package com.urbancollection.ecommerce.persistence.jpa.adapters;
 
 import com.urbancollection.ecommerce.domain.entity.catalogo.Cupon;
 import com.urbancollection.ecommerce.domain.repository.CuponRepository;
+import com.urbancollection.ecommerce.infrastructure.cache.CuponCache;
+import com.urbancollection.ecommerce.infrastructure.search.Autocompletado;
 import com.urbancollection.ecommerce.persistence.jpa.spring.CuponJpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -14,28 +16,41 @@ import java.util.List;
  * Implementa la interfaz CuponRepository del dominio
  * usando internamente un CuponJpaRepository
  * aquí hacemos la parte concreta de base de datos.
+ *
+ * Las búsquedas por id salen de CuponCache; save y deleteById
+ * escriben en la base de datos y luego refrescan la caché.
  */
 @Repository
 public class CuponRepositoryJpaAdapter implements CuponRepository {
 
     // Referencia al repositorio JPA que sabe trabajar directamente con la base de datos.
     private final CuponJpaRepository jpaRepository;
+    // Caché en memoria de cupones, se mantiene al día desde aquí.
+    private final CuponCache cuponCache;
+    // Autocompletado de códigos de cupón, también se actualiza desde aquí.
+    private final Autocompletado autocompletado;
 
-    // En el constructor inyecta el CuponJpaRepository que proporciona Spring.
-    public CuponRepositoryJpaAdapter(CuponJpaRepository jpaRepository) {
+    // En el constructor inyecta el CuponJpaRepository y la caché que proporciona Spring.
+    public CuponRepositoryJpaAdapter(CuponJpaRepository jpaRepository, CuponCache cuponCache,
+                                     Autocompletado autocompletado) {
         this.jpaRepository = jpaRepository;
+        this.cuponCache = cuponCache;
+        this.autocompletado = autocompletado;
     }
 
     @Override
     // Guarda o actualiza un cupón en la base de datos usando JPA.
     public Cupon save(Cupon cupon) {
-        return jpaRepository.save(cupon);
+        Cupon guardado = jpaRepository.save(cupon);
+        cuponCache.actualizar(guardado);
+        autocompletado.cupon(guardado);
+        return guardado;
     }
 
     @Override
-    // Busca un cupón por su id. Si no existe, devuelve null.
+    // Busca un cupón por su id en la caché. Si no existe, devuelve null.
     public Cupon findById(Long id) {
-        return jpaRepository.findById(id).orElse(null);
+        return cuponCache.buscarPorId(id).map(CuponCache.Entrada::aCupon).orElse(null);
     }
 
     @Override
@@ -48,5 +63,7 @@ public class CuponRepositoryJpaAdapter implements CuponRepository {
     // Elimina un cupón por su id usando el repositorio JPA.
     public void deleteById(Long id) {
         jpaRepository.deleteById(id);
+        cuponCache.eliminar(id);
+        autocompletado.quitarCupon(id);
     }
 }
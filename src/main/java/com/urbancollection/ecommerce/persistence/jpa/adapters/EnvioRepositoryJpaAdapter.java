@@ -2,6 +2,7 @@ package com.urbancollection.ecommerce.persistence.jpa.adapters;
 
 import com.urbancollection.ecommerce.domain.entity.logistica.Envio;
 import com.urbancollection.ecommerce.domain.repository.EnvioRepository;
+import com.urbancollection.ecommerce.infrastructure.cache.EnvioCache;
 import com.urbancollection.ecommerce.persistence.jpa.spring.EnvioJpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -15,19 +16,26 @@ import java.util.List;
  *
  * Así el resto de la aplicación usa EnvioRepository (interfaz limpia),
  * sin tener que saber que por debajo hay JPA.
+ *
+ * Cada escritura invalida EnvioCache (búsquedas por tracking y por pedido);
+ * si hay una transacción abierta, EnvioCache vuelve a invalidar después del commit.
  */
 @Repository
 public class EnvioRepositoryJpaAdapter implements EnvioRepository {
 
     private final EnvioJpaRepository jpaRepository;
+    private final EnvioCache envioCache;
 
-    public EnvioRepositoryJpaAdapter(EnvioJpaRepository jpaRepository) {
+    public EnvioRepositoryJpaAdapter(EnvioJpaRepository jpaRepository, EnvioCache envioCache) {
         this.jpaRepository = jpaRepository;
+        this.envioCache = envioCache;
     }
 
     @Override
     public Envio save(Envio envio) {
-        return jpaRepository.save(envio);
+        Envio guardado = jpaRepository.save(envio);
+        envioCache.invalidar(guardado);
+        return guardado;
     }
 
     @Override
@@ -43,5 +51,6 @@ public class EnvioRepositoryJpaAdapter implements EnvioRepository {
     @Override
     public void deleteById(Long id) {
         jpaRepository.deleteById(id);
+        envioCache.invalidarPorId(id);
     }
 }
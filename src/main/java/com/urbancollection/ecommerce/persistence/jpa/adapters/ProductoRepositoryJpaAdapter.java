@@ -7,6 +7,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 import com.urbancollection.ecommerce.domain.entity.catalogo.Producto;
 import com.urbancollection.ecommerce.domain.repository.ProductoRepository;
+import com.urbancollection.ecommerce.infrastructure.search.Autocompletado;
+import com.urbancollection.ecommerce.infrastructure.search.BuscadorDeProductos;
+import com.urbancollection.ecommerce.infrastructure.stock.ReservasDeStock;
 import com.urbancollection.ecommerce.persistence.jpa.spring.ProductoJpaRepository;
 
 /**
@@ -22,9 +25,18 @@ import com.urbancollection.ecommerce.persistence.jpa.spring.ProductoJpaRepositor
 public class ProductoRepositoryJpaAdapter implements ProductoRepository {
 
     private final ProductoJpaRepository jpa;
+    // Las reservas de stock en memoria se refrescan cuando el stock cambia por aquí.
+    private final ReservasDeStock reservasDeStock;
+    // El índice de búsqueda y el autocompletado también se actualizan en cada save/delete.
+    private final BuscadorDeProductos buscadorDeProductos;
+    private final Autocompletado autocompletado;
 
-    public ProductoRepositoryJpaAdapter(ProductoJpaRepository jpa) {
+    public ProductoRepositoryJpaAdapter(ProductoJpaRepository jpa, ReservasDeStock reservasDeStock,
+                                        BuscadorDeProductos buscadorDeProductos, Autocompletado autocompletado) {
         this.jpa = jpa;
+        this.reservasDeStock = reservasDeStock;
+        this.buscadorDeProductos = buscadorDeProductos;
+        this.autocompletado = autocompletado;
     }
 
     /**
@@ -51,10 +63,15 @@ public class ProductoRepositoryJpaAdapter implements ProductoRepository {
 
     /**
      * Inserta o actualiza un producto en la base de datos.
+     * Después aviso a ReservasDeStock del stock nuevo y reindexo el producto.
      */
     @Override
     public Producto save(Producto producto) {
-        return jpa.save(producto);
+        Producto guardado = jpa.save(producto);
+        reservasDeStock.refrescarStock(guardado.getId(), guardado.getStock());
+        buscadorDeProductos.indexar(guardado);
+        autocompletado.producto(guardado);
+        return guardado;
     }
 
     /**
@@ -64,6 +81,9 @@ public class ProductoRepositoryJpaAdapter implements ProductoRepository {
     @Override
     public void delete(Long id) {
         jpa.deleteById(id);
+        reservasDeStock.olvidar(id);
+        buscadorDeProductos.eliminar(id);
+        autocompletado.quitarProducto(id);
     }
 
     /**
@@ -2,8 +2,10 @@ package com.urbancollection.ecommerce.persistence.jpa.spring;
 
 import com.urbancollection.ecommerce.domain.entity.catalogo.Cupon;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -11,4 +13,8 @@ public interface CuponJpaRepository extends JpaRepository<Cupon, Long> {
     
     // ✅ Método para buscar cupón por código
     Optional<Cupon> findByCodigo(String codigo);
-}
\ No newline at end of file
+
+    // Solo id y código (sin armar entidades). Lo usa Autocompletado al cargar.
+    @Query("SELECT c.id, c.codigo FROM Cupon c")
+    List<Object[]> findIdYCodigo();
+}
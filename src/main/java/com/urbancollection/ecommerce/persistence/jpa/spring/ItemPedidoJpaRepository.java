@@ -1,11 +1,30 @@
 package com.urbancollection.ecommerce.persistence.jpa.spring;
 
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.urbancollection.ecommerce.domain.entity.ventas.ItemPedido;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface ItemPedidoJpaRepository extends JpaRepository<ItemPedido, Long> {
-    // no extra métodos todavía
+
+    // [productoId, unidades vendidas] de cada producto. Popularidad para Autocompletado.
+    @Query("SELECT i.producto.id, SUM(i.cantidad) FROM ItemPedido i GROUP BY i.producto.id")
+    List<Object[]> unidadesVendidasPorProducto();
+
+    // [pedidoId, productoId] de los pedidos con id mayor a desde, ordenados por pedido.
+    // Se lee en streaming (dentro de una transacción) para el cálculo de Recomendaciones.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT i.pedido.id, i.producto.id FROM ItemPedido i WHERE i.pedido.id > :desde ORDER BY i.pedido.id")
+    Stream<Object[]> streamPedidoYProductoDesde(@Param("desde") long desde);
 }
@@ -2,7 +2,11 @@ package com.urbancollection.ecommerce.persistence.jpa.spring;
 
 import com.urbancollection.ecommerce.domain.entity.ventas.ListaDeseos;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -21,6 +25,12 @@ import java.util.List;
  *
  * - findByUsuario_Id:
  *   devuelve toda la lista de deseos de un usuario específico.
+ *
+ * Para la caché de listas de deseos (ListasDeDeseos):
+ * - findProductoIdsByUsuarioId: solo los ids de producto, sin cargar entidades.
+ * - borrarPorUsuarioYProducto: un DELETE directo (sin traer la fila antes).
+ *
+ * - contarPorProducto: [productoId, cantidad de listas] para Recomendaciones.
  */
 @Repository
 public interface ListaDeseosJpaRepository extends JpaRepository<ListaDeseos, Long> {
@@ -28,4 +38,15 @@ public interface ListaDeseosJpaRepository extends JpaRepository<ListaDeseos, Lon
     boolean existsByUsuario_IdAndProducto_Id(Long usuarioId, Long productoId);
 
     List<ListaDeseos> findByUsuario_Id(Long usuarioId);
+
+    @Query("SELECT l.producto.id FROM ListaDeseos l WHERE l.usuario.id = :usuarioId")
+    List<Long> findProductoIdsByUsuarioId(@Param("usuarioId") Long usuarioId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ListaDeseos l WHERE l.usuario.id = :usuarioId AND l.producto.id = :productoId")
+    int borrarPorUsuarioYProducto(@Param("usuarioId") Long usuarioId, @Param("productoId") Long productoId);
+
+    @Query("SELECT l.producto.id, COUNT(l) FROM ListaDeseos l GROUP BY l.producto.id")
+    List<Object[]> contarPorProducto();
 }
@@ -0,0 +1,16 @@
+package com.urbancollection.ecommerce.persistence.jpa.spring;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import com.urbancollection.ecommerce.domain.enums.MetodoDePago;
+
+/**
+ * MovimientoDePago
+ *
+ * Fila plana del libro de pagos: una TransaccionPago con el id de su pedido.
+ * La arma directamente la consulta (sin cargar la entidad Pedido).
+ */
+public record MovimientoDePago(Long id, Long pedidoId, MetodoDePago metodo, BigDecimal monto,
+                               String estado, String referencia, LocalDateTime fecha) {
+}
@@ -0,0 +1,17 @@
+package com.urbancollection.ecommerce.persistence.jpa.spring;
+
+import java.math.BigDecimal;
+
+import com.urbancollection.ecommerce.domain.enums.EstadoDePedido;
+import com.urbancollection.ecommerce.domain.enums.MetodoDePago;
+
+/**
+ * PedidoFila
+ *
+ * Fila plana del listado de pedidos de /web/pedidos: el nombre del usuario y
+ * las unidades los trae la misma consulta (sin un SELECT por usuario ni por
+ * los ítems de cada pedido).
+ */
+public record PedidoFila(Long id, String usuarioNombre, Long direccionEnvioId, EstadoDePedido estado,
+                         MetodoDePago metodoPago, Long cantidadTotal, BigDecimal total) {
+}
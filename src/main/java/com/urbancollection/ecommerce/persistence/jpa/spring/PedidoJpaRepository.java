@@ -1,11 +1,62 @@
 package com.urbancollection.ecommerce.persistence.jpa.spring;
 
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.urbancollection.ecommerce.domain.entity.ventas.Pedido;
+import com.urbancollection.ecommerce.domain.enums.EstadoDePedido;
 
 @Repository
 public interface PedidoJpaRepository extends JpaRepository<Pedido, Long> {
-    
+
+    // [cuponId, pedidos que lo usaron]. Popularidad de cupones para Autocompletado.
+    @Query("SELECT p.cupon.id, COUNT(p) FROM Pedido p WHERE p.cupon IS NOT NULL GROUP BY p.cupon.id")
+    List<Object[]> usosPorCupon();
+
+    /**
+     * Pedidos en el estado dado que todavía no tienen envío (anti-join con NOT EXISTS),
+     * ordenados por id y a partir del id despuesDe (paginación por cursor, sin OFFSET).
+     * El tamaño de página lo da pageable; pasar PageRequest.of(0, n).
+     * Se apoya en los índices ix_pedido_estado_id y ix_envio_pedido (ver IndicesDeConsulta).
+     */
+    @Query("SELECT new com.urbancollection.ecommerce.persistence.jpa.spring.PedidoSinEnvio("
+            + "p.id, p.usuario.id, p.direccionEntrega.id, p.total) "
+            + "FROM Pedido p "
+            + "WHERE p.estado = :estado AND p.id > :despuesDe "
+            + "AND NOT EXISTS (SELECT 1 FROM Envio e WHERE e.pedido.id = p.id) "
+            + "ORDER BY p.id")
+    List<PedidoSinEnvio> findSinEnvio(@Param("estado") EstadoDePedido estado,
+                                      @Param("despuesDe") long despuesDe,
+                                      Pageable pageable);
+
+    // Total y estado de un pedido (confirmación de pagos), sin cargar la entidad.
+    @Query("SELECT new com.urbancollection.ecommerce.persistence.jpa.spring.PedidoParaPago("
+            + "p.id, p.total, p.estado) FROM Pedido p WHERE p.id = :id")
+    Optional<PedidoParaPago> findParaPago(@Param("id") Long id);
+
+    // Correo del cliente del pedido (avisos de la outbox), sin cargar pedido ni usuario.
+    @Query("SELECT p.usuario.correo FROM Pedido p WHERE p.id = :id")
+    Optional<String> findCorreoDelCliente(@Param("id") Long id);
+
+    /**
+     * Listado de /web/pedidos por cursor: los siguientes después del id despuesDe.
+     * Usuario y dirección con LEFT JOIN (un pedido sin ellos también sale) y las
+     * unidades con una subconsulta. El tamaño lo da pageable; pasar PageRequest.of(0, n).
+     */
+    @Query("SELECT new com.urbancollection.ecommerce.persistence.jpa.spring.PedidoFila("
+            + "p.id, u.nombre, d.id, p.estado, p.metodoPago, "
+            + "(SELECT COALESCE(SUM(i.cantidad), 0L) FROM ItemPedido i WHERE i.pedido.id = p.id), p.total) "
+            + "FROM Pedido p LEFT JOIN p.usuario u LEFT JOIN p.direccionEntrega d "
+            + "WHERE p.id > :despuesDe ORDER BY p.id")
+    List<PedidoFila> findFilas(@Param("despuesDe") long despuesDe, Pageable pageable);
+
+    // [estado, pedidos, suma de totales] por estado. Para los reportes, sin cargar los pedidos.
+    @Query("SELECT p.estado, COUNT(p), SUM(p.total) FROM Pedido p GROUP BY p.estado")
+    List<Object[]> resumenPorEstado();
 }
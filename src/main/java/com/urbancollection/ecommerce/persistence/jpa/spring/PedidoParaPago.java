@@ -0,0 +1,14 @@
+package com.urbancollection.ecommerce.persistence.jpa.spring;
+
+import java.math.BigDecimal;
+
+import com.urbancollection.ecommerce.domain.enums.EstadoDePedido;
+
+/**
+ * PedidoParaPago
+ *
+ * Lo único que hace falta de un pedido para confirmar su pago: total y estado.
+ * Lo arma directamente la consulta, sin cargar la entidad ni sus items.
+ */
+public record PedidoParaPago(Long id, BigDecimal total, EstadoDePedido estado) {
+}
@@ -0,0 +1,12 @@
+package com.urbancollection.ecommerce.persistence.jpa.spring;
+
+import java.math.BigDecimal;
+
+/**
+ * PedidoSinEnvio
+ *
+ * Fila plana de la cola de despacho: un pedido pagado que todavía no tiene envío.
+ * La arma directamente la consulta (sin cargar la entidad Pedido ni sus relaciones).
+ */
+public record PedidoSinEnvio(Long id, Long usuarioId, Long direccionId, BigDecimal total) {
+}
@@ -0,0 +1,12 @@
+package com.urbancollection.ecommerce.persistence.jpa.spring;
+
+import java.math.BigDecimal;
+
+/**
+ * ProductoFila
+ *
+ * Fila plana del listado de productos de /web/productos. La arma directamente
+ * la consulta (sin cargar la entidad Producto).
+ */
+public record ProductoFila(Long id, String nombre, String descripcion, BigDecimal precio, int stock) {
+}
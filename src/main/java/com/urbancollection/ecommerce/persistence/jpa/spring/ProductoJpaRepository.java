@@ -1,15 +1,31 @@
 package com.urbancollection.ecommerce.persistence.jpa.spring;
 
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.urbancollection.ecommerce.domain.entity.catalogo.Producto;
 
 @Repository
-public interface ProductoJpaRepository extends JpaRepository<Producto, Long> {
+// ajustarStock viene de ProductoStockRepository
+public interface ProductoJpaRepository extends JpaRepository<Producto, Long>, ProductoStockRepository {
 
     // Spring Data genera el query solo con el nombre del método
     Optional<Producto> findByNombreIgnoreCase(String nombre);
+
+    // Solo id y nombre (sin armar entidades). Lo usa Autocompletado al cargar.
+    @Query("SELECT p.id, p.nombre FROM Producto p")
+    List<Object[]> findIdYNombre();
+
+    // Listado de /web/productos por cursor: los siguientes después del id despuesDe.
+    // El tamaño lo da pageable; pasar PageRequest.of(0, n).
+    @Query("SELECT new com.urbancollection.ecommerce.persistence.jpa.spring.ProductoFila("
+            + "p.id, p.nombre, p.descripcion, p.precio, p.stock) "
+            + "FROM Producto p WHERE p.id > :despuesDe ORDER BY p.id")
+    List<ProductoFila> findFilas(@Param("despuesDe") long despuesDe, Pageable pageable);
 }
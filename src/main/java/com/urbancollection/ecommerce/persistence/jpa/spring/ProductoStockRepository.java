@@ -0,0 +1,14 @@
+package com.urbancollection.ecommerce.persistence.jpa.spring;
+
+/**
+ * ProductoStockRepository
+ *
+ * Suma (o resta, si delta es negativo) unidades al stock sin leer el producto.
+ * Lo usa el volcado de ReservasDeStock. Se implementa a mano
+ * (ProductoStockRepositoryImpl) para que la caché de segundo nivel pierda
+ * solo ese producto y no la región entera, como pasaría con un UPDATE en JPQL.
+ */
+public interface ProductoStockRepository {
+
+    int ajustarStock(Long id, int delta);
+}
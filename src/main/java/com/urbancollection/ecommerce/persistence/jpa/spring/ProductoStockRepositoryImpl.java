@@ -0,0 +1,26 @@
+package com.urbancollection.ecommerce.persistence.jpa.spring;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import com.urbancollection.ecommerce.domain.entity.catalogo.Producto;
+import com.urbancollection.ecommerce.infrastructure.cache.CacheDeSegundoNivel;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * ProductoStockRepositoryImpl
+ *
+ * Spring Data la encuentra por el nombre (interfaz + "Impl") y la suma a ProductoJpaRepository.
+ */
+class ProductoStockRepositoryImpl implements ProductoStockRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public int ajustarStock(Long id, int delta) {
+        return CacheDeSegundoNivel.sumar(entityManager, Producto.class, "stock", id, delta);
+    }
+}
@@ -1,7 +1,14 @@
 package com.urbancollection.ecommerce.persistence.jpa.spring;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
 import com.urbancollection.ecommerce.domain.entity.ventas.TransaccionPago;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 /**
  *
@@ -12,8 +19,45 @@ import org.springframework.data.jpa.repository.JpaRepository;
  * - findAll()
  * - deleteById()
  *
- * No defino métodos extra aquí porque por ahora con lo básico es suficiente
- * para registrar y consultar pagos.
+ * findFirstByPedido_IdAndReferencia busca el pago que se registró con una
+ * clave de idempotencia (se guarda como referencia) para responder reintentos.
+ *
+ * Las consultas del libro de pagos devuelven MovimientoDePago y paginan por
+ * cursor (sin OFFSET): el tamaño de página lo da pageable, pasar PageRequest.of(0, n).
+ * Se apoyan en los índices ix_transaccion_pedido, ix_transaccion_estado_id y
+ * ix_transaccion_fecha_id (ver IndicesDeConsulta).
  */
 public interface TransaccionPagoJpaRepository extends JpaRepository<TransaccionPago, Long> {
+
+    Optional<TransaccionPago> findFirstByPedido_IdAndReferencia(Long pedidoId, String referencia);
+
+    // Pagos de un pedido, en el orden en que se registraron.
+    @Query("SELECT new com.urbancollection.ecommerce.persistence.jpa.spring.MovimientoDePago("
+            + "t.id, t.pedido.id, t.metodo, t.monto, t.estado, t.referencia, t.fecha) "
+            + "FROM TransaccionPago t WHERE t.pedido.id = :pedidoId ORDER BY t.id")
+    List<MovimientoDePago> findMovimientosPorPedido(@Param("pedidoId") Long pedidoId);
+
+    // Pagos en un estado, por id a partir de despuesDe.
+    @Query("SELECT new com.urbancollection.ecommerce.persistence.jpa.spring.MovimientoDePago("
+            + "t.id, t.pedido.id, t.metodo, t.monto, t.estado, t.referencia, t.fecha) "
+            + "FROM TransaccionPago t WHERE t.estado = :estado AND t.id > :despuesDe ORDER BY t.id")
+    List<MovimientoDePago> findMovimientosPorEstado(@Param("estado") String estado,
+                                                    @Param("despuesDe") long despuesDe,
+                                                    Pageable pageable);
+
+    /**
+     * Pagos con fecha en [desde, hasta), ordenados por (fecha, id) y a partir del
+     * par (despuesDeFecha, despuesDeId). Para la primera página: desde y 0.
+     */
+    @Query("SELECT new com.urbancollection.ecommerce.persistence.jpa.spring.MovimientoDePago("
+            + "t.id, t.pedido.id, t.metodo, t.monto, t.estado, t.referencia, t.fecha) "
+            + "FROM TransaccionPago t "
+            + "WHERE t.fecha >= :desde AND t.fecha < :hasta "
+            + "AND (t.fecha > :despuesDeFecha OR (t.fecha = :despuesDeFecha AND t.id > :despuesDeId)) "
+            + "ORDER BY t.fecha, t.id")
+    List<MovimientoDePago> findMovimientosEntre(@Param("desde") LocalDateTime desde,
+                                                @Param("hasta") LocalDateTime hasta,
+                                                @Param("despuesDeFecha") LocalDateTime despuesDeFecha,
+                                                @Param("despuesDeId") long despuesDeId,
+                                                Pageable pageable);
 }
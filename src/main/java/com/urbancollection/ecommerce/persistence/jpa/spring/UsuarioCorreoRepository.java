@@ -0,0 +1,19 @@
+package com.urbancollection.ecommerce.persistence.jpa.spring;
+
+import java.util.Optional;
+
+import com.urbancollection.ecommerce.domain.entity.usuarios.Usuario;
+
+/**
+ * UsuarioCorreoRepository
+ *
+ * Búsquedas por correo sin importar mayúsculas. Se implementan a mano
+ * (UsuarioCorreoRepositoryImpl) para usar la columna normalizada con índice
+ * y el filtro de Bloom de CorreosDeUsuarios en lugar de UPPER(correo).
+ */
+public interface UsuarioCorreoRepository {
+
+    boolean existsByCorreoIgnoreCase(String correo);
+
+    Optional<Usuario> findByCorreoIgnoreCase(String correo);
+}
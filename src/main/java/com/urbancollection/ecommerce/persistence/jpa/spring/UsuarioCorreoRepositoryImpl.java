@@ -0,0 +1,37 @@
+package com.urbancollection.ecommerce.persistence.jpa.spring;
+
+import java.util.Optional;
+
+import com.urbancollection.ecommerce.domain.entity.usuarios.Usuario;
+import com.urbancollection.ecommerce.infrastructure.cache.CorreosDeUsuarios;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * UsuarioCorreoRepositoryImpl
+ *
+ * Spring Data la encuentra por el nombre (interfaz + "Impl") y la suma a UsuarioJpaRepository.
+ * Primero resuelve el id por correo (filtro + índice) y recién ahí carga el Usuario.
+ */
+class UsuarioCorreoRepositoryImpl implements UsuarioCorreoRepository {
+
+    private final CorreosDeUsuarios correosDeUsuarios;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    UsuarioCorreoRepositoryImpl(CorreosDeUsuarios correosDeUsuarios) {
+        this.correosDeUsuarios = correosDeUsuarios;
+    }
+
+    @Override
+    public boolean existsByCorreoIgnoreCase(String correo) {
+        return correosDeUsuarios.existe(correo);
+    }
+
+    @Override
+    public Optional<Usuario> findByCorreoIgnoreCase(String correo) {
+        return correosDeUsuarios.buscarId(correo).map(id -> entityManager.find(Usuario.class, id));
+    }
+}
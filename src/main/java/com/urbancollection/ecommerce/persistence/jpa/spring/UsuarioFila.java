@@ -0,0 +1,10 @@
+package com.urbancollection.ecommerce.persistence.jpa.spring;
+
+/**
+ * UsuarioFila
+ *
+ * Fila plana del listado de usuarios de /web/usuarios. La arma directamente
+ * la consulta (sin cargar la entidad Usuario, ni su contraseña).
+ */
+public record UsuarioFila(Long id, String nombre, String correo, String rol) {
+}
@@ -1,24 +1,29 @@
 package com.urbancollection.ecommerce.persistence.jpa.spring;
 
 import com.urbancollection.ecommerce.domain.entity.usuarios.Usuario;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
+// existsByCorreoIgnoreCase / findByCorreoIgnoreCase vienen de UsuarioCorreoRepository
+// (columna correo_normalizado con índice + filtro de Bloom).
 @Repository
-public interface UsuarioJpaRepository extends JpaRepository<Usuario, Long> {
+public interface UsuarioJpaRepository extends JpaRepository<Usuario, Long>, UsuarioCorreoRepository {
 
-    @Query("SELECT CASE WHEN COUNT(u) > 0 THEN true ELSE false END FROM Usuario u WHERE UPPER(u.correo) = UPPER(:correo)")
-    boolean existsByCorreoIgnoreCase(@Param("correo") String correo);
-
-    @Query("SELECT u FROM Usuario u WHERE UPPER(u.correo) = UPPER(:correo)")
-    Optional<Usuario> findByCorreoIgnoreCase(@Param("correo") String correo);
-    
     // ✅ Alias para compatibilidad con WebControllers
     default Optional<Usuario> findByEmail(String email) {
         return findByCorreoIgnoreCase(email);
     }
-}
\ No newline at end of file
+
+    // Listado de /web/usuarios por cursor: los siguientes después del id despuesDe.
+    // El tamaño lo da pageable; pasar PageRequest.of(0, n).
+    @Query("SELECT new com.urbancollection.ecommerce.persistence.jpa.spring.UsuarioFila("
+            + "u.id, u.nombre, u.correo, u.rol) "
+            + "FROM Usuario u WHERE u.id > :despuesDe ORDER BY u.id")
+    List<UsuarioFila> findFilas(@Param("despuesDe") long despuesDe, Pageable pageable);
+}
@@ -0,0 +1,31 @@
+// Auto-ocultar mensajes después de 5 segundos (fragmento auto-hide-messages de messages.html).
+document.addEventListener('DOMContentLoaded', function() {
+    const alerts = document.querySelectorAll('.alert');
+
+    alerts.forEach(function(alert) {
+        // Auto-ocultar después de 5 segundos
+        setTimeout(function() {
+            alert.style.transition = 'opacity 0.5s ease';
+            alert.style.opacity = '0';
+
+            setTimeout(function() {
+                alert.style.display = 'none';
+            }, 500);
+        }, 5000);
+
+        // Agregar botón de cerrar
+        const closeBtn = document.createElement('button');
+        closeBtn.innerHTML = '×';
+        closeBtn.style.cssText = 'background: none; border: none; font-size: 24px; cursor: pointer; margin-left: auto; padding: 0 5px; opacity: 0.6;';
+        closeBtn.onclick = function() {
+            alert.style.transition = 'opacity 0.3s ease';
+            alert.style.opacity = '0';
+            setTimeout(function() {
+                alert.style.display = 'none';
+            }, 300);
+        };
+
+        alert.appendChild(closeBtn);
+        alert.style.display = 'flex';
+    });
+});
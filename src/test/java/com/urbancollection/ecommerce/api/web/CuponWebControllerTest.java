@@ -10,6 +10,8 @@ import java.util.Collections;
 import java.util.Optional;
 
 import com.urbancollection.ecommerce.domain.entity.catalogo.Cupon;
+import com.urbancollection.ecommerce.infrastructure.cache.CuponCache;
+import com.urbancollection.ecommerce.infrastructure.search.Autocompletado;
 import com.urbancollection.ecommerce.persistence.jpa.spring.CuponJpaRepository;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -29,6 +31,12 @@ class CuponWebControllerTest {
     @Mock
     private CuponJpaRepository cuponRepository;
 
+    @Mock
+    private CuponCache cuponCache;
+
+    @Mock
+    private Autocompletado autocompletado;
+
     @InjectMocks
     private CuponWebController cuponWebController;
 
@@ -0,0 +1,74 @@
+package com.urbancollection.ecommerce.api.web;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.urbancollection.ecommerce.application.service.IEnvioService;
+import com.urbancollection.ecommerce.application.service.IPedidoService;
+import com.urbancollection.ecommerce.domain.entity.logistica.Envio;
+import com.urbancollection.ecommerce.domain.entity.ventas.Pedido;
+import com.urbancollection.ecommerce.domain.enums.EstadoDeEnvio;
+import com.urbancollection.ecommerce.domain.enums.EstadoDePedido;
+import com.urbancollection.ecommerce.infrastructure.cache.EnvioCache;
+import com.urbancollection.ecommerce.infrastructure.cache.VersionesDeRecursos;
+import com.urbancollection.ecommerce.infrastructure.estados.EstadosDePedido;
+import com.urbancollection.ecommerce.infrastructure.logistica.EstadosDeEnvioEnLote;
+
+@ExtendWith(MockitoExtension.class)
+class EnvioControllerTest {
+
+    private MockMvc mockMvc;
+
+    @Mock private IEnvioService envioService;
+    @Mock private IPedidoService pedidoService;
+    @Mock private EnvioCache envioCache;
+    @Mock private EstadosDeEnvioEnLote estadosEnLote;
+    @Mock private VersionesDeRecursos versiones;
+    @Mock private EstadosDePedido estadosDePedido;
+
+    @InjectMocks
+    private EnvioController envioController;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(envioController).build();
+    }
+
+    @Test
+    void actualizar_aEntregadoConPedidoCancelado_deberiaRetornar409SinGuardar() throws Exception {
+        Envio envio = new Envio();
+        envio.setId(1L);
+        envio.setEstado(EstadoDeEnvio.EN_TRANSITO);
+        Pedido pedido = new Pedido();
+        pedido.setId(7L);
+
+        when(envioService.buscarPorId(1L)).thenReturn(Optional.of(envio));
+        when(pedidoService.obtenerPorId(7L)).thenReturn(pedido);
+        when(estadosDePedido.cambiar(7L, EstadoDePedido.COMPLETADO)).thenReturn(new EstadosDePedido.Cambio(
+                EstadosDePedido.Resultado.TRANSICION_INVALIDA, EstadoDePedido.CANCELADO, EstadoDePedido.CANCELADO));
+
+        mockMvc.perform(put("/api/envios/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"pedidoId\": 7, \"tracking\": \"ABC123\", \"estado\": \"ENTREGADO\"}"))
+                .andExpect(status().isConflict());
+
+        verify(envioService, never()).actualizar(anyLong(), any(Envio.class));
+    }
+}
@@ -4,31 +4,42 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
 import org.springframework.ui.Model;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import com.urbancollection.ecommerce.domain.entity.logistica.Envio;
 import com.urbancollection.ecommerce.domain.entity.ventas.Pedido;
+import com.urbancollection.ecommerce.domain.enums.EstadoDeEnvio;
 import com.urbancollection.ecommerce.domain.enums.EstadoDePedido;
+import com.urbancollection.ecommerce.infrastructure.cache.EnvioCache;
+import com.urbancollection.ecommerce.infrastructure.estados.EstadosDePedido;
 import com.urbancollection.ecommerce.persistence.jpa.spring.EnvioJpaRepository;
 import com.urbancollection.ecommerce.persistence.jpa.spring.PedidoJpaRepository;
+import com.urbancollection.ecommerce.persistence.jpa.spring.PedidoSinEnvio;
 
 class EnvioWebControllerTest {
 
     @Mock private EnvioJpaRepository envioRepository;
     @Mock private PedidoJpaRepository pedidoRepository;
+    @Mock private EnvioCache envioCache;
+    @Mock private EstadosDePedido estadosDePedido;
     @Mock private Model model;
     @Mock private RedirectAttributes redirectAttributes;
 
@@ -64,19 +75,36 @@ class EnvioWebControllerTest {
 
     @Test
     void mostrarFormularioCrear_DebeRetornarVistaCreate() {
-        List<Pedido> pedidos = new ArrayList<>();
-        Pedido pedido = new Pedido();
-        pedido.setEstado(EstadoDePedido.PAGADO);
-        pedido.setId(1L);
-        pedidos.add(pedido);
-        
-        when(pedidoRepository.findAll()).thenReturn(pedidos);
-        when(envioRepository.findAll()).thenReturn(new ArrayList<>());
+        List<PedidoSinEnvio> pedidos = List.of(new PedidoSinEnvio(1L, 3L, 4L, new BigDecimal("10.00")));
+        when(pedidoRepository.findSinEnvio(eq(EstadoDePedido.PAGADO), eq(0L), any(Pageable.class)))
+                .thenReturn(pedidos);
 
         String vista = controller.mostrarFormularioCrear(model);
 
         assertEquals("envio/create", vista);
-        verify(model).addAttribute(eq("pedidos"), any(List.class));
+        verify(model).addAttribute("pedidos", pedidos);
+        verify(model).addAttribute("hayMasPedidos", false);
+        // ya no se traen todos los pedidos ni todos los envíos
+        verify(pedidoRepository, never()).findAll();
+        verify(envioRepository, never()).findAll();
+    }
+
+    @Test
+    void mostrarFormularioCrear_ConMasPedidosQueElMaximo_DebeRecortarYAvisar() {
+        int maximo = EnvioWebController.MAXIMO_PEDIDOS_EN_FORMULARIO;
+        List<PedidoSinEnvio> pedidos = new ArrayList<>();
+        for (long id = 1; id <= maximo + 1; id++) {
+            pedidos.add(new PedidoSinEnvio(id, 1L, 1L, BigDecimal.ONE));
+        }
+        ArgumentCaptor<Pageable> pagina = ArgumentCaptor.forClass(Pageable.class);
+        when(pedidoRepository.findSinEnvio(eq(EstadoDePedido.PAGADO), eq(0L), pagina.capture()))
+                .thenReturn(pedidos);
+
+        controller.mostrarFormularioCrear(model);
+
+        assertEquals(maximo + 1, pagina.getValue().getPageSize());
+        verify(model).addAttribute("pedidos", pedidos.subList(0, maximo));
+        verify(model).addAttribute("hayMasPedidos", true);
     }
 
     @Test
@@ -86,17 +114,51 @@ class EnvioWebControllerTest {
         pedido.setEstado(EstadoDePedido.PAGADO);
         
         when(pedidoRepository.findById(1L)).thenReturn(Optional.of(pedido));
-        when(envioRepository.findByPedidoId(1L)).thenReturn(Optional.empty());
-        when(envioRepository.findByTracking("TRACK123")).thenReturn(Optional.empty());
+        when(envioCache.porPedido(1L)).thenReturn(Optional.empty());
+        when(envioCache.porTracking("TRACK123")).thenReturn(Optional.empty());
         when(envioRepository.save(any(Envio.class))).thenReturn(new Envio());
 
         String vista = controller.crear(1L, "TRACK123", "PENDIENTE", model, redirectAttributes);
 
         assertEquals("redirect:/web/envios", vista);
         verify(envioRepository).save(any(Envio.class));
+        verify(envioCache).invalidar(any(Envio.class));
         verify(redirectAttributes).addFlashAttribute(eq("successMessage"), anyString());
     }
 
+    @Test
+    void crear_ConTrackingRepetido_DebeMostrarError() {
+        Pedido pedido = new Pedido();
+        pedido.setId(1L);
+
+        when(pedidoRepository.findById(1L)).thenReturn(Optional.of(pedido));
+        when(envioCache.porPedido(1L)).thenReturn(Optional.empty());
+        when(envioCache.porTracking("track123")).thenReturn(Optional.of(
+                new EnvioCache.Foto(9L, 2L, "TRACK123", "PENDIENTE", null, null, "\"9-0\"")));
+
+        String vista = controller.crear(1L, "track123", "PENDIENTE", model, redirectAttributes);
+
+        assertEquals("envio/create", vista);
+        verify(model).addAttribute("errorMessage", "Ya existe un envío con ese tracking");
+    }
+
+    @Test
+    void crear_ConPedidoYaConEnvioEnLaBD_DebeMostrarError() {
+        // la caché no lo sabía (lo creó otra instancia); el índice único lo frena al guardar
+        Pedido pedido = new Pedido();
+        pedido.setId(1L);
+
+        when(pedidoRepository.findById(1L)).thenReturn(Optional.of(pedido));
+        when(envioCache.porPedido(1L)).thenReturn(Optional.empty());
+        when(envioCache.porTracking("TRACK123")).thenReturn(Optional.empty());
+        when(envioRepository.save(any(Envio.class))).thenThrow(new DataIntegrityViolationException("ux_envio_pedido"));
+
+        String vista = controller.crear(1L, "TRACK123", "PENDIENTE", model, redirectAttributes);
+
+        assertEquals("envio/create", vista);
+        verify(model).addAttribute("errorMessage", "Ya existe un envío para este pedido o con ese tracking");
+    }
+
     @Test
     void crear_SinPedidoId_DebeMostrarError() {
         String vista = controller.crear(null, "TRACK123", "PENDIENTE", model, redirectAttributes);
@@ -151,7 +213,7 @@ class EnvioWebControllerTest {
         envio.setPedido(pedido);
         
         when(envioRepository.findById(1L)).thenReturn(Optional.of(envio));
-        when(envioRepository.findByTracking("TRACK456")).thenReturn(Optional.empty());
+        when(envioCache.porTracking("TRACK456")).thenReturn(Optional.empty());
         when(envioRepository.save(any(Envio.class))).thenReturn(envio);
 
         String vista = controller.actualizar(1L, "TRACK456", "EN_TRANSITO", model, redirectAttributes);
@@ -161,6 +223,43 @@ class EnvioWebControllerTest {
         verify(redirectAttributes).addFlashAttribute(eq("successMessage"), anyString());
     }
 
+    @Test
+    void actualizar_ConTransicionInvalida_DebeMostrarErrorSinGuardar() {
+        Envio envio = new Envio();
+        envio.setEstado(EstadoDeEnvio.ENTREGADO);
+
+        when(envioRepository.findById(1L)).thenReturn(Optional.of(envio));
+        when(envioCache.porTracking("TRACK456")).thenReturn(Optional.empty());
+
+        String vista = controller.actualizar(1L, "TRACK456", "EN_TRANSITO", model, redirectAttributes);
+
+        assertEquals("envio/edit", vista);
+        assertEquals(EstadoDeEnvio.ENTREGADO, envio.getEstado());
+        verify(model).addAttribute(eq("errorMessage"), anyString());
+        verify(envioRepository, never()).save(any(Envio.class));
+    }
+
+    @Test
+    void actualizar_AEntregadoConPedidoCancelado_DebeMostrarErrorSinGuardar() {
+        Envio envio = new Envio();
+        envio.setEstado(EstadoDeEnvio.EN_TRANSITO);
+        Pedido pedido = new Pedido();
+        pedido.setId(7L);
+        envio.setPedido(pedido);
+
+        when(envioRepository.findById(1L)).thenReturn(Optional.of(envio));
+        when(envioCache.porTracking("TRACK456")).thenReturn(Optional.empty());
+        when(estadosDePedido.cambiar(7L, EstadoDePedido.COMPLETADO)).thenReturn(new EstadosDePedido.Cambio(
+                EstadosDePedido.Resultado.TRANSICION_INVALIDA, EstadoDePedido.CANCELADO, EstadoDePedido.CANCELADO));
+
+        String vista = controller.actualizar(1L, "TRACK456", "ENTREGADO", model, redirectAttributes);
+
+        assertEquals("envio/edit", vista);
+        assertEquals(EstadoDeEnvio.EN_TRANSITO, envio.getEstado());
+        verify(model).addAttribute("errorMessage", "Un pedido CANCELADO no puede pasar a COMPLETADO");
+        verify(envioRepository, never()).save(any(Envio.class));
+    }
+
     @Test
     void actualizar_ConEnvioNoExistente_DebeRedirigir() {
         when(envioRepository.findById(1L)).thenReturn(Optional.empty());
@@ -179,6 +278,7 @@ class EnvioWebControllerTest {
 
         assertEquals("redirect:/web/envios", vista);
         verify(envioRepository).deleteById(1L);
+        verify(envioCache).invalidarPorId(1L);
         verify(redirectAttributes).addFlashAttribute(eq("successMessage"), anyString());
     }
 
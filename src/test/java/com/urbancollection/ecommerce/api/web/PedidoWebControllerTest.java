@@ -3,21 +3,24 @@ package com.urbancollection.ecommerce.api.web;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.ui.Model;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
@@ -25,7 +28,13 @@ import com.urbancollection.ecommerce.domain.entity.catalogo.Producto;
 import com.urbancollection.ecommerce.domain.entity.usuarios.Usuario;
 import com.urbancollection.ecommerce.domain.entity.ventas.Pedido;
 import com.urbancollection.ecommerce.domain.enums.EstadoDePedido;
+import com.urbancollection.ecommerce.infrastructure.cache.CuponCache;
+import com.urbancollection.ecommerce.infrastructure.estados.EstadosDePedido;
+import com.urbancollection.ecommerce.infrastructure.pricing.MotorDePrecios;
+import com.urbancollection.ecommerce.infrastructure.search.Autocompletado;
+import com.urbancollection.ecommerce.infrastructure.stock.ReservasDeStock;
 import com.urbancollection.ecommerce.persistence.jpa.spring.CuponJpaRepository;
+import com.urbancollection.ecommerce.persistence.jpa.spring.PedidoFila;
 import com.urbancollection.ecommerce.persistence.jpa.spring.PedidoJpaRepository;
 import com.urbancollection.ecommerce.persistence.jpa.spring.ProductoJpaRepository;
 import com.urbancollection.ecommerce.persistence.jpa.spring.UsuarioJpaRepository;
@@ -36,39 +45,46 @@ class PedidoWebControllerTest {
     @Mock private UsuarioJpaRepository usuarioRepository;
     @Mock private ProductoJpaRepository productoRepository;
     @Mock private CuponJpaRepository cuponRepository;
+    @Mock private CuponCache cuponCache;
+    @Mock private Autocompletado autocompletado;
+    @Mock private EstadosDePedido estadosDePedido;
+    @Spy private MotorDePrecios motorDePrecios = new MotorDePrecios();
     @Mock private Model model;
     @Mock private RedirectAttributes redirectAttributes;
 
-    @InjectMocks
     private PedidoWebController controller;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        // Reservas reales (sin hilos de fondo) sobre el repositorio de productos mockeado.
+        ReservasDeStock reservasDeStock = new ReservasDeStock(productoRepository, 4, Duration.ofMinutes(15), 60_000, 60_000);
+        controller = new PedidoWebController(pedidoRepository, usuarioRepository, productoRepository,
+                cuponRepository, cuponCache, motorDePrecios, reservasDeStock, autocompletado, estadosDePedido);
     }
 
     @Test
     void listar_DebeRetornarVistaPedidoList() {
         // Arrange
-        List<Pedido> pedidos = new ArrayList<>();
-        when(pedidoRepository.findAll()).thenReturn(pedidos);
+        List<PedidoFila> pedidos = new ArrayList<>();
+        when(pedidoRepository.findFilas(anyLong(), any())).thenReturn(pedidos);
 
         // Act
-        String vista = controller.listar(model);
+        String vista = controller.listar(0L, null, false, model);
 
         // Assert
         assertEquals("pedido/list", vista);
-        verify(pedidoRepository).findAll();
+        verify(pedidoRepository).findFilas(eq(0L), any());
         verify(model).addAttribute(eq("pedidos"), anyList());
     }
 
     @Test
     void listar_ConError_DebeMostrarMensajeError() {
         // Arrange
-        when(pedidoRepository.findAll()).thenThrow(new RuntimeException("Error de prueba"));
+        when(pedidoRepository.findFilas(anyLong(), any())).thenThrow(new RuntimeException("Error de prueba"));
 
         // Act
-        String vista = controller.listar(model);
+        String vista = controller.listar(0L, null, false, model);
 
         // Assert
         assertEquals("pedido/list", vista);
@@ -108,8 +124,6 @@ class PedidoWebControllerTest {
     void mostrarFormularioCrear_DebeRetornarVistaCreate() {
         // Arrange
         when(usuarioRepository.findAll()).thenReturn(List.of());
-        when(productoRepository.findAll()).thenReturn(List.of());
-        when(cuponRepository.findAll()).thenReturn(List.of());
 
         // Act
         String vista = controller.mostrarFormularioCrear(model);
@@ -117,8 +131,9 @@ class PedidoWebControllerTest {
         // Assert
         assertEquals("pedido/create", vista);
         verify(model).addAttribute(eq("usuarios"), anyList());
-        verify(model).addAttribute(eq("productos"), anyList());
-        verify(model).addAttribute(eq("cupones"), anyList());
+        // Productos y cupones se buscan con el autocompletado, no se cargan enteros.
+        verify(productoRepository, never()).findAll();
+        verify(cuponRepository, never()).findAll();
     }
 
     @Test
@@ -173,8 +188,6 @@ class PedidoWebControllerTest {
         // Arrange
         when(usuarioRepository.findById(999L)).thenReturn(Optional.empty());
         when(usuarioRepository.findAll()).thenReturn(List.of());
-        when(productoRepository.findAll()).thenReturn(List.of());
-        when(cuponRepository.findAll()).thenReturn(List.of());
 
         // Act
         String vista = controller.crear(999L, null, List.of(1L), List.of(2), "TARJETA", model, redirectAttributes);
@@ -192,17 +205,39 @@ class PedidoWebControllerTest {
         pedido.setEstado(EstadoDePedido.PENDIENTE_PAGO);
         
         when(pedidoRepository.findById(1L)).thenReturn(Optional.of(pedido));
-        when(pedidoRepository.save(any(Pedido.class))).thenReturn(pedido);
+        when(estadosDePedido.cambiar(1L, EstadoDePedido.PAGADO)).thenReturn(new EstadosDePedido.Cambio(
+                EstadosDePedido.Resultado.CAMBIADO, EstadoDePedido.PENDIENTE_PAGO, EstadoDePedido.PAGADO));
 
         // Act
         String vista = controller.cambiarEstado(1L, "PAGADO", redirectAttributes);
 
         // Assert
         assertEquals("redirect:/web/pedidos/1", vista);
-        verify(pedidoRepository).save(any(Pedido.class));
+        verify(estadosDePedido).cambiar(1L, EstadoDePedido.PAGADO);
+        // ya no se guarda la entidad entera
+        verify(pedidoRepository, never()).save(any(Pedido.class));
         verify(redirectAttributes).addFlashAttribute(eq("successMessage"), anyString());
     }
 
+    @Test
+    void cambiarEstado_ConTransicionInvalida_DebeMostrarError() {
+        // Arrange
+        Pedido pedido = new Pedido();
+        pedido.setId(1L);
+        pedido.setEstado(EstadoDePedido.CANCELADO);
+
+        when(pedidoRepository.findById(1L)).thenReturn(Optional.of(pedido));
+        when(estadosDePedido.cambiar(1L, EstadoDePedido.PAGADO)).thenReturn(new EstadosDePedido.Cambio(
+                EstadosDePedido.Resultado.TRANSICION_INVALIDA, EstadoDePedido.CANCELADO, EstadoDePedido.CANCELADO));
+
+        // Act
+        String vista = controller.cambiarEstado(1L, "PAGADO", redirectAttributes);
+
+        // Assert
+        assertEquals("redirect:/web/pedidos/1", vista);
+        verify(redirectAttributes).addFlashAttribute("errorMessage", "⚠ Un pedido CANCELADO no puede pasar a PAGADO");
+    }
+
     @Test
     void cambiarEstado_SinEstado_DebeMostrarError() {
         // Arrange
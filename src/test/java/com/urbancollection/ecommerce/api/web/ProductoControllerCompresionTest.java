@@ -0,0 +1,146 @@
+package com.urbancollection.ecommerce.api.web;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.LongStream;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.Compression;
+import org.springframework.boot.web.servlet.context.AnnotationConfigServletWebServerApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+import com.urbancollection.ecommerce.application.dto.ProductoDTO;
+import com.urbancollection.ecommerce.application.service.IProductoService;
+import com.urbancollection.ecommerce.infrastructure.cache.VersionesDeRecursos;
+import com.urbancollection.ecommerce.infrastructure.search.BuscadorDeProductos;
+
+/**
+ * ProductoControllerCompresionTest
+ *
+ * GET /api/productos contra un Tomcat de verdad con la compresión de
+ * application.properties: la lista sale en gzip (con el ETag de la versión)
+ * y el mismo ETag en If-None-Match da 304.
+ */
+@DisplayName("Tests de compresión de /api/productos")
+class ProductoControllerCompresionTest {
+
+    @Configuration
+    @EnableWebMvc
+    static class Contexto {
+
+        @Bean
+        TomcatServletWebServerFactory servidor() throws Exception {
+            TomcatServletWebServerFactory servidor = new TomcatServletWebServerFactory(0);
+            servidor.setCompression(compresionDeLaAplicacion());
+            return servidor;
+        }
+
+        @Bean
+        DispatcherServlet dispatcherServlet() {
+            return new DispatcherServlet();
+        }
+
+        @Bean
+        ProductoController productoController() {
+            IProductoService servicio = mock(IProductoService.class);
+            when(servicio.listar()).thenReturn(LongStream.rangeClosed(1, 100).mapToObj(id -> {
+                ProductoDTO dto = new ProductoDTO();
+                dto.setId(id);
+                dto.setNombre("Producto " + id);
+                dto.setDescripcion("Descripción del producto " + id);
+                dto.setPrecio(new BigDecimal("100.00"));
+                dto.setStock(10);
+                return dto;
+            }).toList());
+            return new ProductoController(servicio, mock(BuscadorDeProductos.class), new VersionesDeRecursos(Map.of(
+                    VersionesDeRecursos.PRODUCTOS, new VersionesDeRecursos.Politica(Duration.ofSeconds(60), true))));
+        }
+    }
+
+    // server.compression.* tal como está en application.properties (ISO-8859-1, como lo lee Spring)
+    static Compression compresionDeLaAplicacion() throws Exception {
+        Properties propiedades = new Properties();
+        try (InputStream in = Files.newInputStream(Path.of("src/main/resources/application.properties"))) {
+            propiedades.load(in);
+        }
+        return new Binder(new MapConfigurationPropertySource(propiedades))
+                .bind("server.compression", Compression.class).get();
+    }
+
+    private AnnotationConfigServletWebServerApplicationContext contexto;
+    private HttpClient cliente;
+    private URI productos;
+
+    @BeforeEach
+    void setUp() {
+        contexto = new AnnotationConfigServletWebServerApplicationContext(Contexto.class);
+        cliente = HttpClient.newHttpClient();
+        productos = URI.create("http://localhost:" + contexto.getWebServer().getPort() + "/api/productos");
+    }
+
+    @AfterEach
+    void tearDown() {
+        contexto.close();
+    }
+
+    @Test
+    @DisplayName("La lista sale comprimida con gzip y con ETag débil")
+    void listar_gzip() throws Exception {
+        HttpResponse<byte[]> respuesta = cliente.send(HttpRequest.newBuilder(productos)
+                .header("Accept", "application/json").header("Accept-Encoding", "gzip").build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+
+        assertEquals(200, respuesta.statusCode());
+        assertEquals(List.of("gzip"), respuesta.headers().allValues("Content-Encoding"));
+        String etag = respuesta.headers().firstValue("ETag").orElseThrow();
+        assertTrue(etag.startsWith("W/\""), etag);
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(respuesta.body()))) {
+            String json = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            assertTrue(json.startsWith("[") && json.contains("Producto 100"), json);
+        }
+
+        HttpResponse<byte[]> condicional = cliente.send(HttpRequest.newBuilder(productos)
+                .header("Accept", "application/json").header("Accept-Encoding", "gzip")
+                .header("If-None-Match", etag).build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+
+        assertEquals(304, condicional.statusCode());
+    }
+
+    @Test
+    @DisplayName("Sin Accept-Encoding: gzip la lista sale sin comprimir")
+    void listar_sinGzip() throws Exception {
+        HttpResponse<String> respuesta = cliente.send(HttpRequest.newBuilder(productos)
+                .header("Accept", "application/json").build(), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, respuesta.statusCode());
+        assertTrue(respuesta.headers().firstValue("Content-Encoding").isEmpty());
+        assertTrue(respuesta.body().startsWith("["));
+    }
+}
@@ -1,17 +1,25 @@
 package com.urbancollection.ecommerce.api.web;
 
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -19,6 +27,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
@@ -29,6 +38,8 @@ import com.urbancollection.ecommerce.application.dto.ProductoDTO;
 import com.urbancollection.ecommerce.application.service.IProductoService;
 import com.urbancollection.ecommerce.domain.base.OperationResult;
 import com.urbancollection.ecommerce.domain.entity.catalogo.Producto;
+import com.urbancollection.ecommerce.infrastructure.cache.VersionesDeRecursos;
+import com.urbancollection.ecommerce.infrastructure.search.BuscadorDeProductos;
 
 @ExtendWith(MockitoExtension.class)
 class ProductoControllerTest {
@@ -38,6 +49,13 @@ class ProductoControllerTest {
     @Mock
     private IProductoService productoService;
 
+    @Mock
+    private BuscadorDeProductos buscadorDeProductos;
+
+    @Spy
+    private VersionesDeRecursos versiones = new VersionesDeRecursos(Map.of(
+            VersionesDeRecursos.PRODUCTOS, new VersionesDeRecursos.Politica(Duration.ofSeconds(60), true)));
+
     @InjectMocks
     private ProductoController productoController;
 
@@ -69,6 +87,49 @@ class ProductoControllerTest {
                 .andExpect(jsonPath("$[1].nombre").value("Producto 2"));
     }
 
+    @Test
+    void listar_etagPorFormatoYVaryAccept() throws Exception {
+        when(productoService.listar()).thenReturn(List.of());
+
+        String etagJson = mockMvc.perform(get("/api/productos").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues("Vary", hasItem("Accept")))
+                .andReturn().getResponse().getHeader("ETag");
+        String etagCbor = mockMvc.perform(get("/api/productos").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().stringValues("Vary", hasItem("Accept")))
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotEquals(etagJson, etagCbor);
+
+        // el ETag del JSON no sirve para el CBOR, el del CBOR sí
+        mockMvc.perform(get("/api/productos").accept(MediaType.APPLICATION_CBOR).header("If-None-Match", etagJson))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/productos").accept(MediaType.APPLICATION_CBOR).header("If-None-Match", etagCbor))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etagCbor))
+                .andExpect(header().stringValues("Vary", hasItem("Accept")));
+    }
+
+    @Test
+    void buscar_deberiaRetornarResultadosDelIndice() throws Exception {
+        when(buscadorDeProductos.buscar("camisa", 20)).thenReturn(List.of(
+                new BuscadorDeProductos.Resultado(7L, "Camisa Oxford", "Algodón", "SKU-7",
+                        new BigDecimal("1500.00"), 2.5f)));
+
+        mockMvc.perform(get("/api/productos/search").param("q", "camisa"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(7))
+                .andExpect(jsonPath("$[0].nombre").value("Camisa Oxford"));
+    }
+
+    @Test
+    void buscar_sinTexto_deberiaRetornar400() throws Exception {
+        mockMvc.perform(get("/api/productos/search").param("q", " "))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").exists());
+    }
+
     @Test
     void getById_cuandoExiste_deberiaRetornarProductoYStatus200() throws Exception {
         ProductoDTO dto = new ProductoDTO();
@@ -84,6 +145,33 @@ class ProductoControllerTest {
                 .andExpect(jsonPath("$.nombre").value("Producto Test"));
     }
 
+    @Test
+    void getById_conEtagVigente_deberiaRetornar304SinConsultarElServicio() throws Exception {
+        String etag = versiones.de(VersionesDeRecursos.PRODUCTOS, 1L).en(MediaType.APPLICATION_JSON).etag();
+
+        mockMvc.perform(get("/api/productos/1").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(header().string("Cache-Control", "max-age=60, must-revalidate, public"));
+
+        verify(productoService, never()).buscarPorId(1L);
+    }
+
+    @Test
+    void getById_conEtagViejo_deberiaRetornarProductoConEtagNuevo() throws Exception {
+        String etagViejo = versiones.de(VersionesDeRecursos.PRODUCTOS, 1L).en(MediaType.APPLICATION_JSON).etag();
+        versiones.cambio(VersionesDeRecursos.PRODUCTOS, 1L);
+        ProductoDTO dto = new ProductoDTO();
+        dto.setId(1L);
+        dto.setNombre("Producto Test");
+        when(productoService.buscarPorId(1L)).thenReturn(Optional.of(dto));
+
+        mockMvc.perform(get("/api/productos/1").header("If-None-Match", etagViejo))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", versiones.de(VersionesDeRecursos.PRODUCTOS, 1L).en(MediaType.APPLICATION_JSON).etag()))
+                .andExpect(jsonPath("$.nombre").value("Producto Test"));
+    }
+
     @Test
     void getById_cuandoNoExiste_deberiaRetornar404ConMensajeError() throws Exception {
         when(productoService.buscarPorId(999L)).thenReturn(Optional.empty());
@@ -1,6 +1,14 @@
 package com.urbancollection.ecommerce.api.web;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -10,7 +18,10 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -19,10 +30,19 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.spring6.view.ThymeleafViewResolver;
+import org.thymeleaf.templateresolver.FileTemplateResolver;
 
 import com.urbancollection.ecommerce.domain.entity.catalogo.Producto;
+import com.urbancollection.ecommerce.infrastructure.paginacion.LecturaPorLotes;
+import com.urbancollection.ecommerce.infrastructure.search.Autocompletado;
+import com.urbancollection.ecommerce.infrastructure.search.BuscadorDeProductos;
+import com.urbancollection.ecommerce.infrastructure.stock.ReservasDeStock;
+import com.urbancollection.ecommerce.persistence.jpa.spring.ProductoFila;
 import com.urbancollection.ecommerce.persistence.jpa.spring.ProductoJpaRepository;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,6 +53,15 @@ class ProductoWebControllerTest {
     @Mock
     private ProductoJpaRepository productoRepository;
 
+    @Mock
+    private ReservasDeStock reservasDeStock;
+
+    @Mock
+    private BuscadorDeProductos buscadorDeProductos;
+
+    @Mock
+    private Autocompletado autocompletado;
+
     @InjectMocks
     private ProductoWebController productoWebController;
 
@@ -43,7 +72,8 @@ class ProductoWebControllerTest {
 
     @Test
     void listar_cuandoTodoOk_deberiaMostrarListaProductos() throws Exception {
-        when(productoRepository.findAll()).thenReturn(Collections.singletonList(new Producto()));
+        when(productoRepository.findFilas(anyLong(), any()))
+                .thenReturn(Collections.singletonList(new ProductoFila(1L, "Producto", null, BigDecimal.TEN, 5)));
 
         mockMvc.perform(get("/web/productos"))
                 .andExpect(status().isOk())
@@ -53,7 +83,7 @@ class ProductoWebControllerTest {
 
     @Test
     void listar_cuandoRepositoryLanzaError_deberiaMostrarMensajeError() throws Exception {
-        when(productoRepository.findAll()).thenThrow(new RuntimeException("fallo BD"));
+        when(productoRepository.findFilas(anyLong(), any())).thenThrow(new RuntimeException("fallo BD"));
 
         mockMvc.perform(get("/web/productos"))
                 .andExpect(status().isOk())
@@ -61,6 +91,75 @@ class ProductoWebControllerTest {
                 .andExpect(model().attributeExists("errorMessage"));
     }
 
+    // MockMvc que renderiza las plantillas de verdad (Thymeleaf), para ver el HTML que sale.
+    // Se leen de src/main/resources (surefire corre en la carpeta del módulo).
+    private MockMvc mockMvcConVistas() {
+        FileTemplateResolver plantillas = new FileTemplateResolver();
+        plantillas.setPrefix("src/main/resources/templates/");
+        plantillas.setSuffix(".html");
+        plantillas.setCharacterEncoding("UTF-8");
+        SpringTemplateEngine motor = new SpringTemplateEngine();
+        motor.setTemplateResolver(plantillas);
+        ThymeleafViewResolver vistas = new ThymeleafViewResolver();
+        vistas.setTemplateEngine(motor);
+        vistas.setCharacterEncoding("UTF-8");
+        return MockMvcBuilders.standaloneSetup(productoWebController).setViewResolvers(vistas).build();
+    }
+
+    // Tabla de productos con ids 1..total: los siguientes a despuesDe, hasta el tamaño pedido.
+    private void productosEnBd(int total) {
+        when(productoRepository.findFilas(anyLong(), any())).thenAnswer(inv -> {
+            long despuesDe = inv.getArgument(0);
+            Pageable pagina = inv.getArgument(1);
+            List<ProductoFila> filas = new ArrayList<>();
+            for (long id = despuesDe + 1; id <= total && filas.size() < pagina.getPageSize(); id++) {
+                filas.add(new ProductoFila(id, "Producto " + id, null, new BigDecimal("9.99"), 3));
+            }
+            return filas;
+        });
+    }
+
+    private static int filas(String html) {
+        return html.split("<tr>", -1).length - 1;
+    }
+
+    @Test
+    void listar_porPaginas_deberiaMostrarUnaPaginaYElEnlaceALaSiguiente() throws Exception {
+        productosEnBd(1_000);
+
+        String html = mockMvcConVistas().perform(get("/web/productos").param("despuesDe", "50").param("tamano", "50"))
+                .andExpect(status().isOk())
+                .andExpect(model().attributeExists("pagina"))
+                .andReturn().getResponse().getContentAsString();
+
+        // encabezado + 50 productos, del 51 al 100
+        assertEquals(51, filas(html));
+        assertTrue(html.contains("Producto 51<"));
+        assertTrue(html.contains("Producto 100<"));
+        assertFalse(html.contains("Producto 101<"));
+        assertTrue(html.contains("/web/productos?despuesDe=100&amp;tamano=50"));
+        assertTrue(html.contains("/web/productos?todo=true"));
+        // CSS y JS del layout van aparte (los guarda el navegador)
+        assertTrue(html.contains("/css/admin.css"));
+        assertFalse(html.contains("<style>"));
+    }
+
+    @Test
+    void listar_todo_deberiaEscribirTodasLasFilasLeyendoDeALotes() throws Exception {
+        productosEnBd(1_201);
+
+        String html = mockMvcConVistas().perform(get("/web/productos").param("todo", "true"))
+                .andExpect(status().isOk())
+                .andExpect(model().attributeDoesNotExist("pagina"))
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals(1 + 1_201, filas(html));
+        assertTrue(html.contains("Producto 1201<"));
+        // 3 lotes (500 + 500 + 201), nunca la tabla entera de una vez
+        verify(productoRepository, times(3)).findFilas(anyLong(), argThat(p -> p.getPageSize() == LecturaPorLotes.LOTE));
+        verify(productoRepository).findFilas(eq(1_000L), any());
+    }
+
     @Test
     void mostrarFormularioCrear_deberiaCargarValoresPorDefecto() throws Exception {
         mockMvc.perform(get("/web/productos/create"))
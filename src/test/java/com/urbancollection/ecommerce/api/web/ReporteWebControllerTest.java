@@ -14,11 +14,13 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
-import com.urbancollection.ecommerce.domain.entity.ventas.Pedido;
+import com.urbancollection.ecommerce.domain.enums.EstadoDePedido;
+import com.urbancollection.ecommerce.infrastructure.pricing.MotorDePrecios;
 import com.urbancollection.ecommerce.persistence.jpa.spring.PedidoJpaRepository;
 import com.urbancollection.ecommerce.persistence.jpa.spring.ProductoJpaRepository;
 import com.urbancollection.ecommerce.persistence.jpa.spring.UsuarioJpaRepository;
@@ -38,6 +40,9 @@ class ReporteWebControllerTest {
     @Mock
     private UsuarioJpaRepository usuarioRepository;
 
+    @Spy
+    private MotorDePrecios motorDePrecios = new MotorDePrecios();
+
     @InjectMocks
     private ReporteWebController reporteWebController;
 
@@ -48,15 +53,12 @@ class ReporteWebControllerTest {
 
     @Test
     void mostrarReportes_cuandoTodoOk_deberiaRetornarVistaConEstadisticas() throws Exception {
-        Pedido p1 = new Pedido();
-        p1.setTotal(new BigDecimal("100.00"));
-        
-        Pedido p2 = new Pedido();
-        p2.setTotal(new BigDecimal("200.00"));
-        
-        List<Pedido> pedidos = List.of(p1, p2);
-
-        when(pedidoRepository.findAll()).thenReturn(pedidos);
+        // [estado, pedidos, suma de totales] como los devuelve la consulta agrupada
+        List<Object[]> resumen = List.of(
+                new Object[] {EstadoDePedido.PAGADO, 1L, new BigDecimal("100.00")},
+                new Object[] {EstadoDePedido.COMPLETADO, 1L, new BigDecimal("200.00")});
+
+        when(pedidoRepository.resumenPorEstado()).thenReturn(resumen);
         when(productoRepository.count()).thenReturn(5L);
         when(usuarioRepository.count()).thenReturn(10L);
 
@@ -70,12 +72,16 @@ class ReporteWebControllerTest {
                 .andExpect(model().attributeExists("promedioVenta"))
                 .andExpect(model().attributeExists("pedidosPendientes"))
                 .andExpect(model().attributeExists("pedidosPagados"))
-                .andExpect(model().attributeExists("pedidosCompletados"));
+                .andExpect(model().attributeExists("pedidosCompletados"))
+                .andExpect(model().attribute("totalPedidos", 2L))
+                .andExpect(model().attribute("totalVentas", new BigDecimal("300.00")))
+                .andExpect(model().attribute("promedioVenta", new BigDecimal("150.00")))
+                .andExpect(model().attribute("pedidosPagados", 1L));
     }
 
     @Test
     void mostrarReportes_cuandoRepositoryLanzaError_deberiaMostrarMensajeError() throws Exception {
-        when(pedidoRepository.findAll()).thenThrow(new RuntimeException("fallo inesperado"));
+        when(pedidoRepository.resumenPorEstado()).thenThrow(new RuntimeException("fallo inesperado"));
 
         mockMvc.perform(get("/web/reportes"))
                 .andExpect(status().isOk())
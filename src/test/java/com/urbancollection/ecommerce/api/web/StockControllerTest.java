@@ -0,0 +1,72 @@
+package com.urbancollection.ecommerce.api.web;
+
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.validation.Errors;
+import org.springframework.validation.Validator;
+
+import com.urbancollection.ecommerce.infrastructure.stock.ReservasDeStock;
+
+@ExtendWith(MockitoExtension.class)
+class StockControllerTest {
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private ReservasDeStock reservasDeStock;
+
+    @InjectMocks
+    private StockController stockController;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(stockController)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                // sin proveedor de Bean Validation en el classpath: @Valid no valida nada,
+                // como en la aplicación, y lo que se prueba es el chequeo del controller
+                .setValidator(new Validator() {
+                    @Override
+                    public boolean supports(Class<?> clazz) { return false; }
+
+                    @Override
+                    public void validate(Object target, Errors errors) { }
+                })
+                .build();
+    }
+
+    @Test
+    void reservar_sinProductoId_deberiaRetornar400() throws Exception {
+        mockMvc.perform(post("/api/stock/reservas")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"productoId\": 1, \"cantidad\": 2}, {\"cantidad\": 1}]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("productoId es obligatorio"));
+
+        verify(reservasDeStock, never()).reservar(anyMap());
+    }
+
+    @Test
+    void reservar_conCantidadNula_deberiaRetornar400() throws Exception {
+        mockMvc.perform(post("/api/stock/reservas")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"productoId\": 1, \"cantidad\": null}]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("cantidad debe ser >= 1"));
+
+        verify(reservasDeStock, never()).reservar(anyMap());
+    }
+}
@@ -59,6 +59,21 @@ class UsuarioControllerTest {
                 .andExpect(jsonPath("$[1].nombre").value("Maria"));
     }
 
+    @Test
+    void listar_noDeberiaExponerLaContrasena() throws Exception {
+        Usuario u1 = new Usuario();
+        u1.setId(1L);
+        u1.setNombre("Juan");
+        u1.setContrasena("secreta");
+
+        when(usuarioService.listar()).thenReturn(List.of(u1));
+
+        mockMvc.perform(get("/api/usuarios"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].contrasena").doesNotExist());
+    }
+
     @Test
     void crear_deberiaResponderExitosamente() throws Exception {
         String requestBody = """
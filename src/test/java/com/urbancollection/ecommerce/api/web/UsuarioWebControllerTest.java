@@ -1,6 +1,9 @@
 package com.urbancollection.ecommerce.api.web;
 
+import com.urbancollection.ecommerce.domain.entity.logistica.Direccion;
 import com.urbancollection.ecommerce.domain.entity.usuarios.Usuario;
+import com.urbancollection.ecommerce.infrastructure.cache.CacheDeSegundoNivel;
+import com.urbancollection.ecommerce.persistence.jpa.spring.UsuarioFila;
 import com.urbancollection.ecommerce.persistence.jpa.spring.UsuarioJpaRepository;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -14,8 +17,12 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.util.Collections;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 
@@ -27,6 +34,9 @@ class UsuarioWebControllerTest {
     @Mock
     private UsuarioJpaRepository usuarioRepository;
 
+    @Mock
+    private CacheDeSegundoNivel cacheDeSegundoNivel;
+
     @InjectMocks
     private UsuarioWebController usuarioWebController;
 
@@ -37,7 +47,8 @@ class UsuarioWebControllerTest {
 
     @Test
     void listar_cuandoTodoOk_deberiaMostrarListaUsuarios() throws Exception {
-        when(usuarioRepository.findAll()).thenReturn(Collections.singletonList(new Usuario()));
+        when(usuarioRepository.findFilas(anyLong(), any()))
+                .thenReturn(Collections.singletonList(new UsuarioFila(1L, "Ana", "ana@correo.com", "CLIENTE")));
 
         mockMvc.perform(get("/web/usuarios"))
                 .andExpect(status().isOk())
@@ -47,7 +58,7 @@ class UsuarioWebControllerTest {
 
     @Test
     void listar_cuandoRepositoryLanzaError_deberiaMostrarMensajeError() throws Exception {
-        when(usuarioRepository.findAll()).thenThrow(new RuntimeException("fallo inesperado"));
+        when(usuarioRepository.findFilas(anyLong(), any())).thenThrow(new RuntimeException("fallo inesperado"));
 
         mockMvc.perform(get("/web/usuarios"))
                 .andExpect(status().isOk())
@@ -64,4 +75,16 @@ class UsuarioWebControllerTest {
                 .andExpect(model().attribute("email", ""))
                 .andExpect(model().attribute("telefono", ""));
     }
-}
\ No newline at end of file
+
+    @Test
+    void eliminar_deberiaInvalidarLaCacheDeDirecciones() throws Exception {
+        when(usuarioRepository.existsById(7L)).thenReturn(true);
+
+        mockMvc.perform(post("/web/usuarios/7/delete"))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(flash().attributeExists("successMessage"));
+
+        verify(usuarioRepository).deleteById(7L);
+        verify(cacheDeSegundoNivel).invalidar(Direccion.class);
+    }
+}
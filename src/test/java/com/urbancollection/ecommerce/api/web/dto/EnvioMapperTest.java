@@ -0,0 +1,54 @@
+package com.urbancollection.ecommerce.api.web.dto;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+import com.urbancollection.ecommerce.domain.entity.logistica.Envio;
+import com.urbancollection.ecommerce.domain.entity.ventas.Pedido;
+import com.urbancollection.ecommerce.domain.enums.EstadoDeEnvio;
+
+class EnvioMapperTest {
+
+    @Test
+    void toResponse_whenEnvioIsNull_returnsNull() {
+        assertNull(EnvioMapper.toResponse(null));
+    }
+
+    @Test
+    void toResponse_mapsFieldsWithPedidoId() {
+        Pedido pedido = new Pedido();
+        pedido.setId(42L);
+
+        Envio envio = new Envio();
+        envio.setId(7L);
+        envio.setPedido(pedido);
+        envio.setTracking("TRK-001");
+        envio.setEstado(EstadoDeEnvio.EN_TRANSITO);
+        LocalDateTime creado = LocalDateTime.of(2025, 1, 10, 9, 30);
+        envio.setCreatedAt(creado);
+        envio.setUpdatedAt(creado.plusHours(2));
+
+        EnvioResponse dto = EnvioMapper.toResponse(envio);
+
+        assertEquals(7L, dto.getId());
+        assertEquals(42L, dto.getPedidoId());
+        assertEquals("TRK-001", dto.getTracking());
+        assertEquals("EN_TRANSITO", dto.getEstado());
+        assertEquals(creado, dto.getCreatedAt());
+        assertEquals(creado.plusHours(2), dto.getUpdatedAt());
+    }
+
+    @Test
+    void toResponse_withoutPedidoOrEstado_leavesThemNull() {
+        Envio envio = new Envio();
+        envio.setId(1L);
+
+        EnvioResponse dto = EnvioMapper.toResponse(envio);
+
+        assertNull(dto.getPedidoId());
+        assertNull(dto.getEstado());
+    }
+}
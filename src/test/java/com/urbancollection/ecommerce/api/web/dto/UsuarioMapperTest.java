@@ -0,0 +1,34 @@
+package com.urbancollection.ecommerce.api.web.dto;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.urbancollection.ecommerce.domain.entity.usuarios.Usuario;
+
+class UsuarioMapperTest {
+
+    @Test
+    void toResponse_whenUsuarioIsNull_returnsNull() {
+        assertNull(UsuarioMapper.toResponse(null));
+    }
+
+    @Test
+    void toResponse_mapsFieldsWithoutContrasena() {
+        Usuario usuario = new Usuario();
+        usuario.setId(3L);
+        usuario.setNombre("Ana");
+        usuario.setCorreo("ana@test.com");
+        usuario.setTelefono("809-555-0101");
+        usuario.setRol("CLIENTE");
+        usuario.setContrasena("secreta");
+
+        UsuarioResponse dto = UsuarioMapper.toResponse(usuario);
+
+        assertEquals(3L, dto.getId());
+        assertEquals("Ana", dto.getNombre());
+        assertEquals("ana@test.com", dto.getCorreo());
+        assertEquals("809-555-0101", dto.getTelefono());
+        assertEquals("CLIENTE", dto.getRol());
+    }
+}
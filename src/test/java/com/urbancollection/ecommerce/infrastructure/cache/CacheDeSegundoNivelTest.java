@@ -0,0 +1,177 @@
+package com.urbancollection.ecommerce.infrastructure.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.cache.Cache;
+
+import org.ehcache.config.CacheRuntimeConfiguration;
+import org.ehcache.config.ResourceType;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.urbancollection.ecommerce.domain.entity.catalogo.Cupon;
+import com.urbancollection.ecommerce.domain.entity.catalogo.Producto;
+import com.urbancollection.ecommerce.domain.entity.logistica.Direccion;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * CacheDeSegundoNivelTest
+ *
+ * Tests de las regiones de la caché de segundo nivel, de las propiedades
+ * que se le pasan a Hibernate y de sumar(...) con Hibernate y H2.
+ */
+@DisplayName("Tests para CacheDeSegundoNivel")
+class CacheDeSegundoNivelTest {
+
+    private CacheDeSegundoNivel cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new CacheDeSegundoNivel(List.of(
+                new CacheDeSegundoNivel.Region("producto", Producto.class, 3, Duration.ofSeconds(300)),
+                new CacheDeSegundoNivel.Region("cupon", Cupon.class, 100, Duration.ofSeconds(600))));
+    }
+
+    @AfterEach
+    void tearDown() {
+        cache.cerrar();
+    }
+
+    @SuppressWarnings("unchecked")
+    private CacheRuntimeConfiguration<Object, Object> configuracion(String region) {
+        Cache<Object, Object> c = cache.getCacheManager().getCache(region);
+        return (CacheRuntimeConfiguration<Object, Object>) c.getConfiguration(Eh107Configuration.class)
+                .unwrap(CacheRuntimeConfiguration.class);
+    }
+
+    @Test
+    @DisplayName("Crea una región por entidad con su tamaño máximo y TTL")
+    void regiones_tamanoYTtl() {
+        assertEquals(3, configuracion("producto").getResourcePools().getPoolForResource(ResourceType.Core.HEAP).getSize());
+        assertEquals(Duration.ofSeconds(300),
+                configuracion("producto").getExpiryPolicy().getExpiryForCreation(1L, "x"));
+        assertEquals(Duration.ofSeconds(600),
+                configuracion("cupon").getExpiryPolicy().getExpiryForCreation(1L, "x"));
+    }
+
+    @Test
+    @DisplayName("Una región no guarda más entidades que su máximo")
+    void regiones_desalojo() {
+        Cache<Object, Object> productos = cache.getCacheManager().getCache("producto");
+        for (long id = 1; id <= 10; id++) productos.put(id, "producto " + id);
+
+        int enCache = 0;
+        for (Cache.Entry<Object, Object> ignored : productos) enCache++;
+        assertEquals(3, enCache);
+    }
+
+    @Test
+    @DisplayName("Configura Hibernate con JCache, estadísticas y las entidades cacheables")
+    void configurar_propiedades() {
+        Map<String, Object> propiedades = new HashMap<>();
+        cache.configurar(propiedades);
+
+        assertEquals("true", propiedades.get("hibernate.cache.use_second_level_cache"));
+        assertEquals("jcache", propiedades.get("hibernate.cache.region.factory_class"));
+        assertSame(cache.getCacheManager(), propiedades.get(ConfigSettings.CACHE_MANAGER));
+        assertEquals("true", propiedades.get("hibernate.generate_statistics"));
+        assertEquals("read-write,producto", propiedades.get("hibernate.classcache." + Producto.class.getName()));
+        assertEquals("read-write,cupon", propiedades.get("hibernate.classcache." + Cupon.class.getName()));
+    }
+
+    @Test
+    @DisplayName("invalidar vacía solo la región de esa entidad")
+    void invalidar_region() {
+        Cache<Object, Object> productos = cache.getCacheManager().getCache("producto");
+        Cache<Object, Object> cupones = cache.getCacheManager().getCache("cupon");
+        productos.put(1L, "producto");
+        cupones.put(1L, "cupon");
+
+        cache.invalidar(Producto.class);
+
+        assertNull(productos.get(1L));
+        assertEquals("cupon", cupones.get(1L));
+        assertThrows(IllegalArgumentException.class, () -> cache.invalidar(Direccion.class));
+    }
+
+    // Entidad solo de test: las del dominio no traen el mapeo completo.
+    @Entity(name = "ArticuloCacheado")
+    @Table(name = "articulo_l2")
+    public static class Articulo {
+        @Id
+        private Long id;
+        private int stock;
+
+        public Articulo() {
+        }
+
+        Articulo(Long id, int stock) {
+            this.id = id;
+            this.stock = stock;
+        }
+
+        public int getStock() { return stock; }
+    }
+
+    @Test
+    @DisplayName("sumar deja en la caché las demás entidades de la región y saca solo la tocada")
+    void sumar_sacaSoloEsaEntidad() {
+        CacheDeSegundoNivel conArticulos = new CacheDeSegundoNivel(List.of(
+                new CacheDeSegundoNivel.Region("articulo", Articulo.class, 100, Duration.ofSeconds(300))));
+        LocalContainerEntityManagerFactoryBean fabrica = new LocalContainerEntityManagerFactoryBean();
+        fabrica.setDataSource(new DriverManagerDataSource("jdbc:h2:mem:cache_l2;DB_CLOSE_DELAY=-1", "sa", ""));
+        fabrica.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        fabrica.setManagedTypes(PersistenceManagedTypes.of(Articulo.class.getName()));
+        Map<String, Object> propiedades = new HashMap<>(Map.of("hibernate.hbm2ddl.auto", "create-drop"));
+        conArticulos.configurar(propiedades);
+        fabrica.setJpaPropertyMap(propiedades);
+        fabrica.afterPropertiesSet();
+        EntityManagerFactory emf = fabrica.getObject();
+        try {
+            TransactionTemplate tx = new TransactionTemplate(new JpaTransactionManager(emf));
+            EntityManager em = SharedEntityManagerCreator.createSharedEntityManager(emf);
+            tx.executeWithoutResult(s -> {
+                em.persist(new Articulo(1L, 10));
+                em.persist(new Articulo(2L, 20));
+            });
+            tx.executeWithoutResult(s -> {
+                em.find(Articulo.class, 1L);
+                em.find(Articulo.class, 2L);
+            });
+            assertTrue(emf.getCache().contains(Articulo.class, 1L));
+            assertTrue(emf.getCache().contains(Articulo.class, 2L));
+
+            int filas = tx.execute(s -> CacheDeSegundoNivel.sumar(em, Articulo.class, "stock", 1L, -3));
+
+            assertEquals(1, filas);
+            assertFalse(emf.getCache().contains(Articulo.class, 1L));
+            assertTrue(emf.getCache().contains(Articulo.class, 2L));
+            assertEquals(Integer.valueOf(7), tx.execute(s -> em.find(Articulo.class, 1L).getStock()));
+        } finally {
+            fabrica.destroy();
+            conArticulos.cerrar();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.urbancollection.ecommerce.infrastructure.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+/**
+ * CorreosDeUsuariosTest
+ *
+ * Tests de CorreosDeUsuarios contra una base H2 en memoria
+ * (necesita la columna calculada y el índice de verdad).
+ */
+@DisplayName("Tests para CorreosDeUsuarios")
+class CorreosDeUsuariosTest {
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbc;
+    private CorreosDeUsuarios correos;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:correos;DB_CLOSE_DELAY=-1", "sa", "", true);
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE usuario (id BIGINT PRIMARY KEY, correo VARCHAR(255))");
+        jdbc.update("INSERT INTO usuario VALUES (1, 'Ana@Correo.com'), (2, ' luis@correo.com ')");
+
+        correos = new CorreosDeUsuarios(jdbc, "usuario", "id", "correo", 100, 3_600_000);
+        correos.iniciar();
+    }
+
+    @AfterEach
+    void tearDown() {
+        correos.cerrar();
+        jdbc.execute("DROP ALL OBJECTS");
+        dataSource.destroy();
+    }
+
+    @Test
+    @DisplayName("Crea la columna normalizada y la llena para las filas que ya estaban")
+    void iniciar_deberiaCrearColumnaNormalizada() {
+        String valor = jdbc.queryForObject("SELECT correo_normalizado FROM usuario WHERE id = 2", String.class);
+
+        assertEquals("luis@correo.com", valor);
+        assertTrue(correos.getSqlBuscarId().contains("correo_normalizado"));
+    }
+
+    @Test
+    @DisplayName("Busca sin importar mayúsculas ni espacios")
+    void buscarId_ignoraMayusculas() {
+        assertEquals(Optional.of(1L), correos.buscarId("  ANA@correo.COM"));
+        assertEquals(Optional.of(2L), correos.buscarId("Luis@Correo.com"));
+        assertTrue(correos.existe("ana@correo.com"));
+    }
+
+    @Test
+    @DisplayName("Un correo libre se responde con el filtro sin ir a la BD")
+    void existe_correoLibreNoConsultaBd() {
+        for (int i = 0; i < 50; i++) {
+            assertFalse(correos.existe("nuevo" + i + "@correo.com"));
+        }
+
+        // Con 1% de falsos positivos casi todas se responden sin consulta
+        assertTrue(correos.getRespondidasSinBd() >= 45);
+    }
+
+    @Test
+    @DisplayName("Un correo registrado después de armar el filtro se encuentra")
+    void registrar_deberiaAgregarAlFiltro() {
+        jdbc.update("INSERT INTO usuario (id, correo) VALUES (3, 'Nuevo@Correo.com')");
+        correos.registrar("Nuevo@Correo.com");
+
+        assertEquals(Optional.of(3L), correos.buscarId("nuevo@correo.com"));
+    }
+
+    @Test
+    @DisplayName("Un alta hecha antes de reconstruir y confirmada después de la lectura no se pierde")
+    void registrarConfirmado_despuesDeReconstruir() {
+        // insert (flush) de una transacción que todavía no confirmó: la lectura no lo ve
+        correos.registrar("Tarde@Correo.com");
+        correos.reconstruir();
+
+        // commit
+        jdbc.update("INSERT INTO usuario (id, correo) VALUES (3, 'Tarde@Correo.com')");
+        correos.registrarConfirmado("Tarde@Correo.com");
+
+        assertTrue(correos.existe("tarde@correo.com"));
+    }
+
+    @Test
+    @DisplayName("La BD rechaza un correo repetido aunque cambien mayúsculas o espacios")
+    void indiceUnico_rechazaRepetidos() {
+        assertThrows(DataIntegrityViolationException.class,
+                () -> jdbc.update("INSERT INTO usuario (id, correo) VALUES (3, ' ANA@correo.com')"));
+        jdbc.update("INSERT INTO usuario (id, correo) VALUES (3, NULL), (4, NULL)");
+    }
+
+    @Test
+    @DisplayName("Al reconstruir se sueltan los correos borrados")
+    void reconstruir_sueltaBorrados() {
+        jdbc.update("DELETE FROM usuario WHERE id = 1");
+        correos.reconstruir();
+
+        long antes = correos.getConsultasABd();
+        assertFalse(correos.existe("ana@correo.com"));
+        // "ana" ya no está en el filtro (salvo un falso positivo, muy improbable con 1 elemento)
+        assertEquals(antes, correos.getConsultasABd());
+    }
+}
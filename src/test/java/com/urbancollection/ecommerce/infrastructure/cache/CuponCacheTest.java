@@ -0,0 +1,154 @@
+package com.urbancollection.ecommerce.infrastructure.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.urbancollection.ecommerce.domain.entity.catalogo.Cupon;
+import com.urbancollection.ecommerce.domain.enums.TipoDescuento;
+import com.urbancollection.ecommerce.persistence.jpa.spring.CuponJpaRepository;
+
+/**
+ * CuponCacheTest
+ *
+ * Tests unitarios para CuponCache con el repositorio JPA mockeado.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests para CuponCache")
+class CuponCacheTest {
+
+    @Mock
+    private CuponJpaRepository cuponJpaRepository;
+
+    private CuponCache cuponCache;
+
+    @BeforeEach
+    void setUp() {
+        cuponCache = new CuponCache(cuponJpaRepository);
+    }
+
+    private Cupon crearCupon(Long id, String codigo, boolean activo) {
+        Cupon cupon = new Cupon();
+        cupon.setId(id);
+        cupon.setCodigo(codigo);
+        cupon.setActivo(activo);
+        cupon.setTipo(TipoDescuento.PORCENTAJE);
+        cupon.setValorDescuento(new BigDecimal("10"));
+        return cupon;
+    }
+
+    @Test
+    @DisplayName("Carga todo una sola vez y luego responde desde memoria")
+    void buscar_deberiaCargarUnaSolaVez() {
+        when(cuponJpaRepository.findAll()).thenReturn(List.of(crearCupon(1L, "VERANO10", true)));
+
+        assertTrue(cuponCache.buscarPorId(1L).isPresent());
+        assertTrue(cuponCache.buscarPorCodigo(" verano10 ").isPresent());
+        assertFalse(cuponCache.buscarPorId(99L).isPresent());
+
+        verify(cuponJpaRepository, times(1)).findAll();
+        verifyNoMoreInteractions(cuponJpaRepository);
+    }
+
+    @Test
+    @DisplayName("Actualizar con otro código quita el índice viejo")
+    void actualizar_conCodigoNuevo_deberiaQuitarCodigoViejo() {
+        when(cuponJpaRepository.findAll()).thenReturn(List.of(crearCupon(1L, "VIEJO", true)));
+        cuponCache.buscarPorId(1L);
+
+        cuponCache.actualizar(crearCupon(1L, "NUEVO", true));
+
+        assertFalse(cuponCache.buscarPorCodigo("VIEJO").isPresent());
+        assertEquals(1L, cuponCache.buscarPorCodigo("NUEVO").get().getId());
+    }
+
+    @Test
+    @DisplayName("Eliminar saca el cupón de los dos índices")
+    void eliminar_deberiaQuitarPorIdYPorCodigo() {
+        when(cuponJpaRepository.findAll()).thenReturn(List.of(crearCupon(1L, "VERANO10", true)));
+        cuponCache.buscarPorId(1L);
+
+        cuponCache.eliminar(1L);
+
+        assertFalse(cuponCache.buscarPorId(1L).isPresent());
+        assertFalse(cuponCache.buscarPorCodigo("VERANO10").isPresent());
+    }
+
+    @Test
+    @DisplayName("La ventana de vigencia respeta activo, fechas y mínimo de compra")
+    void aplicaA_deberiaRespetarVentanaYMinimo() {
+        LocalDateTime ahora = LocalDateTime.of(2024, 6, 15, 12, 0);
+
+        Cupon vigente = crearCupon(1L, "A", true);
+        vigente.setFechaInicio(ahora.minusDays(1));
+        vigente.setFechaFin(ahora.plusDays(1));
+        vigente.setMinimoCompra(new BigDecimal("100"));
+
+        Cupon vencido = crearCupon(2L, "B", true);
+        vencido.setFechaFin(ahora.minusSeconds(1));
+
+        Cupon inactivo = crearCupon(3L, "C", false);
+
+        when(cuponJpaRepository.findAll()).thenReturn(List.of(vigente, vencido, inactivo));
+
+        CuponCache.Entrada a = cuponCache.buscarPorId(1L).get();
+        assertTrue(a.aplicaA(ahora, new BigDecimal("100")));
+        assertFalse(a.aplicaA(ahora, new BigDecimal("99.99")));
+
+        assertFalse(cuponCache.buscarPorId(2L).get().vigenteEn(ahora));
+        assertFalse(cuponCache.buscarPorId(3L).get().vigenteEn(ahora));
+    }
+
+    @Test
+    @DisplayName("aCupon devuelve una copia nueva cada vez")
+    void aCupon_deberiaDevolverCopia() {
+        when(cuponJpaRepository.findAll()).thenReturn(List.of(crearCupon(1L, "VERANO10", true)));
+        CuponCache.Entrada entrada = cuponCache.buscarPorId(1L).get();
+
+        Cupon copia = entrada.aCupon();
+        copia.setCodigo("CAMBIADO");
+
+        assertEquals("VERANO10", entrada.aCupon().getCodigo());
+    }
+
+    @Test
+    @DisplayName("aCupon devuelve el código tal cual se guardó, no el normalizado")
+    void aCupon_deberiaConservarCodigoOriginal() {
+        when(cuponJpaRepository.findAll()).thenReturn(List.of(crearCupon(1L, "Verano10", true)));
+
+        CuponCache.Entrada entrada = cuponCache.buscarPorCodigo(" VERANO10 ").get();
+
+        assertEquals("Verano10", entrada.getCodigo());
+        assertEquals("Verano10", entrada.aCupon().getCodigo());
+    }
+
+    @Test
+    @DisplayName("La recarga periódica trae lo que cambió en la BD (otra instancia)")
+    void iniciar_deberiaRecargarCadaTanto() throws InterruptedException {
+        when(cuponJpaRepository.findAll())
+                .thenReturn(List.of(crearCupon(1L, "VERANO10", true)))
+                .thenReturn(List.of(crearCupon(1L, "INVIERNO", true)));
+        CuponCache conRecarga = new CuponCache(cuponJpaRepository, 20);
+        assertTrue(conRecarga.buscarPorCodigo("VERANO10").isPresent());
+
+        conRecarga.iniciar();
+        try {
+            long fin = System.nanoTime() + 2_000_000_000L;
+            while (conRecarga.buscarPorCodigo("INVIERNO").isEmpty() && System.nanoTime() < fin) Thread.sleep(5);
+            assertFalse(conRecarga.buscarPorCodigo("VERANO10").isPresent());
+            assertEquals(1L, conRecarga.buscarPorCodigo("INVIERNO").get().getId());
+        } finally {
+            conRecarga.cerrar();
+        }
+    }
+}
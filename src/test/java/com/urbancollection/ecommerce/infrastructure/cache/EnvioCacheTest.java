@@ -0,0 +1,158 @@
+package com.urbancollection.ecommerce.infrastructure.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.urbancollection.ecommerce.domain.entity.logistica.Envio;
+import com.urbancollection.ecommerce.domain.entity.ventas.Pedido;
+import com.urbancollection.ecommerce.domain.enums.EstadoDeEnvio;
+import com.urbancollection.ecommerce.persistence.jpa.spring.EnvioJpaRepository;
+
+/**
+ * EnvioCacheTest
+ *
+ * Tests de EnvioCache: la columna de tracking normalizada va contra H2 en memoria
+ * y el repositorio JPA está mockeado.
+ */
+@DisplayName("Tests para EnvioCache")
+class EnvioCacheTest {
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbc;
+    private EnvioJpaRepository envioRepository;
+    private EnvioCache cache;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:envios;DB_CLOSE_DELAY=-1", "sa", "", true);
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE envio (id BIGINT PRIMARY KEY, tracking VARCHAR(100))");
+        jdbc.update("INSERT INTO envio VALUES (1, 'ABC123'), (2, NULL), (3, NULL)");
+
+        envioRepository = mock(EnvioJpaRepository.class);
+        ColumnaNormalizada columna = new ColumnaNormalizada("envio", "id", "tracking",
+                EnvioCache.COLUMNA_TRACKING, ColumnaNormalizada.Caso.MAYUSCULAS, true);
+        cache = new EnvioCache(envioRepository, jdbc, columna, 100, Duration.ofMinutes(5), Duration.ofMinutes(5));
+        cache.iniciar();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbc.execute("DROP ALL OBJECTS");
+        dataSource.destroy();
+    }
+
+    private Envio envio(Long id, Long pedidoId, String tracking) {
+        Pedido pedido = new Pedido();
+        pedido.setId(pedidoId);
+        Envio envio = new Envio();
+        envio.setId(id);
+        envio.setPedido(pedido);
+        envio.setTracking(tracking);
+        envio.setEstado(EstadoDeEnvio.PENDIENTE);
+        return envio;
+    }
+
+    @Test
+    @DisplayName("Busca por tracking sin importar mayúsculas y la segunda vez no va a la BD")
+    void porTracking_usaCache() {
+        when(envioRepository.findById(1L)).thenReturn(Optional.of(envio(1L, 10L, "ABC123")));
+
+        Optional<EnvioCache.Foto> foto = cache.porTracking(" abc123 ");
+        cache.porTracking("ABC123");
+
+        assertTrue(foto.isPresent());
+        assertEquals(10L, foto.get().pedidoId());
+        assertNotNull(foto.get().etag());
+        verify(envioRepository, times(1)).findById(1L);
+        assertEquals(1, cache.getAciertos());
+    }
+
+    @Test
+    @DisplayName("Recuerda los códigos que no existen")
+    void porTracking_noExiste() {
+        assertTrue(cache.porTracking("NOEXISTE").isEmpty());
+        assertTrue(cache.porTracking("noexiste").isEmpty());
+        assertTrue(cache.porTracking("#2").isEmpty());
+
+        assertEquals(1, cache.getFallos());
+        verifyNoInteractions(envioRepository);
+    }
+
+    @Test
+    @DisplayName("\"No existe\" vence antes: un envío creado en otra instancia aparece sin invalidar")
+    void porPedido_noExisteVence() throws Exception {
+        ColumnaNormalizada columna = new ColumnaNormalizada("envio", "id", "tracking",
+                EnvioCache.COLUMNA_TRACKING, ColumnaNormalizada.Caso.MAYUSCULAS, true);
+        EnvioCache conTtl = new EnvioCache(envioRepository, jdbc, columna, 100,
+                Duration.ofMinutes(5), Duration.ofMillis(20));
+        when(envioRepository.findByPedidoId(10L))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(envio(1L, 10L, "ABC123")));
+
+        assertTrue(conTtl.porPedido(10L).isEmpty());
+        Thread.sleep(40);
+        assertTrue(conTtl.porPedido(10L).isPresent());
+        assertTrue(conTtl.porPedido(10L).isPresent());
+
+        // la foto encontrada dura el TTL largo
+        verify(envioRepository, times(2)).findByPedidoId(10L);
+    }
+
+    @Test
+    @DisplayName("Al guardar se suelta el tracking viejo y el pedido")
+    void invalidar_sueltaClavesViejas() {
+        when(envioRepository.findById(1L)).thenReturn(Optional.of(envio(1L, 10L, "ABC123")));
+        when(envioRepository.findByPedidoId(10L)).thenReturn(Optional.of(envio(1L, 10L, "ABC123")));
+        cache.porTracking("ABC123");
+        cache.porPedido(10L);
+
+        jdbc.update("UPDATE envio SET tracking = 'XYZ789' WHERE id = 1");
+        cache.invalidar(envio(1L, 10L, "XYZ789"));
+        when(envioRepository.findByPedidoId(10L)).thenReturn(Optional.of(envio(1L, 10L, "XYZ789")));
+
+        assertTrue(cache.porTracking("ABC123").isEmpty());
+        assertEquals("XYZ789", cache.porPedido(10L).get().tracking());
+    }
+
+    @Test
+    @DisplayName("Dentro de una transacción vuelve a invalidar después del commit")
+    void invalidar_despuesDelCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.invalidar(envio(1L, 10L, "XYZ789"));
+
+            // otro hilo lee antes del commit y ve la fila vieja
+            when(envioRepository.findByPedidoId(10L)).thenReturn(Optional.of(envio(1L, 10L, "ABC123")));
+            assertEquals("ABC123", cache.porPedido(10L).get().tracking());
+
+            when(envioRepository.findByPedidoId(10L)).thenReturn(Optional.of(envio(1L, 10L, "XYZ789")));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals("XYZ789", cache.porPedido(10L).get().tracking());
+    }
+
+    @Test
+    @DisplayName("El índice único no deja repetir tracking (normalizado) pero sí varios sin tracking")
+    void indiceUnico() {
+        assertThrows(DataIntegrityViolationException.class,
+                () -> jdbc.update("INSERT INTO envio (id, tracking) VALUES (4, ' abc123')"));
+        jdbc.update("INSERT INTO envio (id, tracking) VALUES (5, NULL)");
+    }
+}
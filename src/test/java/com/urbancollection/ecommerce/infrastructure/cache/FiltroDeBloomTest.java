@@ -0,0 +1,54 @@
+package com.urbancollection.ecommerce.infrastructure.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * FiltroDeBloomTest
+ *
+ * Tests unitarios para FiltroDeBloom.
+ */
+@DisplayName("Tests para FiltroDeBloom")
+class FiltroDeBloomTest {
+
+    @Test
+    @DisplayName("Nunca dice que no a algo que se agregó")
+    void puedeContener_sinFalsosNegativos() {
+        FiltroDeBloom filtro = new FiltroDeBloom(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filtro.agregar("usuario" + i + "@correo.com");
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filtro.puedeContener("usuario" + i + "@correo.com"));
+        }
+    }
+
+    @Test
+    @DisplayName("Los falsos positivos quedan cerca de la tasa pedida")
+    void puedeContener_tasaDeFalsosPositivos() {
+        FiltroDeBloom filtro = new FiltroDeBloom(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filtro.agregar("usuario" + i + "@correo.com");
+        }
+
+        int falsos = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filtro.puedeContener("otro" + i + "@correo.com")) falsos++;
+        }
+
+        // 1% pedido: dejo margen para no depender de la suerte del hash
+        assertTrue(falsos < 2_000, "falsos positivos: " + falsos);
+    }
+
+    @Test
+    @DisplayName("Vacío no contiene nada")
+    void puedeContener_vacio() {
+        FiltroDeBloom filtro = new FiltroDeBloom(100, 0.01);
+
+        assertFalse(filtro.puedeContener("ana@correo.com"));
+        assertFalse(filtro.puedeContener(""));
+    }
+}
@@ -0,0 +1,112 @@
+package com.urbancollection.ecommerce.infrastructure.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * VersionesDeRecursosTest
+ *
+ * Tests de las versiones (ETag / Last-Modified) que usan los GET condicionales
+ * y de su Cache-Control. Para ver que el cambio espera al commit se usa una
+ * transacción sobre un H2 en memoria.
+ */
+@DisplayName("Tests para VersionesDeRecursos")
+class VersionesDeRecursosTest {
+
+    private VersionesDeRecursos versiones;
+
+    @BeforeEach
+    void setUp() {
+        versiones = new VersionesDeRecursos(Map.of(
+                VersionesDeRecursos.PRODUCTOS, new VersionesDeRecursos.Politica(Duration.ofSeconds(60), true),
+                VersionesDeRecursos.ENVIOS, new VersionesDeRecursos.Politica(Duration.ZERO, false)));
+    }
+
+    @Test
+    @DisplayName("Un id que nunca se escribió tiene versión estable")
+    void de_sinCambios() {
+        assertEquals(versiones.de(VersionesDeRecursos.PRODUCTOS, 7L), versiones.de(VersionesDeRecursos.PRODUCTOS, 7L));
+        assertEquals(versiones.de(VersionesDeRecursos.PRODUCTOS), versiones.de(VersionesDeRecursos.PRODUCTOS));
+        assertTrue(versiones.de(VersionesDeRecursos.PRODUCTOS, 7L).etag().startsWith("W/\""));
+    }
+
+    @Test
+    @DisplayName("cambio sube la versión del id y la de la lista, no la de otros ids")
+    void cambio_subeIdYLista() {
+        VersionesDeRecursos.Version lista = versiones.de(VersionesDeRecursos.PRODUCTOS);
+        VersionesDeRecursos.Version siete = versiones.de(VersionesDeRecursos.PRODUCTOS, 7L);
+        VersionesDeRecursos.Version ocho = versiones.de(VersionesDeRecursos.PRODUCTOS, 8L);
+
+        versiones.cambio(VersionesDeRecursos.PRODUCTOS, 7L);
+
+        assertNotEquals(lista.etag(), versiones.de(VersionesDeRecursos.PRODUCTOS).etag());
+        assertNotEquals(siete.etag(), versiones.de(VersionesDeRecursos.PRODUCTOS, 7L).etag());
+        assertEquals(ocho, versiones.de(VersionesDeRecursos.PRODUCTOS, 8L));
+        assertEquals(versiones.de(VersionesDeRecursos.CUPONES), versiones.de(VersionesDeRecursos.CUPONES));
+    }
+
+    @Test
+    @DisplayName("cambioGeneral cambia la versión de todos los ids del recurso")
+    void cambioGeneral_todosLosIds() {
+        VersionesDeRecursos.Version uno = versiones.de(VersionesDeRecursos.ENVIOS, 1L);
+        VersionesDeRecursos.Version dos = versiones.de(VersionesDeRecursos.ENVIOS, 2L);
+
+        versiones.cambioGeneral(VersionesDeRecursos.ENVIOS);
+
+        assertNotEquals(uno.etag(), versiones.de(VersionesDeRecursos.ENVIOS, 1L).etag());
+        assertNotEquals(dos.etag(), versiones.de(VersionesDeRecursos.ENVIOS, 2L).etag());
+        assertEquals(versiones.de(VersionesDeRecursos.PRODUCTOS, 1L), versiones.de(VersionesDeRecursos.PRODUCTOS, 1L));
+    }
+
+    @Test
+    @DisplayName("Last-Modified avanza al menos un segundo por cambio")
+    void cambio_ultimaModificacionCreciente() {
+        long antes = versiones.de(VersionesDeRecursos.PRODUCTOS, 7L).ultimaModificacion();
+        versiones.cambio(VersionesDeRecursos.PRODUCTOS, 7L);
+        long primera = versiones.de(VersionesDeRecursos.PRODUCTOS, 7L).ultimaModificacion();
+        versiones.cambio(VersionesDeRecursos.PRODUCTOS, 7L);
+        long segunda = versiones.de(VersionesDeRecursos.PRODUCTOS, 7L).ultimaModificacion();
+
+        assertTrue(primera >= antes + 1000);
+        assertTrue(segunda >= primera + 1000);
+    }
+
+    @Test
+    @DisplayName("Dentro de una transacción el cambio se aplica al confirmar, y no si se revierte")
+    void cambio_esperaAlCommit() {
+        TransactionTemplate transaccion = new TransactionTemplate(new DataSourceTransactionManager(
+                new DriverManagerDataSource("jdbc:h2:mem:versiones;DB_CLOSE_DELAY=-1", "sa", "")));
+        VersionesDeRecursos.Version antes = versiones.de(VersionesDeRecursos.PRODUCTOS, 7L);
+
+        transaccion.executeWithoutResult(s -> {
+            versiones.cambio(VersionesDeRecursos.PRODUCTOS, 7L);
+            assertEquals(antes, versiones.de(VersionesDeRecursos.PRODUCTOS, 7L));
+        });
+        VersionesDeRecursos.Version confirmada = versiones.de(VersionesDeRecursos.PRODUCTOS, 7L);
+        assertNotEquals(antes.etag(), confirmada.etag());
+
+        transaccion.executeWithoutResult(s -> {
+            versiones.cambio(VersionesDeRecursos.PRODUCTOS, 7L);
+            s.setRollbackOnly();
+        });
+        assertEquals(confirmada, versiones.de(VersionesDeRecursos.PRODUCTOS, 7L));
+    }
+
+    @Test
+    @DisplayName("Cache-Control según la política de cada recurso")
+    void cacheControl_porRecurso() {
+        assertEquals("max-age=60, must-revalidate, public",
+                versiones.cacheControl(VersionesDeRecursos.PRODUCTOS).getHeaderValue());
+        assertEquals("no-cache, private", versiones.cacheControl(VersionesDeRecursos.ENVIOS).getHeaderValue());
+        assertEquals("no-cache", versiones.cacheControl(VersionesDeRecursos.CUPONES).getHeaderValue());
+    }
+}
@@ -0,0 +1,203 @@
+package com.urbancollection.ecommerce.infrastructure.client.local;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.urbancollection.ecommerce.application.service.ICuponService;
+import com.urbancollection.ecommerce.application.service.IEnvioService;
+import com.urbancollection.ecommerce.application.service.IProductoService;
+import com.urbancollection.ecommerce.domain.base.OperationResult;
+import com.urbancollection.ecommerce.domain.entity.catalogo.Cupon;
+import com.urbancollection.ecommerce.domain.entity.catalogo.Producto;
+import com.urbancollection.ecommerce.domain.entity.logistica.Direccion;
+import com.urbancollection.ecommerce.domain.entity.logistica.Envio;
+import com.urbancollection.ecommerce.domain.entity.usuarios.Usuario;
+import com.urbancollection.ecommerce.domain.entity.ventas.ItemPedido;
+import com.urbancollection.ecommerce.domain.entity.ventas.Pedido;
+import com.urbancollection.ecommerce.domain.enums.EstadoDeEnvio;
+import com.urbancollection.ecommerce.domain.repository.CuponRepository;
+import com.urbancollection.ecommerce.domain.repository.EnvioRepository;
+import com.urbancollection.ecommerce.domain.repository.PedidoRepository;
+import com.urbancollection.ecommerce.domain.repository.ProductoRepository;
+import com.urbancollection.ecommerce.infrastructure.estados.EstadosDePedido;
+
+/**
+ * ClientesLocalesTest
+ *
+ * Tests de los *LocalClient: leen del repositorio, escriben por el service con
+ * las mismas validaciones que la API y se comportan como el cliente HTTP
+ * (Optional vacío si no existe, error al actualizar o eliminar algo que no
+ * existe o que la API rechazaría).
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests para los ApiClients locales")
+class ClientesLocalesTest {
+
+    @Mock
+    private ProductoRepository productoRepository;
+
+    @Mock
+    private PedidoRepository pedidoRepository;
+
+    @Mock
+    private CuponRepository cuponRepository;
+
+    @Mock
+    private EnvioRepository envioRepository;
+
+    @Mock
+    private IProductoService productoService;
+
+    @Mock
+    private ICuponService cuponService;
+
+    @Mock
+    private IEnvioService envioService;
+
+    @Mock
+    private EstadosDePedido estadosDePedido;
+
+    private static Producto producto(Long id) {
+        Producto p = new Producto();
+        p.setId(id);
+        p.setNombre("Producto " + id);
+        p.setPrecio(new BigDecimal("10.00"));
+        p.setStock(5);
+        return p;
+    }
+
+    private static Pedido pedido() {
+        Usuario usuario = new Usuario();
+        usuario.setId(1L);
+        Direccion direccion = new Direccion();
+        direccion.setId(1L);
+        ItemPedido item = new ItemPedido();
+        item.setProducto(producto(1L));
+        item.setCantidad(2);
+        Pedido pedido = new Pedido();
+        pedido.setUsuario(usuario);
+        pedido.setDireccionEntrega(direccion);
+        pedido.agregarItem(item);
+        return pedido;
+    }
+
+    @Test
+    @DisplayName("listar y buscarPorId leen del repositorio")
+    void lecturas() {
+        ProductoLocalClient cliente = new ProductoLocalClient(productoRepository, productoService);
+        when(productoRepository.findAll()).thenReturn(List.of(producto(1L), producto(2L)));
+        when(productoRepository.findById(1L)).thenReturn(producto(1L));
+
+        assertEquals(2, cliente.listar().size());
+        assertEquals("Producto 1", cliente.buscarPorId(1L).orElseThrow().getNombre());
+        assertEquals(Optional.empty(), cliente.buscarPorId(99L));
+    }
+
+    @Test
+    @DisplayName("crear pedido guarda y devuelve lo que devuelve el repositorio (con id)")
+    void crear() {
+        PedidoLocalClient cliente = new PedidoLocalClient(pedidoRepository);
+        Pedido nuevo = pedido();
+        Pedido guardado = new Pedido();
+        guardado.setId(10L);
+        when(pedidoRepository.save(nuevo)).thenReturn(guardado);
+
+        assertEquals(10L, cliente.crear(nuevo).getId());
+    }
+
+    @Test
+    @DisplayName("crear pedido sin dirección o con cantidad 0 no guarda, igual que POST /api/pedidos")
+    void crear_pedidoInvalido() {
+        PedidoLocalClient cliente = new PedidoLocalClient(pedidoRepository);
+        Pedido sinDireccion = pedido();
+        sinDireccion.setDireccionEntrega(null);
+        Pedido sinCantidad = pedido();
+        sinCantidad.getItems().get(0).setCantidad(0);
+
+        assertThrows(IllegalArgumentException.class, () -> cliente.crear(sinDireccion));
+        assertThrows(IllegalArgumentException.class, () -> cliente.crear(sinCantidad));
+        assertThrows(IllegalArgumentException.class, () -> cliente.crear(new Pedido()));
+        verify(pedidoRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("crear producto pasa por el service; precio 0 o stock negativo no llegan")
+    void crear_productoPorElService() {
+        ProductoLocalClient cliente = new ProductoLocalClient(productoRepository, productoService);
+        Producto nuevo = producto(null);
+        when(productoService.crear(nuevo)).thenReturn(OperationResult.success("ok"));
+        Producto gratis = producto(null);
+        gratis.setPrecio(BigDecimal.ZERO);
+        Producto negativo = producto(null);
+        negativo.setStock(-1);
+
+        assertSame(nuevo, cliente.crear(nuevo));
+        assertThrows(IllegalArgumentException.class, () -> cliente.crear(gratis));
+        assertThrows(IllegalArgumentException.class, () -> cliente.crear(negativo));
+        verify(productoService, times(1)).crear(any());
+        verify(productoRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("si el service rechaza el cambio, RuntimeException como un 400 del cliente HTTP")
+    void crear_rechazadoPorElService() {
+        CuponLocalClient cliente = new CuponLocalClient(cuponRepository, cuponService);
+        when(cuponService.crear(any())).thenReturn(OperationResult.failure("Código repetido"));
+
+        RuntimeException error = assertThrows(RuntimeException.class, () -> cliente.crear(new Cupon()));
+        assertTrue(error.getMessage().contains("Código repetido"));
+        verify(cuponRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("actualizar envío revisa la transición como PUT /api/envios/{id}")
+    void actualizar_envioTransicionInvalida() {
+        EnvioLocalClient cliente = new EnvioLocalClient(envioRepository, envioService, estadosDePedido);
+        Envio entregado = new Envio();
+        entregado.setId(1L);
+        entregado.setEstado(EstadoDeEnvio.ENTREGADO);
+        when(envioRepository.findById(1L)).thenReturn(entregado);
+        Envio cambios = new Envio();
+        cambios.setEstado(EstadoDeEnvio.PENDIENTE);
+
+        assertThrows(RuntimeException.class, () -> cliente.actualizar(1L, cambios));
+        verifyNoInteractions(envioService, estadosDePedido);
+    }
+
+    @Test
+    @DisplayName("actualizar pone el id y pasa por el service; si no existe lanza RuntimeException")
+    void actualizar() {
+        ProductoLocalClient cliente = new ProductoLocalClient(productoRepository, productoService);
+        Producto cambios = producto(null);
+        when(productoRepository.findById(1L)).thenReturn(producto(1L));
+        when(productoService.actualizar(1L, cambios)).thenReturn(OperationResult.success("ok"));
+
+        assertEquals(1L, cliente.actualizar(1L, cambios).getId());
+        assertThrows(RuntimeException.class, () -> cliente.actualizar(99L, producto(null)));
+        verify(productoService, times(1)).actualizar(any(), any());
+    }
+
+    @Test
+    @DisplayName("eliminar borra por id; si no existe lanza RuntimeException y no borra")
+    void eliminar() {
+        CuponLocalClient cliente = new CuponLocalClient(cuponRepository, cuponService);
+        when(cuponRepository.findById(1L)).thenReturn(new Cupon());
+        when(cuponService.eliminar(1L)).thenReturn(OperationResult.success("ok"));
+
+        cliente.eliminar(1L);
+        assertThrows(RuntimeException.class, () -> cliente.eliminar(99L));
+
+        verify(cuponService).eliminar(1L);
+        verify(cuponService, never()).eliminar(99L);
+    }
+}
@@ -0,0 +1,188 @@
+package com.urbancollection.ecommerce.infrastructure.datos;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * RuteoDeLecturasJpaTest
+ *
+ * RuteoDeLecturas con Hibernate, JpaTransactionManager y un repositorio de Spring Data
+ * de verdad, sobre dos bases H2. La réplica está "al día" según el latido pero no tiene
+ * las filas nuevas, como pasa en el instante entre el commit y la replicación.
+ */
+@DisplayName("Tests para RuteoDeLecturas con JPA")
+class RuteoDeLecturasJpaTest {
+
+    @Entity(name = "NotaDeRuteo")
+    @Table(name = "nota_ruteo")
+    public static class Nota {
+        @Id
+        private Long id;
+        private String texto;
+
+        public Nota() {
+        }
+
+        Nota(Long id, String texto) {
+            this.id = id;
+            this.texto = texto;
+        }
+
+        public Long getId() { return id; }
+        public String getTexto() { return texto; }
+        public void setTexto(String texto) { this.texto = texto; }
+    }
+
+    interface NotaRepository extends JpaRepository<Nota, Long> {
+        List<Nota> findByTexto(String texto);
+    }
+
+    @Configuration
+    @EnableTransactionManagement
+    @EnableJpaRepositories(considerNestedRepositories = true, basePackageClasses = RuteoDeLecturasJpaTest.class,
+            includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = NotaRepository.class))
+    static class Contexto {
+
+        @Bean(destroyMethod = "cerrar")
+        RuteoDeLecturas ruteo() {
+            return new RuteoDeLecturas(
+                    new DriverManagerDataSource("jdbc:h2:mem:primaria_jpa;DB_CLOSE_DELAY=-1", "sa", ""),
+                    new DriverManagerDataSource("jdbc:h2:mem:replica_jpa;DB_CLOSE_DELAY=-1", "sa", ""),
+                    1000, 1000, new SimpleMeterRegistry());
+        }
+
+        @Bean
+        DataSource dataSource(RuteoDeLecturas ruteo) {
+            return new LazyConnectionDataSourceProxy(ruteo);
+        }
+
+        @Bean
+        LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+            LocalContainerEntityManagerFactoryBean emf = new LocalContainerEntityManagerFactoryBean();
+            emf.setDataSource(dataSource);
+            emf.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+            emf.setManagedTypes(PersistenceManagedTypes.of(Nota.class.getName()));
+            emf.setJpaPropertyMap(Map.of("hibernate.hbm2ddl.auto", "none"));
+            return emf;
+        }
+
+        @Bean
+        PlatformTransactionManager transactionManager(EntityManagerFactory emf) {
+            return new JpaTransactionManager(emf);
+        }
+    }
+
+    private JdbcTemplate primaria;
+    private JdbcTemplate replica;
+    private AnnotationConfigApplicationContext contexto;
+    private NotaRepository notas;
+    private RuteoDeLecturas ruteo;
+
+    @BeforeEach
+    void setUp() {
+        primaria = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:primaria_jpa;DB_CLOSE_DELAY=-1", "sa", ""));
+        replica = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:replica_jpa;DB_CLOSE_DELAY=-1", "sa", ""));
+        for (JdbcTemplate base : new JdbcTemplate[] {primaria, replica}) {
+            base.execute("CREATE TABLE nota_ruteo (id BIGINT PRIMARY KEY, texto VARCHAR(100))");
+            base.execute("CREATE TABLE " + RuteoDeLecturas.TABLA_LATIDO + " (id INT PRIMARY KEY, instante BIGINT NOT NULL)");
+        }
+
+        contexto = new AnnotationConfigApplicationContext(Contexto.class);
+        notas = contexto.getBean(NotaRepository.class);
+        ruteo = contexto.getBean(RuteoDeLecturas.class);
+
+        // réplica al día según el latido
+        ruteo.verificar();
+        Long instante = primaria.queryForObject("SELECT instante FROM " + RuteoDeLecturas.TABLA_LATIDO, Long.class);
+        replica.update("INSERT INTO " + RuteoDeLecturas.TABLA_LATIDO + " (id, instante) VALUES (1, ?)", instante);
+        ruteo.verificar();
+        assertTrue(ruteo.isReplicaAlDia());
+    }
+
+    @AfterEach
+    void tearDown() {
+        contexto.close();
+        primaria.execute("DROP ALL OBJECTS");
+        replica.execute("DROP ALL OBJECTS");
+    }
+
+    private TransactionTemplate soloLectura() {
+        TransactionTemplate lectura = new TransactionTemplate(contexto.getBean(PlatformTransactionManager.class));
+        lectura.setReadOnly(true);
+        return lectura;
+    }
+
+    @Test
+    @DisplayName("Las lecturas sueltas del repositorio ven lo recién guardado (van a la primaria)")
+    void repositorio_leeLoQueEscribio() {
+        notas.save(new Nota(1L, "hola"));
+
+        // la réplica todavía no la tiene
+        assertEquals(0, replica.queryForObject("SELECT COUNT(*) FROM nota_ruteo", Integer.class));
+
+        assertTrue(notas.findById(1L).isPresent());
+        assertEquals(1, notas.findByTexto("hola").size());
+        assertEquals(1, notas.count());
+
+        // buscar, cambiar y guardar
+        Nota nota = notas.findById(1L).orElseThrow();
+        nota.setTexto("chau");
+        notas.save(nota);
+        assertEquals("chau", primaria.queryForObject("SELECT texto FROM nota_ruteo WHERE id = 1", String.class));
+    }
+
+    @Test
+    @DisplayName("Una transacción readOnly de la aplicación lee de la réplica")
+    void transaccionDeLaAplicacion_leeDeLaReplica() {
+        notas.save(new Nota(1L, "hola"));
+        replica.update("INSERT INTO nota_ruteo (id, texto) VALUES (2, 'replicada')");
+
+        List<Long> ids = soloLectura().execute(s -> notas.findAll().stream().map(Nota::getId).toList());
+
+        assertEquals(List.of(2L), ids);
+    }
+
+    @Test
+    @DisplayName("Los nombres de transacción de Spring Data y de los adaptadores van a la primaria")
+    void abiertaPorRepositorio() {
+        assertTrue(RuteoDeLecturas.abiertaPorRepositorio(
+                "org.springframework.data.jpa.repository.support.SimpleJpaRepository.findById"));
+        assertTrue(RuteoDeLecturas.abiertaPorRepositorio(
+                "com.urbancollection.ecommerce.persistence.jpa.adapters.ProductoRepositoryJpaAdapter.findById"));
+        assertFalse(RuteoDeLecturas.abiertaPorRepositorio(
+                "com.urbancollection.ecommerce.api.web.PedidoController.listar"));
+        assertFalse(RuteoDeLecturas.abiertaPorRepositorio(null));
+    }
+}
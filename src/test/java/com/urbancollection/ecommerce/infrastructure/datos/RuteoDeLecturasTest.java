@@ -0,0 +1,153 @@
+package com.urbancollection.ecommerce.infrastructure.datos;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * RuteoDeLecturasTest
+ *
+ * Tests del ruteo primaria/réplica con dos bases H2 en memoria. Cada una tiene
+ * una tabla "origen" con su nombre para saber de dónde se leyó. La replicación
+ * se simula copiando a mano la fila del latido.
+ */
+@DisplayName("Tests para RuteoDeLecturas")
+class RuteoDeLecturasTest {
+
+    private JdbcTemplate primaria;
+    private JdbcTemplate replica;
+    private SimpleMeterRegistry metricas;
+    private RuteoDeLecturas ruteo;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate lectura;
+    private TransactionTemplate escritura;
+
+    @BeforeEach
+    void setUp() {
+        primaria = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:primaria;DB_CLOSE_DELAY=-1", "sa", ""));
+        replica = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1", "sa", ""));
+        for (JdbcTemplate base : new JdbcTemplate[] {primaria, replica}) {
+            base.execute("CREATE TABLE origen (nombre VARCHAR(20))");
+            base.execute("CREATE TABLE " + RuteoDeLecturas.TABLA_LATIDO + " (id INT PRIMARY KEY, instante BIGINT NOT NULL)");
+        }
+        primaria.update("INSERT INTO origen VALUES ('primaria')");
+        replica.update("INSERT INTO origen VALUES ('replica')");
+
+        metricas = new SimpleMeterRegistry();
+        ruteo = new RuteoDeLecturas(primaria.getDataSource(), replica.getDataSource(), 1000, 1000, metricas);
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(ruteo);
+        jdbc = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transacciones = new DataSourceTransactionManager(dataSource);
+        lectura = new TransactionTemplate(transacciones);
+        lectura.setReadOnly(true);
+        escritura = new TransactionTemplate(transacciones);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ruteo.cerrar();
+        primaria.execute("DROP ALL OBJECTS");
+        replica.execute("DROP ALL OBJECTS");
+    }
+
+    private String origenEnLectura() {
+        return lectura.execute(s -> jdbc.queryForObject("SELECT nombre FROM origen", String.class));
+    }
+
+    // Copia el latido de la primaria a la réplica, como haría la replicación.
+    private void replicar() {
+        Long instante = primaria.queryForObject("SELECT instante FROM " + RuteoDeLecturas.TABLA_LATIDO, Long.class);
+        replica.update("MERGE INTO " + RuteoDeLecturas.TABLA_LATIDO + " KEY (id) VALUES (1, ?)", instante);
+    }
+
+    private void replicaAlDia() {
+        ruteo.verificar();
+        replicar();
+        ruteo.verificar();
+        assertTrue(ruteo.isReplicaAlDia());
+    }
+
+    private double conexiones(String pool) {
+        return metricas.get("datasource.ruteo.conexiones").tag("pool", pool).counter().count();
+    }
+
+    @Test
+    @DisplayName("readOnly lee de la réplica; escrituras y código sin transacción van a la primaria")
+    void ruteo_porTipoDeTransaccion() {
+        replicaAlDia();
+        // el proxy pide una conexión de la primaria la primera vez para leer los valores por defecto
+        jdbc.queryForObject("SELECT 1", Integer.class);
+        double primariaAntes = conexiones(RuteoDeLecturas.PRIMARIA);
+
+        assertEquals("replica", origenEnLectura());
+        assertEquals("primaria", escritura.execute(s -> jdbc.queryForObject("SELECT nombre FROM origen", String.class)));
+        assertEquals("primaria", jdbc.queryForObject("SELECT nombre FROM origen", String.class));
+
+        assertEquals(1, conexiones(RuteoDeLecturas.REPLICA));
+        assertEquals(2, conexiones(RuteoDeLecturas.PRIMARIA) - primariaAntes);
+    }
+
+    @Test
+    @DisplayName("Antes del primer latido las lecturas van a la primaria")
+    void ruteo_sinLatido() {
+        assertFalse(ruteo.isReplicaAlDia());
+        assertEquals("primaria", origenEnLectura());
+        assertEquals(1, metricas.get("datasource.ruteo.desvios").counter().count());
+    }
+
+    @Test
+    @DisplayName("Si la réplica se atrasa más del máximo, las lecturas vuelven a la primaria hasta que se ponga al día")
+    void ruteo_replicaAtrasada() {
+        replicaAlDia();
+
+        // la réplica quedó viendo un latido de hace un minuto
+        replica.update("UPDATE " + RuteoDeLecturas.TABLA_LATIDO + " SET instante = ?", System.currentTimeMillis() - 60_000);
+        ruteo.verificar();
+
+        assertFalse(ruteo.isReplicaAlDia());
+        assertTrue(ruteo.getAtrasoMs() >= 60_000);
+        assertEquals("primaria", origenEnLectura());
+        assertEquals(1, metricas.get("datasource.ruteo.desvios").counter().count());
+        assertEquals(ruteo.getAtrasoMs(), metricas.get("datasource.replica.atraso").gauge().value());
+
+        replicar();
+        ruteo.verificar();
+        assertTrue(ruteo.isReplicaAlDia());
+        assertEquals(0, ruteo.getAtrasoMs());
+        assertEquals("replica", origenEnLectura());
+    }
+
+    @Test
+    @DisplayName("Si la réplica no responde, las lecturas van a la primaria")
+    void ruteo_replicaCaida() {
+        replicaAlDia();
+
+        replica.execute("DROP TABLE " + RuteoDeLecturas.TABLA_LATIDO);
+        ruteo.verificar();
+
+        assertFalse(ruteo.isReplicaAlDia());
+        assertEquals(-1, ruteo.getAtrasoMs());
+        assertEquals("primaria", origenEnLectura());
+    }
+
+    @Test
+    @DisplayName("crearLatido crea la tabla en la primaria si no existe")
+    void crearLatido_idempotente() {
+        primaria.execute("DROP TABLE " + RuteoDeLecturas.TABLA_LATIDO);
+        ruteo.crearLatido();
+        ruteo.crearLatido();
+        ruteo.verificar();
+        assertEquals(1, primaria.queryForObject("SELECT COUNT(*) FROM " + RuteoDeLecturas.TABLA_LATIDO, Integer.class));
+    }
+}
@@ -0,0 +1,85 @@
+package com.urbancollection.ecommerce.infrastructure.deseos;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * ConjuntoDeIdsTest
+ *
+ * Tests unitarios para ConjuntoDeIds.
+ */
+@DisplayName("Tests para ConjuntoDeIds")
+class ConjuntoDeIdsTest {
+
+    @Test
+    @DisplayName("Agrega, consulta y quita ids")
+    void agregarQuitarContiene() {
+        ConjuntoDeIds conjunto = ConjuntoDeIds.de(List.of(5L, 1L, 70_000L));
+
+        assertTrue(conjunto.contiene(5L));
+        assertTrue(conjunto.contiene(70_000L));
+        assertFalse(conjunto.contiene(2L));
+        assertFalse(conjunto.agregar(5L));
+        assertEquals(3, conjunto.tamanio());
+
+        assertTrue(conjunto.quitar(70_000L));
+        assertFalse(conjunto.quitar(70_000L));
+        assertFalse(conjunto.contiene(70_000L));
+        assertArrayEquals(new long[] {1L, 5L}, conjunto.aArreglo());
+    }
+
+    @Test
+    @DisplayName("Pasa a mapa de bits con muchos ids y vuelve a arreglo al vaciarse")
+    void conversionEntreContenedores() {
+        ConjuntoDeIds conjunto = new ConjuntoDeIds();
+        for (long id = 0; id < 10_000; id++) {
+            conjunto.agregar(id * 3);
+        }
+        long conMapa = conjunto.bytesAproximados();
+        assertTrue(conjunto.contiene(9_999L * 3));
+        assertFalse(conjunto.contiene(1L));
+
+        for (long id = 0; id < 10_000; id++) {
+            if (id % 100 != 0) assertTrue(conjunto.quitar(id * 3));
+        }
+
+        assertEquals(100, conjunto.tamanio());
+        assertTrue(conjunto.contiene(300L));
+        assertTrue(conjunto.bytesAproximados() < conMapa);
+    }
+
+    @Test
+    @DisplayName("Se comporta igual que un TreeSet con operaciones al azar")
+    void comparadoConTreeSet() {
+        Random random = new Random(42);
+        ConjuntoDeIds conjunto = new ConjuntoDeIds();
+        TreeSet<Long> esperado = new TreeSet<>();
+
+        for (int i = 0; i < 50_000; i++) {
+            long id = random.nextInt(300_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(esperado.remove(id), conjunto.quitar(id));
+            } else {
+                assertEquals(esperado.add(id), conjunto.agregar(id));
+            }
+        }
+
+        assertEquals(esperado.size(), conjunto.tamanio());
+        assertArrayEquals(esperado.stream().mapToLong(Long::longValue).toArray(), conjunto.aArreglo());
+    }
+
+    @Test
+    @DisplayName("No acepta ids negativos")
+    void agregar_idNegativo() {
+        ConjuntoDeIds conjunto = new ConjuntoDeIds();
+
+        assertThrows(IllegalArgumentException.class, () -> conjunto.agregar(-1L));
+        assertFalse(conjunto.contiene(-1L));
+    }
+}
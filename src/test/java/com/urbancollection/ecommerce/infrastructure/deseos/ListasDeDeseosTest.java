@@ -0,0 +1,127 @@
+package com.urbancollection.ecommerce.infrastructure.deseos;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.urbancollection.ecommerce.domain.entity.ventas.ListaDeseos;
+import com.urbancollection.ecommerce.persistence.jpa.spring.ListaDeseosJpaRepository;
+import com.urbancollection.ecommerce.persistence.jpa.spring.ProductoJpaRepository;
+import com.urbancollection.ecommerce.persistence.jpa.spring.UsuarioJpaRepository;
+
+/**
+ * ListasDeDeseosTest
+ *
+ * Tests unitarios para ListasDeDeseos con los repositorios mockeados.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests para ListasDeDeseos")
+class ListasDeDeseosTest {
+
+    @Mock
+    private ListaDeseosJpaRepository listaDeseosRepository;
+
+    @Mock
+    private UsuarioJpaRepository usuarioRepository;
+
+    @Mock
+    private ProductoJpaRepository productoRepository;
+
+    private ListasDeDeseos listas;
+
+    @BeforeEach
+    void setUp() {
+        listas = new ListasDeDeseos(listaDeseosRepository, usuarioRepository, productoRepository, 2);
+    }
+
+    @Test
+    @DisplayName("Consultar 100 productos carga la lista una vez y responde desde memoria")
+    void contiene_unaSolaCarga() {
+        when(listaDeseosRepository.findProductoIdsByUsuarioId(1L)).thenReturn(List.of(3L, 50L));
+
+        List<Long> pagina = new java.util.ArrayList<>();
+        for (long id = 1; id <= 100; id++) pagina.add(id);
+
+        Map<Long, Boolean> resultado = listas.contiene(1L, pagina);
+        listas.contiene(1L, pagina);
+
+        assertEquals(100, resultado.size());
+        assertTrue(resultado.get(3L));
+        assertTrue(resultado.get(50L));
+        assertFalse(resultado.get(4L));
+        verify(listaDeseosRepository, times(1)).findProductoIdsByUsuarioId(1L);
+        verifyNoMoreInteractions(listaDeseosRepository);
+    }
+
+    @Test
+    @DisplayName("Agregar escribe en la BD y después en memoria")
+    void agregar_escribeEnBdYMemoria() {
+        when(listaDeseosRepository.findProductoIdsByUsuarioId(1L)).thenReturn(List.of());
+        when(usuarioRepository.existsById(1L)).thenReturn(true);
+        when(productoRepository.existsById(7L)).thenReturn(true);
+
+        assertEquals(ListasDeDeseos.Resultado.AGREGADO, listas.agregar(1L, 7L));
+        assertEquals(ListasDeDeseos.Resultado.YA_ESTABA, listas.agregar(1L, 7L));
+
+        verify(listaDeseosRepository, times(1)).save(any(ListaDeseos.class));
+        assertArrayEquals(new long[] {7L}, listas.listar(1L));
+    }
+
+    @Test
+    @DisplayName("Si la BD falla la memoria no cambia")
+    void agregar_falloEnBd() {
+        when(listaDeseosRepository.findProductoIdsByUsuarioId(1L)).thenReturn(List.of());
+        when(usuarioRepository.existsById(1L)).thenReturn(true);
+        when(productoRepository.existsById(7L)).thenReturn(true);
+        when(listaDeseosRepository.save(any(ListaDeseos.class))).thenThrow(new RuntimeException("BD caída"));
+
+        assertThrows(RuntimeException.class, () -> listas.agregar(1L, 7L));
+        assertFalse(listas.contiene(1L, 7L));
+    }
+
+    @Test
+    @DisplayName("No agrega productos que no existen")
+    void agregar_productoInexistente() {
+        when(listaDeseosRepository.findProductoIdsByUsuarioId(1L)).thenReturn(List.of());
+        when(usuarioRepository.existsById(1L)).thenReturn(true);
+        when(productoRepository.existsById(99L)).thenReturn(false);
+
+        assertEquals(ListasDeDeseos.Resultado.PRODUCTO_NO_EXISTE, listas.agregar(1L, 99L));
+        verify(listaDeseosRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Quitar borra en la BD solo si el producto estaba")
+    void quitar_soloSiEstaba() {
+        when(listaDeseosRepository.findProductoIdsByUsuarioId(1L)).thenReturn(List.of(7L));
+
+        assertTrue(listas.quitar(1L, 7L));
+        assertFalse(listas.quitar(1L, 7L));
+
+        verify(listaDeseosRepository, times(1)).borrarPorUsuarioYProducto(1L, 7L);
+        assertFalse(listas.contiene(1L, 7L));
+    }
+
+    @Test
+    @DisplayName("La caché no pasa del máximo de usuarios")
+    void cache_acotada() {
+        when(listaDeseosRepository.findProductoIdsByUsuarioId(any())).thenReturn(List.of());
+
+        for (long usuario = 1; usuario <= 10; usuario++) {
+            listas.listar(usuario);
+        }
+
+        assertTrue(listas.getUsuariosEnCache() <= 2);
+        assertEquals(10, listas.getCargas());
+    }
+}
@@ -0,0 +1,231 @@
+package com.urbancollection.ecommerce.infrastructure.estados;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.urbancollection.ecommerce.domain.enums.EstadoDePedido;
+import com.urbancollection.ecommerce.infrastructure.estados.EstadosDePedido.Cambio;
+import com.urbancollection.ecommerce.infrastructure.estados.EstadosDePedido.Resultado;
+import com.urbancollection.ecommerce.infrastructure.outbox.Outbox;
+
+/**
+ * EstadosDePedidoTest
+ *
+ * Tests de los cambios de estado de pedidos contra H2 en memoria. Cada llamada
+ * usa su propia conexión, así los tests de concurrencia compiten de verdad en la BD.
+ */
+@DisplayName("Tests para EstadosDePedido")
+class EstadosDePedidoTest {
+
+    private JdbcTemplate jdbc;
+    private EstadosDePedido estados;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:estados_pedido;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE pedido (id BIGINT PRIMARY KEY, estado VARCHAR(20), total DECIMAL(10, 2))");
+        estados = new EstadosDePedido(jdbc, "pedido", "id",
+                new ColumnaDeEstado<>("estado", EstadoDePedido.class, Enum::name), 3);
+        estados.iniciar();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbc.execute("DROP ALL OBJECTS");
+    }
+
+    private void pedido(long id, EstadoDePedido estado) {
+        jdbc.update("INSERT INTO pedido (id, estado, total) VALUES (?, ?, 10)", id, estado.name());
+    }
+
+    private String estadoEnBd(long id) {
+        return jdbc.queryForObject("SELECT estado FROM pedido WHERE id = ?", String.class, id);
+    }
+
+    private long versionEnBd(long id) {
+        return jdbc.queryForObject("SELECT version FROM pedido WHERE id = ?", Long.class, id);
+    }
+
+    @Test
+    @DisplayName("Cambia solo estado y versión")
+    void cambiar_transicionValida() {
+        pedido(1, EstadoDePedido.PENDIENTE_PAGO);
+
+        Cambio cambio = estados.cambiar(1, EstadoDePedido.PAGADO);
+
+        assertEquals(Resultado.CAMBIADO, cambio.resultado());
+        assertEquals(EstadoDePedido.PENDIENTE_PAGO, cambio.anterior());
+        assertEquals("PAGADO", estadoEnBd(1));
+        assertEquals(1, versionEnBd(1));
+        assertEquals(0, new BigDecimal("10.00").compareTo(
+                jdbc.queryForObject("SELECT total FROM pedido WHERE id = 1", BigDecimal.class)));
+    }
+
+    @Test
+    @DisplayName("Rechaza transiciones que no están en la tabla y no toca la fila")
+    void cambiar_transicionInvalida() {
+        pedido(1, EstadoDePedido.CANCELADO);
+
+        Cambio cambio = estados.cambiar(1, EstadoDePedido.PAGADO);
+
+        assertEquals(Resultado.TRANSICION_INVALIDA, cambio.resultado());
+        assertEquals(EstadoDePedido.CANCELADO, cambio.anterior());
+        assertEquals("CANCELADO", estadoEnBd(1));
+        assertEquals(0, versionEnBd(1));
+    }
+
+    @Test
+    @DisplayName("Mismo estado o pedido inexistente no escriben")
+    void cambiar_sinCambiosYNoExiste() {
+        pedido(1, EstadoDePedido.PAGADO);
+
+        assertEquals(Resultado.SIN_CAMBIOS, estados.cambiar(1, EstadoDePedido.PAGADO).resultado());
+        assertEquals(Resultado.NO_EXISTE, estados.cambiar(99, EstadoDePedido.PAGADO).resultado());
+        assertEquals(0, versionEnBd(1));
+    }
+
+    @Test
+    @DisplayName("Si el estado cambió entre la lectura y el UPDATE (save de JPA sin versión) no lo pisa y revalida")
+    void cambiar_cambioEnElMedio() {
+        pedido(1, EstadoDePedido.PENDIENTE_PAGO);
+        // Justo antes del primer UPDATE, otro cancela el pedido sin tocar la versión.
+        JdbcTemplate conCambioEnElMedio = new JdbcTemplate(jdbc.getDataSource()) {
+            boolean primero = true;
+
+            @Override
+            public int update(String sql, PreparedStatementSetter pss) {
+                if (primero) {
+                    primero = false;
+                    jdbc.update("UPDATE pedido SET estado = 'CANCELADO' WHERE id = 1");
+                }
+                return super.update(sql, pss);
+            }
+        };
+        EstadosDePedido conInterferencia = new EstadosDePedido(conCambioEnElMedio, "pedido", "id",
+                new ColumnaDeEstado<>("estado", EstadoDePedido.class, Enum::name), 3);
+        conInterferencia.iniciar();
+
+        Cambio cambio = conInterferencia.cambiar(1, EstadoDePedido.PAGADO);
+
+        assertEquals(Resultado.TRANSICION_INVALIDA, cambio.resultado());
+        assertEquals(EstadoDePedido.CANCELADO, cambio.anterior());
+        assertEquals("CANCELADO", estadoEnBd(1));
+        assertEquals(1, conInterferencia.getConflictos());
+    }
+
+    @Test
+    @DisplayName("Muchos hilos cancelando el mismo pedido: uno solo lo cambia (el stock se devolvería una vez)")
+    void cambiar_concurrente_unSoloGanador() throws Exception {
+        pedido(1, EstadoDePedido.PAGADO);
+
+        List<Cambio> resultados = enParalelo(16, i -> estados.cambiar(1, EstadoDePedido.CANCELADO));
+
+        assertEquals(1, resultados.stream().filter(Cambio::cambiado).count());
+        assertTrue(resultados.stream().allMatch(c -> c.resultado() == Resultado.CAMBIADO
+                || c.resultado() == Resultado.SIN_CAMBIOS));
+        assertEquals("CANCELADO", estadoEnBd(1));
+        assertEquals(1, versionEnBd(1));
+    }
+
+    @Test
+    @DisplayName("Pagar y cancelar a la vez no pierde ninguno de los dos cambios")
+    void cambiar_concurrente_sinActualizacionesPerdidas() throws Exception {
+        for (long id = 1; id <= 50; id++) pedido(id, EstadoDePedido.PENDIENTE_PAGO);
+
+        List<Cambio> resultados = enParalelo(100, i -> estados.cambiar(i / 2 + 1,
+                i % 2 == 0 ? EstadoDePedido.PAGADO : EstadoDePedido.CANCELADO));
+
+        for (long id = 1; id <= 50; id++) {
+            Cambio pagar = resultados.get((int) (id - 1) * 2);
+            Cambio cancelar = resultados.get((int) (id - 1) * 2 + 1);
+            long cambiados = (pagar.cambiado() ? 1 : 0) + (cancelar.cambiado() ? 1 : 0);
+
+            // Cancelar siempre gana al final: directo desde PENDIENTE_PAGO o después del pago.
+            assertTrue(cancelar.cambiado(), "pedido " + id);
+            assertEquals("CANCELADO", estadoEnBd(id));
+            // Cada cambio que se informó como hecho sumó exactamente una versión.
+            assertEquals(cambiados, versionEnBd(id), "pedido " + id);
+            if (pagar.cambiado()) {
+                assertEquals(EstadoDePedido.PAGADO, cancelar.anterior());
+            } else {
+                assertEquals(Resultado.TRANSICION_INVALIDA, pagar.resultado());
+                assertEquals(EstadoDePedido.PENDIENTE_PAGO, cancelar.anterior());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Con outbox, cada cambio hecho deja su evento y los rechazados no")
+    void cambiar_publicaEnLaOutbox() {
+        Outbox outbox = new Outbox(jdbc, new ObjectMapper());
+        outbox.crear();
+        estados.publicarEn(outbox, new TransactionTemplate(new DataSourceTransactionManager(jdbc.getDataSource())));
+        pedido(1, EstadoDePedido.PENDIENTE_PAGO);
+
+        estados.cambiar(1, EstadoDePedido.PAGADO);
+        estados.cambiar(1, EstadoDePedido.PAGADO);
+        estados.cambiar(1, EstadoDePedido.PENDIENTE_PAGO);
+
+        assertEquals(List.of("{\"pedidoId\":1,\"anterior\":\"PENDIENTE_PAGO\",\"estado\":\"PAGADO\"}"),
+                jdbc.queryForList("SELECT payload FROM " + Outbox.TABLA + " WHERE tipo = ? AND agregado_id = 1",
+                        String.class, Outbox.PEDIDO_ESTADO_CAMBIADO));
+    }
+
+    @Test
+    @DisplayName("La tabla de transiciones marca los estados finales")
+    void transiciones() {
+        assertTrue(EstadosDePedido.transicionValida(EstadoDePedido.PAGADO, EstadoDePedido.ENVIADO));
+        assertTrue(EstadosDePedido.transicionValida(null, EstadoDePedido.PAGADO));
+        assertFalse(EstadosDePedido.transicionValida(EstadoDePedido.ENVIADO, EstadoDePedido.CANCELADO));
+        assertTrue(EstadosDePedido.destinos(EstadoDePedido.COMPLETADO).isEmpty());
+        assertTrue(EstadosDePedido.destinos(EstadoDePedido.CANCELADO).isEmpty());
+    }
+
+    private interface Tarea {
+        Cambio correr(int i);
+    }
+
+    // Corre n tareas a la vez (arrancan juntas) y devuelve sus resultados en orden.
+    private static List<Cambio> enParalelo(int n, Tarea tarea) throws Exception {
+        ExecutorService hilos = Executors.newFixedThreadPool(Math.min(n, 16));
+        CountDownLatch largada = new CountDownLatch(1);
+        try {
+            List<Future<Cambio>> futuros = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                int indice = i;
+                futuros.add(hilos.submit(() -> {
+                    largada.await();
+                    return tarea.correr(indice);
+                }));
+            }
+            largada.countDown();
+            List<Cambio> resultados = new ArrayList<>();
+            for (Future<Cambio> f : futuros) resultados.add(f.get(30, TimeUnit.SECONDS));
+            return resultados;
+        } finally {
+            hilos.shutdownNow();
+        }
+    }
+}
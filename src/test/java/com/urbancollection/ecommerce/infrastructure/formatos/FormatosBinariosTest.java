@@ -0,0 +1,209 @@
+package com.urbancollection.ecommerce.infrastructure.formatos;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.content;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.urbancollection.ecommerce.domain.entity.catalogo.Producto;
+import com.urbancollection.ecommerce.infrastructure.client.Impl.ProductoApiClient;
+import com.urbancollection.ecommerce.infrastructure.config.SerializacionConfig;
+
+/**
+ * FormatosBinariosTest
+ *
+ * Tests de la negociación JSON / CBOR / Smile: del lado del servidor con
+ * MockMvc y los convertidores que deja SerializacionConfig, y del lado de los
+ * ApiClients con un servidor HTTP falso (MockRestServiceServer).
+ */
+@DisplayName("Tests para FormatosBinarios")
+class FormatosBinariosTest {
+
+    @RestController
+    static class CatalogoController {
+
+        @GetMapping("/api/productos")
+        List<Producto> listar() {
+            return productos();
+        }
+    }
+
+    private static List<Producto> productos() {
+        List<Producto> productos = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            Producto p = new Producto();
+            p.setId(id);
+            p.setNombre("Producto " + id);
+            p.setPrecio(new BigDecimal("19.99"));
+            p.setStock(10);
+            productos.add(p);
+        }
+        return productos;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ObjectProvider<Jackson2ObjectMapperBuilder> builders() {
+        ObjectProvider<Jackson2ObjectMapperBuilder> builders = mock(ObjectProvider.class);
+        when(builders.getObject()).thenAnswer(i -> Jackson2ObjectMapperBuilder.json());
+        return builders;
+    }
+
+    // Como quedan los convertidores de Spring MVC: JSON y los binarios que agrega solo.
+    private static List<HttpMessageConverter<?>> convertidores(boolean formatosBinarios) {
+        List<HttpMessageConverter<?>> convertidores = new ArrayList<>(List.of(
+                new MappingJackson2HttpMessageConverter(),
+                new MappingJackson2SmileHttpMessageConverter(),
+                new MappingJackson2CborHttpMessageConverter()));
+        new SerializacionConfig(builders(), formatosBinarios).extendMessageConverters(convertidores);
+        return convertidores;
+    }
+
+    private static MockMvc mockMvc(boolean formatosBinarios) {
+        return MockMvcBuilders.standaloneSetup(new CatalogoController())
+                .setMessageConverters(convertidores(formatosBinarios).toArray(new HttpMessageConverter<?>[0]))
+                .build();
+    }
+
+    // ===================== SERVIDOR =====================
+
+    @Test
+    @DisplayName("Los binarios quedan una sola vez y después del JSON; apagados no quedan")
+    void servidor_ordenDeConvertidores() {
+        List<HttpMessageConverter<?>> activos = convertidores(true);
+        assertEquals(3, activos.size());
+        assertInstanceOf(MappingJackson2HttpMessageConverter.class, activos.get(0));
+        assertTrue(FormatosBinarios.esBinario(activos.get(1)));
+        assertTrue(FormatosBinarios.esBinario(activos.get(2)));
+
+        List<HttpMessageConverter<?>> apagados = convertidores(false);
+        assertEquals(1, apagados.size());
+        assertInstanceOf(MappingJackson2HttpMessageConverter.class, apagados.get(0));
+    }
+
+    @Test
+    @DisplayName("Con Accept: application/cbor responde CBOR; sin Accept o con */* responde JSON")
+    void servidor_negociacion() throws Exception {
+        MockMvc mockMvc = mockMvc(true);
+
+        MvcResult cbor = mockMvc.perform(get("/api/productos").accept(FormatosBinarios.CBOR))
+                .andExpect(status().isOk()).andReturn();
+        assertEquals(FormatosBinarios.CBOR.toString(), cbor.getResponse().getContentType());
+        List<Producto> leidos = new ObjectMapper(new CBORFactory())
+                .readValue(cbor.getResponse().getContentAsByteArray(), new TypeReference<List<Producto>>() {});
+        assertEquals(3, leidos.size());
+        assertEquals("Producto 2", leidos.get(1).getNombre());
+
+        MvcResult smile = mockMvc.perform(get("/api/productos").accept(FormatosBinarios.SMILE))
+                .andExpect(status().isOk()).andReturn();
+        assertEquals(FormatosBinarios.SMILE.toString(), smile.getResponse().getContentType());
+
+        for (MvcResult json : List.of(
+                mockMvc.perform(get("/api/productos")).andReturn(),
+                mockMvc.perform(get("/api/productos").accept(MediaType.ALL)).andReturn())) {
+            assertEquals(MediaType.APPLICATION_JSON_VALUE, json.getResponse().getContentType());
+        }
+
+        // CBOR sale más chico que el mismo contenido en JSON
+        byte[] bytesJson = mockMvc.perform(get("/api/productos")).andReturn().getResponse().getContentAsByteArray();
+        assertTrue(cbor.getResponse().getContentAsByteArray().length < bytesJson.length);
+    }
+
+    @Test
+    @DisplayName("negociado elige como Spring MVC: el más específico y de mayor q, JSON ante la duda")
+    void negociado() {
+        assertEquals(MediaType.APPLICATION_JSON, FormatosBinarios.negociado(null));
+        assertEquals(MediaType.APPLICATION_JSON, FormatosBinarios.negociado("*/*"));
+        assertEquals(MediaType.APPLICATION_JSON, FormatosBinarios.negociado("application/*"));
+        assertEquals(MediaType.APPLICATION_JSON, FormatosBinarios.negociado("no es un tipo"));
+        assertEquals(FormatosBinarios.CBOR, FormatosBinarios.negociado("application/cbor"));
+        assertEquals(FormatosBinarios.CBOR, FormatosBinarios.negociado("*/*, application/cbor"));
+        assertEquals(FormatosBinarios.SMILE, FormatosBinarios.negociado("application/x-jackson-smile, application/json;q=0.5"));
+        assertEquals(MediaType.APPLICATION_JSON, FormatosBinarios.negociado("application/cbor;q=0.5, application/json"));
+    }
+
+    @Test
+    @DisplayName("Con los binarios apagados, pedir CBOR da 406")
+    void servidor_apagado() throws Exception {
+        mockMvc(false).perform(get("/api/productos").accept(FormatosBinarios.CBOR))
+                .andExpect(status().isNotAcceptable());
+    }
+
+    // ===================== CLIENTES =====================
+
+    @Test
+    @DisplayName("El ApiClient pide CBOR antes que JSON y lee la respuesta binaria")
+    void cliente_leeCbor() throws Exception {
+        RestTemplate restTemplate = FormatosBinarios.restTemplate(FormatosBinarios.Formato.CBOR,
+                Jackson2ObjectMapperBuilder::json);
+        MockRestServiceServer servidor = MockRestServiceServer.bindTo(restTemplate).build();
+        byte[] cuerpo = new ObjectMapper(new CBORFactory()).writeValueAsBytes(productos());
+        servidor.expect(requestTo("http://api/api/productos"))
+                .andExpect(header("Accept", startsWith("application/cbor")))
+                .andRespond(withSuccess(cuerpo, FormatosBinarios.CBOR));
+
+        List<Producto> leidos = new ProductoApiClient(restTemplate, "http://api").listar();
+
+        servidor.verify();
+        assertEquals(3, leidos.size());
+        assertEquals(new BigDecimal("19.99"), leidos.get(0).getPrecio());
+    }
+
+    @Test
+    @DisplayName("Si el servidor contesta JSON, el ApiClient lo lee igual; los cuerpos que manda van en JSON")
+    void cliente_vuelveAJson() {
+        RestTemplate restTemplate = FormatosBinarios.restTemplate(FormatosBinarios.Formato.SMILE,
+                Jackson2ObjectMapperBuilder::json);
+        MockRestServiceServer servidor = MockRestServiceServer.bindTo(restTemplate).build();
+        servidor.expect(requestTo("http://api/api/productos"))
+                .andRespond(withSuccess("[{\"id\":1,\"nombre\":\"Producto 1\"}]", MediaType.APPLICATION_JSON));
+        servidor.expect(requestTo("http://api/api/productos"))
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andRespond(withSuccess("{\"id\":9,\"nombre\":\"Nuevo\"}", MediaType.APPLICATION_JSON));
+
+        ProductoApiClient cliente = new ProductoApiClient(restTemplate, "http://api");
+        assertEquals("Producto 1", cliente.listar().get(0).getNombre());
+        Producto nuevo = new Producto();
+        nuevo.setNombre("Nuevo");
+        assertEquals(9L, cliente.crear(nuevo).getId());
+
+        servidor.verify();
+    }
+
+    @Test
+    @DisplayName("Formato.de acepta mayúsculas o minúsculas y rechaza los desconocidos")
+    void formato_de() {
+        assertEquals(FormatosBinarios.Formato.CBOR, FormatosBinarios.Formato.de(" Cbor "));
+        assertEquals(FormatosBinarios.Formato.JSON, FormatosBinarios.Formato.de("json"));
+        assertThrows(IllegalArgumentException.class, () -> FormatosBinarios.Formato.de("xml"));
+    }
+}
@@ -0,0 +1,226 @@
+package com.urbancollection.ecommerce.infrastructure.logistica;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.urbancollection.ecommerce.domain.enums.EstadoDeEnvio;
+import com.urbancollection.ecommerce.domain.enums.EstadoDePedido;
+import com.urbancollection.ecommerce.infrastructure.cache.ColumnaNormalizada;
+import com.urbancollection.ecommerce.infrastructure.cache.EnvioCache;
+import com.urbancollection.ecommerce.infrastructure.estados.ColumnaDeEstado;
+import com.urbancollection.ecommerce.infrastructure.estados.EstadosDePedido;
+import com.urbancollection.ecommerce.infrastructure.logistica.EstadosDeEnvioEnLote.Cambio;
+import com.urbancollection.ecommerce.infrastructure.logistica.EstadosDeEnvioEnLote.Item;
+import com.urbancollection.ecommerce.infrastructure.logistica.EstadosDeEnvioEnLote.Resultado;
+
+/**
+ * EstadosDeEnvioEnLoteTest
+ *
+ * Tests de los cambios de estado en lote contra H2 en memoria (EnvioCache mockeada).
+ */
+@DisplayName("Tests para EstadosDeEnvioEnLote")
+class EstadosDeEnvioEnLoteTest {
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbc;
+    private EnvioCache envioCache;
+    private ColumnaNormalizada tracking;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:estados_envio;DB_CLOSE_DELAY=-1", "sa", "", true);
+        jdbc = new JdbcTemplate(dataSource);
+        envioCache = mock(EnvioCache.class);
+        tracking = new ColumnaNormalizada("envio", "id", "tracking",
+                EnvioCache.COLUMNA_TRACKING, ColumnaNormalizada.Caso.MAYUSCULAS, true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbc.execute("DROP ALL OBJECTS");
+        dataSource.destroy();
+    }
+
+    // Tabla con el estado guardado por nombre (EnumType.STRING).
+    private EstadosDeEnvioEnLote conEstadoPorNombre(TransactionTemplate escritura) {
+        jdbc.execute("CREATE TABLE envio (id BIGINT PRIMARY KEY, tracking VARCHAR(100), "
+                + "estado VARCHAR(20), updated_at TIMESTAMP, pedido_id BIGINT)");
+        tracking.crear(jdbc);
+        return new EstadosDeEnvioEnLote(jdbc, escritura, envioCache, tracking,
+                new ColumnaDeEstado<>("estado", EstadoDeEnvio.class, Enum::name), "updated_at", "pedido_id", 10_000);
+    }
+
+    private TransactionTemplate transaccion() {
+        return new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    private String estadoEnBd(long id) {
+        return jdbc.queryForObject("SELECT estado FROM envio WHERE id = ?", String.class, id);
+    }
+
+    @Test
+    @DisplayName("Aplica cada item y devuelve un resultado por item en el mismo orden")
+    void aplicar_loteMixto() {
+        EstadosDeEnvioEnLote lote = conEstadoPorNombre(transaccion());
+        jdbc.update("INSERT INTO envio (id, tracking, estado) VALUES "
+                + "(1, 'AAA', 'PENDIENTE'), (2, 'BBB', 'EN_TRANSITO'), (3, 'CCC', 'ENTREGADO')");
+
+        List<Item> items = lote.aplicar(List.of(
+                new Cambio(" aaa ", "en_transito"),
+                new Cambio("BBB", "EN_TRANSITO"),
+                new Cambio("CCC", "PENDIENTE"),
+                new Cambio("ZZZ", "ENTREGADO"),
+                new Cambio("AAA", "PERDIDO"),
+                new Cambio("", "ENTREGADO")));
+
+        assertEquals(List.of(Resultado.ACTUALIZADO, Resultado.SIN_CAMBIOS, Resultado.TRANSICION_INVALIDA,
+                Resultado.NO_EXISTE, Resultado.DATOS_INVALIDOS, Resultado.DATOS_INVALIDOS),
+                items.stream().map(Item::resultado).toList());
+        assertEquals(" aaa ", items.get(0).tracking());
+        assertEquals("EN_TRANSITO", items.get(0).estado());
+        assertEquals("ENTREGADO", items.get(2).estado());
+
+        assertEquals("EN_TRANSITO", estadoEnBd(1));
+        assertNotNull(jdbc.queryForObject("SELECT updated_at FROM envio WHERE id = 1", Object.class));
+        assertNull(jdbc.queryForObject("SELECT updated_at FROM envio WHERE id = 2", Object.class));
+        verify(envioCache).invalidarPorId(1L);
+        verifyNoMoreInteractions(envioCache);
+    }
+
+    @Test
+    @DisplayName("Un tracking repetido parte del estado que dejó el item anterior")
+    void aplicar_trackingRepetido() {
+        EstadosDeEnvioEnLote lote = conEstadoPorNombre(transaccion());
+        jdbc.update("INSERT INTO envio (id, tracking, estado) VALUES (1, 'AAA', 'PENDIENTE')");
+
+        List<Item> items = lote.aplicar(List.of(
+                new Cambio("AAA", "EN_TRANSITO"),
+                new Cambio("AAA", "ENTREGADO"),
+                new Cambio("AAA", "EN_TRANSITO")));
+
+        assertEquals(List.of(Resultado.ACTUALIZADO, Resultado.ACTUALIZADO, Resultado.TRANSICION_INVALIDA),
+                items.stream().map(Item::resultado).toList());
+        assertEquals("ENTREGADO", estadoEnBd(1));
+    }
+
+    @Test
+    @DisplayName("Si el envío cambió entre la lectura y la escritura no se pisa y queda en CONFLICTO")
+    void aplicar_conflicto() {
+        // Simulo otra escritura justo antes de que empiece la transacción del lote.
+        TransactionTemplate escritura = new TransactionTemplate(new DataSourceTransactionManager(dataSource)) {
+            @Override
+            public <T> T execute(TransactionCallback<T> action) throws TransactionException {
+                jdbc.update("UPDATE envio SET estado = 'FALLIDO' WHERE id = 1");
+                return super.execute(action);
+            }
+        };
+        EstadosDeEnvioEnLote lote = conEstadoPorNombre(escritura);
+        jdbc.update("INSERT INTO envio (id, tracking, estado) VALUES (1, 'AAA', 'PENDIENTE'), (2, 'BBB', 'PENDIENTE')");
+
+        List<Item> items = lote.aplicar(List.of(new Cambio("AAA", "ENTREGADO"), new Cambio("BBB", "ENTREGADO")));
+
+        assertEquals(Resultado.CONFLICTO, items.get(0).resultado());
+        assertNull(items.get(0).estado());
+        assertEquals(Resultado.ACTUALIZADO, items.get(1).resultado());
+        assertEquals("FALLIDO", estadoEnBd(1));
+        assertEquals("ENTREGADO", estadoEnBd(2));
+        verify(envioCache).invalidarPorId(1L);
+        verify(envioCache).invalidarPorId(2L);
+    }
+
+    @Test
+    @DisplayName("Los pedidos de los envíos que pasan a ENTREGADO quedan COMPLETADO; si el pedido no puede, CONFLICTO")
+    void aplicar_completaPedidos() {
+        EstadosDeEnvioEnLote lote = conEstadoPorNombre(transaccion());
+        jdbc.execute("CREATE TABLE pedido (id BIGINT PRIMARY KEY, estado VARCHAR(20))");
+        EstadosDePedido estadosDePedido = new EstadosDePedido(jdbc, "pedido", "id",
+                new ColumnaDeEstado<>("estado", EstadoDePedido.class, Enum::name), 3);
+        lote.completarPedidosCon(estadosDePedido);
+        jdbc.update("INSERT INTO pedido (id, estado) VALUES (10, 'ENVIADO'), (20, 'CANCELADO'), (30, 'PAGADO')");
+        jdbc.update("INSERT INTO envio (id, tracking, estado, pedido_id) VALUES "
+                + "(1, 'AAA', 'EN_TRANSITO', 10), (2, 'BBB', 'EN_TRANSITO', 20), (3, 'CCC', 'PENDIENTE', 30)");
+
+        List<Item> items = lote.aplicar(List.of(
+                new Cambio("AAA", "ENTREGADO"), new Cambio("BBB", "ENTREGADO"), new Cambio("CCC", "EN_TRANSITO")));
+
+        assertEquals(List.of(Resultado.ACTUALIZADO, Resultado.CONFLICTO, Resultado.ACTUALIZADO),
+                items.stream().map(Item::resultado).toList());
+        assertEquals("COMPLETADO", jdbc.queryForObject("SELECT estado FROM pedido WHERE id = 10", String.class));
+        assertEquals("ENTREGADO", estadoEnBd(1));
+        // un pedido cancelado no se completa, y su envío no se marca entregado
+        assertEquals("CANCELADO", jdbc.queryForObject("SELECT estado FROM pedido WHERE id = 20", String.class));
+        assertEquals("EN_TRANSITO", estadoEnBd(2));
+        assertEquals("EN_TRANSITO", items.get(1).estado());
+        assertEquals("PAGADO", jdbc.queryForObject("SELECT estado FROM pedido WHERE id = 30", String.class));
+    }
+
+    @Test
+    @DisplayName("Lotes con más trackings que el máximo del IN se leen en tandas")
+    void aplicar_loteGrande() {
+        EstadosDeEnvioEnLote lote = conEstadoPorNombre(transaccion());
+        int n = EstadosDeEnvioEnLote.MAXIMO_IN * 2 + 500;
+        List<Object[]> filas = new ArrayList<>();
+        List<Cambio> cambios = new ArrayList<>();
+        for (int i = 1; i <= n; i++) {
+            filas.add(new Object[] {i, "T" + i});
+            cambios.add(new Cambio("t" + i, "EN_TRANSITO"));
+        }
+        jdbc.batchUpdate("INSERT INTO envio (id, tracking, estado) VALUES (?, ?, 'PENDIENTE')", filas);
+
+        List<Item> items = lote.aplicar(cambios);
+
+        assertTrue(items.stream().allMatch(i -> i.resultado() == Resultado.ACTUALIZADO));
+        assertEquals(n, jdbc.queryForObject(
+                "SELECT COUNT(*) FROM envio WHERE estado = 'EN_TRANSITO'", Integer.class));
+    }
+
+    @Test
+    @DisplayName("Con el estado guardado como ordinal lee y escribe el número")
+    void aplicar_estadoPorOrdinal() {
+        jdbc.execute("CREATE TABLE envio (id BIGINT PRIMARY KEY, tracking VARCHAR(100), "
+                + "estado SMALLINT, updated_at TIMESTAMP, pedido_id BIGINT)");
+        EstadosDeEnvioEnLote lote = new EstadosDeEnvioEnLote(jdbc, transaccion(), envioCache, tracking,
+                new ColumnaDeEstado<>("estado", EstadoDeEnvio.class, Enum::ordinal), "updated_at", "pedido_id", 10_000);
+        jdbc.update("INSERT INTO envio (id, tracking, estado) VALUES (1, 'AAA', ?)",
+                EstadoDeEnvio.EN_TRANSITO.ordinal());
+
+        List<Item> items = lote.aplicar(List.of(new Cambio("AAA", "ENTREGADO")));
+
+        assertEquals(Resultado.ACTUALIZADO, items.get(0).resultado());
+        assertEquals(EstadoDeEnvio.ENTREGADO.ordinal(),
+                jdbc.queryForObject("SELECT estado FROM envio WHERE id = 1", Integer.class));
+    }
+
+    @Test
+    @DisplayName("Rechaza lotes más grandes que el máximo configurado")
+    void aplicar_loteDemasiadoGrande() {
+        EstadosDeEnvioEnLote lote = new EstadosDeEnvioEnLote(jdbc, transaccion(), envioCache, tracking,
+                new ColumnaDeEstado<>("estado", EstadoDeEnvio.class, Enum::name), "updated_at", "pedido_id", 2);
+
+        assertThrows(IllegalArgumentException.class, () -> lote.aplicar(List.of(
+                new Cambio("A", "ENTREGADO"), new Cambio("B", "ENTREGADO"), new Cambio("C", "ENTREGADO"))));
+    }
+
+    @Test
+    @DisplayName("ENTREGADO es final y FALLIDO puede volver a EN_TRANSITO")
+    void transicionValida() {
+        assertFalse(EstadosDeEnvioEnLote.transicionValida(EstadoDeEnvio.ENTREGADO, EstadoDeEnvio.EN_TRANSITO));
+        assertTrue(EstadosDeEnvioEnLote.transicionValida(EstadoDeEnvio.FALLIDO, EstadoDeEnvio.EN_TRANSITO));
+        assertFalse(EstadosDeEnvioEnLote.transicionValida(EstadoDeEnvio.EN_TRANSITO, EstadoDeEnvio.PENDIENTE));
+        assertTrue(EstadosDeEnvioEnLote.transicionValida(null, EstadoDeEnvio.ENTREGADO));
+    }
+}
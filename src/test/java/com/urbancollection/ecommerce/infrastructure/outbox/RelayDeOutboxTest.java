@@ -0,0 +1,192 @@
+package com.urbancollection.ecommerce.infrastructure.outbox;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.urbancollection.ecommerce.persistence.jpa.spring.PedidoJpaRepository;
+import com.urbancollection.ecommerce.shared.notification.NotificationPort;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * RelayDeOutboxTest
+ *
+ * Tests de la outbox y su relay contra H2 en memoria.
+ */
+@DisplayName("Tests para Outbox y RelayDeOutbox")
+class RelayDeOutboxTest {
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate transaccion;
+    private Outbox outbox;
+    private SimpleMeterRegistry metricas;
+
+    // Consumidor que anota lo que recibe y falla para los eventos que se le indiquen.
+    private final List<Long> recibidos = new ArrayList<>();
+    private final Set<Long> fallar = new HashSet<>();
+    private final ConsumidorDeEventos consumidor = evento -> {
+        if (fallar.contains(evento.id())) throw new IllegalStateException("caído");
+        recibidos.add(evento.id());
+    };
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:outbox;DB_CLOSE_DELAY=-1", "sa", "", true);
+        jdbc = new JdbcTemplate(dataSource);
+        transaccion = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        outbox = new Outbox(jdbc, new ObjectMapper());
+        outbox.crear();
+        metricas = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbc.execute("DROP ALL OBJECTS");
+        dataSource.destroy();
+    }
+
+    private RelayDeOutbox relay(int lote, int maximoIntentos) {
+        return new RelayDeOutbox(outbox, jdbc, List.of(consumidor), lote, 1000, maximoIntentos, 0, 30_000, metricas);
+    }
+
+    private long evento(long pedidoId, String tipo) {
+        transaccion.executeWithoutResult(tx -> outbox.registrar(Outbox.AGREGADO_PEDIDO, pedidoId, tipo,
+                Map.of("pedidoId", pedidoId)));
+        return jdbc.queryForObject("SELECT MAX(id) FROM " + Outbox.TABLA, Long.class);
+    }
+
+    private long pendientes() {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM " + Outbox.TABLA + " WHERE publicado IS NULL", Long.class);
+    }
+
+    @Test
+    @DisplayName("El evento se guarda o se pierde junto con su transacción")
+    void registrar_esAtomicoConLaTransaccion() {
+        assertTrue(outbox.isActiva());
+
+        transaccion.executeWithoutResult(tx -> {
+            outbox.registrar(Outbox.AGREGADO_PEDIDO, 1, Outbox.PEDIDO_CREADO, Map.of("pedidoId", 1));
+            tx.setRollbackOnly();
+        });
+        assertEquals(0, pendientes());
+
+        evento(1, Outbox.PEDIDO_CREADO);
+        assertEquals(1, pendientes());
+        assertEquals("{\"pedidoId\":1}", jdbc.queryForObject("SELECT payload FROM " + Outbox.TABLA, String.class));
+    }
+
+    @Test
+    @DisplayName("Publica en orden de escritura, en lotes, y marca los publicados")
+    void publicarLote_enOrden() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) ids.add(evento(i % 2, Outbox.PEDIDO_ESTADO_CAMBIADO));
+        RelayDeOutbox relay = relay(3, 5);
+
+        assertEquals(3, relay.publicarLote());
+        assertEquals(2, relay.publicarLote());
+        assertEquals(0, relay.publicarLote());
+
+        assertEquals(ids, recibidos);
+        assertEquals(0, pendientes());
+        assertEquals(5, metricas.counter("outbox.eventos.publicados").count());
+        assertEquals(3, metricas.timer("outbox.lote").count());
+    }
+
+    @Test
+    @DisplayName("Con dos relays publica solo el que tiene el turno; al vencer lo toma el otro")
+    void publicarLote_unSoloRelayConTurno() {
+        long primero = evento(1, Outbox.PEDIDO_ESTADO_CAMBIADO);
+        RelayDeOutbox a = relay(10, 5);
+        RelayDeOutbox b = relay(10, 5);
+
+        assertEquals(1, a.publicarLote());
+        long segundo = evento(1, Outbox.PEDIDO_ESTADO_CAMBIADO);
+        assertEquals(0, b.publicarLote());
+        assertEquals(1, pendientes());
+
+        // "a" se cayó sin soltar el turno: cuando vence, "b" sigue desde donde quedó
+        jdbc.update("UPDATE " + Outbox.TABLA_TURNO + " SET vence = DATEADD('SECOND', -1, CURRENT_TIMESTAMP)");
+        assertEquals(1, b.publicarLote());
+        assertEquals(0, a.publicarLote());
+
+        assertEquals(List.of(primero, segundo), recibidos);
+    }
+
+    @Test
+    @DisplayName("Si un evento falla, los siguientes del mismo pedido esperan y los de otros pedidos siguen")
+    void publicarLote_ordenPorAgregado() {
+        long a1 = evento(1, Outbox.PEDIDO_CREADO);
+        long b1 = evento(2, Outbox.PEDIDO_CREADO);
+        long a2 = evento(1, Outbox.PAGO_REGISTRADO);
+        long b2 = evento(2, Outbox.PAGO_REGISTRADO);
+        fallar.add(a1);
+        RelayDeOutbox relay = relay(10, 5);
+
+        relay.publicarLote();
+        assertEquals(List.of(b1, b2), recibidos);
+        assertEquals(2, pendientes());
+        assertEquals(1, jdbc.queryForObject("SELECT intentos FROM " + Outbox.TABLA + " WHERE id = ?", Integer.class, a1));
+
+        fallar.clear();
+        relay.publicarLote();
+        assertEquals(List.of(b1, b2, a1, a2), recibidos);
+        assertEquals(0, pendientes());
+        assertEquals(1, metricas.counter("outbox.eventos.fallidos").count());
+    }
+
+    @Test
+    @DisplayName("Un evento que agota los intentos se descarta y libera a los siguientes")
+    void publicarLote_descarta() {
+        long a1 = evento(1, Outbox.PEDIDO_CREADO);
+        long a2 = evento(1, Outbox.PAGO_REGISTRADO);
+        fallar.add(a1);
+        RelayDeOutbox relay = relay(10, 2);
+
+        relay.publicarLote();
+        assertEquals(List.of(), recibidos);
+        relay.publicarLote();
+
+        assertEquals(List.of(a2), recibidos);
+        assertEquals(0, pendientes());
+        assertEquals(1, metricas.counter("outbox.eventos.descartados").count());
+        assertEquals(1, metricas.counter("outbox.eventos.publicados").count());
+    }
+
+    @Test
+    @DisplayName("Las notificaciones van al correo del cliente y solo para pagos y cambios de estado")
+    void consumidorDeNotificaciones() throws Exception {
+        NotificationPort notificaciones = mock(NotificationPort.class);
+        PedidoJpaRepository pedidos = mock(PedidoJpaRepository.class);
+        when(pedidos.findCorreoDelCliente(7L)).thenReturn(Optional.of("ana@correo.com"));
+        when(pedidos.findCorreoDelCliente(8L)).thenReturn(Optional.empty());
+        EventoOutbox creado = new EventoOutbox(1, "Pedido", 7, Outbox.PEDIDO_CREADO, "{}", null, 0);
+        EventoOutbox pago = new EventoOutbox(2, "Pedido", 7, Outbox.PAGO_REGISTRADO, "{\"monto\":10}", null, 0);
+        EventoOutbox sinCliente = new EventoOutbox(3, "Pedido", 8, Outbox.PEDIDO_ESTADO_CAMBIADO, "{}", null, 0);
+
+        ConsumidorDeNotificaciones consumidor = new ConsumidorDeNotificaciones(notificaciones, pedidos);
+        for (EventoOutbox e : List.of(creado, pago, sinCliente)) {
+            consumidor.consumir(e);
+        }
+
+        verify(notificaciones).sendInfo("ana@correo.com", "PagoRegistrado {\"monto\":10}");
+        verifyNoMoreInteractions(notificaciones);
+    }
+}
@@ -0,0 +1,76 @@
+package com.urbancollection.ecommerce.infrastructure.paginacion;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * LecturaPorLotesTest
+ *
+ * Tests de la lectura por lotes del modo "ver todo": cuándo se consulta la
+ * BD y que se recorran todas las filas una sola vez.
+ */
+@DisplayName("Tests para LecturaPorLotes")
+class LecturaPorLotesTest {
+
+    // despuesDe de cada consulta hecha
+    private final List<Long> consultas = new ArrayList<>();
+
+    private PaginaPorCursor.Consulta<Long> tabla(long filas) {
+        return (despuesDe, pagina) -> {
+            consultas.add(despuesDe);
+            List<Long> ids = new ArrayList<>();
+            for (long id = despuesDe + 1; id <= filas && ids.size() < pagina.getPageSize(); id++) ids.add(id);
+            return ids;
+        };
+    }
+
+    @Test
+    @DisplayName("Recorre todas las filas leyendo un lote a la vez, a medida que se avanza")
+    void recorrer_porLotes() {
+        LecturaPorLotes<Long> lectura = new LecturaPorLotes<>(tabla(25), id -> id, 10);
+        Iterator<Long> filas = lectura.iterator();
+
+        assertEquals(List.of(0L), consultas);
+        long esperado = 1;
+        while (filas.hasNext()) assertEquals(esperado++, filas.next());
+
+        assertEquals(26, esperado);
+        // el tercer lote vino incompleto: no se pide uno más
+        assertEquals(List.of(0L, 10L, 20L), consultas);
+        assertThrows(NoSuchElementException.class, filas::next);
+    }
+
+    @Test
+    @DisplayName("Si el último lote viene justo lleno, una consulta vacía cierra el recorrido")
+    void recorrer_loteJusto() {
+        LecturaPorLotes<Long> lectura = new LecturaPorLotes<>(tabla(20), id -> id, 10);
+
+        int total = 0;
+        for (Long ignored : lectura) total++;
+
+        assertEquals(20, total);
+        assertEquals(List.of(0L, 10L, 20L), consultas);
+    }
+
+    @Test
+    @DisplayName("isEmpty lee el primer lote y el recorrido lo reusa")
+    void isEmpty_reusaPrimerLote() {
+        LecturaPorLotes<Long> lectura = new LecturaPorLotes<>(tabla(5), id -> id, 10);
+
+        assertFalse(lectura.isEmpty());
+        assertFalse(lectura.isEmpty());
+        int total = 0;
+        for (Long ignored : lectura) total++;
+
+        assertEquals(5, total);
+        assertEquals(List.of(0L), consultas);
+        assertTrue(new LecturaPorLotes<>(tabla(0), id -> id, 10).isEmpty());
+    }
+}
@@ -0,0 +1,77 @@
+package com.urbancollection.ecommerce.infrastructure.paginacion;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * PaginaPorCursorTest
+ *
+ * Tests de las páginas por cursor de los listados /web/**, contra una
+ * "tabla" en memoria de ids 1..n.
+ */
+@DisplayName("Tests para PaginaPorCursor")
+class PaginaPorCursorTest {
+
+    private final List<Pageable> pedidas = new ArrayList<>();
+
+    // Los ids mayores a despuesDe, hasta el tamaño de la página, como la consulta JPQL.
+    private PaginaPorCursor.Consulta<Long> tabla(long filas) {
+        return (despuesDe, pagina) -> {
+            pedidas.add(pagina);
+            List<Long> ids = new ArrayList<>();
+            for (long id = despuesDe + 1; id <= filas && ids.size() < pagina.getPageSize(); id++) ids.add(id);
+            return ids;
+        };
+    }
+
+    @Test
+    @DisplayName("Pide una fila de más para saber si hay siguiente, y no la devuelve")
+    void leer_hayMas() {
+        PaginaPorCursor<Long> pagina = PaginaPorCursor.leer(tabla(120), id -> id, 0L, 50);
+
+        assertEquals(51, pedidas.get(0).getPageSize());
+        assertEquals(0, pedidas.get(0).getPageNumber());
+        assertEquals(50, pagina.filas().size());
+        assertEquals(50L, pagina.siguiente());
+        assertTrue(pagina.esPrimera());
+        assertTrue(pagina.hayMas());
+    }
+
+    @Test
+    @DisplayName("La última página no tiene siguiente")
+    void leer_ultima() {
+        PaginaPorCursor<Long> pagina = PaginaPorCursor.leer(tabla(120), id -> id, 100L, 50);
+
+        assertEquals(List.of(101L, 102L, 103L, 104L, 105L, 106L, 107L, 108L, 109L, 110L,
+                111L, 112L, 113L, 114L, 115L, 116L, 117L, 118L, 119L, 120L), pagina.filas());
+        assertFalse(pagina.esPrimera());
+        assertFalse(pagina.hayMas());
+        assertNull(pagina.siguiente());
+    }
+
+    @Test
+    @DisplayName("Justo N filas: una sola página, sin siguiente vacía")
+    void leer_exacta() {
+        PaginaPorCursor<Long> pagina = PaginaPorCursor.leer(tabla(50), id -> id, 0L, 50);
+
+        assertEquals(50, pagina.filas().size());
+        assertFalse(pagina.hayMas());
+    }
+
+    @Test
+    @DisplayName("El tamaño de la URL se acota entre 1 y el máximo; sin tamaño va el de por defecto")
+    void tamano_acotado() {
+        assertEquals(PaginaPorCursor.TAMANO_POR_DEFECTO, PaginaPorCursor.tamano(null));
+        assertEquals(1, PaginaPorCursor.tamano(-5));
+        assertEquals(PaginaPorCursor.TAMANO_MAXIMO, PaginaPorCursor.tamano(1_000_000));
+
+        PaginaPorCursor.leer(tabla(10), id -> id, -3L, 100_000);
+        assertEquals(PaginaPorCursor.TAMANO_MAXIMO + 1, pedidas.get(0).getPageSize());
+    }
+}
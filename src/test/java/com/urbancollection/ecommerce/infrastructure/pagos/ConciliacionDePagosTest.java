@@ -0,0 +1,100 @@
+package com.urbancollection.ecommerce.infrastructure.pagos;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import com.urbancollection.ecommerce.domain.enums.MetodoDePago;
+import com.urbancollection.ecommerce.infrastructure.estados.ColumnaDeEstado;
+import com.urbancollection.ecommerce.infrastructure.pagos.ConciliacionDePagos.Fila;
+
+/**
+ * ConciliacionDePagosTest
+ *
+ * Tests del reporte de conciliación contra H2 en memoria.
+ */
+@DisplayName("Tests para ConciliacionDePagos")
+class ConciliacionDePagosTest {
+
+    private static final LocalDate DIA = LocalDate.of(2026, 10, 1);
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbc;
+    private ConciliacionDePagos conciliacion;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:conciliacion;DB_CLOSE_DELAY=-1", "sa", "", true);
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE transaccion_pago (id BIGINT AUTO_INCREMENT PRIMARY KEY, pedido_id BIGINT, "
+                + "metodo VARCHAR(20), monto DECIMAL(12, 2), estado VARCHAR(20), referencia VARCHAR(100), fecha TIMESTAMP)");
+        conciliacion = new ConciliacionDePagos(jdbc, "transaccion_pago", "fecha",
+                new ColumnaDeEstado<>("metodo", MetodoDePago.class, Enum::name), "estado", "monto", 10, 31);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbc.execute("DROP ALL OBJECTS");
+        dataSource.destroy();
+    }
+
+    private void pago(LocalDateTime fecha, MetodoDePago metodo, String monto, String estado) {
+        jdbc.update("INSERT INTO transaccion_pago (pedido_id, metodo, monto, estado, fecha) VALUES (1, ?, ?, ?, ?)",
+                metodo.name(), new BigDecimal(monto), estado, Timestamp.valueOf(fecha));
+    }
+
+    @Test
+    @DisplayName("Suma por día, método y estado, con los bordes del día bien cortados")
+    void recorrer_totales() {
+        pago(DIA.atStartOfDay(), MetodoDePago.TARJETA, "10.00", "APROBADO");
+        pago(DIA.atTime(23, 59, 59), MetodoDePago.TARJETA, "5.50", "APROBADO");
+        pago(DIA.atTime(12, 0), MetodoDePago.PAYPAL, "7.25", "APROBADO");
+        pago(DIA.atTime(12, 0), MetodoDePago.TARJETA, "3.00", "RECHAZADO");
+        pago(DIA.plusDays(1).atStartOfDay(), MetodoDePago.TRANSFERENCIA, "100.00", "APROBADO");
+        // fuera del rango
+        pago(DIA.plusDays(2).atStartOfDay(), MetodoDePago.TARJETA, "999.00", "APROBADO");
+
+        List<Fila> filas = new ArrayList<>();
+        int n = conciliacion.recorrer(DIA, DIA.plusDays(1), filas::add);
+
+        assertEquals(4, n);
+        assertEquals(List.of(
+                new Fila(DIA, MetodoDePago.PAYPAL, "APROBADO", 1, new BigDecimal("7.25")),
+                new Fila(DIA, MetodoDePago.TARJETA, "APROBADO", 2, new BigDecimal("15.50")),
+                new Fila(DIA, MetodoDePago.TARJETA, "RECHAZADO", 1, new BigDecimal("3.00")),
+                new Fila(DIA.plusDays(1), MetodoDePago.TRANSFERENCIA, "APROBADO", 1, new BigDecimal("100.00"))),
+                filas);
+    }
+
+    @Test
+    @DisplayName("Rechaza rangos vacíos o más largos que el máximo")
+    void recorrer_rangoInvalido() {
+        assertThrows(IllegalArgumentException.class, () -> conciliacion.recorrer(DIA, DIA.minusDays(1), f -> { }));
+        assertThrows(IllegalArgumentException.class, () -> conciliacion.recorrer(DIA, DIA.plusDays(31), f -> { }));
+        assertEquals(0, conciliacion.recorrer(DIA, DIA.plusDays(30), f -> { }));
+    }
+
+    @Test
+    @DisplayName("Una sola conciliación a la vez")
+    void recorrer_unaALaVez() {
+        pago(DIA.atTime(10, 0), MetodoDePago.TARJETA, "1.00", "APROBADO");
+
+        conciliacion.recorrer(DIA, DIA, f -> assertThrows(ConciliacionDePagos.ConciliacionEnCurso.class,
+                () -> conciliacion.recorrer(DIA, DIA, otra -> { })));
+
+        // al terminar se libera
+        assertEquals(1, conciliacion.recorrer(DIA, DIA, f -> { }));
+    }
+}
@@ -0,0 +1,255 @@
+package com.urbancollection.ecommerce.infrastructure.pagos;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.urbancollection.ecommerce.domain.entity.ventas.Pedido;
+import com.urbancollection.ecommerce.domain.entity.ventas.TransaccionPago;
+import com.urbancollection.ecommerce.domain.enums.EstadoDePedido;
+import com.urbancollection.ecommerce.domain.enums.MetodoDePago;
+import com.urbancollection.ecommerce.infrastructure.estados.EstadosDePedido;
+import com.urbancollection.ecommerce.infrastructure.estados.EstadosDePedido.Cambio;
+import com.urbancollection.ecommerce.infrastructure.pagos.ConfirmacionDePagos.Respuesta;
+import com.urbancollection.ecommerce.infrastructure.pagos.ConfirmacionDePagos.Resultado;
+import com.urbancollection.ecommerce.persistence.jpa.spring.PedidoJpaRepository;
+import com.urbancollection.ecommerce.persistence.jpa.spring.PedidoParaPago;
+import com.urbancollection.ecommerce.persistence.jpa.spring.TransaccionPagoJpaRepository;
+
+/**
+ * ConfirmacionDePagosTest
+ *
+ * Tests de la confirmación de pagos con repositorios mockeados. La transacción
+ * se simula corriendo el callback directamente.
+ */
+@DisplayName("Tests para ConfirmacionDePagos")
+class ConfirmacionDePagosTest {
+
+    private static final BigDecimal TOTAL = new BigDecimal("107.98");
+
+    private PedidoJpaRepository pedidos;
+    private TransaccionPagoJpaRepository pagos;
+    private EstadosDePedido estados;
+    private TransactionTemplate escritura;
+    private ConfirmacionDePagos confirmacion;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        pedidos = mock(PedidoJpaRepository.class);
+        pagos = mock(TransaccionPagoJpaRepository.class);
+        estados = mock(EstadosDePedido.class);
+        escritura = mock(TransactionTemplate.class);
+        when(escritura.execute(any())).thenAnswer(inv -> ((TransactionCallback<Object>) inv.getArgument(0)).doInTransaction(null));
+        when(pedidos.getReferenceById(any())).thenReturn(new Pedido());
+        when(pagos.save(any())).thenAnswer(inv -> {
+            TransaccionPago t = inv.getArgument(0);
+            t.setId(500L);
+            return t;
+        });
+        confirmacion = new ConfirmacionDePagos(pedidos, pagos, estados, escritura, 60, 10_000);
+    }
+
+    private void pedido(long id, EstadoDePedido estado) {
+        when(pedidos.findParaPago(id)).thenReturn(Optional.of(new PedidoParaPago(id, TOTAL, estado)));
+    }
+
+    @Test
+    @DisplayName("Registra el pago y pasa el pedido a PAGADO en una transacción")
+    void confirmar_ok() {
+        pedido(1, EstadoDePedido.PENDIENTE_PAGO);
+        when(estados.cambiar(1, EstadoDePedido.PAGADO))
+                .thenReturn(new Cambio(EstadosDePedido.Resultado.CAMBIADO, EstadoDePedido.PENDIENTE_PAGO, EstadoDePedido.PAGADO));
+
+        Respuesta r = confirmacion.confirmar(1, MetodoDePago.TARJETA, new BigDecimal("107.980"), "k1");
+
+        assertEquals(Resultado.CONFIRMADO, r.confirmacion().resultado());
+        assertFalse(r.repetida());
+        assertEquals(500L, r.confirmacion().transaccionId());
+        assertEquals("k1", r.confirmacion().referencia());
+        verify(escritura, times(1)).execute(any());
+        verify(pagos).save(any());
+    }
+
+    @Test
+    @DisplayName("Un reintento con la misma clave devuelve la misma respuesta sin tocar la BD")
+    void confirmar_repetidoEnMemoria() {
+        pedido(1, EstadoDePedido.PENDIENTE_PAGO);
+        when(estados.cambiar(1, EstadoDePedido.PAGADO))
+                .thenReturn(new Cambio(EstadosDePedido.Resultado.CAMBIADO, EstadoDePedido.PENDIENTE_PAGO, EstadoDePedido.PAGADO));
+        Respuesta primera = confirmacion.confirmar(1, MetodoDePago.TARJETA, TOTAL, "k1");
+        clearInvocations(pedidos, pagos, estados, escritura);
+
+        Respuesta segunda = confirmacion.confirmar(1, MetodoDePago.TARJETA, TOTAL, "k1");
+
+        assertTrue(segunda.repetida());
+        assertEquals(primera.confirmacion(), segunda.confirmacion());
+        verifyNoInteractions(pedidos, pagos, estados, escritura);
+        assertEquals(1, confirmacion.getRepetidos());
+    }
+
+    @Test
+    @DisplayName("La misma clave con otro monto se rechaza")
+    void confirmar_claveReutilizada() {
+        pedido(1, EstadoDePedido.PENDIENTE_PAGO);
+        when(estados.cambiar(1, EstadoDePedido.PAGADO))
+                .thenReturn(new Cambio(EstadosDePedido.Resultado.CAMBIADO, EstadoDePedido.PENDIENTE_PAGO, EstadoDePedido.PAGADO));
+        confirmacion.confirmar(1, MetodoDePago.TARJETA, TOTAL, "k1");
+
+        Respuesta r = confirmacion.confirmar(1, MetodoDePago.TARJETA, BigDecimal.ONE, "k1");
+
+        assertEquals(Resultado.CLAVE_REUTILIZADA, r.confirmacion().resultado());
+    }
+
+    @Test
+    @DisplayName("Monto distinto al total se rechaza sin abrir transacción")
+    void confirmar_montoInvalido() {
+        pedido(1, EstadoDePedido.PENDIENTE_PAGO);
+
+        Respuesta r = confirmacion.confirmar(1, MetodoDePago.TARJETA, new BigDecimal("100"), "k1");
+
+        assertEquals(Resultado.MONTO_INVALIDO, r.confirmacion().resultado());
+        verifyNoInteractions(escritura, estados, pagos);
+    }
+
+    @Test
+    @DisplayName("Pedido inexistente, cancelado o ya pagado no escriben")
+    void confirmar_rechazos() {
+        when(pedidos.findParaPago(9L)).thenReturn(Optional.empty());
+        pedido(2, EstadoDePedido.CANCELADO);
+        pedido(3, EstadoDePedido.PAGADO);
+        when(pagos.findFirstByPedido_IdAndReferencia(3L, "otra")).thenReturn(Optional.empty());
+
+        assertEquals(Resultado.NO_EXISTE, confirmacion.confirmar(9, MetodoDePago.TARJETA, TOTAL, null).confirmacion().resultado());
+        assertEquals(Resultado.ESTADO_INVALIDO, confirmacion.confirmar(2, MetodoDePago.TARJETA, TOTAL, null).confirmacion().resultado());
+        assertEquals(Resultado.YA_PAGADO, confirmacion.confirmar(3, MetodoDePago.TARJETA, TOTAL, "otra").confirmacion().resultado());
+        verifyNoInteractions(escritura);
+    }
+
+    @Test
+    @DisplayName("Si la memoria no tiene la clave, un pedido ya pagado responde con el pago guardado con esa referencia")
+    void confirmar_repetidoDesdeLaBd() {
+        pedido(1, EstadoDePedido.PAGADO);
+        TransaccionPago previo = new TransaccionPago();
+        previo.setId(77L);
+        previo.setMetodo(MetodoDePago.TARJETA);
+        previo.setMonto(TOTAL);
+        previo.setReferencia("k1");
+        when(pagos.findFirstByPedido_IdAndReferencia(1L, "k1")).thenReturn(Optional.of(previo));
+
+        Respuesta r = confirmacion.confirmar(1, MetodoDePago.TARJETA, TOTAL, "k1");
+
+        assertTrue(r.repetida());
+        assertEquals(Resultado.CONFIRMADO, r.confirmacion().resultado());
+        assertEquals(77L, r.confirmacion().transaccionId());
+        verifyNoInteractions(escritura);
+    }
+
+    @Test
+    @DisplayName("Si otro pagó en el medio (el UPDATE condicional no pasa) no se inserta el pago")
+    void confirmar_carreraConOtroPago() {
+        pedido(1, EstadoDePedido.PENDIENTE_PAGO);
+        when(estados.cambiar(1, EstadoDePedido.PAGADO))
+                .thenReturn(new Cambio(EstadosDePedido.Resultado.SIN_CAMBIOS, EstadoDePedido.PAGADO, EstadoDePedido.PAGADO));
+
+        Respuesta r = confirmacion.confirmar(1, MetodoDePago.TARJETA, TOTAL, "k2");
+
+        assertEquals(Resultado.YA_PAGADO, r.confirmacion().resultado());
+        verify(pagos, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Si la escritura falla la clave no queda guardada y el reintento vuelve a probar")
+    void confirmar_errorNoSeGuarda() {
+        pedido(1, EstadoDePedido.PENDIENTE_PAGO);
+        when(estados.cambiar(1, EstadoDePedido.PAGADO))
+                .thenThrow(new IllegalStateException("caída"))
+                .thenReturn(new Cambio(EstadosDePedido.Resultado.CAMBIADO, EstadoDePedido.PENDIENTE_PAGO, EstadoDePedido.PAGADO));
+
+        assertThrows(IllegalStateException.class, () -> confirmacion.confirmar(1, MetodoDePago.TARJETA, TOTAL, "k1"));
+        Respuesta r = confirmacion.confirmar(1, MetodoDePago.TARJETA, TOTAL, "k1");
+
+        assertEquals(Resultado.CONFIRMADO, r.confirmacion().resultado());
+        assertFalse(r.repetida());
+    }
+
+    @Test
+    @DisplayName("Si la primera se traba, el repetido deja de esperar y recibe CONFLICTO")
+    void confirmar_repetidoNoEsperaParaSiempre() throws Exception {
+        confirmacion = new ConfirmacionDePagos(pedidos, pagos, estados, escritura, 60, 50);
+        pedido(1, EstadoDePedido.PENDIENTE_PAGO);
+        CountDownLatch trabada = new CountDownLatch(1);
+        CountDownLatch escribiendo = new CountDownLatch(1);
+        when(estados.cambiar(1, EstadoDePedido.PAGADO)).thenAnswer(inv -> {
+            escribiendo.countDown();
+            trabada.await(5, TimeUnit.SECONDS);
+            return new Cambio(EstadosDePedido.Resultado.CAMBIADO, EstadoDePedido.PENDIENTE_PAGO, EstadoDePedido.PAGADO);
+        });
+
+        ExecutorService hilos = Executors.newSingleThreadExecutor();
+        try {
+            Future<Respuesta> primera = hilos.submit(() -> confirmacion.confirmar(1, MetodoDePago.TARJETA, TOTAL, "k1"));
+            assertTrue(escribiendo.await(5, TimeUnit.SECONDS));
+
+            Respuesta repetida = confirmacion.confirmar(1, MetodoDePago.TARJETA, TOTAL, "k1");
+            assertEquals(Resultado.CONFLICTO, repetida.confirmacion().resultado());
+
+            trabada.countDown();
+            assertEquals(Resultado.CONFIRMADO, primera.get(5, TimeUnit.SECONDS).confirmacion().resultado());
+            assertEquals(Resultado.CONFIRMADO,
+                    confirmacion.confirmar(1, MetodoDePago.TARJETA, TOTAL, "k1").confirmacion().resultado());
+        } finally {
+            hilos.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Una ráfaga de reintentos con la misma clave escribe una sola vez")
+    void confirmar_rafagaConcurrente() throws Exception {
+        pedido(1, EstadoDePedido.PENDIENTE_PAGO);
+        CountDownLatch escribiendo = new CountDownLatch(1);
+        when(estados.cambiar(1, EstadoDePedido.PAGADO)).thenAnswer(inv -> {
+            // la primera se queda en la BD mientras llegan los reintentos
+            escribiendo.await(5, TimeUnit.SECONDS);
+            return new Cambio(EstadosDePedido.Resultado.CAMBIADO, EstadoDePedido.PENDIENTE_PAGO, EstadoDePedido.PAGADO);
+        });
+
+        ExecutorService hilos = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<Respuesta>> futuros = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                futuros.add(hilos.submit(() -> confirmacion.confirmar(1, MetodoDePago.TARJETA, TOTAL, "k1")));
+            }
+            while (confirmacion.getRepetidos() < 63) Thread.sleep(1);
+            escribiendo.countDown();
+
+            long nuevas = 0;
+            for (Future<Respuesta> f : futuros) {
+                Respuesta r = f.get(10, TimeUnit.SECONDS);
+                assertEquals(Resultado.CONFIRMADO, r.confirmacion().resultado());
+                if (!r.repetida()) nuevas++;
+            }
+            assertEquals(1, nuevas);
+            verify(pagos, times(1)).save(any());
+            verify(pedidos, times(1)).findParaPago(1L);
+        } finally {
+            hilos.shutdownNow();
+        }
+    }
+}
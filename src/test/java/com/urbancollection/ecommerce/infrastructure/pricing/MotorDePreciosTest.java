@@ -0,0 +1,112 @@
+package com.urbancollection.ecommerce.infrastructure.pricing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.urbancollection.ecommerce.domain.entity.ventas.Pedido;
+import com.urbancollection.ecommerce.domain.enums.TipoDescuento;
+
+/**
+ * MotorDePreciosTest
+ *
+ * Tests unitarios para MotorDePrecios (cálculo en centavos).
+ */
+@DisplayName("Tests para MotorDePrecios")
+class MotorDePreciosTest {
+
+    private final MotorDePrecios motor = new MotorDePrecios();
+
+    @Test
+    @DisplayName("Porcentaje con tope y envío")
+    void cerrar_porcentajeConTope() {
+        MotorDePrecios.Calculo calculo = motor.nuevoCalculo()
+                .agregarLinea(new BigDecimal("19.99"), 3)
+                .agregarLinea(new BigDecimal("5.50"), 2);
+
+        MotorDePrecios.Regla regla = MotorDePrecios.compilar(
+                TipoDescuento.PORCENTAJE, new BigDecimal("15"), new BigDecimal("5.00"), null);
+
+        MotorDePrecios.Totales totales = motor.cerrar(calculo, regla, new BigDecimal("3.25"));
+
+        assertEquals(new BigDecimal("70.97"), totales.getSubtotal());
+        assertEquals(new BigDecimal("5.00"), totales.getDescuento());
+        assertEquals(new BigDecimal("3.25"), totales.getEnvio());
+        assertEquals(new BigDecimal("69.22"), totales.getTotal());
+    }
+
+    @Test
+    @DisplayName("Monto fijo nunca pasa del subtotal y respeta el mínimo de compra")
+    void cerrar_montoFijo() {
+        MotorDePrecios.Regla regla = MotorDePrecios.compilar(
+                TipoDescuento.MONTO_FIJO, new BigDecimal("50.00"), null, new BigDecimal("20.00"));
+
+        MotorDePrecios.Totales chico = motor.cerrar(
+                motor.nuevoCalculo().agregarLinea(new BigDecimal("10.00"), 1), regla, null);
+        assertEquals(0L, chico.descuentoCentavos());
+
+        MotorDePrecios.Totales justo = motor.cerrar(
+                motor.nuevoCalculo().agregarLinea(new BigDecimal("10.00"), 3), regla, null);
+        assertEquals(new BigDecimal("30.00"), justo.getDescuento());
+        assertEquals(new BigDecimal("0.00"), justo.getTotal());
+    }
+
+    @Test
+    @DisplayName("Da lo mismo que el cálculo anterior con BigDecimal")
+    void cerrar_deberiaCoincidirConCalculoBigDecimal() {
+        Random random = new Random(42);
+        for (int caso = 0; caso < 2_000; caso++) {
+            BigDecimal subtotal = BigDecimal.ZERO;
+            MotorDePrecios.Calculo calculo = motor.nuevoCalculo();
+            int lineas = 1 + random.nextInt(20);
+            for (int i = 0; i < lineas; i++) {
+                BigDecimal precio = BigDecimal.valueOf(1 + random.nextInt(100_000), 2);
+                int cantidad = 1 + random.nextInt(10);
+                subtotal = subtotal.add(precio.multiply(new BigDecimal(cantidad)));
+                calculo.agregarLinea(precio, cantidad);
+            }
+
+            BigDecimal porcentaje = BigDecimal.valueOf(random.nextInt(10_000), 2);
+            BigDecimal esperado = subtotal.multiply(porcentaje).divide(new BigDecimal("100"), 2, RoundingMode.HALF_UP);
+
+            MotorDePrecios.Totales totales = motor.cerrar(calculo,
+                    MotorDePrecios.compilar(TipoDescuento.PORCENTAJE, porcentaje, null, null), BigDecimal.ZERO);
+
+            assertEquals(0, subtotal.compareTo(totales.getSubtotal()));
+            assertEquals(0, esperado.compareTo(totales.getDescuento()), "porcentaje " + porcentaje);
+        }
+    }
+
+    @Test
+    @DisplayName("Resumen de ventas ignora totales null pero los cuenta en el promedio")
+    void resumirVentas() {
+        Pedido p1 = new Pedido();
+        p1.setTotal(new BigDecimal("100.00"));
+        Pedido p2 = new Pedido();
+        p2.setTotal(new BigDecimal("50.01"));
+        Pedido p3 = new Pedido();
+
+        MotorDePrecios.ResumenVentas resumen = motor.resumirVentas(List.of(p1, p2, p3));
+
+        assertEquals(new BigDecimal("150.01"), resumen.totalVentas());
+        assertEquals(new BigDecimal("50.00"), resumen.promedioVenta());
+    }
+
+    @Test
+    @DisplayName("Resumen de ventas con la suma y la cantidad de la BD da lo mismo que con los pedidos")
+    void resumirVentas_desdeLaBd() {
+        MotorDePrecios.ResumenVentas resumen = motor.resumirVentas(new BigDecimal("150.01"), 3);
+
+        assertEquals(new BigDecimal("150.01"), resumen.totalVentas());
+        assertEquals(new BigDecimal("50.00"), resumen.promedioVenta());
+        // sin pedidos, SUM devuelve null
+        assertEquals(BigDecimal.ZERO.setScale(2), motor.resumirVentas(null, 0).totalVentas());
+        assertEquals(BigDecimal.ZERO, motor.resumirVentas(null, 0).promedioVenta());
+    }
+}
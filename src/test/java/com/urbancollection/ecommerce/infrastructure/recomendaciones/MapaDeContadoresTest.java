@@ -0,0 +1,66 @@
+package com.urbancollection.ecommerce.infrastructure.recomendaciones;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * MapaDeContadoresTest
+ *
+ * Tests unitarios para MapaDeContadores.
+ */
+@DisplayName("Tests para MapaDeContadores")
+class MapaDeContadoresTest {
+
+    @Test
+    @DisplayName("Suma y devuelve los contadores, incluida la clave 0")
+    void sumarYObtener() {
+        MapaDeContadores mapa = new MapaDeContadores();
+
+        assertEquals(3, mapa.sumar(7L, 3));
+        assertEquals(5, mapa.sumar(7L, 2));
+        assertEquals(-1, mapa.sumar(0L, -1));
+
+        assertEquals(5, mapa.obtener(7L));
+        assertEquals(-1, mapa.obtener(0L));
+        assertEquals(0, mapa.obtener(8L));
+        assertEquals(2, mapa.tamanio());
+    }
+
+    @Test
+    @DisplayName("Se agranda y se comporta igual que un HashMap")
+    void comparadoConHashMap() {
+        Random random = new Random(7);
+        MapaDeContadores mapa = new MapaDeContadores(4);
+        Map<Long, Long> esperado = new HashMap<>();
+
+        for (int i = 0; i < 100_000; i++) {
+            long clave = random.nextInt(20_000);
+            esperado.merge(clave, 1L, Long::sum);
+            mapa.sumar(clave, 1);
+        }
+
+        assertEquals(esperado.size(), mapa.tamanio());
+        Map<Long, Long> visitado = new HashMap<>();
+        mapa.paraCada(visitado::put);
+        assertEquals(esperado, visitado);
+    }
+
+    @Test
+    @DisplayName("Vaciar deja el mapa sin claves")
+    void vaciar() {
+        MapaDeContadores mapa = new MapaDeContadores();
+        mapa.sumar(1L, 1);
+        mapa.sumar(0L, 1);
+
+        mapa.vaciar();
+
+        assertEquals(0, mapa.tamanio());
+        assertEquals(0, mapa.obtener(1L));
+    }
+}
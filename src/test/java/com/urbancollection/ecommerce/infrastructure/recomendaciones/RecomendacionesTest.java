@@ -0,0 +1,121 @@
+package com.urbancollection.ecommerce.infrastructure.recomendaciones;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.urbancollection.ecommerce.persistence.jpa.spring.ItemPedidoJpaRepository;
+import com.urbancollection.ecommerce.persistence.jpa.spring.ListaDeseosJpaRepository;
+
+/**
+ * RecomendacionesTest
+ *
+ * Tests unitarios para Recomendaciones con los repositorios mockeados.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests para Recomendaciones")
+class RecomendacionesTest {
+
+    @Mock
+    private ItemPedidoJpaRepository itemPedidoRepository;
+
+    @Mock
+    private ListaDeseosJpaRepository listaDeseosRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private Recomendaciones recomendaciones;
+
+    @BeforeEach
+    void setUp() {
+        recomendaciones = new Recomendaciones(itemPedidoRepository, listaDeseosRepository,
+                new TransactionTemplate(transactionManager), 3, 2, 60_000, 3_600_000, 86_400_000);
+        lenient().when(listaDeseosRepository.contarPorProducto()).thenReturn(List.of());
+    }
+
+    private static Object[] item(long pedido, long producto) {
+        return new Object[] {pedido, producto};
+    }
+
+    @Test
+    @DisplayName("Cuenta los pares de productos de cada pedido")
+    void compradosJuntos_cuentaPares() {
+        when(itemPedidoRepository.streamPedidoYProductoDesde(0L)).thenReturn(Stream.of(
+                item(1, 10), item(1, 20), item(1, 30),
+                item(2, 10), item(2, 20),
+                item(3, 10), item(3, 10)));
+
+        assertEquals(3, recomendaciones.refrescar());
+
+        Recomendaciones.Ranking de10 = recomendaciones.compradosJuntos(10L);
+        assertArrayEquals(new long[] {20L, 30L}, de10.productoIds());
+        assertArrayEquals(new long[] {2L, 1L}, de10.veces());
+        assertEquals(0, recomendaciones.compradosJuntos(99L).tamanio());
+    }
+
+    @Test
+    @DisplayName("La siguiente corrida solo lee los pedidos nuevos y suma a lo anterior")
+    void refrescar_esIncremental() {
+        when(itemPedidoRepository.streamPedidoYProductoDesde(0L))
+                .thenReturn(Stream.of(item(1, 10), item(1, 20)));
+        when(itemPedidoRepository.streamPedidoYProductoDesde(1L))
+                .thenReturn(Stream.of(item(2, 10), item(2, 20), item(2, 30)));
+
+        recomendaciones.refrescar();
+        assertEquals(1, recomendaciones.refrescar());
+
+        assertArrayEquals(new long[] {2L, 1L}, recomendaciones.compradosJuntos(10L).veces());
+        verify(itemPedidoRepository).streamPedidoYProductoDesde(1L);
+    }
+
+    @Test
+    @DisplayName("recalcularTodo ve los pedidos confirmados tarde y saca los productos sin pares")
+    void recalcularTodo_reprocesaElHistorial() {
+        when(itemPedidoRepository.streamPedidoYProductoDesde(0L))
+                .thenReturn(Stream.of(item(1, 10), item(1, 20), item(3, 10), item(3, 30)))
+                // el pedido 2 se confirmó después de procesar el 3; al 1 le sacaron el 20
+                .thenReturn(Stream.of(item(1, 10), item(2, 10), item(2, 30), item(3, 10), item(3, 30)));
+
+        recomendaciones.refrescar();
+        assertArrayEquals(new long[] {1L, 1L}, recomendaciones.compradosJuntos(10L).veces());
+
+        recomendaciones.recalcularTodo();
+
+        assertArrayEquals(new long[] {30L}, recomendaciones.compradosJuntos(10L).productoIds());
+        assertArrayEquals(new long[] {2L}, recomendaciones.compradosJuntos(10L).veces());
+        assertEquals(0, recomendaciones.compradosJuntos(20L).tamanio());
+    }
+
+    @Test
+    @DisplayName("Más deseados combina el conteo de la BD con los avisos de altas y bajas")
+    void masDeseados_conteoYAvisos() {
+        when(itemPedidoRepository.streamPedidoYProductoDesde(anyLong())).thenAnswer(i -> Stream.empty());
+        when(listaDeseosRepository.contarPorProducto()).thenReturn(List.of(
+                new Object[] {1L, 5L}, new Object[] {2L, 3L}, new Object[] {3L, 1L}, new Object[] {4L, 4L}));
+
+        recomendaciones.refrescar();
+        assertArrayEquals(new long[] {1L, 4L, 2L}, recomendaciones.masDeseados().productoIds());
+
+        recomendaciones.cambioEnDeseos(3L, 1);
+        recomendaciones.cambioEnDeseos(3L, 1);
+        recomendaciones.cambioEnDeseos(3L, 1);
+        recomendaciones.cambioEnDeseos(1L, -3);
+        recomendaciones.refrescar();
+
+        // 3 y 4 empatan en 4: primero el de menor id
+        assertArrayEquals(new long[] {3L, 4L, 2L}, recomendaciones.masDeseados().productoIds());
+        verify(listaDeseosRepository, times(1)).contarPorProducto();
+    }
+}
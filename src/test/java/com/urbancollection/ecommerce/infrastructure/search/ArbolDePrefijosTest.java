@@ -0,0 +1,81 @@
+package com.urbancollection.ecommerce.infrastructure.search;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * ArbolDePrefijosTest
+ *
+ * Tests unitarios para ArbolDePrefijos.
+ */
+@DisplayName("Tests para ArbolDePrefijos")
+class ArbolDePrefijosTest {
+
+    private ArbolDePrefijos arbol;
+
+    @BeforeEach
+    void setUp() {
+        arbol = new ArbolDePrefijos();
+        arbol.poner(1L, "Camisa Oxford", 5);
+        arbol.poner(2L, "Camiseta Básica", 20);
+        arbol.poner(3L, "Cámara de fotos", 1);
+        arbol.poner(4L, "Pantalón Oxford", 8);
+    }
+
+    private List<Long> ids(List<ArbolDePrefijos.Coincidencia> coincidencias) {
+        return coincidencias.stream().map(ArbolDePrefijos.Coincidencia::id).toList();
+    }
+
+    @Test
+    @DisplayName("Devuelve los más populares primero, sin acentos y desde cualquier palabra")
+    void buscar_porPopularidad() {
+        assertEquals(List.of(2L, 1L, 3L), ids(arbol.buscar("CAM", 10)));
+        assertEquals(List.of(2L, 1L), ids(arbol.buscar("cami", 10)));
+        assertEquals(List.of(4L, 1L), ids(arbol.buscar("oxf", 10)));
+        assertEquals(List.of(2L), ids(arbol.buscar("basi", 10)));
+        assertEquals(List.of(2L), ids(arbol.buscar("cam", 1)));
+        assertTrue(arbol.buscar("zz", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("sumarPopularidad reordena y quitar limpia el árbol")
+    void popularidadYQuitar() {
+        arbol.sumarPopularidad(3L, 50);
+        assertEquals(List.of(3L, 2L, 1L), ids(arbol.buscar("ca", 10)));
+
+        arbol.quitar(3L);
+        arbol.quitar(2L);
+        assertEquals(List.of(1L), ids(arbol.buscar("ca", 10)));
+        assertEquals(2, arbol.tamanio());
+
+        // Después de quitar, las ramas que quedaron se siguen encontrando bien.
+        arbol.poner(5L, "Camisola", 2);
+        assertEquals(List.of(1L, 5L), ids(arbol.buscar("camis", 10)));
+    }
+
+    @Test
+    @DisplayName("poner con otro texto reemplaza las claves viejas")
+    void poner_reemplaza() {
+        arbol.poner(1L, "Chaqueta Oxford", 5);
+
+        assertEquals(List.of(2L, 3L), ids(arbol.buscar("cam", 10)));
+        assertEquals(List.of(1L), ids(arbol.buscar("chaq", 10)));
+        assertEquals(4, arbol.tamanio());
+    }
+
+    @Test
+    @DisplayName("poner con el mismo texto y menos popularidad reordena sin perder claves")
+    void poner_bajaPopularidad() {
+        arbol.poner(2L, "Camiseta Básica", 0);
+
+        assertEquals(List.of(1L, 3L, 2L), ids(arbol.buscar("cam", 10)));
+        assertEquals(List.of(1L), ids(arbol.buscar("cam", 1)));
+        assertEquals(List.of(2L), ids(arbol.buscar("basi", 10)));
+        assertEquals(4, arbol.tamanio());
+    }
+}
@@ -0,0 +1,116 @@
+package com.urbancollection.ecommerce.infrastructure.search;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.urbancollection.ecommerce.domain.entity.catalogo.Cupon;
+import com.urbancollection.ecommerce.domain.entity.catalogo.Producto;
+import com.urbancollection.ecommerce.domain.entity.ventas.ItemPedido;
+import com.urbancollection.ecommerce.domain.entity.ventas.Pedido;
+import com.urbancollection.ecommerce.persistence.jpa.spring.CuponJpaRepository;
+import com.urbancollection.ecommerce.persistence.jpa.spring.ItemPedidoJpaRepository;
+import com.urbancollection.ecommerce.persistence.jpa.spring.PedidoJpaRepository;
+import com.urbancollection.ecommerce.persistence.jpa.spring.ProductoJpaRepository;
+
+/**
+ * AutocompletadoTest
+ *
+ * Tests unitarios para Autocompletado con los repositorios JPA mockeados.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests para Autocompletado")
+class AutocompletadoTest {
+
+    @Mock private ProductoJpaRepository productoRepository;
+    @Mock private CuponJpaRepository cuponRepository;
+    @Mock private ItemPedidoJpaRepository itemPedidoRepository;
+    @Mock private PedidoJpaRepository pedidoRepository;
+
+    private Autocompletado autocompletado;
+
+    @BeforeEach
+    void setUp() {
+        autocompletado = new Autocompletado(productoRepository, cuponRepository, itemPedidoRepository, pedidoRepository);
+        when(productoRepository.findIdYNombre()).thenReturn(List.of(
+                new Object[] {1L, "Camisa Oxford"}, new Object[] {2L, "Camiseta"}));
+        when(itemPedidoRepository.unidadesVendidasPorProducto()).thenReturn(List.<Object[]>of(new Object[] {1L, 7L}));
+        when(cuponRepository.findIdYCodigo()).thenReturn(List.<Object[]>of(new Object[] {10L, "CAMBIO15"}));
+        when(pedidoRepository.usosPorCupon()).thenReturn(List.<Object[]>of(new Object[] {10L, 3L}));
+    }
+
+    private Producto producto(Long id, String nombre) {
+        Producto producto = new Producto();
+        producto.setId(id);
+        producto.setNombre(nombre);
+        return producto;
+    }
+
+    @Test
+    @DisplayName("Carga textos y popularidad de la BD y mezcla tipos por popularidad")
+    void sugerir_cargaYMezcla() {
+        List<Autocompletado.Sugerencia> todas = autocompletado.sugerir("cam", null, 10);
+
+        assertEquals(List.of(1L, 10L, 2L), todas.stream().map(Autocompletado.Sugerencia::id).toList());
+        assertEquals(Autocompletado.CUPON, todas.get(1).tipo());
+        assertEquals(1, autocompletado.sugerir("cam", Autocompletado.CUPON, 10).size());
+        verify(productoRepository, times(1)).findIdYNombre();
+    }
+
+    @Test
+    @DisplayName("Las escrituras actualizan sin recargar y conservan la popularidad")
+    void escrituras_incrementales() {
+        autocompletado.sugerir("x", null, 1);
+
+        autocompletado.producto(producto(1L, "Chaqueta Oxford"));
+        autocompletado.producto(producto(3L, "Camisola"));
+        autocompletado.quitarProducto(2L);
+
+        Pedido pedido = new Pedido();
+        ItemPedido item = new ItemPedido();
+        item.setProducto(producto(3L, "Camisola"));
+        item.setCantidad(4);
+        pedido.agregarItem(item);
+        Cupon cupon = new Cupon();
+        cupon.setId(10L);
+        pedido.setCupon(cupon);
+        autocompletado.registrarVenta(pedido);
+
+        List<Autocompletado.Sugerencia> productos = autocompletado.sugerir("cam", Autocompletado.PRODUCTO, 10);
+        assertEquals(List.of(3L), productos.stream().map(Autocompletado.Sugerencia::id).toList());
+        assertEquals(4, productos.get(0).popularidad());
+        assertEquals(7, autocompletado.sugerir("chaq", Autocompletado.PRODUCTO, 10).get(0).popularidad());
+        assertEquals(4, autocompletado.sugerir("cambio", Autocompletado.CUPON, 10).get(0).popularidad());
+        verify(productoRepository, times(1)).findIdYNombre();
+    }
+
+    @Test
+    @DisplayName("Lo borrado mientras se carga no queda sugerible y la recarga no deja la consulta vacía")
+    void recargar_conEscriturasEnElMedio() {
+        when(productoRepository.findIdYNombre()).thenAnswer(inv -> {
+            // el producto 2 se borra mientras se leen los textos (ya vino en la lectura)
+            autocompletado.quitarProducto(2L);
+            return List.of(new Object[] {1L, "Camisa Oxford"}, new Object[] {2L, "Camiseta"});
+        });
+
+        assertEquals(List.of(1L), autocompletado.sugerir("cam", Autocompletado.PRODUCTO, 10).stream()
+                .map(Autocompletado.Sugerencia::id).toList());
+
+        when(productoRepository.findIdYNombre()).thenAnswer(inv -> {
+            // durante la recarga se sigue respondiendo con lo anterior
+            assertEquals(1, autocompletado.sugerir("cam", Autocompletado.PRODUCTO, 10).size());
+            return List.<Object[]>of(new Object[] {1L, "Camisa Oxford"});
+        });
+        autocompletado.recargar();
+
+        assertEquals(1, autocompletado.sugerir("cam", Autocompletado.PRODUCTO, 10).size());
+    }
+}
@@ -0,0 +1,144 @@
+package com.urbancollection.ecommerce.infrastructure.search;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.urbancollection.ecommerce.domain.entity.catalogo.Producto;
+import com.urbancollection.ecommerce.persistence.jpa.spring.ProductoJpaRepository;
+
+/**
+ * BuscadorDeProductosTest
+ *
+ * Tests unitarios para BuscadorDeProductos con el repositorio JPA mockeado.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests para BuscadorDeProductos")
+class BuscadorDeProductosTest {
+
+    @Mock
+    private ProductoJpaRepository productoRepository;
+
+    private BuscadorDeProductos buscador;
+
+    @BeforeEach
+    void setUp() {
+        buscador = new BuscadorDeProductos(productoRepository);
+        lenient().when(productoRepository.findAll()).thenReturn(List.of(
+                crearProducto(1L, "Camisa de Algodón", "Camisa manga larga para verano", "CAM-001"),
+                crearProducto(2L, "Camiseta básica", "Camiseta de algodón orgánico", "CAM-002"),
+                crearProducto(3L, "Pantalón jean", "Jean azul clásico", "PAN-010"),
+                crearProducto(4L, "Zapatos de cuero", "Zapatos formales, cuero genuino", "ZAP-100")));
+    }
+
+    private Producto crearProducto(Long id, String nombre, String descripcion, String sku) {
+        Producto producto = new Producto();
+        producto.setId(id);
+        producto.setNombre(nombre);
+        producto.setDescripcion(descripcion);
+        producto.setSku(sku);
+        producto.setPrecio(new BigDecimal("1000.00"));
+        return producto;
+    }
+
+    private List<Long> ids(List<BuscadorDeProductos.Resultado> resultados) {
+        return resultados.stream().map(BuscadorDeProductos.Resultado::id).toList();
+    }
+
+    @Test
+    @DisplayName("Quita acentos, mayúsculas y palabras vacías")
+    void analizar_normaliza() {
+        assertEquals(List.of("pantalon", "algodon", "nino"), BuscadorDeProductos.analizar("Pantalón DE algodón, NIÑO"));
+        assertEquals(List.of("cam", "001"), BuscadorDeProductos.analizar("CAM-001"));
+    }
+
+    @Test
+    @DisplayName("Sin acentos encuentra el texto con acentos y el nombre pesa más que la descripción")
+    void buscar_rankeaPorCampo() {
+        List<BuscadorDeProductos.Resultado> resultados = buscador.buscar("algodon", 10);
+
+        assertEquals(List.of(1L, 2L), ids(resultados));
+        assertTrue(resultados.get(0).puntaje() > resultados.get(1).puntaje());
+        verify(productoRepository, times(1)).findAll();
+    }
+
+    @Test
+    @DisplayName("Prefijo, typo y sku")
+    void buscar_prefijoDifusoYSku() {
+        assertEquals(List.of(1L, 2L), ids(buscador.buscar("cami", 10)).stream().sorted().toList());
+        assertEquals(List.of(4L), ids(buscador.buscar("zapatso", 10)));
+        assertEquals(List.of(3L), ids(buscador.buscar("pan-010", 10)));
+    }
+
+    @Test
+    @DisplayName("Exige todos los términos y si no hay nada cae a cualquiera")
+    void buscar_todosOAlguno() {
+        assertEquals(List.of(1L), ids(buscador.buscar("camisa verano", 10)));
+        assertEquals(List.of(3L), ids(buscador.buscar("jean inexistente", 10)));
+        assertTrue(buscador.buscar("de la", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("indexar y eliminar actualizan el índice sin recargar")
+    void indexarYEliminar() {
+        assertEquals(4, buscador.tamanio());
+
+        buscador.indexar(crearProducto(3L, "Bermuda", "Bermuda de jean", "PAN-010"));
+        buscador.indexar(crearProducto(5L, "Gorra", "Gorra bordada", "GOR-001"));
+        buscador.eliminar(4L);
+
+        assertTrue(buscador.buscar("pantalon", 10).isEmpty());
+        assertEquals(List.of(3L), ids(buscador.buscar("bermuda", 10)));
+        assertEquals(List.of(5L), ids(buscador.buscar("gorra", 10)));
+        assertTrue(buscador.buscar("zapatos", 10).isEmpty());
+        assertEquals(4, buscador.tamanio());
+        verify(productoRepository, times(1)).findAll();
+    }
+
+    @Test
+    @DisplayName("Reindexar sin cambios compacta los huecos y no cambia los puntajes")
+    void indexar_compactaYNoCuentaBorrados() {
+        float antes = buscador.buscar("algodon", 10).get(0).puntaje();
+        Producto camisa = crearProducto(1L, "Camisa de Algodón", "Camisa manga larga para verano", "CAM-001");
+
+        for (int i = 0; i < 1_500; i++) {
+            buscador.indexar(camisa);
+        }
+
+        assertTrue(buscador.huecos() <= 1_000);
+        assertEquals(antes, buscador.buscar("algodon", 10).get(0).puntaje(), 1e-5f);
+        assertEquals(4, buscador.tamanio());
+    }
+
+    @Test
+    @DisplayName("Lo que se indexa o elimina mientras se carga la BD no se pierde")
+    void indexarDuranteLaCarga() {
+        when(productoRepository.findAll()).thenAnswer(inv -> {
+            // otro hilo guarda y borra mientras la carga lee la BD
+            buscador.indexar(crearProducto(5L, "Gorra", "Gorra bordada", "GOR-001"));
+            buscador.eliminar(4L);
+            return List.of(
+                    crearProducto(1L, "Camisa de Algodón", "Camisa manga larga para verano", "CAM-001"),
+                    crearProducto(4L, "Zapatos de cuero", "Zapatos formales, cuero genuino", "ZAP-100"));
+        });
+
+        assertEquals(List.of(5L), ids(buscador.buscar("gorra", 10)));
+        assertTrue(buscador.buscar("zapatos", 10).isEmpty());
+        assertEquals(2, buscador.tamanio());
+    }
+
+    @Test
+    @DisplayName("El límite corta los resultados")
+    void buscar_respetaLimite() {
+        assertEquals(1, buscador.buscar("cam", 1).size());
+    }
+}
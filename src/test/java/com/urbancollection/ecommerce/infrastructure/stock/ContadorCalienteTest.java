@@ -0,0 +1,107 @@
+package com.urbancollection.ecommerce.infrastructure.stock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * ContadorCalienteTest
+ *
+ * Tests unitarios para ContadorCaliente (stock repartido en celdas).
+ */
+@DisplayName("Tests para ContadorCaliente")
+class ContadorCalienteTest {
+
+    @Test
+    @DisplayName("Reparte el stock entre las celdas y redondea a potencia de 2")
+    void constructor_reparteParejo() {
+        ContadorCaliente contador = new ContadorCaliente(5, 13);
+
+        assertEquals(8, contador.getFranjas());
+        assertEquals(13, contador.disponible());
+        assertFalse(contador.agotado());
+    }
+
+    @Test
+    @DisplayName("Junta unidades de varias celdas y detecta agotado entre todas")
+    void tomar_juntaDeVariasCeldas() {
+        ContadorCaliente contador = new ContadorCaliente(4, 10); // celdas 3,3,2,2
+
+        assertTrue(contador.tomar(7));
+        assertEquals(3, contador.disponible());
+        assertFalse(contador.tomar(4));
+        assertEquals(3, contador.disponible()); // lo que no alcanzó se devolvió
+
+        assertTrue(contador.tomar(3));
+        assertTrue(contador.agotado());
+        assertFalse(contador.tomar(1));
+    }
+
+    @Test
+    @DisplayName("ajustar suma o resta sin bajar de cero")
+    void ajustar() {
+        ContadorCaliente contador = new ContadorCaliente(4, 8);
+
+        contador.ajustar(5);
+        assertEquals(13, contador.disponible());
+        contador.ajustar(-20);
+        assertEquals(0, contador.disponible());
+        assertTrue(contador.agotado());
+    }
+
+    @Test
+    @DisplayName("Lo que ajustar no pudo quitar queda como deuda y se cobra de lo que vuelva")
+    void ajustar_dejaDeuda() {
+        ContadorCaliente contador = new ContadorCaliente(4, 8);
+
+        contador.ajustar(-20);
+        assertEquals(12, contador.deuda());
+
+        contador.devolver(5);
+        assertEquals(7, contador.deuda());
+        assertEquals(0, contador.disponible());
+        assertFalse(contador.tomar(1));
+
+        contador.ajustar(10);
+        assertEquals(0, contador.deuda());
+        assertEquals(3, contador.disponible());
+        assertTrue(contador.tomar(3));
+        assertTrue(contador.agotado());
+    }
+
+    @Test
+    @DisplayName("Con muchos hilos a la vez se venden exactamente las unidades que hay")
+    void tomar_concurrente_noSobrevende() throws Exception {
+        ContadorCaliente contador = new ContadorCaliente(8, 1_000);
+
+        int hilos = 16;
+        AtomicInteger vendidas = new AtomicInteger();
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(hilos);
+
+        for (int h = 0; h < hilos; h++) {
+            final int cantidad = h % 3 + 1;
+            pool.submit(() -> {
+                largada.await();
+                for (int i = 0; i < 200; i++) {
+                    if (contador.tomar(cantidad)) vendidas.addAndGet(cantidad);
+                }
+                return null;
+            });
+        }
+
+        largada.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(1_000, vendidas.get() + contador.disponible());
+        assertTrue(contador.disponible() < 3);
+    }
+}
@@ -0,0 +1,335 @@
+package com.urbancollection.ecommerce.infrastructure.stock;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.urbancollection.ecommerce.domain.entity.catalogo.Producto;
+import com.urbancollection.ecommerce.persistence.jpa.spring.ProductoJpaRepository;
+
+/**
+ * ReservasDeStockTest
+ *
+ * Tests unitarios para ReservasDeStock con el repositorio de productos mockeado.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests para ReservasDeStock")
+class ReservasDeStockTest {
+
+    @Mock
+    private ProductoJpaRepository productoRepository;
+
+    private ReservasDeStock reservas;
+
+    @BeforeEach
+    void setUp() {
+        reservas = new ReservasDeStock(productoRepository, 8, Duration.ofMinutes(15), 60_000, 60_000);
+    }
+
+    private void conProducto(long id, int stock) {
+        Producto producto = new Producto();
+        producto.setId(id);
+        producto.setStock(stock);
+        when(productoRepository.findById(id)).thenReturn(Optional.of(producto));
+    }
+
+    @Test
+    @DisplayName("Reserva todo o nada y el disponible se calcula en memoria")
+    void reservar_todoONada() {
+        conProducto(1L, 5);
+        conProducto(2L, 1);
+
+        ReservasDeStock.IntentoDeReserva fallido = reservas.reservar(Map.of(1L, 3, 2L, 2));
+        assertEquals(ReservasDeStock.Resultado.SIN_STOCK, fallido.getResultado());
+        assertEquals(2L, fallido.getProductoId());
+        assertEquals(5, reservas.disponible(1L).get());
+
+        ReservasDeStock.IntentoDeReserva ok = reservas.reservar(Map.of(1L, 3, 2L, 1));
+        assertTrue(ok.isExitoso());
+        assertEquals(2, reservas.disponible(1L).get());
+        assertEquals(0, reservas.disponible(2L).get());
+
+        // cada producto se lee una sola vez de la BD
+        verify(productoRepository, times(1)).findById(1L);
+        verify(productoRepository, times(1)).findById(2L);
+    }
+
+    @Test
+    @DisplayName("Liberar devuelve el disponible; confirmar lo deja como venta pendiente de escribir")
+    void liberarYConfirmar() {
+        conProducto(1L, 10);
+
+        ReservasDeStock.Reserva r1 = reservas.reservar(Map.of(1L, 4)).getReserva();
+        ReservasDeStock.Reserva r2 = reservas.reservar(Map.of(1L, 3)).getReserva();
+        reservas.vincular(r2, 99L);
+
+        assertTrue(reservas.liberar(r1.getId()));
+        assertFalse(reservas.liberar(r1.getId()));
+        assertEquals(7, reservas.disponible(1L).get());
+
+        assertTrue(reservas.confirmarPorPedido(99L));
+        assertEquals(7, reservas.disponible(1L).get());
+        assertTrue(reservas.buscarPorPedido(99L).isEmpty());
+
+        assertEquals(1, reservas.volcar());
+        verify(productoRepository).ajustarStock(1L, -3);
+        assertEquals(0, reservas.volcar());
+    }
+
+    @Test
+    @DisplayName("Las reservas vencidas se liberan solas")
+    void expirarVencidas() {
+        reservas = new ReservasDeStock(productoRepository, 8, Duration.ZERO, 60_000, 60_000);
+        conProducto(1L, 2);
+
+        ReservasDeStock.Reserva reserva = reservas.reservar(Map.of(1L, 2)).getReserva();
+        assertEquals(0, reservas.disponible(1L).get());
+
+        assertEquals(1, reservas.expirarVencidas());
+        assertEquals(2, reservas.disponible(1L).get());
+        assertFalse(reservas.confirmar(reserva.getId()));
+    }
+
+    @Test
+    @DisplayName("Si la escritura falla, el cambio queda pendiente para el siguiente volcado")
+    void volcar_conError_reintenta() {
+        conProducto(1L, 10);
+        when(productoRepository.ajustarStock(anyLong(), anyInt()))
+                .thenThrow(new RuntimeException("BD caída"))
+                .thenReturn(1);
+
+        reservas.confirmar(reservas.reservar(Map.of(1L, 2)).getReserva().getId());
+
+        assertEquals(0, reservas.volcar());
+        assertEquals(1, reservas.volcar());
+        verify(productoRepository, times(2)).ajustarStock(1L, -2);
+    }
+
+    @Test
+    @DisplayName("Editar el stock a mano respeta lo que aún no se escribió")
+    void refrescarStock_conPendiente() {
+        conProducto(1L, 10);
+        reservas.confirmar(reservas.reservar(Map.of(1L, 4)).getReserva().getId());
+
+        // alguien pone el stock en 20 directamente en la BD (el -4 todavía no se escribió)
+        reservas.refrescarStock(1L, 20);
+        assertEquals(16, reservas.disponible(1L).get());
+    }
+
+    @Test
+    @DisplayName("Con muchos hilos a la vez nunca se vende más de lo que hay")
+    void reservar_concurrente_noSobrevende() throws Exception {
+        conProducto(1L, 100);
+        conProducto(2L, 100);
+
+        int hilos = 16;
+        int intentosPorHilo = 50;
+        AtomicInteger exitosas = new AtomicInteger();
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(hilos);
+
+        for (int h = 0; h < hilos; h++) {
+            final int hilo = h;
+            pool.submit(() -> {
+                largada.await();
+                for (int i = 0; i < intentosPorHilo; i++) {
+                    // la mitad pide en un orden y la otra mitad en el otro (no debe trabarse)
+                    Map<Long, Integer> carrito = hilo % 2 == 0 ? Map.of(1L, 1, 2L, 1) : Map.of(2L, 1, 1L, 1);
+                    ReservasDeStock.IntentoDeReserva intento = reservas.reservar(carrito);
+                    if (intento.isExitoso()) {
+                        exitosas.incrementAndGet();
+                        reservas.confirmar(intento.getReserva().getId());
+                    }
+                }
+                return null;
+            });
+        }
+
+        largada.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(100, exitosas.get());
+        assertEquals(0, reservas.disponible(1L).get());
+        assertEquals(0, reservas.disponible(2L).get());
+
+        reservas.volcar();
+        verify(productoRepository).ajustarStock(eq(1L), eq(-100));
+        verify(productoRepository).ajustarStock(eq(2L), eq(-100));
+    }
+
+    @Test
+    @DisplayName("Modo caliente: reserva, confirma y consolida lo vendido de todas las celdas")
+    void modoCaliente_consolidaEnLaBd() {
+        reservas = new ReservasDeStock(productoRepository, 8, Duration.ofMinutes(15), 60_000, 60_000, Set.of(1L), 4);
+        conProducto(1L, 10);
+        conProducto(2L, 5);
+
+        ReservasDeStock.Reserva reserva = reservas.reservar(Map.of(1L, 3, 2L, 1)).getReserva();
+        assertTrue(reservas.esCaliente(1L));
+        assertFalse(reservas.esCaliente(2L));
+        assertEquals(7, reservas.disponible(1L).get());
+
+        // si falla un producto normal, lo tomado del caliente se devuelve
+        assertFalse(reservas.reservar(Map.of(1L, 2, 2L, 9)).isExitoso());
+        assertEquals(7, reservas.disponible(1L).get());
+
+        assertTrue(reservas.confirmar(reserva.getId()));
+        assertTrue(reservas.vender(1L, 2));
+        assertEquals(5, reservas.disponible(1L).get());
+
+        assertEquals(2, reservas.volcar());
+        verify(productoRepository).ajustarStock(1L, -5);
+        verify(productoRepository).ajustarStock(2L, -1);
+    }
+
+    @Test
+    @DisplayName("Activar modo caliente conserva reservas y pendiente; agotado mira todas las celdas")
+    void activarModoCaliente_conservaEstado() {
+        conProducto(1L, 6);
+        ReservasDeStock.Reserva r1 = reservas.reservar(Map.of(1L, 2)).getReserva();
+        reservas.confirmar(reservas.reservar(Map.of(1L, 1)).getReserva().getId());
+
+        assertTrue(reservas.activarModoCaliente(1L));
+        assertTrue(reservas.esCaliente(1L));
+        assertEquals(3, reservas.disponible(1L).get());
+
+        assertTrue(reservas.liberar(r1.getId()));
+        assertEquals(5, reservas.disponible(1L).get());
+        assertTrue(reservas.vender(1L, 5));
+        assertTrue(reservas.agotado(1L));
+        assertFalse(reservas.vender(1L, 1));
+
+        reservas.volcar();
+        verify(productoRepository).ajustarStock(1L, -6);
+    }
+
+    @Test
+    @DisplayName("Modo caliente con muchos hilos: nunca se vende más de lo que hay")
+    void modoCaliente_concurrente_noSobrevende() throws Exception {
+        reservas = new ReservasDeStock(productoRepository, 8, Duration.ofMinutes(15), 60_000, 60_000, Set.of(1L), 8);
+        conProducto(1L, 500);
+
+        int hilos = 16;
+        AtomicInteger vendidas = new AtomicInteger();
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(hilos);
+
+        for (int h = 0; h < hilos; h++) {
+            final int hilo = h;
+            pool.submit(() -> {
+                largada.await();
+                for (int i = 0; i < 100; i++) {
+                    if (hilo % 2 == 0) {
+                        if (reservas.vender(1L, 1)) vendidas.incrementAndGet();
+                    } else {
+                        ReservasDeStock.IntentoDeReserva intento = reservas.reservar(Map.of(1L, 1));
+                        if (intento.isExitoso() && reservas.confirmar(intento.getReserva().getId())) {
+                            vendidas.incrementAndGet();
+                        }
+                    }
+                }
+                return null;
+            });
+        }
+
+        largada.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(500, vendidas.get());
+        assertTrue(reservas.agotado(1L));
+
+        reservas.volcar();
+        verify(productoRepository).ajustarStock(eq(1L), eq(-500));
+    }
+
+    @Test
+    @DisplayName("Modo caliente: editar el stock a mano ajusta solo lo que cambió en la BD")
+    void modoCaliente_refrescarStock() {
+        reservas = new ReservasDeStock(productoRepository, 8, Duration.ofMinutes(15), 60_000, 60_000, Set.of(1L), 8);
+        conProducto(1L, 10);
+        reservas.confirmar(reservas.reservar(Map.of(1L, 4)).getReserva().getId());
+        reservas.reservar(Map.of(1L, 1));
+
+        // el -4 todavía no se escribió: la BD sigue en 10 y alguien la pone en 20
+        reservas.refrescarStock(1L, 20);
+        assertEquals(15, reservas.disponible(1L).get());
+
+        // ya escrito el -4, la BD queda en 16: releerlo no cambia nada
+        reservas.volcar();
+        verify(productoRepository).ajustarStock(1L, -4);
+        reservas.refrescarStock(1L, 16);
+        assertEquals(15, reservas.disponible(1L).get());
+    }
+
+    @Test
+    @DisplayName("Modo caliente: refrescar el stock mientras se vende no inventa unidades")
+    void modoCaliente_refrescarMientrasSeVende() throws Exception {
+        reservas = new ReservasDeStock(productoRepository, 8, Duration.ofMinutes(15), 60_000, 60_000, Set.of(1L), 8);
+        conProducto(1L, 500);
+        reservas.disponible(1L);
+
+        int hilos = 8;
+        AtomicInteger vendidas = new AtomicInteger();
+        AtomicBoolean vendiendo = new AtomicBoolean(true);
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(hilos + 1);
+
+        // la BD no cambia (nada se vuelca): cada refresco tiene que ser un ajuste de 0
+        pool.submit(() -> {
+            largada.await();
+            while (vendiendo.get()) {
+                reservas.refrescarStock(1L, 500);
+            }
+            return null;
+        });
+        List<Future<?>> vendedores = new ArrayList<>();
+        for (int h = 0; h < hilos; h++) {
+            vendedores.add(pool.submit(() -> {
+                largada.await();
+                for (int i = 0; i < 200; i++) {
+                    ReservasDeStock.IntentoDeReserva intento = reservas.reservar(Map.of(1L, 1));
+                    if (intento.isExitoso() && reservas.confirmar(intento.getReserva().getId())) {
+                        vendidas.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        largada.countDown();
+        for (Future<?> vendedor : vendedores) {
+            vendedor.get(30, TimeUnit.SECONDS);
+        }
+        vendiendo.set(false);
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(500, vendidas.get());
+        assertEquals(0, reservas.disponible(1L).get());
+    }
+}
@@ -0,0 +1,81 @@
+package com.urbancollection.ecommerce.infrastructure.stock;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.urbancollection.ecommerce.domain.entity.catalogo.Producto;
+import com.urbancollection.ecommerce.persistence.jpa.spring.ProductoJpaRepository;
+
+/**
+ * StockConReservasTest
+ *
+ * StockService de POST /api/pedidos sobre ReservasDeStock: comparte el
+ * disponible con las reservas y nunca guarda el stock en la BD por su cuenta.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests para StockConReservas")
+class StockConReservasTest {
+
+    @Mock
+    private ProductoJpaRepository productoRepository;
+
+    private ReservasDeStock reservas;
+    private StockConReservas stock;
+
+    @BeforeEach
+    void setUp() {
+        reservas = new ReservasDeStock(productoRepository, 8, Duration.ofMinutes(15), 60_000, 60_000);
+        stock = new StockConReservas(reservas);
+        Producto producto = new Producto();
+        producto.setId(1L);
+        producto.setStock(5);
+        lenient().when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+    }
+
+    @Test
+    @DisplayName("hayStock descuenta lo reservado por el checkout web; descontar vende del mismo stock")
+    void compartenElStockConLasReservas() {
+        assertTrue(reservas.reservar(Map.of(1L, 3)).isExitoso());
+
+        assertTrue(stock.hayStock(1L, 2));
+        assertFalse(stock.hayStock(1L, 3));
+        assertFalse(stock.hayStock(99L, 1));
+
+        stock.descontar(1L, 2);
+        assertEquals(0, reservas.disponible(1L).get());
+        assertThrows(IllegalStateException.class, () -> stock.descontar(1L, 1));
+
+        verify(productoRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Si la transacción del pedido se revierte, las unidades vuelven")
+    void descontar_seDevuelveSiSeRevierte() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            stock.descontar(1L, 4);
+            assertEquals(1, reservas.disponible(1L).get());
+
+            List<TransactionSynchronization> registradas = TransactionSynchronizationManager.getSynchronizations();
+            registradas.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(5, reservas.disponible(1L).get());
+    }
+}
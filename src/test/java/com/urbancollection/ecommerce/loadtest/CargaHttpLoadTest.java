@@ -0,0 +1,138 @@
+package com.urbancollection.ecommerce.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.Resource;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.urbancollection.ecommerce.api.EcommerceApiApplication;
+import com.urbancollection.ecommerce.loadtest.ClienteDeCarga.Escenario;
+import com.urbancollection.ecommerce.loadtest.GeneradorDeDatos.DatosSembrados;
+import com.urbancollection.ecommerce.loadtest.MedidorDeLatencias.Resumen;
+import com.urbancollection.ecommerce.persistence.jpa.spring.CuponJpaRepository;
+import com.urbancollection.ecommerce.persistence.jpa.spring.DireccionJpaRepository;
+import com.urbancollection.ecommerce.persistence.jpa.spring.PedidoJpaRepository;
+import com.urbancollection.ecommerce.persistence.jpa.spring.ProductoJpaRepository;
+import com.urbancollection.ecommerce.persistence.jpa.spring.UsuarioJpaRepository;
+
+/**
+ * CargaHttpLoadTest
+ *
+ * Prueba de carga de punta a punta:
+ * 1. Levanta la app completa (Tomcat real) contra H2 en modo SQL Server.
+ * 2. Siembra datos con GeneradorDeDatos (cantidades en application-loadtest.properties).
+ * 3. Manda tráfico mezclado (navegar / checkout / reporte) desde varios hilos,
+ *    primero un calentamiento que no se mide y luego la ventana medida.
+ * 4. Imprime p50 / p99 / throughput por endpoint, guarda el resultado en JSON
+ *    y falla si algún endpoint empeora contra la línea base más de la tolerancia.
+ *
+ * No corre en el build normal, solo con: mvn -B test -Ploadtest
+ */
+@Tag("loadtest")
+@ActiveProfiles("loadtest")
+@SpringBootTest(classes = EcommerceApiApplication.class, webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT)
+class CargaHttpLoadTest {
+
+    // Máximo de errores HTTP permitido por endpoint (1%)
+    private static final double MAX_TASA_ERRORES = 0.01;
+
+    @Autowired private UsuarioJpaRepository usuarioRepository;
+    @Autowired private DireccionJpaRepository direccionRepository;
+    @Autowired private ProductoJpaRepository productoRepository;
+    @Autowired private CuponJpaRepository cuponRepository;
+    @Autowired private PedidoJpaRepository pedidoRepository;
+
+    @Value("${server.port}") private int puerto;
+    @Value("${loadtest.seed}") private long seed;
+    @Value("${loadtest.usuarios}") private int usuarios;
+    @Value("${loadtest.productos}") private int productos;
+    @Value("${loadtest.cupones}") private int cupones;
+    @Value("${loadtest.pedidos}") private int pedidos;
+    @Value("${loadtest.concurrencia}") private int concurrencia;
+    @Value("${loadtest.calentamiento-segundos}") private int calentamientoSegundos;
+    @Value("${loadtest.duracion-segundos}") private int duracionSegundos;
+    @Value("${loadtest.mix.navegar}") private int pesoNavegar;
+    @Value("${loadtest.mix.checkout}") private int pesoCheckout;
+    @Value("${loadtest.mix.reporte}") private int pesoReporte;
+    @Value("${loadtest.tolerancia}") private double tolerancia;
+    @Value("${loadtest.baseline}") private Resource baseline;
+    @Value("${loadtest.resultado}") private String resultado;
+
+    @Test
+    void mezclaDeTrafico_noDebeEmpeorarContraLaLineaBase() throws Exception {
+        DatosSembrados datos = new GeneradorDeDatos(usuarioRepository, direccionRepository,
+                productoRepository, cuponRepository, pedidoRepository)
+                .sembrar(seed, usuarios, productos, cupones, pedidos);
+
+        String baseUrl = "http://localhost:" + puerto;
+
+        // Calentamiento: mismo tráfico, pero se descarta lo medido
+        correr(new ClienteDeCarga(baseUrl, datos, new MedidorDeLatencias()), calentamientoSegundos);
+
+        MedidorDeLatencias medidor = new MedidorDeLatencias();
+        correr(new ClienteDeCarga(baseUrl, datos, medidor), duracionSegundos);
+
+        Map<String, Resumen> actual = medidor.resumir(duracionSegundos);
+        imprimir(actual);
+        LineaBase.escribir(Path.of(resultado), actual);
+
+        Map<String, LineaBase.Valores> base = LineaBase.leer(baseline);
+        if (base.isEmpty()) {
+            System.out.println("Sin línea base medida: no se comparan latencias ni throughput (ver LineaBase)");
+        }
+        List<String> problemas = new ArrayList<>(LineaBase.regresiones(base, actual, tolerancia));
+        actual.forEach((endpoint, r) -> {
+            if (r.peticiones() > 0 && (double) r.errores() / r.peticiones() > MAX_TASA_ERRORES) {
+                problemas.add(endpoint + ": " + r.errores() + " errores de " + r.peticiones() + " peticiones");
+            }
+        });
+
+        assertTrue(problemas.isEmpty(), "Regresiones de rendimiento:\n - " + String.join("\n - ", problemas));
+    }
+
+    // Lanza "concurrencia" hilos que eligen escenarios según los pesos hasta que se acabe el tiempo.
+    private void correr(ClienteDeCarga cliente, int segundos) throws InterruptedException {
+        if (segundos <= 0) return;
+        long fin = System.nanoTime() + TimeUnit.SECONDS.toNanos(segundos);
+        int total = pesoNavegar + pesoCheckout + pesoReporte;
+
+        ExecutorService pool = Executors.newFixedThreadPool(concurrencia);
+        for (int i = 0; i < concurrencia; i++) {
+            pool.submit(() -> {
+                while (System.nanoTime() < fin && !Thread.currentThread().isInterrupted()) {
+                    int tirada = ThreadLocalRandom.current().nextInt(total);
+                    Escenario escenario = tirada < pesoNavegar ? Escenario.NAVEGAR
+                            : tirada < pesoNavegar + pesoCheckout ? Escenario.CHECKOUT
+                            : Escenario.REPORTE;
+                    cliente.ejecutar(escenario);
+                }
+            });
+        }
+        pool.shutdown();
+        if (!pool.awaitTermination(segundos + 60L, TimeUnit.SECONDS)) {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void imprimir(Map<String, Resumen> actual) {
+        System.out.println();
+        System.out.printf("%-28s %10s %8s %10s %10s %12s%n", "ENDPOINT", "PETICIONES", "ERRORES", "P50 (ms)", "P99 (ms)", "REQ/S");
+        actual.forEach((endpoint, r) -> System.out.printf("%-28s %10d %8d %10.2f %10.2f %12.1f%n",
+                endpoint, r.peticiones(), r.errores(), r.p50Ms(), r.p99Ms(), r.throughput()));
+        System.out.println();
+    }
+}
@@ -0,0 +1,108 @@
+package com.urbancollection.ecommerce.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.urbancollection.ecommerce.loadtest.GeneradorDeDatos.DatosSembrados;
+
+/**
+ * ClienteDeCarga
+ *
+ * Ejecuta los escenarios de la prueba contra la app levantada:
+ * - NAVEGAR:  catálogo por API, detalle de producto y listado web.
+ * - CHECKOUT: POST /api/pedidos con 1 a 3 productos y a veces un cupón.
+ * - REPORTE:  listado de pedidos por API y la página de reportes.
+ *
+ * Cada petición se mide y se registra en el MedidorDeLatencias
+ * con la ruta "plantilla" (por ejemplo GET /api/productos/{id}).
+ */
+class ClienteDeCarga {
+
+    enum Escenario { NAVEGAR, CHECKOUT, REPORTE }
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final String baseUrl;
+    private final DatosSembrados datos;
+    private final MedidorDeLatencias medidor;
+
+    ClienteDeCarga(String baseUrl, DatosSembrados datos, MedidorDeLatencias medidor) {
+        this.baseUrl = baseUrl;
+        this.datos = datos;
+        this.medidor = medidor;
+    }
+
+    void ejecutar(Escenario escenario) {
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        switch (escenario) {
+            case NAVEGAR -> {
+                get("GET /api/productos", "/api/productos");
+                get("GET /api/productos/{id}", "/api/productos/" + elegir(datos.productoIds(), r));
+                get("GET /web/productos", "/web/productos");
+            }
+            case CHECKOUT -> post("POST /api/pedidos", "/api/pedidos", pedidoJson(r));
+            case REPORTE -> {
+                get("GET /api/pedidos", "/api/pedidos");
+                get("GET /web/reportes", "/web/reportes");
+            }
+        }
+    }
+
+    private String pedidoJson(ThreadLocalRandom r) {
+        int idx = r.nextInt(datos.usuarioIds().size());
+        StringBuilder sb = new StringBuilder()
+                .append("{\"usuarioId\":").append(datos.usuarioIds().get(idx))
+                .append(",\"direccionId\":").append(datos.direccionIds().get(idx));
+
+        // Uno de cada tres checkouts usa cupón
+        if (!datos.cuponIds().isEmpty() && r.nextInt(3) == 0) {
+            sb.append(",\"cuponId\":").append(elegir(datos.cuponIds(), r));
+        }
+
+        sb.append(",\"items\":[");
+        int lineas = 1 + r.nextInt(3);
+        for (int i = 0; i < lineas; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"productoId\":").append(elegir(datos.productoIds(), r))
+              .append(",\"cantidad\":").append(1 + r.nextInt(2)).append('}');
+        }
+        return sb.append("]}").toString();
+    }
+
+    private void get(String endpoint, String path) {
+        enviar(endpoint, HttpRequest.newBuilder(URI.create(baseUrl + path)).GET());
+    }
+
+    private void post(String endpoint, String path, String json) {
+        enviar(endpoint, HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json)));
+    }
+
+    private void enviar(String endpoint, HttpRequest.Builder builder) {
+        HttpRequest request = builder.timeout(Duration.ofSeconds(30)).build();
+        long inicio = System.nanoTime();
+        boolean ok;
+        try {
+            HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+            ok = response.statusCode() < 400;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            ok = false;
+        }
+        medidor.registrar(endpoint, System.nanoTime() - inicio, ok);
+    }
+
+    private static Long elegir(List<Long> ids, ThreadLocalRandom r) {
+        return ids.get(r.nextInt(ids.size()));
+    }
+}
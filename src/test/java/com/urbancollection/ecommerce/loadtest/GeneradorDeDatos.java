@@ -0,0 +1,151 @@
+package com.urbancollection.ecommerce.loadtest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.urbancollection.ecommerce.domain.entity.catalogo.Cupon;
+import com.urbancollection.ecommerce.domain.entity.catalogo.Producto;
+import com.urbancollection.ecommerce.domain.entity.logistica.Direccion;
+import com.urbancollection.ecommerce.domain.entity.usuarios.Usuario;
+import com.urbancollection.ecommerce.domain.entity.ventas.ItemPedido;
+import com.urbancollection.ecommerce.domain.entity.ventas.Pedido;
+import com.urbancollection.ecommerce.domain.enums.EstadoDePedido;
+import com.urbancollection.ecommerce.domain.enums.MetodoDePago;
+import com.urbancollection.ecommerce.domain.enums.TipoDescuento;
+import com.urbancollection.ecommerce.persistence.jpa.spring.CuponJpaRepository;
+import com.urbancollection.ecommerce.persistence.jpa.spring.DireccionJpaRepository;
+import com.urbancollection.ecommerce.persistence.jpa.spring.PedidoJpaRepository;
+import com.urbancollection.ecommerce.persistence.jpa.spring.ProductoJpaRepository;
+import com.urbancollection.ecommerce.persistence.jpa.spring.UsuarioJpaRepository;
+
+/**
+ * GeneradorDeDatos
+ *
+ * Llena la BD embebida con usuarios (cada uno con su dirección principal),
+ * productos, cupones y pedidos históricos antes de la prueba de carga.
+ *
+ * Usa una semilla fija para que dos corridas con la misma configuración
+ * generen exactamente los mismos datos (si no, no se pueden comparar).
+ */
+class GeneradorDeDatos {
+
+    // Ids de lo que se insertó, para que los escenarios armen peticiones válidas.
+    record DatosSembrados(List<Long> usuarioIds, List<Long> direccionIds,
+                          List<Long> productoIds, List<Long> cuponIds) {
+    }
+
+    private final UsuarioJpaRepository usuarioRepository;
+    private final DireccionJpaRepository direccionRepository;
+    private final ProductoJpaRepository productoRepository;
+    private final CuponJpaRepository cuponRepository;
+    private final PedidoJpaRepository pedidoRepository;
+
+    GeneradorDeDatos(UsuarioJpaRepository usuarioRepository,
+                     DireccionJpaRepository direccionRepository,
+                     ProductoJpaRepository productoRepository,
+                     CuponJpaRepository cuponRepository,
+                     PedidoJpaRepository pedidoRepository) {
+        this.usuarioRepository = usuarioRepository;
+        this.direccionRepository = direccionRepository;
+        this.productoRepository = productoRepository;
+        this.cuponRepository = cuponRepository;
+        this.pedidoRepository = pedidoRepository;
+    }
+
+    DatosSembrados sembrar(long seed, int usuarios, int productos, int cupones, int pedidos) {
+        Random random = new Random(seed);
+
+        // Usuarios + dirección principal (el checkout de /api/pedidos la pide)
+        List<Long> usuarioIds = new ArrayList<>();
+        List<Long> direccionIds = new ArrayList<>();
+        List<Usuario> usuariosGuardados = new ArrayList<>();
+        for (int i = 0; i < usuarios; i++) {
+            Usuario u = new Usuario();
+            u.setNombre("Cliente " + i);
+            u.setCorreo("cliente" + i + "@carga.test");
+            u.setContrasena("secreto");
+            u.setRol("CUSTOMER");
+            u = usuarioRepository.save(u);
+            usuariosGuardados.add(u);
+            usuarioIds.add(u.getId());
+
+            Direccion d = new Direccion();
+            d.setUsuarioId(u.getId().intValue());
+            d.setEsPrincipal(true);
+            d.setLinea1("Calle " + i);
+            d.setCiudad("Santo Domingo");
+            d.setPais("República Dominicana");
+            direccionIds.add(direccionRepository.save(d).getId());
+        }
+
+        // Productos con stock alto para que el checkout no se quede sin inventario
+        List<Long> productoIds = new ArrayList<>();
+        List<Producto> productosGuardados = new ArrayList<>();
+        for (int i = 0; i < productos; i++) {
+            Producto p = new Producto();
+            p.setNombre("Producto de carga " + i);
+            p.setDescripcion("Descripción generada " + i);
+            p.setPrecio(BigDecimal.valueOf(500 + random.nextInt(99_500), 2));
+            p.setStock(1_000_000);
+            p.setSku("LOAD-" + i);
+            p.setActivo(true);
+            p = productoRepository.save(p);
+            productosGuardados.add(p);
+            productoIds.add(p.getId());
+        }
+
+        // Cupones: mitad porcentaje, mitad monto fijo, todos vigentes
+        List<Long> cuponIds = new ArrayList<>();
+        for (int i = 0; i < cupones; i++) {
+            Cupon c = new Cupon();
+            c.setCodigo("CARGA" + i);
+            c.setActivo(true);
+            c.setFechaInicio(LocalDateTime.now().minusDays(1));
+            c.setFechaFin(LocalDateTime.now().plusDays(30));
+            c.setMinimoCompra(BigDecimal.ZERO);
+            if (i % 2 == 0) {
+                c.setTipo(TipoDescuento.PORCENTAJE);
+                c.setValorDescuento(BigDecimal.valueOf(5 + random.nextInt(20)));
+                c.setTopeDescuento(new BigDecimal("100.00"));
+            } else {
+                c.setTipo(TipoDescuento.MONTO_FIJO);
+                c.setValorDescuento(BigDecimal.valueOf(1 + random.nextInt(20)));
+            }
+            cuponIds.add(cuponRepository.save(c).getId());
+        }
+
+        // Pedidos históricos para que los listados y reportes tengan volumen real
+        EstadoDePedido[] estados = EstadoDePedido.values();
+        MetodoDePago[] metodos = MetodoDePago.values();
+        for (int i = 0; i < pedidos && !usuariosGuardados.isEmpty() && !productosGuardados.isEmpty(); i++) {
+            Pedido pedido = new Pedido();
+            pedido.setUsuario(usuariosGuardados.get(random.nextInt(usuariosGuardados.size())));
+            pedido.setEstado(estados[random.nextInt(estados.length)]);
+            pedido.setMetodoPago(metodos[random.nextInt(metodos.length)]);
+
+            BigDecimal subtotal = BigDecimal.ZERO;
+            int lineas = 1 + random.nextInt(4);
+            for (int j = 0; j < lineas; j++) {
+                Producto producto = productosGuardados.get(random.nextInt(productosGuardados.size()));
+                ItemPedido item = new ItemPedido();
+                item.setPedido(pedido);
+                item.setProducto(producto);
+                item.setCantidad(1 + random.nextInt(3));
+                item.setPrecioUnitario(producto.getPrecio());
+                pedido.agregarItem(item);
+                subtotal = subtotal.add(producto.getPrecio().multiply(BigDecimal.valueOf(item.getCantidad())));
+            }
+
+            pedido.setSubtotal(subtotal);
+            pedido.setDescuento(BigDecimal.ZERO);
+            pedido.setEnvio(BigDecimal.ZERO);
+            pedido.setTotal(subtotal);
+            pedidoRepository.save(pedido);
+        }
+
+        return new DatosSembrados(usuarioIds, direccionIds, productoIds, cuponIds);
+    }
+}
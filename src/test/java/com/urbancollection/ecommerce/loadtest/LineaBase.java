@@ -0,0 +1,79 @@
+package com.urbancollection.ecommerce.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.core.io.Resource;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.urbancollection.ecommerce.loadtest.MedidorDeLatencias.Resumen;
+
+/**
+ * LineaBase
+ *
+ * Lee la línea base guardada (JSON endpoint -> p50Ms / p99Ms / throughput),
+ * la compara contra la corrida actual y escribe el resultado nuevo a disco.
+ *
+ * Para "subir" la línea base después de un cambio aceptado, basta con copiar
+ * target/loadtest/resultado.json encima de src/test/resources/loadtest/baseline.json.
+ *
+ * El baseline.json del repositorio está vacío ({}) hasta que se copie ahí una
+ * corrida medida: sin línea base no se compara nada y la prueba solo controla
+ * la tasa de errores. No poner números estimados a mano.
+ */
+class LineaBase {
+
+    record Valores(double p50Ms, double p99Ms, double throughput) {
+    }
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private LineaBase() {
+    }
+
+    static Map<String, Valores> leer(Resource recurso) throws IOException {
+        if (recurso == null || !recurso.exists()) return Map.of();
+        try (InputStream in = recurso.getInputStream()) {
+            return MAPPER.readValue(in, new TypeReference<Map<String, Valores>>() {});
+        }
+    }
+
+    static void escribir(Path destino, Map<String, Resumen> actual) throws IOException {
+        Map<String, Valores> salida = new LinkedHashMap<>();
+        actual.forEach((endpoint, r) -> salida.put(endpoint, new Valores(r.p50Ms(), r.p99Ms(), r.throughput())));
+        Files.createDirectories(destino.toAbsolutePath().getParent());
+        MAPPER.writeValue(destino.toFile(), salida);
+    }
+
+    /**
+     * Devuelve la lista de regresiones (vacía si todo está dentro de la tolerancia).
+     * Un endpoint empeora si su p99 sube, o su throughput baja, más que "tolerancia".
+     * Endpoints sin línea base no se comparan.
+     */
+    static List<String> regresiones(Map<String, Valores> base, Map<String, Resumen> actual, double tolerancia) {
+        List<String> problemas = new ArrayList<>();
+        base.forEach((endpoint, esperado) -> {
+            Resumen r = actual.get(endpoint);
+            if (r == null) {
+                problemas.add(endpoint + ": no se ejecutó en esta corrida");
+                return;
+            }
+            if (r.p99Ms() > esperado.p99Ms() * (1 + tolerancia)) {
+                problemas.add(String.format("%s: p99 %.1f ms > línea base %.1f ms", endpoint, r.p99Ms(), esperado.p99Ms()));
+            }
+            if (r.throughput() < esperado.throughput() * (1 - tolerancia)) {
+                problemas.add(String.format("%s: throughput %.1f req/s < línea base %.1f req/s",
+                        endpoint, r.throughput(), esperado.throughput()));
+            }
+        });
+        return problemas;
+    }
+}
@@ -0,0 +1,75 @@
+package com.urbancollection.ecommerce.loadtest;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * MedidorDeLatencias
+ *
+ * Guarda la latencia (en nanosegundos) de cada petición, agrupada por endpoint,
+ * y al final calcula p50 / p99 / throughput por endpoint.
+ *
+ * Cada endpoint tiene su propio buffer sincronizado para que los hilos
+ * de carga no compitan todos por el mismo lock.
+ */
+class MedidorDeLatencias {
+
+    // Resultado por endpoint
+    record Resumen(long peticiones, long errores, double p50Ms, double p99Ms, double throughput) {
+    }
+
+    // Arreglo de longs que crece solo (más barato que List<Long>)
+    private static final class Muestras {
+        private long[] valores = new long[1024];
+        private int tamano;
+        private final AtomicLong errores = new AtomicLong();
+
+        synchronized void agregar(long nanos) {
+            if (tamano == valores.length) {
+                valores = Arrays.copyOf(valores, tamano * 2);
+            }
+            valores[tamano++] = nanos;
+        }
+
+        synchronized long[] copiaOrdenada() {
+            long[] copia = Arrays.copyOf(valores, tamano);
+            Arrays.sort(copia);
+            return copia;
+        }
+    }
+
+    private final Map<String, Muestras> porEndpoint = new ConcurrentHashMap<>();
+
+    void registrar(String endpoint, long nanos, boolean ok) {
+        Muestras m = porEndpoint.computeIfAbsent(endpoint, e -> new Muestras());
+        m.agregar(nanos);
+        if (!ok) {
+            m.errores.incrementAndGet();
+        }
+    }
+
+    // Calcula el resumen de cada endpoint para una ventana de "segundos" de duración.
+    Map<String, Resumen> resumir(double segundos) {
+        Map<String, Resumen> resultado = new TreeMap<>();
+        porEndpoint.forEach((endpoint, m) -> {
+            long[] ordenadas = m.copiaOrdenada();
+            resultado.put(endpoint, new Resumen(
+                    ordenadas.length,
+                    m.errores.get(),
+                    percentilMs(ordenadas, 0.50),
+                    percentilMs(ordenadas, 0.99),
+                    ordenadas.length / segundos));
+        });
+        return resultado;
+    }
+
+    // Percentil por "nearest rank" sobre las muestras ya ordenadas.
+    private static double percentilMs(long[] ordenadas, double p) {
+        if (ordenadas.length == 0) return 0.0;
+        int idx = (int) Math.ceil(p * ordenadas.length) - 1;
+        return ordenadas[Math.max(0, Math.min(idx, ordenadas.length - 1))] / 1_000_000.0;
+    }
+}